@@ -0,0 +1,217 @@
+package com.vdt.crawler.frontier_service.service;
+
+import com.vdt.crawler.frontier_service.config.BudgetConfig;
+import com.vdt.crawler.frontier_service.config.CanonicalizationConfig;
+import com.vdt.crawler.frontier_service.config.DomainCacheConfig;
+import com.vdt.crawler.frontier_service.config.ScoringConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import com.vdt.crawler.frontier_service.service.budget.CrawlBudgets;
+import com.vdt.crawler.frontier_service.service.cache.DomainCache;
+import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtConfig;
+import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtParser;
+import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtServer;
+import com.vdt.crawler.frontier_service.service.scoring.WeightedUrlScorer;
+import com.vdt.crawler.frontier_service.service.state.DomainStateStore;
+import com.vdt.crawler.frontier_service.service.storage.FrontierStore;
+import com.vdt.crawler.frontier_service.utils.UrlCanonicalizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost per URL of the frontier hot paths, without Mongo, Kafka or network: every domain is in the
+ * domain cache, every robots.txt is in the robots.txt cache and the repositories are stubs that
+ * fail if they are ever reached.
+ *
+ * URLs are fresh on every invocation, their hosts follow a Zipf distribution ({@link SyntheticUrls}).
+ * Robots.txt sets no crawl delay, so the back queues hand out every URL right away.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FrontierServiceBenchmark {
+
+    static final int BATCH = 10_000;
+    private static final int[] PRIORITIES = {3, 2, 1};
+    private static final String ROBOTS_TXT = """
+            User-agent: *
+            Disallow: /admin/
+            Disallow: /*?utm_source=
+            Crawl-delay: 0
+            """;
+
+    @State(Scope.Benchmark)
+    public static class Frontier {
+        @Param({"100", "10000"})
+        public int hosts;
+
+        @Param({"1.1"})
+        public double skew;
+
+        FrontierService frontierService;
+        SyntheticUrls urls;
+        private PreloadedRobotstxtServer robotstxtServer;
+        private Path dir;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            urls = new SyntheticUrls(hosts, skew, 42);
+            FrontierMetrics metrics = new FrontierMetrics(new SimpleMeterRegistry());
+
+            DomainRepository domainRepository = (DomainRepository) Proxy.newProxyInstance(
+                    DomainRepository.class.getClassLoader(), new Class<?>[]{DomainRepository.class},
+                    (proxy, method, args) -> {
+                        throw new UnsupportedOperationException("Every domain is cached: " + method.getName());
+                    });
+            DomainCacheConfig cacheConfig = new DomainCacheConfig();
+            cacheConfig.setMaxSize(hosts);
+            DomainCache domainCache = new DomainCache(domainRepository, cacheConfig, metrics);
+
+            RobotstxtConfig robotsConfig = new RobotstxtConfig();
+            robotsConfig.setCacheSize(hosts);
+            robotstxtServer = new PreloadedRobotstxtServer(robotsConfig, metrics);
+
+            String[] hostNames = urls.hosts();
+            for (int i = 0; i < hostNames.length; i++) {
+                domainCache.put(Domain.builder()
+                        .domain(hostNames[i])
+                        .priority(PRIORITIES[i % PRIORITIES.length])
+                        .build());
+                robotstxtServer.preload(hostNames[i], ROBOTS_TXT);
+            }
+
+            dir = Files.createTempDirectory("frontier-bench");
+            // Crawl state is never flushed during a run, so no MongoTemplate is needed
+            DomainStateStore domainStateStore = new DomainStateStore(domainCache, null, metrics);
+            CanonicalizationConfig canonicalization = new CanonicalizationConfig();
+            UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer(canonicalization.getStripParams(),
+                    canonicalization.getDomainStripParams(), canonicalization.isRemoveTrailingSlash());
+            ScoringConfig scoring = new ScoringConfig();
+            // The skewed hosts would be deferred by their budget, only the queue path is measured
+            BudgetConfig budget = new BudgetConfig();
+            budget.setEnabled(false);
+            frontierService = new FrontierService(robotstxtServer, domainStateStore, urlCanonicalizer,
+                    new WeightedUrlScorer(scoring), scoring, new CrawlBudgets(budget, metrics), metrics,
+                    new FrontierStore(dir, 64L * 1024 * 1024));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            robotstxtServer.close();
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * A batch of URLs never seen before, the frontier is emptied after every invocation
+     */
+    @State(Scope.Thread)
+    public static class FreshUrls {
+        final String[] batch = new String[BATCH];
+        private Frontier frontier;
+
+        @Setup(Level.Invocation)
+        public void next(Frontier frontier) {
+            this.frontier = frontier;
+            for (int i = 0; i < BATCH; i++) {
+                batch[i] = frontier.urls.next();
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void drain() {
+            frontier.frontierService.clear();
+        }
+    }
+
+    /**
+     * A batch of URLs already in the front queues
+     */
+    @State(Scope.Thread)
+    public static class QueuedUrls {
+        private Frontier frontier;
+
+        @Setup(Level.Invocation)
+        public void fill(Frontier frontier) throws InterruptedException {
+            this.frontier = frontier;
+            String[] batch = new String[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                batch[i] = frontier.urls.next();
+            }
+            frontier.frontierService.addBatchToFrontier(List.of(batch), UrlOrigin.DISCOVERED);
+        }
+
+        @TearDown(Level.Invocation)
+        public void drain() {
+            frontier.frontierService.clear();
+        }
+    }
+
+    /**
+     * Canonicalization, dedup, domain lookup, robots.txt check and front queue insert of one URL
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void addToFrontier(Frontier frontier, FreshUrls urls) {
+        for (String url : urls.batch) {
+            frontier.frontierService.addToFrontier(url);
+        }
+    }
+
+    /**
+     * One URL from the front queues to its host back queue and out to the fetchers
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void frontToBackToDispatch(Frontier frontier, QueuedUrls queued, Blackhole blackhole) {
+        FrontierService frontierService = frontier.frontierService;
+        frontierService.moveToBackQueues(BATCH);
+        String url;
+        while ((url = frontierService.getNextUrlFromBackQueue()) != null) {
+            blackhole.consume(url);
+        }
+    }
+
+    /**
+     * Robots.txt server whose cache is filled up front, it never fetches
+     */
+    private static final class PreloadedRobotstxtServer extends RobotstxtServer {
+
+        PreloadedRobotstxtServer(RobotstxtConfig config, FrontierMetrics frontierMetrics) {
+            super(config, null, frontierMetrics);
+        }
+
+        void preload(String host, String content) {
+            synchronized (host2directivesCache) {
+                host2directivesCache.put(host, RobotstxtParser.parse(content, config));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FrontierServiceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
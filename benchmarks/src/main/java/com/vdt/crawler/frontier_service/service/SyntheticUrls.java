@@ -0,0 +1,68 @@
+package com.vdt.crawler.frontier_service.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Endless stream of distinct article URLs whose hosts follow a Zipf distribution: host k is
+ * picked with a probability proportional to 1 / k^skew, like links found on news sites where a
+ * few big portals dominate. Seeded, so every run sees the same sequence.
+ */
+public class SyntheticUrls {
+
+    private static final String[] SECTIONS = {"thoi-su", "the-gioi", "kinh-doanh", "giai-tri", "the-thao",
+            "phap-luat", "giao-duc", "suc-khoe", "doi-song", "du-lich", "khoa-hoc", "so-hoa"};
+
+    private final String[] hosts;
+    // Cumulative probability of hosts[0..k]
+    private final double[] cdf;
+    private final SplittableRandom random;
+    private long nextId = 4_000_000;
+
+    public SyntheticUrls(int hostCount, double skew, long seed) {
+        this.hosts = new String[hostCount];
+        this.cdf = new double[hostCount];
+        this.random = new SplittableRandom(seed);
+
+        double total = 0;
+        for (int k = 0; k < hostCount; k++) {
+            hosts[k] = host(k);
+            total += 1 / Math.pow(k + 1, skew);
+            cdf[k] = total;
+        }
+        for (int k = 0; k < hostCount; k++) {
+            cdf[k] /= total;
+        }
+    }
+
+    public static String host(int k) {
+        return "news-" + k + ".example.vn";
+    }
+
+    public String[] hosts() {
+        return hosts.clone();
+    }
+
+    public String nextHost() {
+        double p = random.nextDouble();
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < p) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return hosts[low];
+    }
+
+    /**
+     * A URL never returned before
+     */
+    public String next() {
+        long id = nextId++;
+        return "https://" + nextHost() + "/" + SECTIONS[random.nextInt(SECTIONS.length)]
+                + "/bai-viet-so-" + Long.toString(id, 36) + "-" + id + ".html";
+    }
+}
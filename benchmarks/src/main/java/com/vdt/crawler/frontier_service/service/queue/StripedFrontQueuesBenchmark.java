@@ -0,0 +1,67 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the front queues shared by threads that each enqueue then dequeue one URL, as the
+ * consumers and the dispatcher do. Run with -t 1,2,4,... to see how the striped locks scale.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StripedFrontQueuesBenchmark {
+
+    private static final List<Integer> SCHEDULE = List.of(3, 3, 3, 3, 3, 2, 2, 2, 1);
+    private static final int HOSTS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Queues {
+        StripedFrontQueues queues;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            queues = new StripedFrontQueues(SCHEDULE, Integer.MAX_VALUE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Urls {
+        final UrlWithTimestamp[] items = new UrlWithTimestamp[1024];
+        int next;
+
+        @Setup
+        public void setUp() {
+            long thread = Thread.currentThread().getId();
+            for (int i = 0; i < items.length; i++) {
+                String host = "host" + (i % HOSTS) + ".vn";
+                items[i] = new UrlWithTimestamp("https://" + host + "/" + thread + "/" + i, null);
+            }
+        }
+    }
+
+    @Benchmark
+    public UrlWithTimestamp offerThenPoll(Queues queues, Urls urls) {
+        int i = urls.next;
+        urls.next = (i + 1) & (urls.items.length - 1);
+        UrlWithTimestamp item = urls.items[i];
+        queues.queues.offer(item.getHost(), 1 + (i % 3), item);
+        return queues.queues.poll();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StripedFrontQueuesBenchmark.class.getSimpleName())
+                .threads(Runtime.getRuntime().availableProcessors())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.function.IntFunction;
+
+/**
+ * Heap footprint of a queued URL, plain String vs {@link EncodedUrl}. Retained heap is not
+ * something JMH measures, so this is a plain program; run it with a large heap:
+ * java -Xmx8g -cp target/benchmarks.jar com.vdt.crawler.frontier_service.service.queue.UrlFootprintBenchmark
+ */
+public class UrlFootprintBenchmark {
+
+    private static final int HOSTS = 1000;
+    private static final Instant[] DOMAIN_LAST_CRAWLED = new Instant[HOSTS];
+
+    static {
+        for (int i = 0; i < HOSTS; i++) {
+            DOMAIN_LAST_CRAWLED[i] = Instant.now().minusSeconds(i);
+        }
+    }
+
+    /**
+     * Previous front queue item: full URL string plus the domain's Instant
+     */
+    private record LegacyItem(String url, Instant lastCrawled) {
+    }
+
+    private static String url(int i) {
+        int host = i % HOSTS;
+        return "https://www.news-site-" + host + ".com.vn/thoi-su/bai-viet-so-" + i + "-chi-tiet.html?ref=home";
+    }
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "1000000,10000000";
+        for (String size : sizes.split(",")) {
+            int count = Integer.parseInt(size.trim());
+
+            long frontBefore = measure(count, i -> new LegacyItem(url(i), DOMAIN_LAST_CRAWLED[i % HOSTS]));
+            long frontAfter = measure(count, i -> new UrlWithTimestamp(url(i), DOMAIN_LAST_CRAWLED[i % HOSTS]));
+            long backBefore = measure(count, UrlFootprintBenchmark::url);
+            long backAfter = measure(count, i -> EncodedUrl.of(url(i)));
+
+            System.out.printf("%,d URLs: front queue item %d -> %d bytes/URL, back queue item %d -> %d bytes/URL%n",
+                    count, frontBefore / count, frontAfter / count, backBefore / count, backAfter / count);
+        }
+    }
+
+    /**
+     * Heap retained by count items held in a queue
+     */
+    private static long measure(int count, IntFunction<Object> factory) {
+        ArrayDeque<Object> queue = new ArrayDeque<>(count);
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            queue.add(factory.apply(i));
+        }
+        long after = usedHeap();
+        // keep the queue reachable until after the measurement
+        if (queue.size() != count) {
+            throw new IllegalStateException("queue lost items");
+        }
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,129 @@
+package com.vdt.crawler.frontier_service.service.robotstxt;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one robots.txt check ({@link HostDirectives#allows}) on the robots.txt files in
+ * src/main/resources/robotstxt, compiled {@link RobotsMatcher} vs the previous per-call TreeSet
+ * of regex rules.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RobotsMatcherBenchmark {
+
+    private static final String[] PATHS = {
+            "/thoi-su/chinh-phu-hop-phien-thuong-ky-4781234.html",
+            "/the-gioi/amp/my-trung-dam-phan-4781235.html",
+            "/kinh-doanh/archive/2023/01",
+            "/kinh-doanh/chung-khoan-tang-diem-4781236.html?utm_source=facebook",
+            "/tag/bong-da-123?page=4",
+            "/sitemaps/2024-05.xml",
+            "/wp-admin/admin-ajax.php",
+            "/the-thao/world-cup/2026/lich-thi-dau/print",
+            "/video/embed/abc",
+            "/giai-tri/sao-viet/ca-si-phat-hanh-album-moi-4781237.html",
+    };
+
+    @Param({"news-portal.txt", "wordpress-blog.txt", "minimal.txt"})
+    public String robotsFile;
+
+    private HostDirectives directives;
+    // Rules of the wildcard group as they were matched before: one regex per rule
+    private List<PathRule> legacyRules;
+
+    @Setup
+    public void setUp() {
+        String content = read("/robotstxt/" + robotsFile);
+        RobotstxtConfig config = new RobotstxtConfig();
+        directives = RobotstxtParser.parse(content, config);
+
+        legacyRules = new ArrayList<>();
+        boolean inWildcardGroup = false;
+        for (String line : content.split("\n")) {
+            String[] parts = line.split(":", 2);
+            if (parts.length < 2) {
+                continue;
+            }
+            String key = parts[0].trim().toLowerCase();
+            String value = parts[1].trim();
+            if (key.equals("user-agent")) {
+                inWildcardGroup = value.equals("*");
+            } else if (inWildcardGroup && key.equals("allow")) {
+                legacyRules.add(new PathRule(HostDirectives.ALLOWED, value));
+            } else if (inWildcardGroup && key.equals("disallow")) {
+                legacyRules.add(new PathRule(HostDirectives.DISALLOWED, value));
+            }
+        }
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = RobotsMatcherBenchmark.class.getResourceAsStream(resource)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        for (String path : PATHS) {
+            blackhole.consume(directives.allows(path));
+        }
+    }
+
+    @Benchmark
+    public void legacyTreeSet(Blackhole blackhole) {
+        for (String path : PATHS) {
+            // Same ordering as the former UserAgentDirectives.PathComparator
+            Set<PathRule> rules = new TreeSet<>((lhs, rhs) -> {
+                boolean p1Match = lhs.matches(path);
+                boolean p2Match = rhs.matches(path);
+                if (p1Match != p2Match) {
+                    return p1Match ? -1 : 1;
+                }
+                String p1 = lhs.pattern.toString();
+                String p2 = rhs.pattern.toString();
+                if (p1.length() != p2.length()) {
+                    return Integer.compare(p2.length(), p1.length());
+                }
+                return p1.compareTo(p2);
+            });
+            rules.addAll(legacyRules);
+
+            int verdict = HostDirectives.UNDEFINED;
+            for (PathRule rule : rules) {
+                if (rule.matches(path)) {
+                    verdict = rule.type;
+                    break;
+                }
+            }
+            blackhole.consume(verdict != HostDirectives.DISALLOWED);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RobotsMatcherBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
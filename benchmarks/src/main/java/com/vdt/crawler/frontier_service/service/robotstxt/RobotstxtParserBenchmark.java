@@ -0,0 +1,54 @@
+package com.vdt.crawler.frontier_service.service.robotstxt;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing and compiling one robots.txt file ({@link RobotstxtParser#parse}), paid once per
+ * host every time its robots.txt is fetched or restored.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RobotstxtParserBenchmark {
+
+    @Param({"news-portal.txt", "wordpress-blog.txt", "minimal.txt"})
+    public String robotsFile;
+
+    private String content;
+    private RobotstxtConfig config;
+
+    @Setup
+    public void setUp() {
+        try (InputStream in = RobotstxtParserBenchmark.class.getResourceAsStream("/robotstxt/" + robotsFile)) {
+            content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        config = new RobotstxtConfig();
+    }
+
+    @Benchmark
+    public HostDirectives parse() {
+        return RobotstxtParser.parse(content, config);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RobotstxtParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.vdt.crawler.frontier_service.utils;
+
+import com.vdt.crawler.frontier_service.config.CanonicalizationConfig;
+import com.vdt.crawler.frontier_service.service.SyntheticUrls;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of canonicalizing one URL at frontier ingress ({@link UrlCanonicalizer#canonicalize}), paid by
+ * every URL before dedup. Clean URLs are already canonical, tracked ones carry tracking parameters,
+ * an unsorted query, a fragment and a default port.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class UrlCanonicalizerBenchmark {
+
+    private static final int URLS = 1024;
+
+    @Param({"clean", "tracked"})
+    public String shape;
+
+    private UrlCanonicalizer canonicalizer;
+    private final String[] urls = new String[URLS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        CanonicalizationConfig config = new CanonicalizationConfig();
+        canonicalizer = new UrlCanonicalizer(config.getStripParams(), config.getDomainStripParams(),
+                config.isRemoveTrailingSlash());
+        SyntheticUrls synthetic = new SyntheticUrls(100, 1.1, 42);
+        for (int i = 0; i < URLS; i++) {
+            String url = synthetic.next();
+            urls[i] = shape.equals("clean") ? url
+                    : url.replace("https://", "HTTPS://").replace(".vn/", ".vn:443/")
+                    + "?page=2&utm_source=facebook&utm_medium=social&fbclid=IwAR3x&id=" + i + "#comments";
+        }
+    }
+
+    @Benchmark
+    public String canonicalize() {
+        String url = urls[next];
+        next = (next + 1) & (URLS - 1);
+        return canonicalizer.canonicalize(url);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UrlCanonicalizerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
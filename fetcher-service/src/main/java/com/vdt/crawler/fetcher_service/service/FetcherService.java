@@ -2,13 +2,16 @@ package com.vdt.crawler.fetcher_service.service;
 
 import com.vdt.crawler.fetcher_service.exception.PageBiggerThanMaxSizeException;
 import com.vdt.crawler.fetcher_service.metric.FetcherMetrics;
-import com.vdt.crawler.fetcher_service.model.Domain;
+import com.vdt.crawler.fetcher_service.model.DomainFetchReport;
 import com.vdt.crawler.fetcher_service.model.RetryUrlMessage;
 import com.vdt.crawler.fetcher_service.model.URLMetaData;
 import com.vdt.crawler.fetcher_service.repository.URLRepository;
 import com.vdt.crawler.fetcher_service.util.UrlHashUtil;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.utils.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +27,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.*;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Date;
 
 @Service
 public class FetcherService {
@@ -98,7 +102,7 @@ public class FetcherService {
             return;
         }
 
-        updateHostFetchStatus(host);
+        updateHostFetchStatus(host, result.getContentData() != null ? result.getContentData().length : 0);
 
         URLMetaData urlMetaData = urlRepository.findById(urlHash)
                 .orElseGet(() -> {
@@ -117,8 +121,9 @@ public class FetcherService {
             urlRepository.save(urlMetaData);
             redisTemplate.opsForValue().set("status:" + urlHash, (long) result.getStatusCode(), Duration.ofMinutes(20));
             redisTemplate.opsForValue().set("retry_count:" + urlHash, (long) urlMetaData.getRetryCount(),  Duration.ofMinutes(20));
-            retryKafkaTemplate.send("retry_url_tasks", new RetryUrlMessage(url, urlMetaData.getRetryCount(),
-                    urlMetaData.getLastAttempt(), urlMetaData.getStatusCode()));
+            // Keyed by host, like new_url_tasks, for the frontier shard owning it
+            retryKafkaTemplate.send("retry_url_tasks", host.toLowerCase(), new RetryUrlMessage(url, urlMetaData.getRetryCount(),
+                    urlMetaData.getLastAttempt(), urlMetaData.getStatusCode(), retryAfter(result, urlMetaData.getLastAttempt())));
             fetcherMetrics.incrementFailedUrls(host);
             return;
         }
@@ -182,17 +187,44 @@ public class FetcherService {
         return fetchResult;
     }
 
-    public void updateHostFetchStatus(String host) {
+    /**
+     * Time the server asked us to come back at with Retry-After (delay in seconds or HTTP date), or null
+     */
+    private static Instant retryAfter(PageFetchResult result, Instant attempt) {
+        Header[] headers = result.getResponseHeaders();
+        if (headers == null) {
+            return null;
+        }
+        for (Header header : headers) {
+            if (!HttpHeaders.RETRY_AFTER.equalsIgnoreCase(header.getName()) || header.getValue() == null) {
+                continue;
+            }
+            String value = header.getValue().trim();
+            try {
+                return attempt.plusSeconds(Math.max(0, Long.parseLong(value)));
+            } catch (NumberFormatException e) {
+                Date date = DateUtils.parseDate(value);
+                return date != null ? date.toInstant() : null;
+            }
+        }
+        return null;
+    }
+
+    public void updateHostFetchStatus(String host, long bytes) {
         String hostHash = UrlHashUtil.generateUrlHash(host);
         String keyFetchCount = "domain_tracker:fetch_count:" + hostHash;
+        String keyFetchBytes = "domain_tracker:fetch_bytes:" + hostHash;
         String keyLastCrawl = "domain_tracker:last_crawl:" + hostHash;
 
         Long fetchCount = redisTemplate.opsForValue().increment(keyFetchCount, 1);
+        // Charged to the crawl budget of the domain by the frontier
+        Long fetchBytes = redisTemplate.opsForValue().increment(keyFetchBytes, bytes);
         Long lastUpdate = redisTemplate.opsForValue().get(keyLastCrawl);
         Instant now = Instant.now();
         long nowMilli = Instant.now().toEpochMilli();
 
         fetchCount = fetchCount != null ? fetchCount : 1;
+        fetchBytes = fetchBytes != null ? fetchBytes : bytes;
         lastUpdate = lastUpdate != null ? lastUpdate: 0L;
 
         boolean shouldUpdate = fetchCount >= 10 || nowMilli - lastUpdate > Duration.ofMinutes(3).toMillis();
@@ -202,14 +234,12 @@ public class FetcherService {
 
             // Gọi API update domain
             try {
-                Domain updated = new Domain();
-                updated.setDomain(host);
-                updated.setLastCrawled(now);
-
-                restTemplate.put("http://" + frontierHost + ":8091/api/domains/" + host, updated);
+                DomainFetchReport report = new DomainFetchReport(fetchCount, now, fetchBytes);
+                restTemplate.postForLocation("http://" + frontierHost + ":8091/api/domains/" + host + "/fetches", report);
 
                 // Reset counter và update time
                 redisTemplate.opsForValue().set(keyFetchCount, 0L, Duration.ofMinutes(20));
+                redisTemplate.opsForValue().set(keyFetchBytes, 0L, Duration.ofMinutes(20));
                 redisTemplate.opsForValue().set(keyLastCrawl, nowMilli, Duration.ofMinutes(20));
             } catch (Exception e) {
                 logger.error("Failed to update domain: {}", host, e);
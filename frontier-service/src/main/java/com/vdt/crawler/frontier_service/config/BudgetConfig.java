@@ -0,0 +1,61 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.budget")
+public class BudgetConfig {
+    /**
+     * Enforce the crawl budgets of the domains
+     */
+    private boolean enabled = false;
+
+    /**
+     * URLs a domain may put in the memory queues per hour, unless its document sets its own.
+     * 0 is unlimited.
+     */
+    private long defaultUrlsPerHour = 6000;
+
+    /**
+     * Bytes a domain may have fetched per hour, unless its document sets its own. 0 is unlimited.
+     */
+    private long defaultBytesPerHour = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * A domain may spend the budget earned in this time at once
+     */
+    private long burstMs = 10 * 60 * 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getDefaultUrlsPerHour() {
+        return defaultUrlsPerHour;
+    }
+
+    public void setDefaultUrlsPerHour(long defaultUrlsPerHour) {
+        this.defaultUrlsPerHour = defaultUrlsPerHour;
+    }
+
+    public long getDefaultBytesPerHour() {
+        return defaultBytesPerHour;
+    }
+
+    public void setDefaultBytesPerHour(long defaultBytesPerHour) {
+        this.defaultBytesPerHour = defaultBytesPerHour;
+    }
+
+    public long getBurstMs() {
+        return burstMs;
+    }
+
+    public void setBurstMs(long burstMs) {
+        this.burstMs = burstMs;
+    }
+}
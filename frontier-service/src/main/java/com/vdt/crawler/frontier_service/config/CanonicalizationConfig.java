@@ -0,0 +1,53 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.canonicalization")
+public class CanonicalizationConfig {
+    /**
+     * Query parameters stripped from the URLs of every host, "utm_*" matches by prefix
+     */
+    private List<String> stripParams = new ArrayList<>(List.of("utm_*", "fbclid", "gclid", "dclid", "msclkid",
+            "yclid", "igshid", "mc_cid", "mc_eid", "_ga", "jsessionid", "phpsessid", "aspsessionid"));
+
+    /**
+     * Query parameters stripped from the URLs of one domain and its subdomains, on top of stripParams
+     */
+    private Map<String, List<String>> domainStripParams = new HashMap<>();
+
+    /**
+     * Drop the trailing slash of every path but the root one
+     */
+    private boolean removeTrailingSlash = true;
+
+    public List<String> getStripParams() {
+        return stripParams;
+    }
+
+    public void setStripParams(List<String> stripParams) {
+        this.stripParams = stripParams;
+    }
+
+    public Map<String, List<String>> getDomainStripParams() {
+        return domainStripParams;
+    }
+
+    public void setDomainStripParams(Map<String, List<String>> domainStripParams) {
+        this.domainStripParams = domainStripParams;
+    }
+
+    public boolean isRemoveTrailingSlash() {
+        return removeTrailingSlash;
+    }
+
+    public void setRemoveTrailingSlash(boolean removeTrailingSlash) {
+        this.removeTrailingSlash = removeTrailingSlash;
+    }
+}
@@ -0,0 +1,131 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.dispatch")
+public class DispatchConfig {
+    /**
+     * Topic consumed by the fetchers
+     */
+    private String topic = "fetching_tasks";
+
+    /**
+     * Consumer group of the fetchers, its lag is the number of URLs in flight
+     */
+    private String consumerGroup = "fetching_group";
+
+    /**
+     * Credit window bounds: maximum number of URLs waiting for a fetcher
+     */
+    private int initialCredits = 50;
+    private int minCredits = 10;
+    private int maxCredits = 5000;
+
+    /**
+     * Window grows by this many credits per tick while fetchers keep up
+     */
+    private int additiveIncrease = 20;
+
+    /**
+     * Window is multiplied by this factor when fetchers fall behind
+     */
+    private double multiplicativeDecrease = 0.5;
+
+    /**
+     * Timeout of the consumer group lag lookup
+     */
+    private long lagTimeoutMs = 3000;
+
+    /**
+     * Period of the credit window: the lag is read and the window adapted once per period, the
+     * credits of a period are spent as soon as URLs are ready
+     */
+    private long intervalMs = 1000;
+
+    /**
+     * How often URLs spilled on disk are paged back into the front queues
+     */
+    private long refillIntervalMs = 1000;
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    public void setConsumerGroup(String consumerGroup) {
+        this.consumerGroup = consumerGroup;
+    }
+
+    public int getInitialCredits() {
+        return initialCredits;
+    }
+
+    public void setInitialCredits(int initialCredits) {
+        this.initialCredits = initialCredits;
+    }
+
+    public int getMinCredits() {
+        return minCredits;
+    }
+
+    public void setMinCredits(int minCredits) {
+        this.minCredits = minCredits;
+    }
+
+    public int getMaxCredits() {
+        return maxCredits;
+    }
+
+    public void setMaxCredits(int maxCredits) {
+        this.maxCredits = maxCredits;
+    }
+
+    public int getAdditiveIncrease() {
+        return additiveIncrease;
+    }
+
+    public void setAdditiveIncrease(int additiveIncrease) {
+        this.additiveIncrease = additiveIncrease;
+    }
+
+    public double getMultiplicativeDecrease() {
+        return multiplicativeDecrease;
+    }
+
+    public void setMultiplicativeDecrease(double multiplicativeDecrease) {
+        this.multiplicativeDecrease = multiplicativeDecrease;
+    }
+
+    public long getLagTimeoutMs() {
+        return lagTimeoutMs;
+    }
+
+    public void setLagTimeoutMs(long lagTimeoutMs) {
+        this.lagTimeoutMs = lagTimeoutMs;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public long getRefillIntervalMs() {
+        return refillIntervalMs;
+    }
+
+    public void setRefillIntervalMs(long refillIntervalMs) {
+        this.refillIntervalMs = refillIntervalMs;
+    }
+}
@@ -0,0 +1,60 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.domain-cache")
+public class DomainCacheConfig {
+    /**
+     * Maximum number of known domains kept in memory
+     */
+    private int maxSize = 10000;
+
+    /**
+     * Maximum number of unknown hosts remembered as negative lookups
+     */
+    private int maxNegativeSize = 100000;
+
+    /**
+     * How long an unknown host is remembered before Mongo is asked again
+     */
+    private long negativeTtlMs = 600000;
+
+    /**
+     * Interval of the full reload, which also catches domains deleted directly in Mongo
+     */
+    private long fullRefreshIntervalMs = 3600000;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxNegativeSize() {
+        return maxNegativeSize;
+    }
+
+    public void setMaxNegativeSize(int maxNegativeSize) {
+        this.maxNegativeSize = maxNegativeSize;
+    }
+
+    public long getNegativeTtlMs() {
+        return negativeTtlMs;
+    }
+
+    public void setNegativeTtlMs(long negativeTtlMs) {
+        this.negativeTtlMs = negativeTtlMs;
+    }
+
+    public long getFullRefreshIntervalMs() {
+        return fullRefreshIntervalMs;
+    }
+
+    public void setFullRefreshIntervalMs(long fullRefreshIntervalMs) {
+        this.fullRefreshIntervalMs = fullRefreshIntervalMs;
+    }
+}
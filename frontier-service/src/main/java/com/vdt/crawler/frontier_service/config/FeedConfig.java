@@ -0,0 +1,127 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.feed")
+public class FeedConfig {
+    /**
+     * Poll the RSS/Atom feeds of the active domains
+     */
+    private boolean enabled = true;
+
+    /**
+     * Look for the feeds announced by the home page of the domains without configured feeds
+     */
+    private boolean autoDiscover = true;
+
+    /**
+     * Bounds of the poll interval of a feed, which follows the interval between its entries
+     */
+    private long minPollIntervalMs = 15 * 1000;
+    private long maxPollIntervalMs = 30 * 60 * 1000;
+
+    /**
+     * Entries published longer ago are ignored
+     */
+    private long maxArticleAgeMs = 48 * 3600 * 1000;
+
+    private long maxFeedBytes = 5L * 1024 * 1024;
+
+    /**
+     * Most feeds polled per domain
+     */
+    private int maxFeedsPerDomain = 20;
+
+    /**
+     * Feeds fetched at the same time
+     */
+    private int fetchThreads = 4;
+
+    /**
+     * Timing wheel resolution and number of buckets per level
+     */
+    private long tickMs = 1000;
+    private int wheelSize = 512;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isAutoDiscover() {
+        return autoDiscover;
+    }
+
+    public void setAutoDiscover(boolean autoDiscover) {
+        this.autoDiscover = autoDiscover;
+    }
+
+    public long getMinPollIntervalMs() {
+        return minPollIntervalMs;
+    }
+
+    public void setMinPollIntervalMs(long minPollIntervalMs) {
+        this.minPollIntervalMs = minPollIntervalMs;
+    }
+
+    public long getMaxPollIntervalMs() {
+        return maxPollIntervalMs;
+    }
+
+    public void setMaxPollIntervalMs(long maxPollIntervalMs) {
+        this.maxPollIntervalMs = maxPollIntervalMs;
+    }
+
+    public long getMaxArticleAgeMs() {
+        return maxArticleAgeMs;
+    }
+
+    public void setMaxArticleAgeMs(long maxArticleAgeMs) {
+        this.maxArticleAgeMs = maxArticleAgeMs;
+    }
+
+    public long getMaxFeedBytes() {
+        return maxFeedBytes;
+    }
+
+    public void setMaxFeedBytes(long maxFeedBytes) {
+        this.maxFeedBytes = maxFeedBytes;
+    }
+
+    public int getMaxFeedsPerDomain() {
+        return maxFeedsPerDomain;
+    }
+
+    public void setMaxFeedsPerDomain(int maxFeedsPerDomain) {
+        this.maxFeedsPerDomain = maxFeedsPerDomain;
+    }
+
+    public int getFetchThreads() {
+        return fetchThreads;
+    }
+
+    public void setFetchThreads(int fetchThreads) {
+        this.fetchThreads = fetchThreads;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public void setTickMs(long tickMs) {
+        this.tickMs = tickMs;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+}
@@ -1,13 +1,23 @@
 package com.vdt.crawler.frontier_service.config;
 
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.repository.RobotstxtRepository;
 import com.vdt.crawler.frontier_service.service.robotstxt.PageFetcher;
 import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtConfig;
 import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtServer;
+import com.vdt.crawler.frontier_service.service.scoring.UrlScorer;
+import com.vdt.crawler.frontier_service.service.scoring.WeightedUrlScorer;
+import com.vdt.crawler.frontier_service.service.poll.ConditionalFetcher;
+import com.vdt.crawler.frontier_service.service.storage.FrontierStore;
 import com.vdt.crawler.frontier_service.utils.DnsResolverWithCache;
+import com.vdt.crawler.frontier_service.utils.UrlCanonicalizer;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 @Configuration
 public class FrontierConfig {
     @Bean
@@ -20,8 +30,39 @@ public class FrontierConfig {
         return new RobotstxtConfig();
     }
 
+    @Bean(destroyMethod = "close")
+    public RobotstxtServer robotstxtServer(RobotstxtConfig config, PageFetcher fetcher, FrontierMetrics frontierMetrics,
+                                           RobotstxtRepository robotstxtRepository) {
+        RobotstxtServer server = new RobotstxtServer(config, fetcher, frontierMetrics, robotstxtRepository);
+        frontierMetrics.registerGauge("frontier_robots_cache_size",
+                "Number of hosts with cached robots.txt directives", server, RobotstxtServer::cacheSize);
+        frontierMetrics.registerGauge("frontier_robots_pending_fetches",
+                "Number of hosts whose robots.txt is being fetched", server, RobotstxtServer::pendingFetches);
+        return server;
+    }
+
+    @Bean
+    public UrlCanonicalizer urlCanonicalizer(CanonicalizationConfig config) {
+        return new UrlCanonicalizer(config.getStripParams(), config.getDomainStripParams(),
+                config.isRemoveTrailingSlash());
+    }
+
     @Bean
-    public RobotstxtServer robotstxtServer(RobotstxtConfig config, PageFetcher fetcher) {
-        return new RobotstxtServer(config, fetcher);
+    public UrlScorer urlScorer(ScoringConfig config) {
+        return new WeightedUrlScorer(config);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ConditionalFetcher conditionalFetcher(SitemapConfig sitemapConfig, FeedConfig feedConfig,
+                                                 RobotstxtConfig robotstxtConfig) {
+        // Shared by the sitemap and feed pollers
+        return new ConditionalFetcher(sitemapConfig.getTimeoutMs(),
+                (sitemapConfig.getFetchThreads() + feedConfig.getFetchThreads()) * 2,
+                robotstxtConfig.getUserAgentName(), new DnsResolverWithCache());
+    }
+
+    @Bean(destroyMethod = "close")
+    public FrontierStore frontierStore(StorageConfig config) throws IOException {
+        return new FrontierStore(Paths.get(config.getPath()), config.getSegmentSizeMb() * 1024L * 1024L);
     }
 }
\ No newline at end of file
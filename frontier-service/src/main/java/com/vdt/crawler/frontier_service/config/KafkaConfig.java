@@ -1,6 +1,9 @@
 package com.vdt.crawler.frontier_service.config;
 
 import com.vdt.crawler.frontier_service.model.RetryUrlMessage;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -28,9 +31,13 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    // Defaults, the listeners take theirs from ShardRouter (one group per node in a hash sharded frontier)
     private final String newUrlGroupId = "new_url_group";
     private final String retryUrlGroupId = "retry_url_group";
 
+    // URLs per listener batch, each host of a batch is looked up once
+    private static final int NEW_URL_MAX_POLL_RECORDS = 500;
+
     @Bean
     public ProducerFactory<String, String> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -60,7 +67,7 @@ public class KafkaConfig {
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, NEW_URL_MAX_POLL_RECORDS);
         props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1024);
         props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 500);
 
@@ -68,13 +75,17 @@ public class KafkaConfig {
     }
 
     @Bean(name = "newUrlListenerContainerFactory")
-    public ConcurrentKafkaListenerContainerFactory<String, String> newUrlListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, String> newUrlListenerContainerFactory(ShardRouter shardRouter) {
         ConcurrentKafkaListenerContainerFactory<String, String> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(newUrlConsumerFactory());
 
-        // Enable manual acknowledgment
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        // Partitions assigned to this node decide the hosts it owns in a partition sharded frontier
+        factory.getContainerProperties().setConsumerRebalanceListener(shardRouter);
+
+        // Whole polls are handed to the listener, which acknowledges them once processed
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
 
         // Error handling
         factory.setCommonErrorHandler(new org.springframework.kafka.listener.DefaultErrorHandler());
@@ -106,8 +117,9 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, RetryUrlMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(retryConsumerFactory());
 
-        // Enable manual acknowledgment
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        // Whole polls are handed to the listener, which acknowledges them once processed
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
 
         // Error handling
         factory.setCommonErrorHandler(new org.springframework.kafka.listener.DefaultErrorHandler());
@@ -115,6 +127,18 @@ public class KafkaConfig {
         return factory;
     }
 
+    /**
+     * Admin client used to read the lag of the fetchers' consumer group
+     */
+    @Bean(destroyMethod = "close")
+    public AdminClient adminClient() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, 5000);
+        props.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, 10000);
+
+        return AdminClient.create(props);
+    }
 
     @Bean
     public NewTopic fetchingTasksTopic() {
@@ -0,0 +1,95 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.retry")
+public class RetryConfig {
+    /**
+     * Delay before the first retry, doubled on every further failure
+     */
+    private long baseDelayMs = 60000;
+
+    /**
+     * Upper bound of the backoff and of a Retry-After asked by a server
+     */
+    private long maxDelayMs = 6 * 3600 * 1000;
+
+    /**
+     * Random spread of the backoff (+/- this fraction), so failures of an outage do not retry at once
+     */
+    private double jitter = 0.2;
+
+    /**
+     * URLs failing more often than this are given up
+     */
+    private int maxRetries = 5;
+
+    /**
+     * Timing wheel resolution and number of buckets per level
+     */
+    private long tickMs = 1000;
+    private int wheelSize = 512;
+
+    /**
+     * Maximum number of due retries added to the frontier per release
+     */
+    private int releaseBatchSize = 5000;
+
+    public long getBaseDelayMs() {
+        return baseDelayMs;
+    }
+
+    public void setBaseDelayMs(long baseDelayMs) {
+        this.baseDelayMs = baseDelayMs;
+    }
+
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    public void setMaxDelayMs(long maxDelayMs) {
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(double jitter) {
+        this.jitter = jitter;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public void setTickMs(long tickMs) {
+        this.tickMs = tickMs;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    public int getReleaseBatchSize() {
+        return releaseBatchSize;
+    }
+
+    public void setReleaseBatchSize(int releaseBatchSize) {
+        this.releaseBatchSize = releaseBatchSize;
+    }
+}
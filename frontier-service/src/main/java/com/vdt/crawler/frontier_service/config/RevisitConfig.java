@@ -0,0 +1,104 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.revisit")
+public class RevisitConfig {
+    /**
+     * Revisit interval of a hub page without any observed visit yet
+     */
+    private long initialIntervalMs = 20 * 60 * 1000;
+
+    /**
+     * Bounds of the revisit interval of every hub page
+     */
+    private long minIntervalMs = 5 * 60 * 1000;
+    private long maxIntervalMs = 24 * 3600 * 1000;
+
+    /**
+     * A hub is revisited once it has changed with this probability since the last visit
+     */
+    private double changeProbability = 0.5;
+
+    /**
+     * Number of past visits the change rate is estimated on, older visits fade out
+     */
+    private int historySize = 20;
+
+    /**
+     * Hub page fetches per hour over all hubs, intervals are stretched evenly to fit (0 = unlimited)
+     */
+    private int fetchBudgetPerHour = 3000;
+
+    /**
+     * Timing wheel resolution and number of buckets per level
+     */
+    private long tickMs = 1000;
+    private int wheelSize = 512;
+
+    public long getInitialIntervalMs() {
+        return initialIntervalMs;
+    }
+
+    public void setInitialIntervalMs(long initialIntervalMs) {
+        this.initialIntervalMs = initialIntervalMs;
+    }
+
+    public long getMinIntervalMs() {
+        return minIntervalMs;
+    }
+
+    public void setMinIntervalMs(long minIntervalMs) {
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    public long getMaxIntervalMs() {
+        return maxIntervalMs;
+    }
+
+    public void setMaxIntervalMs(long maxIntervalMs) {
+        this.maxIntervalMs = maxIntervalMs;
+    }
+
+    public double getChangeProbability() {
+        return changeProbability;
+    }
+
+    public void setChangeProbability(double changeProbability) {
+        this.changeProbability = changeProbability;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public int getFetchBudgetPerHour() {
+        return fetchBudgetPerHour;
+    }
+
+    public void setFetchBudgetPerHour(int fetchBudgetPerHour) {
+        this.fetchBudgetPerHour = fetchBudgetPerHour;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public void setTickMs(long tickMs) {
+        this.tickMs = tickMs;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+}
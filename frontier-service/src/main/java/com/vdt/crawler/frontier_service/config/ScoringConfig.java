@@ -0,0 +1,99 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.scoring")
+public class ScoringConfig {
+    /**
+     * Weights of the signals of the URL score, only their ratios matter
+     */
+    private double domainWeight = 0.25;
+    private double articleWeight = 0.35;
+    private double depthWeight = 0.15;
+    private double recencyWeight = 0.15;
+    private double hubWeight = 0.10;
+
+    /**
+     * The recency signal of a URL halves every half-life since it was found
+     */
+    private long recencyHalfLifeMs = 10 * 60 * 1000;
+
+    /**
+     * Highest domain priority, it scores 1
+     */
+    private int maxDomainPriority = 3;
+
+    /**
+     * Dequeue weight of every front queue level, lowest level first. The score range is split
+     * evenly over the levels, a level is polled weight times per round.
+     */
+    private List<Integer> levelWeights = List.of(1, 2, 3, 5, 8);
+
+    public double getDomainWeight() {
+        return domainWeight;
+    }
+
+    public void setDomainWeight(double domainWeight) {
+        this.domainWeight = domainWeight;
+    }
+
+    public double getArticleWeight() {
+        return articleWeight;
+    }
+
+    public void setArticleWeight(double articleWeight) {
+        this.articleWeight = articleWeight;
+    }
+
+    public double getDepthWeight() {
+        return depthWeight;
+    }
+
+    public void setDepthWeight(double depthWeight) {
+        this.depthWeight = depthWeight;
+    }
+
+    public double getRecencyWeight() {
+        return recencyWeight;
+    }
+
+    public void setRecencyWeight(double recencyWeight) {
+        this.recencyWeight = recencyWeight;
+    }
+
+    public double getHubWeight() {
+        return hubWeight;
+    }
+
+    public void setHubWeight(double hubWeight) {
+        this.hubWeight = hubWeight;
+    }
+
+    public long getRecencyHalfLifeMs() {
+        return recencyHalfLifeMs;
+    }
+
+    public void setRecencyHalfLifeMs(long recencyHalfLifeMs) {
+        this.recencyHalfLifeMs = recencyHalfLifeMs;
+    }
+
+    public int getMaxDomainPriority() {
+        return maxDomainPriority;
+    }
+
+    public void setMaxDomainPriority(int maxDomainPriority) {
+        this.maxDomainPriority = maxDomainPriority;
+    }
+
+    public List<Integer> getLevelWeights() {
+        return levelWeights;
+    }
+
+    public void setLevelWeights(List<Integer> levelWeights) {
+        this.levelWeights = levelWeights;
+    }
+}
@@ -0,0 +1,125 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.sharding")
+public class ShardingConfig {
+
+    public enum Mode {
+        /**
+         * Hosts are assigned to the nodes by consistent hashing, every node reads all URL topics
+         * with its own consumer group and keeps the URLs of its hosts
+         */
+        HASH,
+        /**
+         * Hosts follow the partitions of new_url_tasks (keyed by host) assigned to the node
+         * in the shared consumer group
+         */
+        PARTITION
+    }
+
+    /**
+     * Off: this node owns every host
+     */
+    private boolean enabled = false;
+
+    private Mode mode = Mode.HASH;
+
+    /**
+     * Id of this node, must be one of the nodes
+     */
+    private String nodeId = "frontier-0";
+
+    /**
+     * Every frontier node, used for the hash ring and to aggregate stats and operations
+     */
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Points per node on the hash ring, more points spread hosts more evenly
+     */
+    private int virtualNodes = 128;
+
+    /**
+     * Timeout of the calls to the other nodes
+     */
+    private int requestTimeoutMs = 3000;
+
+    public static class Node {
+        private String id;
+
+        /**
+         * Base URL of the node, e.g. http://frontier-1:8091
+         */
+        private String url;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<Node> nodes) {
+        this.nodes = nodes;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public int getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    public void setRequestTimeoutMs(int requestTimeoutMs) {
+        this.requestTimeoutMs = requestTimeoutMs;
+    }
+}
@@ -0,0 +1,128 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.sitemap")
+public class SitemapConfig {
+    /**
+     * Poll the sitemaps listed in the robots.txt of the active domains
+     */
+    private boolean enabled = true;
+
+    /**
+     * Bounds of the poll interval of a sitemap: halved down to min when it lists new articles,
+     * doubled up to max when it does not
+     */
+    private long minPollIntervalMs = 60 * 1000;
+    private long maxPollIntervalMs = 3600 * 1000;
+
+    /**
+     * Articles published or modified longer ago are ignored, so archive sitemaps do not flood the frontier
+     */
+    private long maxArticleAgeMs = 48 * 3600 * 1000;
+
+    /**
+     * Largest uncompressed sitemap read, the sitemap protocol allows 50 MB
+     */
+    private long maxSitemapBytes = 50L * 1024 * 1024;
+
+    /**
+     * Most sitemaps followed per domain, counting the children of its sitemap indexes
+     */
+    private int maxSitemapsPerDomain = 50;
+
+    /**
+     * Sitemaps fetched at the same time
+     */
+    private int fetchThreads = 4;
+
+    private int timeoutMs = 10000;
+
+    /**
+     * Timing wheel resolution and number of buckets per level
+     */
+    private long tickMs = 1000;
+    private int wheelSize = 512;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMinPollIntervalMs() {
+        return minPollIntervalMs;
+    }
+
+    public void setMinPollIntervalMs(long minPollIntervalMs) {
+        this.minPollIntervalMs = minPollIntervalMs;
+    }
+
+    public long getMaxPollIntervalMs() {
+        return maxPollIntervalMs;
+    }
+
+    public void setMaxPollIntervalMs(long maxPollIntervalMs) {
+        this.maxPollIntervalMs = maxPollIntervalMs;
+    }
+
+    public long getMaxArticleAgeMs() {
+        return maxArticleAgeMs;
+    }
+
+    public void setMaxArticleAgeMs(long maxArticleAgeMs) {
+        this.maxArticleAgeMs = maxArticleAgeMs;
+    }
+
+    public long getMaxSitemapBytes() {
+        return maxSitemapBytes;
+    }
+
+    public void setMaxSitemapBytes(long maxSitemapBytes) {
+        this.maxSitemapBytes = maxSitemapBytes;
+    }
+
+    public int getMaxSitemapsPerDomain() {
+        return maxSitemapsPerDomain;
+    }
+
+    public void setMaxSitemapsPerDomain(int maxSitemapsPerDomain) {
+        this.maxSitemapsPerDomain = maxSitemapsPerDomain;
+    }
+
+    public int getFetchThreads() {
+        return fetchThreads;
+    }
+
+    public void setFetchThreads(int fetchThreads) {
+        this.fetchThreads = fetchThreads;
+    }
+
+    public int getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(int timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public void setTickMs(long tickMs) {
+        this.tickMs = tickMs;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+}
@@ -0,0 +1,34 @@
+package com.vdt.crawler.frontier_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "frontier.storage")
+public class StorageConfig {
+    /**
+     * Local directory holding spilled URLs and frontier checkpoints
+     */
+    private String path = "data/frontier";
+
+    /**
+     * Maximum size of one spill segment file
+     */
+    private int segmentSizeMb = 64;
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getSegmentSizeMb() {
+        return segmentSizeMb;
+    }
+
+    public void setSegmentSizeMb(int segmentSizeMb) {
+        this.segmentSizeMb = segmentSizeMb;
+    }
+}
@@ -1,13 +1,22 @@
 package com.vdt.crawler.frontier_service.controller;
 
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
 import com.vdt.crawler.frontier_service.service.FrontierConsumer;
 import com.vdt.crawler.frontier_service.service.FrontierService;
+import com.vdt.crawler.frontier_service.service.retry.RetryScheduler;
+import com.vdt.crawler.frontier_service.service.seed.SeedImportProgress;
+import com.vdt.crawler.frontier_service.service.seed.SeedImporter;
+import com.vdt.crawler.frontier_service.service.shard.ShardCluster;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,11 +29,25 @@ public class FrontierController {
 
     private final FrontierService frontierService;
     private final FrontierConsumer frontierConsumer;
+    private final SeedImporter seedImporter;
+    private final ShardRouter shardRouter;
+    private final ShardCluster shardCluster;
+    private final RetryScheduler retryScheduler;
+
+    // Scope of the stats and operations: this node only, or every node of a sharded frontier
+    private static final String SCOPE_LOCAL = "local";
+    private static final String SCOPE_CLUSTER = "cluster";
 
     @Autowired
-    public FrontierController(FrontierService frontierService, FrontierConsumer frontierConsumer) {
+    public FrontierController(FrontierService frontierService, FrontierConsumer frontierConsumer,
+                              SeedImporter seedImporter, ShardRouter shardRouter, ShardCluster shardCluster,
+                              RetryScheduler retryScheduler) {
         this.frontierService = frontierService;
         this.frontierConsumer = frontierConsumer;
+        this.seedImporter = seedImporter;
+        this.shardRouter = shardRouter;
+        this.shardCluster = shardCluster;
+        this.retryScheduler = retryScheduler;
     }
 
     /**
@@ -56,6 +79,31 @@ public class FrontierController {
         }
     }
 
+    /**
+     * Stream a large seed file to frontier: NDJSON or one URL per line
+     */
+    @PostMapping(value = "/seed/stream", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<Map<String, Object>> streamSeedUrls(InputStream body) {
+        SeedImportProgress progress = seedImporter.importSeeds(body);
+
+        Map<String, Object> response = new HashMap<>(progress.toMap());
+        response.put("timestamp", System.currentTimeMillis());
+        if (progress.getStatus() == SeedImportProgress.Status.FAILED) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Progress of the recent and running seed imports
+     */
+    @GetMapping("/seed/imports")
+    public ResponseEntity<List<Map<String, Object>>> getSeedImports() {
+        return ResponseEntity.ok(seedImporter.getImports().stream()
+                .map(SeedImportProgress::toMap)
+                .toList());
+    }
+
     /**
      * Add single URL to frontier
      */
@@ -67,11 +115,15 @@ public class FrontierController {
                 throw new IllegalArgumentException("URL is required");
             }
 
-            frontierService.addToFrontier(url.trim());
+            // Forwarded to its owner if the host belongs to another node
+            boolean local = !shardRouter.route(List.of(url.trim()), UrlOrigin.SEED).isEmpty();
+            if (local) {
+                frontierService.addToFrontier(url.trim(), UrlOrigin.SEED);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
-            response.put("message", "URL added successfully");
+            response.put("message", local ? "URL added successfully" : "URL forwarded to the node owning its host");
             response.put("url", url);
 
             return ResponseEntity.ok(response);
@@ -88,12 +140,18 @@ public class FrontierController {
     }
 
     /**
-     * Get frontier statistics
+     * Get frontier statistics, of this node or summed over every node
      */
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getFrontierStats() {
+    public ResponseEntity<Map<String, Object>> getFrontierStats(
+            @RequestParam(defaultValue = SCOPE_LOCAL) String scope) {
         try {
             Map<String, Object> stats = frontierService.getFrontierStats();
+            stats.put("pendingRetries", retryScheduler.size());
+            if (SCOPE_CLUSTER.equals(scope)) {
+                stats = shardCluster.stats(stats);
+            }
+            stats.put("node", shardRouter.getNodeId());
             stats.put("timestamp", System.currentTimeMillis());
             stats.put("status", "success");
 
@@ -111,16 +169,22 @@ public class FrontierController {
     }
 
     /**
-     * Check if frontier is empty
+     * Check if frontier is empty, on this node or on every node
      */
     @GetMapping("/empty")
-    public ResponseEntity<Map<String, Object>> isFrontierEmpty() {
+    public ResponseEntity<Map<String, Object>> isFrontierEmpty(
+            @RequestParam(defaultValue = SCOPE_LOCAL) String scope) {
         try {
             boolean isEmpty = frontierService.isEmpty();
+            List<String> unreachable = new ArrayList<>();
+            if (SCOPE_CLUSTER.equals(scope)) {
+                isEmpty = shardCluster.isEmpty(isEmpty, unreachable);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("empty", isEmpty);
+            response.put("unreachableNodes", unreachable);
             response.put("timestamp", System.currentTimeMillis());
 
             return ResponseEntity.ok(response);
@@ -137,16 +201,23 @@ public class FrontierController {
     }
 
     /**
-     * Clear all frontier queues
+     * Clear all frontier queues, of this node or of every node
      */
     @DeleteMapping("/clear")
-    public ResponseEntity<Map<String, Object>> clearFrontier() {
+    public ResponseEntity<Map<String, Object>> clearFrontier(
+            @RequestParam(defaultValue = SCOPE_LOCAL) String scope) {
         try {
             frontierService.clear();
+            retryScheduler.clear();
+            List<String> unreachable = new ArrayList<>();
+            if (SCOPE_CLUSTER.equals(scope)) {
+                shardCluster.clear(unreachable);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("message", "All frontier queues cleared");
+            response.put("unreachableNodes", unreachable);
             response.put("timestamp", System.currentTimeMillis());
 
             return ResponseEntity.ok(response);
@@ -172,14 +243,8 @@ public class FrontierController {
         response.put("service", "frontier-service");
         response.put("timestamp", System.currentTimeMillis());
 
-        // Add basic stats
-        try {
-            Map<String, Object> stats = frontierService.getFrontierStats();
-            response.put("totalUrls",
-                    (Integer) stats.get("totalFrontUrls") + (Integer) stats.get("totalBackUrls"));
-        } catch (Exception e) {
-            logger.warn("Could not get stats for health check", e);
-        }
+        // Add basic stats, read from the queue counters
+        response.put("totalUrls", frontierService.size());
 
         return ResponseEntity.ok(response);
     }
@@ -1,26 +1,51 @@
 package com.vdt.crawler.frontier_service.controller;
 
 import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.model.DomainFetchReport;
 import com.vdt.crawler.frontier_service.repository.DomainRepository;
 import com.vdt.crawler.frontier_service.service.SchedulerService;
+import com.vdt.crawler.frontier_service.service.budget.CrawlBudgets;
+import com.vdt.crawler.frontier_service.service.cache.DomainCache;
+import com.vdt.crawler.frontier_service.service.shard.ShardCluster;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import com.vdt.crawler.frontier_service.service.state.DomainState;
+import com.vdt.crawler.frontier_service.service.state.DomainStateStore;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api")
 public class SchedulerController {
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerController.class);
+
     private final DomainRepository domainRepository;
     private final SchedulerService schedulerService;
+    private final DomainCache domainCache;
+    private final DomainStateStore domainStateStore;
+    private final CrawlBudgets crawlBudgets;
+    private final ShardRouter shardRouter;
+    private final ShardCluster shardCluster;
 
     @Autowired
-    public SchedulerController(DomainRepository domainRepository, SchedulerService schedulerService) {
+    public SchedulerController(DomainRepository domainRepository, SchedulerService schedulerService, DomainCache domainCache,
+                               DomainStateStore domainStateStore, CrawlBudgets crawlBudgets,
+                               ShardRouter shardRouter, ShardCluster shardCluster) {
         this.domainRepository = domainRepository;
         this.schedulerService = schedulerService;
+        this.domainCache = domainCache;
+        this.domainStateStore = domainStateStore;
+        this.crawlBudgets = crawlBudgets;
+        this.shardRouter = shardRouter;
+        this.shardCluster = shardCluster;
     }
 
     @GetMapping("/domains")
@@ -37,31 +62,112 @@ public class SchedulerController {
     @GetMapping("/domains/{domain:.+}")
     public ResponseEntity<Domain> getDomainByName(@PathVariable String domain) {
         return domainRepository.findByDomain(domain)
+                .map(domainStateStore::withLiveState)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/domains")
     public Domain createDomain(@RequestBody Domain domain) {
-        return domainRepository.save(domain);
+        domain.setUpdatedAt(Instant.now());
+        Domain saved = domainRepository.save(domain);
+        domainCache.put(saved);
+        return saved;
     }
 
+    /**
+     * Update the configuration of a domain. A body carrying only lastCrawled, with the stored
+     * active flag, is a crawl report: it is applied to the live crawl state without a Mongo round trip.
+     */
     @PutMapping("/domains/{domain:.+}")
     public ResponseEntity<Domain> updateDomain(@PathVariable String domain, @RequestBody @Valid Domain domainDetails) {
-        return domainRepository.findByDomain(domain)
-                .map(domainObj -> {
-                    if (domainDetails.getSeedUrls() != null && !domainDetails.getSeedUrls().isEmpty()) {
-                        domainObj.setSeedUrls(domainDetails.getSeedUrls());
-                    }
-                    if (domainDetails.isActive() != domainObj.isActive()) {
-                        domainObj.setActive(domainDetails.isActive());
-                    }
-                    if (domainDetails.getLastCrawled() != null) {
-                        domainObj.setLastCrawled(domainDetails.getLastCrawled());
-                    }
-                    return ResponseEntity.ok(domainRepository.save(domainObj));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        boolean configChanged = (domainDetails.getSeedUrls() != null && !domainDetails.getSeedUrls().isEmpty())
+                || domainDetails.getPriority() > 0
+                || domainDetails.getCrawlIntervalMs() > 0 || domainDetails.getCrawlPhaseMs() != null
+                || domainDetails.getFeedUrls() != null
+                || domainDetails.getUrlsPerHour() > 0 || domainDetails.getBytesPerHour() > 0
+                || activeChanged(domain, domainDetails);
+        if (!configChanged && domainDetails.getLastCrawled() != null) {
+            return domainStateStore.recordCrawls(domain, 0, domainDetails.getLastCrawled())
+                    ? ResponseEntity.accepted().build()
+                    : ResponseEntity.notFound().build();
+        }
+
+        Update update = new Update();
+        if (domainDetails.getSeedUrls() != null && !domainDetails.getSeedUrls().isEmpty()) {
+            update.set("seed_urls", domainDetails.getSeedUrls());
+        }
+        update.set("active", domainDetails.isActive());
+        if (domainDetails.getPriority() > 0) {
+            update.set("priority", domainDetails.getPriority());
+        }
+        // An empty list falls back to the feeds announced by the home page
+        if (domainDetails.getFeedUrls() != null) {
+            update.set("feed_urls", domainDetails.getFeedUrls());
+        }
+        if (domainDetails.getCrawlIntervalMs() > 0) {
+            update.set("crawl_interval_ms", domainDetails.getCrawlIntervalMs());
+        }
+        if (domainDetails.getCrawlPhaseMs() != null) {
+            update.set("crawl_phase_ms", domainDetails.getCrawlPhaseMs());
+        }
+        if (domainDetails.getUrlsPerHour() > 0) {
+            update.set("urls_per_hour", domainDetails.getUrlsPerHour());
+        }
+        if (domainDetails.getBytesPerHour() > 0) {
+            update.set("bytes_per_hour", domainDetails.getBytesPerHour());
+        }
+        update.set("updated_at", Instant.now());
+
+        // Only the edited fields are set, crawl counters are left to the write-behind flush
+        Domain saved = domainStateStore.updateConfig(domain, update);
+        if (saved == null) {
+            return ResponseEntity.notFound().build();
+        }
+        domainCache.put(saved);
+        if (domainDetails.getLastCrawled() != null) {
+            domainStateStore.recordCrawls(domain, 0, domainDetails.getLastCrawled());
+        }
+        if (domainDetails.getPriority() > 0) {
+            domainStateStore.setPriority(domain, domainDetails.getPriority());
+        }
+        return ResponseEntity.ok(saved);
+    }
+
+    private boolean activeChanged(String domain, Domain domainDetails) {
+        Domain stored = domainCache.get(domain);
+        return stored != null && stored.isActive() != domainDetails.isActive();
+    }
+
+    /**
+     * Pages of a domain fetched by a fetcher since its previous report, applied in memory and
+     * written to Mongo by the next write-behind flush. Their bytes are charged to the crawl budget
+     * of the domain. The report of a host owned by another node is forwarded to it, the fetcher
+     * keeps its counters and reports again if no node took it.
+     */
+    @PostMapping("/domains/{domain:.+}/fetches")
+    public ResponseEntity<Void> reportFetches(@PathVariable String domain, @RequestBody DomainFetchReport report,
+                                              @RequestParam(defaultValue = "false") boolean forwarded) {
+        if (!shardRouter.owns(domain)) {
+            if (forwarded) {
+                return ResponseEntity.status(HttpStatus.MISDIRECTED_REQUEST).build();
+            }
+            if (shardCluster.forwardFetches(domain, shardRouter.ownerOf(domain), report)) {
+                return ResponseEntity.accepted().build();
+            }
+            logger.warn("No frontier node took the fetch report of {}", domain);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        Instant lastCrawled = report.getLastCrawled() != null ? report.getLastCrawled() : Instant.now();
+        if (!domainStateStore.recordCrawls(domain, report.getFetched(), lastCrawled)) {
+            return ResponseEntity.notFound().build();
+        }
+        DomainState state = domainStateStore.get(domain);
+        if (state != null) {
+            crawlBudgets.recordBytes(state, report.getBytes());
+        }
+        return ResponseEntity.accepted().build();
     }
 
     @DeleteMapping("/domains/{domain:.+}")
@@ -69,6 +175,9 @@ public class SchedulerController {
         return domainRepository.findByDomain(domain)
                 .map(domainObj -> {
                     domainRepository.delete(domainObj);
+                    domainCache.evict(domainObj.getDomain());
+                    // Evicted first, so no report recreates the state
+                    domainStateStore.remove(domainObj.getDomain());
                     return ResponseEntity.ok().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -1,21 +1,32 @@
 package com.vdt.crawler.frontier_service.metric;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
 @Component
 @Slf4j
 public class FrontierMetrics {
+    private final MeterRegistry meterRegistry;
     private final Counter scheduledUrlsTotal;
     private final Counter processedUrlsTotal;
     private final Counter rejectedUrlsTotal;
     private final Counter processedUrlsByDomain;
     private final Counter rejectedUrlsByDomain;
+    private final Counter robotsCacheHits;
+    private final Counter robotsCacheMisses;
+    private final Timer robotsFetchTimer;
 
     public FrontierMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
         this.scheduledUrlsTotal = Counter.builder("frontier_scheduled_urls_total")
                 .description("Total number of URLs scheduled to crawl")
                 .register(meterRegistry);
@@ -37,6 +48,19 @@ public class FrontierMetrics {
                 .description("Number of URLs rejected by robots.txt or not in domain list by domain")
                 .tag("domain", "unknown")
                 .register(meterRegistry);
+
+        this.robotsCacheHits = Counter.builder("frontier_robots_cache_hits_total")
+                .description("Number of robots.txt lookups served from cache")
+                .register(meterRegistry);
+
+        this.robotsCacheMisses = Counter.builder("frontier_robots_cache_misses_total")
+                .description("Number of robots.txt lookups that needed a fetch")
+                .register(meterRegistry);
+
+        this.robotsFetchTimer = Timer.builder("frontier_robots_fetch_seconds")
+                .description("Latency of robots.txt fetches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     public void incrementScheduledUrlsTotal() {
@@ -68,4 +92,60 @@ public class FrontierMetrics {
                 .register(Metrics.globalRegistry)
                 .increment();
     }
+
+    /**
+     * Count a URL of domain deferred to disk for being over its crawl budget
+     *
+     * @param stage admission or dispatch
+     */
+    public void incrementDeferredUrls(String domain, String stage) {
+        Counter.builder("frontier_budget_deferred_urls_total")
+                .description("Number of URLs deferred to disk by the crawl budget of their domain")
+                .tag("domain", domain)
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void incrementRobotsCacheHits() {
+        robotsCacheHits.increment();
+    }
+
+    public void incrementRobotsCacheMisses() {
+        robotsCacheMisses.increment();
+    }
+
+    public void recordRobotsFetch(long nanos) {
+        robotsFetchTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Register a gauge sampling obj on every scrape
+     */
+    public <T> void registerGauge(String name, String description, T obj, ToDoubleFunction<T> valueFunction) {
+        Gauge.builder(name, obj, valueFunction)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Register a gauge with one tag, registering the same name and tag again is a no-op
+     */
+    public <T> void registerGauge(String name, String description, String tagKey, String tagValue,
+                                  T obj, ToDoubleFunction<T> valueFunction) {
+        Gauge.builder(name, obj, valueFunction)
+                .description(description)
+                .tag(tagKey, tagValue)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Remove a gauge registered with one tag, so a tag value that is gone does not stay exported
+     */
+    public void removeGauge(String name, String tagKey, String tagValue) {
+        Gauge gauge = meterRegistry.find(name).tag(tagKey, tagValue).gauge();
+        if (gauge != null) {
+            meterRegistry.remove(gauge);
+        }
+    }
 }
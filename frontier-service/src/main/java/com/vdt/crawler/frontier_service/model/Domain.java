@@ -33,8 +33,37 @@ public class Domain {
     @Field("create_at")
     private Instant createAt;
 
+    @Indexed
+    @Field("updated_at")
+    private Instant updatedAt;
+
+    // RSS/Atom feeds of the domain, discovered from its home page when empty
+    @Field("feed_urls")
+    private List<String> feedUrls;
+
     private int priority;
 
+    // Interval between visits of the seed URLs, 0 for the default one
+    @Field("crawl_interval_ms")
+    private long crawlIntervalMs;
+
+    // Offset of the visits within the interval, null to derive one from the domain name
+    @Field("crawl_phase_ms")
+    private Long crawlPhaseMs;
+
+    // Crawl budget of the domain, 0 for the default one
+    @Field("urls_per_hour")
+    private long urlsPerHour;
+
+    @Field("bytes_per_hour")
+    private long bytesPerHour;
+
+    @Field("crawl_count")
+    private long crawlCount;
+
+    @Field("error_count")
+    private long errorCount;
+
     @Builder.Default
     private boolean active = true;
 }
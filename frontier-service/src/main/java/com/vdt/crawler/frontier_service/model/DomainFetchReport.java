@@ -0,0 +1,20 @@
+package com.vdt.crawler.frontier_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Pages of a domain fetched since the previous report of a fetcher
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainFetchReport {
+    private long fetched;
+    private Instant lastCrawled;
+    // Bytes of the pages fetched, 0 from fetchers not reporting them
+    private long bytes;
+}
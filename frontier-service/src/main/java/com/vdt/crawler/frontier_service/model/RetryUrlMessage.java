@@ -15,4 +15,6 @@ public class RetryUrlMessage {
     private int retryCount;
     private Instant lastAttempt;
     private Integer httpStatus;
+    // Retry-After of a 429 or 503 answer, null if the server sent none
+    private Instant retryAfter;
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.vdt.crawler.frontier_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * Last fetched robots.txt of a host, kept so a restarted frontier does not fetch it again
+ */
+@Document(collection = "robotstxt")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RobotstxtRecord {
+    @Id
+    private String host;
+
+    @Field("robots_url")
+    private String robotsUrl;
+
+    @Field("status_code")
+    private int statusCode;
+
+    // Body of robots.txt, null when it could not be read
+    private String content;
+
+    @Indexed
+    @Field("fetched_at")
+    private Instant fetchedAt;
+}
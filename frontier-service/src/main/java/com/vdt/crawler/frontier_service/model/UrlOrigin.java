@@ -0,0 +1,34 @@
+package com.vdt.crawler.frontier_service.model;
+
+/**
+ * Where an URL entering the frontier comes from
+ */
+public enum UrlOrigin {
+    /**
+     * Extracted from a crawled page, dropped if it was seen before
+     */
+    DISCOVERED,
+    /**
+     * Seed URL of a domain, re-crawled on every schedule
+     */
+    SEED,
+    /**
+     * Failed fetch sent back by the fetcher
+     */
+    RETRY,
+    /**
+     * Article listed in a sitemap of its domain, queued at the highest priority, dropped if it was seen before
+     */
+    SITEMAP,
+    /**
+     * Entry of an RSS/Atom feed of its domain, queued at the highest priority, dropped if it was seen before
+     */
+    FEED;
+
+    /**
+     * Seeds and retries are meant to be fetched again, so they bypass the "ever seen" filter
+     */
+    public boolean bypassesSeenFilter() {
+        return this == SEED || this == RETRY;
+    }
+}
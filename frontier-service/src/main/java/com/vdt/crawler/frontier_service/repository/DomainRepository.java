@@ -4,6 +4,7 @@ import com.vdt.crawler.frontier_service.model.Domain;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +13,5 @@ import java.util.Optional;
 public interface DomainRepository extends MongoRepository<Domain, String> {
     List<Domain> findByActiveTrue();
     Optional<Domain> findByDomain(String domain);
+    List<Domain> findByUpdatedAtAfter(Instant since);
 }
@@ -0,0 +1,13 @@
+package com.vdt.crawler.frontier_service.repository;
+
+import com.vdt.crawler.frontier_service.model.RobotstxtRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RobotstxtRepository extends MongoRepository<RobotstxtRecord, String> {
+    List<RobotstxtRecord> findByFetchedAtAfter(Instant since);
+}
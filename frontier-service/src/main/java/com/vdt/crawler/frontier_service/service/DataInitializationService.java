@@ -89,6 +89,7 @@ public class DataInitializationService implements CommandLineRunner {
         domain.setSeedUrls(seedUrls);
         domain.setPriority(1);
         domain.setCreateAt(Instant.now());
+        domain.setUpdatedAt(domain.getCreateAt());
         return domain;
     }
 }
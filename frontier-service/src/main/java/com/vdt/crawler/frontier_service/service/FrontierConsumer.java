@@ -1,18 +1,26 @@
 package com.vdt.crawler.frontier_service.service;
 
 import com.vdt.crawler.frontier_service.model.RetryUrlMessage;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.retry.RetryScheduler;
+import com.vdt.crawler.frontier_service.service.revisit.RevisitScheduler;
+import com.vdt.crawler.frontier_service.service.scoring.Discovery;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import com.vdt.crawler.frontier_service.service.state.DomainStateStore;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -21,148 +29,203 @@ public class FrontierConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(FrontierConsumer.class);
 
+    // Longest a poll of new URLs waits for robots.txt, far below max.poll.interval.ms
+    private static final long ROBOTS_WAIT_MS = 5000;
+    // Records of hosts whose robots.txt is still being fetched are delivered again after this delay
+    private static final Duration REDELIVERY_DELAY = Duration.ofSeconds(2);
+
     private final FrontierService frontierService;
-    private final ExecutorService executorService;
-    private final ExecutorService retryExecutorService;
+    private final ShardRouter shardRouter;
+    private final RetryScheduler retryScheduler;
+    private final RevisitScheduler revisitScheduler;
+    private final DomainStateStore domainStateStore;
+    // Seed lists from the API are added off the request thread
+    private final ExecutorService seedExecutorService;
 
     @Autowired
-    public FrontierConsumer(FrontierService frontierService) {
+    public FrontierConsumer(FrontierService frontierService, ShardRouter shardRouter, RetryScheduler retryScheduler,
+                            RevisitScheduler revisitScheduler, DomainStateStore domainStateStore) {
         this.frontierService = frontierService;
-        this.executorService = Executors.newFixedThreadPool(8); // Thread pool for parallel processing
-        this.retryExecutorService = Executors.newFixedThreadPool(2);
+        this.shardRouter = shardRouter;
+        this.retryScheduler = retryScheduler;
+        this.revisitScheduler = revisitScheduler;
+        this.domainStateStore = domainStateStore;
+        this.seedExecutorService = Executors.newSingleThreadExecutor();
     }
 
     /**
-     * Consumer for "new_url" topic
+     * Consumer for "new_url" topic, one poll at a time.
+     * Offsets are committed once every URL of the poll is in the frontier or rejected,
+     * a failed batch is delivered again. When robots.txt of some hosts is still being fetched, the
+     * records before the first of their URLs are committed and the rest is delivered again, its URLs
+     * already added are then skipped as seen.
+     * In a sharded frontier only the URLs of the hosts owned by this node are kept.
+     * URLs found on a hub page are added on their own, so the revisit policy learns whether
+     * the visit brought new links.
      */
     @KafkaListener(
-            topics = "new_url_tasks",
+            topics = ShardRouter.NEW_URL_TOPIC,
             containerFactory = "newUrlListenerContainerFactory",
-            groupId = "new_url_group",
+            groupId = "#{@shardRouter.newUrlGroupId}",
             concurrency = "8"
     )
-    public void handleNewUrls(
-            @Payload String message,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
-            Acknowledgment acknowledgment) {
-
-        logger.debug("Received message from topic: {}, partition: {}, offset: {}", topic, partition, offset);
-
-        try {
+    public void handleNewUrls(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment)
+            throws InterruptedException {
+        logger.debug("Received {} new URL messages", records.size());
+
+        // Parsers send discovered URLs, other frontier nodes forward seeds and retries
+        Map<UrlOrigin, Set<String>> urlsByOrigin = new EnumMap<>(UrlOrigin.class);
+        Map<String, Set<String>> urlsByHub = new LinkedHashMap<>();
+        // URLs of a poll are ranked as found when its oldest record was produced
+        long discoveredAt = System.currentTimeMillis();
+        for (ConsumerRecord<String, String> record : records) {
+            if (record.value() != null) {
+                if (record.timestamp() > 0) {
+                    discoveredAt = Math.min(discoveredAt, record.timestamp());
+                }
+                UrlOrigin origin = ShardRouter.originOf(record.headers().lastHeader(ShardRouter.ORIGIN_HEADER));
+                String source = sourceOf(record.headers().lastHeader(RevisitScheduler.SOURCE_HEADER));
+                if (origin == UrlOrigin.DISCOVERED && source != null && revisitScheduler.isHub(source)) {
+                    urlsByHub.computeIfAbsent(source, s -> new LinkedHashSet<>()).add(record.value().trim());
+                } else {
+                    urlsByOrigin.computeIfAbsent(origin, o -> new LinkedHashSet<>()).add(record.value().trim());
+                }
+            }
+        }
 
-            processUrlAsync(message, "NEW");
+        int added = 0;
+        int received = 0;
+        Set<String> pending = new HashSet<>();
+        for (Map.Entry<UrlOrigin, Set<String>> entry : urlsByOrigin.entrySet()) {
+            received += entry.getValue().size();
+            List<String> owned = shardRouter.accept(entry.getValue(), entry.getKey());
+            Discovery discovery = entry.getKey() == UrlOrigin.DISCOVERED
+                    ? new Discovery(UrlOrigin.DISCOVERED, Discovery.UNKNOWN_DEPTH, discoveredAt, 0)
+                    : Discovery.of(entry.getKey());
+            FrontierService.BatchResult result = frontierService.admitBatch(owned, discovery, ROBOTS_WAIT_MS);
+            added += result.added();
+            pending.addAll(result.pending());
+        }
+        for (Map.Entry<String, Set<String>> entry : urlsByHub.entrySet()) {
+            received += entry.getValue().size();
+            List<String> owned = shardRouter.accept(entry.getValue(), UrlOrigin.DISCOVERED);
+            Discovery discovery = new Discovery(UrlOrigin.DISCOVERED, 1, discoveredAt,
+                    revisitScheduler.importanceOf(entry.getKey()));
+            FrontierService.BatchResult result = frontierService.admitBatch(owned, discovery, ROBOTS_WAIT_MS);
+            // A visit is learned from once all its links are resolved
+            if (result.pending().isEmpty()) {
+                revisitScheduler.recordLinks(entry.getKey(), result.added());
+            }
+            added += result.added();
+            pending.addAll(result.pending());
+        }
 
-            // Acknowledge message after success
+        int firstPending = firstPending(records, pending);
+        if (firstPending < 0) {
             acknowledgment.acknowledge();
+        } else {
+            acknowledgment.nack(firstPending, REDELIVERY_DELAY);
+            logger.info("Robots.txt of {} new URLs not resolved yet, delivering {} of {} records again",
+                    pending.size(), records.size() - firstPending, records.size());
+        }
+        logger.debug("Added {} of {} new URLs ({} records)", added, received, records.size());
+    }
 
-        } catch (Exception e) {
-            logger.error("Error processing new URL message: {}", message, e);
+    /**
+     * Index of the first record whose URL is pending, -1 if none is
+     */
+    private static int firstPending(List<ConsumerRecord<String, String>> records, Set<String> pending) {
+        if (pending.isEmpty()) {
+            return -1;
         }
+        for (int i = 0; i < records.size(); i++) {
+            String value = records.get(i).value();
+            if (value != null && pending.contains(value.trim())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String sourceOf(Header header) {
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
     }
 
     /**
-     * Consumer for "retry_url" topic
+     * Consumer for "retry_url" topic, one poll at a time, committed once every failed URL is given
+     * up or scheduled for its retry and synced to the retry journal
      */
     @KafkaListener(
             topics = "retry_url_tasks",
             containerFactory = "retryListenerContainerFactory",
-            groupId = "retry_url_group",
+            groupId = "#{@shardRouter.retryUrlGroupId}",
             concurrency = "2"
     )
-    public void handleRetryUrls(
-            @Payload RetryUrlMessage message,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
-            Acknowledgment acknowledgment) {
-
-        logger.debug("Received retry message from topic: {}, partition: {}, offset: {}", topic, partition, offset);
-
-        try {
+    public void handleRetryUrls(List<ConsumerRecord<String, RetryUrlMessage>> records, Acknowledgment acknowledgment) {
+        logger.debug("Received {} retry messages", records.size());
 
+        Map<String, RetryUrlMessage> messages = new LinkedHashMap<>();
+        for (ConsumerRecord<String, RetryUrlMessage> record : records) {
+            RetryUrlMessage message = record.value();
             if (message != null && message.getUrl() != null) {
-                // Check retry conditions
-                if (shouldRetry(message)) {
-                    processUrlAsync(message.getUrl(), "RETRY");
-                } else {
-                    frontierService.addRetryUrl(message.getUrl());
-                    logger.warn("Retry limit exceeded for URL: {}", message.getUrl());
-                }
+                message.setUrl(message.getUrl().trim());
+                messages.put(message.getUrl(), message);
             }
+        }
 
-            acknowledgment.acknowledge();
+        List<RetryUrlMessage> handled = new ArrayList<>();
+        for (RetryUrlMessage message : messages.values()) {
+            String host = ShardRouter.hostOf(message.getUrl());
+            // When every node reads the retries the owner of the host handles them. Otherwise this node
+            // is the only one reading the message: it holds the retry for its backoff, and the
+            // RetryScheduler forwards it to the owner when due.
+            if (shardRouter.isReadByEveryNode() && host != null && !shardRouter.owns(host)) {
+                continue;
+            }
+            handled.add(message);
+        }
 
-        } catch (Exception e) {
-            logger.error("Error processing retry URL message: {}", message, e);
+        int scheduled = 0;
+        try {
+            for (RetryUrlMessage message : handled) {
+                if (retryScheduler.schedule(message)) {
+                    scheduled++;
+                }
+            }
+            retryScheduler.sync();
+        } catch (IOException e) {
+            // Scheduled again on redelivery, the wheel keeps the latest retry of a URL
+            logger.error("Error journaling {} retries, redelivering the batch", handled.size(), e);
+            acknowledgment.nack(0, REDELIVERY_DELAY);
+            return;
+        }
+        // Every retry message is a failed fetch, counted once by the node handling it
+        for (RetryUrlMessage message : handled) {
+            domainStateStore.recordError(ShardRouter.hostOf(message.getUrl()));
         }
+        acknowledgment.acknowledge();
+        logger.debug("Scheduled {} of {} retries", scheduled, messages.size());
     }
 
     /**
-     * process seed URLs from api
+     * process seed URLs from api, the seeds of hosts owned by other nodes are forwarded to them
      */
     public void handleSeedUrls(List<String> seedUrls) {
         logger.info("Received {} seed URLs from scheduler", seedUrls.size());
 
-        try {
-            processUrlsAsync(seedUrls, "SEED");
-        } catch (Exception e) {
-            logger.error("Error processing seed URLs", e);
-        }
-    }
-
-
-    private boolean shouldRetry(RetryUrlMessage retryMessage) {
-        // Check retry count limit
-        if (retryMessage.getRetryCount() > 3) {
-            return false;
-        }
-
-        // Check if enough time has passed since last attempt
-        if (retryMessage.getLastAttempt() != null) {
-            long timeSinceLastAttempt = Instant.now().toEpochMilli() - retryMessage.getLastAttempt().toEpochMilli();
-            long minRetryDelay = 5 * 60 * 1000; // 5mins
-
-            if (timeSinceLastAttempt < minRetryDelay) {
-                logger.debug("Not enough time passed for retry: {}", retryMessage.getUrl());
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private void processUrlAsync(String url, String source) {
-        if (source.equals("RETRY")) {
-            retryExecutorService.submit(() -> {
-                try {
-                    logger.debug("Processing {} URL: {}", source, url);
-                    frontierService.addToFrontier(url);
-                } catch (Exception e) {
-                    logger.error("Error processing URL {}: {}", url, e.getMessage());
-                }
-            });
-        } else {
-            executorService.submit(() -> {
-                try {
-                    logger.debug("Processing {} URL: {}", source, url);
-                    frontierService.addToFrontier(url);
-                } catch (Exception e) {
-                    logger.error("Error processing URL {}: {}", url, e.getMessage());
-                }
-            });
-        }
-    }
-
-    private void processUrlsAsync(List<String> urls, String source) {
-        executorService.submit(() -> {
+        seedExecutorService.submit(() -> {
             try {
-                logger.debug("Processing {} URLs from {}", urls.size(), source);
-                frontierService.addToFrontier(urls);
+                frontierService.addBatchToFrontier(shardRouter.route(seedUrls, UrlOrigin.SEED), UrlOrigin.SEED);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } catch (Exception e) {
-                logger.error("Error processing URL batch from {}: {}", source, e.getMessage());
+                logger.error("Error processing seed URLs", e);
             }
         });
     }
-}
\ No newline at end of file
+
+    @PreDestroy
+    public void shutdown() {
+        seedExecutorService.shutdownNow();
+    }
+}
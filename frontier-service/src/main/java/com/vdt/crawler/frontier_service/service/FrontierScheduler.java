@@ -1,6 +1,11 @@
 package com.vdt.crawler.frontier_service.service;
 
+import com.vdt.crawler.frontier_service.config.DispatchConfig;
 import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.service.dispatch.CreditWindow;
+import com.vdt.crawler.frontier_service.service.dispatch.FetcherLagMonitor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,10 +13,8 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class FrontierScheduler {
@@ -21,118 +24,175 @@ public class FrontierScheduler {
     private final FrontierService frontierService;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final FrontierMetrics frontierMetrics;
-    private final AtomicBoolean isProcessing = new AtomicBoolean(false);
+    private final FetcherLagMonitor fetcherLagMonitor;
+    private final DispatchConfig dispatchConfig;
+    private final CreditWindow creditWindow;
+
+    // URLs moved from the front to the back queues per round of the dispatcher
+    private static final int MOVE_BATCH = 1000;
+    // Longest the dispatcher sleeps with nothing to do, enqueued URLs wake it before
+    private static final long MAX_IDLE_MS = 5000;
+    private static final long ERROR_BACKOFF_MS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private Thread dispatcher;
+    private volatile boolean running = true;
+
+    // Credit period, only used by the dispatcher thread
+    private long periodEndsAt;
+    private int granted;
+    private int credits;
+    private int sentInPeriod;
 
     @Autowired
-    public FrontierScheduler(FrontierService frontierService, KafkaTemplate<String, String> kafkaTemplate, FrontierMetrics frontierMetrics) {
+    public FrontierScheduler(FrontierService frontierService, KafkaTemplate<String, String> kafkaTemplate,
+                             FrontierMetrics frontierMetrics, FetcherLagMonitor fetcherLagMonitor,
+                             DispatchConfig dispatchConfig) {
         this.frontierService = frontierService;
         this.kafkaTemplate = kafkaTemplate;
         this.frontierMetrics = frontierMetrics;
+        this.fetcherLagMonitor = fetcherLagMonitor;
+        this.dispatchConfig = dispatchConfig;
+        this.creditWindow = new CreditWindow(dispatchConfig.getInitialCredits(), dispatchConfig.getMinCredits(),
+                dispatchConfig.getMaxCredits(), dispatchConfig.getAdditiveIncrease(),
+                dispatchConfig.getMultiplicativeDecrease());
+
+        frontierMetrics.registerGauge("frontier_dispatch_credit_window",
+                "Maximum number of dispatched URLs waiting for a fetcher", creditWindow, CreditWindow::getWindow);
+        frontierMetrics.registerGauge("frontier_dispatch_in_flight",
+                "Dispatched URLs not consumed by the fetchers yet", creditWindow, CreditWindow::getInFlight);
+        frontierMetrics.registerGauge("frontier_dispatch_rate",
+                "Smoothed dispatch rate to the fetchers in URLs per second", creditWindow, CreditWindow::getDispatchRate);
     }
 
-    /**
-     * Scheduled task to move URLs from front queue to back queue
-     * Runs every 3 seconds
-     */
-    @Scheduled(fixedDelay = 3000)
-    public void processQueue() {
-        if (isProcessing.compareAndSet(false, true)) {
-            try {
-                processUrlsFromFrontToBack();
-            } catch (Exception e) {
-                logger.error("Error in scheduled queue processing", e);
-            } finally {
-                isProcessing.set(false);
-            }
-        }
+    @PostConstruct
+    public void start() {
+        dispatcher = new Thread(this::pump, "frontier-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(SHUTDOWN_TIMEOUT_MS);
     }
 
     /**
-     * Scheduled task to send URLs to crawlers
-     * Runs every 2 seconds
+     * Dispatcher loop: page spilled URLs back in, refill the back queues of the hosts running low and
+     * send every URL whose host is ready, as far as the credits allow. Then sleep until URLs are
+     * enqueued, the next host is ready, the next credits or the next refill, whichever comes first.
      */
-    @Scheduled(fixedDelay = 2000)
-    public void sendUrlsToFetcher() {
-        try {
-            List<String> urlsToSend = new ArrayList<>();
-
-            // Get URLs from back queue (respecting politeness)
-            for (int i = 0; i < 10; i++) { // Max 10 URLs per batch
-                String url = frontierService.getNextUrlFromBackQueue();
-                if (url != null) {
-                    urlsToSend.add(url);
-                } else {
-                    break;
+    private void pump() {
+        long nextRefillAt = 0;
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now >= nextRefillAt) {
+                    // Page spilled URLs back in as the memory tier drains
+                    frontierService.refillFromDisk();
+                    nextRefillAt = now + dispatchConfig.getRefillIntervalMs();
                 }
-            }
 
-            if (!urlsToSend.isEmpty()) {
-                // Send to crawler service via Kafka
-                for (String url : urlsToSend) {
-                    kafkaTemplate.send("fetching_tasks", url);
-                    String host = new URL(url).getHost();
-                    frontierMetrics.incrementProcessedUrls(host);
+                // Hosts running low take URLs from the front queues, the highest levels first. The
+                // back queues hold about what the credits can send, the rest keeps its level up front.
+                int wanted = Math.max(MOVE_BATCH, 2 * creditWindow.getWindow()) - frontierService.backQueueSize();
+                int moved = wanted > 0 ? frontierService.moveToBackQueues(Math.min(wanted, MOVE_BATCH)) : 0;
+                if (moved > 0) {
+                    logger.debug("Moved {} URLs from front to back queue", moved);
                 }
-
-                logger.info("Sent {} URLs to fetcher", urlsToSend.size());
+                sendReadyUrls();
+
+                now = System.currentTimeMillis();
+                long wakeAt = frontierService.hasSpilledUrls() ? nextRefillAt : now + MAX_IDLE_MS;
+                if (moved == MOVE_BATCH) {
+                    // Every URL of the pass found room, more hosts may be waiting for their first URLs
+                    wakeAt = now;
+                } else if (credits > 0) {
+                    long readyAt = frontierService.nextReadyAt();
+                    if (readyAt >= 0) {
+                        wakeAt = Math.min(wakeAt, readyAt);
+                    }
+                } else if (frontierService.nextReadyAt() >= 0) {
+                    wakeAt = Math.min(wakeAt, periodEndsAt);
+                }
+                frontierService.awaitWork(Math.max(0, wakeAt - now));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Error in frontier dispatcher", e);
+                sleepQuietly(ERROR_BACKOFF_MS);
             }
-
-        } catch (Exception e) {
-            logger.error("Error sending URLs to fetcher", e);
         }
+        logger.info("Frontier dispatcher stopped");
     }
 
     /**
-     * Scheduled task to move URLs from retry set to front queue
-     * Runs every 5mins
+     * Send the URLs whose host is ready to the fetchers, as many as the credit window allows.
+     * The lag is read and the window adapted once per period, its credits are spent as URLs come.
      */
-    @Scheduled(fixedDelay = 300000)
-    public void retryUrlScheduler() {
-        try {
-            List<String> retryUrls = new ArrayList<>();
-
-            // Get URLs from back queue (respecting politeness)
-            for (int i = 0; i < 5; i++) { // Max 10 URLs per batch
-                String url = frontierService.getNextUrlfromRetrySet();
-                if (url != null) {
-                    retryUrls.add(url);
-                } else {
-                    break;
-                }
+    private void sendReadyUrls() {
+        long now = System.currentTimeMillis();
+        if (now >= periodEndsAt) {
+            if (periodEndsAt > 0) {
+                creditWindow.dispatched(granted, sentInPeriod, now);
             }
-
-            if (!retryUrls.isEmpty()) {
-                frontierService.addToFrontier(retryUrls);
-            }
-
-        } catch (Exception e) {
-            logger.error("Error retry URLs", e);
+            granted = creditWindow.acquire(fetcherLagMonitor.currentLag());
+            credits = granted;
+            sentInPeriod = 0;
+            periodEndsAt = now + dispatchConfig.getIntervalMs();
         }
-    }
 
-    private void processUrlsFromFrontToBack() {
-        // Process URLs from front queue to back queue
-        List<String> processedUrls = new ArrayList<>();
-
-        int batchSize = 50;
-
-        // Get URLs from front queue
-        for (int i = 0; i < batchSize; i++) { // Process max 50 URLs per cycle
-            String url = frontierService.getNextUrlFromFrontQueue();
-            if (url != null) {
-                frontierService.moveToBackQueue(url);
-                processedUrls.add(url);
-            } else {
+        int sent = 0;
+        // Only hosts whose crawl delay expired are served
+        while (credits > 0 && running) {
+            String url = frontierService.getNextUrlFromBackQueue();
+            if (url == null) {
                 break;
             }
+            // Domains past their byte budget wait on disk until they earned it back
+            if (frontierService.deferOverBudget(url)) {
+                continue;
+            }
+            try {
+                kafkaTemplate.send(dispatchConfig.getTopic(), url);
+                frontierMetrics.incrementProcessedUrls(new URL(url).getHost());
+            } catch (MalformedURLException e) {
+                logger.error("Invalid URL format: {}", url, e);
+            }
+            credits--;
+            sentInPeriod++;
+            sent++;
         }
 
-        if (!processedUrls.isEmpty()) {
-            logger.debug("Moved {} URLs from front to back queue", processedUrls.size());
+        if (sent > 0) {
+            logger.debug("Sent {} URLs to fetcher, credit window {}, in flight {}",
+                    sent, creditWindow.getWindow(), creditWindow.getInFlight());
         }
     }
 
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
+    /**
+     * Scheduled task to checkpoint the in-memory frontier to disk
+     * Runs every minute by default
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${frontier.storage.checkpoint-interval-ms:60000}")
+    public void checkpointFrontier() {
+        try {
+            frontierService.checkpoint();
+        } catch (Exception e) {
+            logger.error("Error checkpointing frontier", e);
+        }
+    }
 
     /**
      * Log frontier statistics periodically
@@ -141,11 +201,12 @@ public class FrontierScheduler {
     @Scheduled(fixedDelay = 30000)
     public void logStatistics() {
         try {
+            frontierService.purgeIdleHosts();
             var stats = frontierService.getFrontierStats();
-            logger.info("Frontier Stats - Front: {}, Back: {}, Domains: {}",
+            logger.info("Frontier Stats - Front: {}, Back: {}, Active hosts: {}",
                     stats.get("totalFrontUrls"),
                     stats.get("totalBackUrls"),
-                    stats.get("totalDomainMappings"));
+                    stats.get("activeHosts"));
         } catch (Exception e) {
             logger.warn("Error logging statistics", e);
         }
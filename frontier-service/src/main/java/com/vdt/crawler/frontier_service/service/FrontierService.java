@@ -1,9 +1,25 @@
 package com.vdt.crawler.frontier_service.service;
 
+import com.vdt.crawler.frontier_service.config.ScoringConfig;
 import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
-import com.vdt.crawler.frontier_service.model.Domain;
-import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.budget.CrawlBudgets;
+import com.vdt.crawler.frontier_service.service.dedup.SeenUrlFilter;
+import com.vdt.crawler.frontier_service.service.dispatch.DispatchSignal;
+import com.vdt.crawler.frontier_service.service.queue.HostBackQueues;
+import com.vdt.crawler.frontier_service.service.queue.StripedFrontQueues;
+import com.vdt.crawler.frontier_service.service.queue.UrlWithTimestamp;
+import com.vdt.crawler.frontier_service.service.robotstxt.HostDirectives;
 import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtServer;
+import com.vdt.crawler.frontier_service.service.scoring.Discovery;
+import com.vdt.crawler.frontier_service.service.scoring.UrlScorer;
+import com.vdt.crawler.frontier_service.service.state.DomainState;
+import com.vdt.crawler.frontier_service.service.state.DomainStateStore;
+import com.vdt.crawler.frontier_service.service.storage.FrontierCheckpoint;
+import com.vdt.crawler.frontier_service.service.storage.FrontierStore;
+import com.vdt.crawler.frontier_service.utils.UrlCanonicalizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,96 +28,260 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class FrontierService {
     private final RobotstxtServer robotstxtServer;
-    private final DomainRepository domainRepository;
-    private final Map<String, Domain> domainsDataCache;
+    private final DomainStateStore domainStateStore;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final UrlScorer urlScorer;
+    private final CrawlBudgets crawlBudgets;
     private final FrontierMetrics frontierMetrics;
+    private final FrontierStore frontierStore;
 
     private final Logger logger = LoggerFactory.getLogger(FrontierService.class);
 
-    // Front queues - Priority queue
-    private final Map<Integer, BlockingQueue<UrlWithTimestamp>> frontQueues;
+    // Front queues - Priority queue, one lock per sub-queue
+    private final StripedFrontQueues frontQueues;
 
-    // Back queues - Domain based for politeness
-    private final Map<String, BlockingQueue<String>> backQueues;
+    // Back queues - one FIFO per host, scheduled by next allowed fetch time for politeness
+    private final HostBackQueues backQueues;
 
-    // Mapping table for domain to back queue assignment
-    private final Map<String, String> domainToBackQueueMapping;
+    // Crawl delay (millis) of every host seen in processUrl
+    private final Map<String, Long> hostCrawlDelays;
 
-    // Read-write locks for thread safety
-    private final ReadWriteLock frontQueueLock = new ReentrantReadWriteLock();
-    private final ReadWriteLock backQueueLock = new ReentrantReadWriteLock();
-    private final ReadWriteLock mappingLock = new ReentrantReadWriteLock();
+    // Hosts with a back queue gauge, dropped with the gauge when the host is purged
+    private final Set<String> gaugedHosts = ConcurrentHashMap.newKeySet();
 
-    private final ConcurrentSkipListSet<String> retryUrlsSet = new ConcurrentSkipListSet<>();
-    private final ConcurrentHashMap<String, Boolean> urlsInQueue = new ConcurrentHashMap<>();
+    // Held while URLs move between the memory and disk tiers, and while a checkpoint takes its
+    // snapshot and spill cursors, so every URL is either in the snapshot or after the cursors
+    private final ReentrantLock tierLock = new ReentrantLock();
 
-    // Queue selectors
-    private volatile String currentBackQueue = null;
+    // Raised when URLs are enqueued from outside the dispatcher, wakes it
+    private final DispatchSignal dispatchSignal = new DispatchSignal();
 
-    // Configuration
-    private static final int MAX_QUEUE_SIZE = 10000;
-    private static final int NUMBER_OF_BACK_QUEUES = 10;
+    // URLs waiting for the robots.txt of their host
+    private final AtomicInteger parkedUrls = new AtomicInteger();
+    // Admits parked URLs once their robots.txt is cached, the robots.txt fetch threads only fetch
+    private final ExecutorService admissionExecutor;
 
-    private final AtomicInteger currentBackQueueIndex = new AtomicInteger(0);
+    // Dedup by URL fingerprint: "ever seen" bloom filter + exact "currently queued" set
+    private final SeenUrlFilter seenUrlFilter;
+    private final Path seenFilterFile;
 
+    // Configuration
+    private static final int MAX_QUEUE_SIZE = 10000;
+    // A host only takes URLs from the front queues while its back queue holds fewer than this many,
+    // the bulk of the frontier stays in the front queues and keeps its priority levels
+    private static final int BACK_QUEUE_CAPACITY = 8;
+    // Spilled URLs of a priority level are paged back in once its memory tier is below this size
+    private static final int REFILL_WATERMARK = MAX_QUEUE_SIZE * StripedFrontQueues.SUB_QUEUES / 2;
+    // URLs deferred by the crawl budget are paged back in batches of at most this size per domain,
+    // and only as many as the URL tokens of the domain pay for
+    private static final int DEFERRED_REFILL_BATCH = 1000;
+    private static final long DEFAULT_CRAWL_DELAY_MILLIS = 2000;
+    // Upper bound for robots.txt crawl-delay, so a single host cannot park its URLs for hours
+    private static final long MAX_CRAWL_DELAY_MILLIS = 60000;
+    private static final int ADMISSION_THREADS = 2;
+    // Longest a batch waits for the robots.txt of its hosts
+    private static final long ROBOTS_RESOLVE_TIMEOUT_SECONDS = 30;
+    // Initial capacity and target false positive rate of the seen URL filter, it grows past the capacity
+    private static final long SEEN_FILTER_CAPACITY = 1_000_000;
+    private static final double SEEN_FILTER_FPP = 0.01;
+    private static final String SEEN_FILTER_FILE = "seen-filter.dat";
+
+    // Front queue levels 1 to levels, a URL goes to the level of its score
+    private final int levels;
     // Weighted round-robin schedule: more weight = more frequent access
-    private final List<Integer> weightedSchedule = List.of(3, 3, 3, 3, 3, 2, 2, 2, 1); // priority levels
-    private final AtomicInteger currentScheduleIndex = new AtomicInteger(0); // Thread-safe counter
+    private final List<Integer> weightedSchedule; // priority levels
 
     @Autowired
-    public FrontierService(RobotstxtServer robotstxtServer, DomainRepository domainRepository, FrontierMetrics frontierMetrics) {
+    public FrontierService(RobotstxtServer robotstxtServer, DomainStateStore domainStateStore,
+                           UrlCanonicalizer urlCanonicalizer, UrlScorer urlScorer, ScoringConfig scoringConfig,
+                           CrawlBudgets crawlBudgets, FrontierMetrics frontierMetrics, FrontierStore frontierStore) {
         this.robotstxtServer = robotstxtServer;
-        this.domainRepository = domainRepository;
+        this.domainStateStore = domainStateStore;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.urlScorer = urlScorer;
+        this.crawlBudgets = crawlBudgets;
         this.frontierMetrics = frontierMetrics;
-        this.domainsDataCache = new ConcurrentHashMap<>();
-        this.frontQueues = new ConcurrentHashMap<>();
-        this.backQueues = new ConcurrentHashMap<>();
-        this.domainToBackQueueMapping = new ConcurrentHashMap<>();
+        this.frontierStore = frontierStore;
+        this.levels = scoringConfig.getLevelWeights().size();
+        this.weightedSchedule = weightedScheduleOf(scoringConfig.getLevelWeights());
+        this.frontQueues = new StripedFrontQueues(weightedSchedule, MAX_QUEUE_SIZE);
+        this.backQueues = new HostBackQueues(BACK_QUEUE_CAPACITY);
+        this.hostCrawlDelays = new ConcurrentHashMap<>();
+        this.seenUrlFilter = new SeenUrlFilter(SEEN_FILTER_CAPACITY, SEEN_FILTER_FPP);
+        this.seenFilterFile = frontierStore.getDir().resolve(SEEN_FILTER_FILE);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.admissionExecutor = Executors.newFixedThreadPool(ADMISSION_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "frontier-admission-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        frontierMetrics.registerGauge("frontier_seen_filter_fpp",
+                "Expected false positive rate of the seen URL filter", seenUrlFilter, SeenUrlFilter::expectedFpp);
+        frontierMetrics.registerGauge("frontier_seen_filter_fill_ratio",
+                "Ratio of set bits in the seen URL filter", seenUrlFilter, SeenUrlFilter::fillRatio);
+        frontierMetrics.registerGauge("frontier_seen_urls",
+                "Approximate number of distinct URLs ever queued", seenUrlFilter, SeenUrlFilter::seenCount);
+        frontierMetrics.registerGauge("frontier_queued_urls",
+                "Number of URLs currently queued in the frontier", seenUrlFilter, SeenUrlFilter::queuedCount);
+        frontierMetrics.registerGauge("frontier_robots_parked_urls",
+                "Number of URLs waiting for the robots.txt of their host", parkedUrls, AtomicInteger::get);
+
+        // Queue depths, all read from counters maintained by the queues
+        for (int priority : new TreeSet<>(weightedSchedule)) {
+            String level = String.valueOf(priority);
+            frontierMetrics.registerGauge("frontier_front_queue_urls", "Number of URLs in memory per priority level",
+                    "priority", level, frontQueues, queues -> queues.sizeOfPriority(priority));
+            frontierMetrics.registerGauge("frontier_spilled_urls", "Number of URLs spilled on disk per priority level",
+                    "priority", level, frontierStore, store -> store.spilledSizeOf(priority));
+            frontierMetrics.registerGauge("frontier_budget_deferred_urls",
+                    "Number of URLs deferred on disk by the crawl budget per priority level",
+                    "priority", level, frontierStore, store -> store.deferredSizeOf(priority));
+        }
+        frontierMetrics.registerGauge("frontier_back_queue_urls_total",
+                "Number of URLs in the back queues", backQueues, HostBackQueues::size);
+        frontierMetrics.registerGauge("frontier_active_hosts",
+                "Number of hosts with URLs in the back queues", backQueues, HostBackQueues::activeHosts);
+        frontierMetrics.registerGauge("frontier_oldest_ready_age_seconds",
+                "How long the most overdue host has been ready without being served", backQueues,
+                queues -> queues.oldestReadyAgeMillis(System.currentTimeMillis()) / 1000.0);
+        frontierMetrics.registerGauge("frontier_seen_filter_bytes",
+                "Memory used by the seen URL filter", seenUrlFilter, SeenUrlFilter::sizeInBytes);
+
+        logger.info("FrontierService initialized with per-host back queues");
+    }
+
+    /**
+     * Rebuild the memory tier from the last checkpoint
+     */
+    @PostConstruct
+    public void recover() {
+        try {
+            seenUrlFilter.readFrom(seenFilterFile);
+        } catch (IOException e) {
+            logger.error("Error reading seen URL filter, starting with an empty one", e);
+        }
+
+        try {
+            FrontierCheckpoint checkpoint = frontierStore.readCheckpoint();
+            if (checkpoint == null) {
+                logger.info("No frontier checkpoint found, starting empty");
+                return;
+            }
+
+            checkpoint.getFrontItems().forEach((priority, items) -> {
+                for (UrlWithTimestamp item : items) {
+                    try {
+                        // Levels of a checkpoint written with another level count are clamped to the current ones
+                        if (addToFrontQueue(extractDomain(item.getUrl()), item.getUrl(), clampLevel(priority),
+                                item.getLastCrawled())) {
+                            seenUrlFilter.markQueued(SeenUrlFilter.fingerprint(item.getUrl()));
+                        }
+                    } catch (MalformedURLException e) {
+                        logger.warn("Skipping invalid URL in checkpoint: {}", item.getUrl());
+                    }
+                }
+            });
+            checkpoint.getBackItems().forEach((host, urls) -> {
+                for (String url : urls) {
+                    // Back queues of a checkpoint written before they were kept small go on up front
+                    if (backQueues.offer(host, url, DEFAULT_CRAWL_DELAY_MILLIS)
+                            || addToFrontQueue(host, url, rescoredLevel(url, host), null)) {
+                        seenUrlFilter.markQueued(SeenUrlFilter.fingerprint(url));
+                    }
+                }
+            });
+
+            logger.info("Recovered {} URLs from checkpoint, {} URLs spilled on disk",
+                    checkpoint.size(), frontierStore.spilledSize());
+        } catch (IOException e) {
+            logger.error("Error reading frontier checkpoint", e);
+        }
+    }
+
+    /**
+     * Persist the memory tier so it can be rebuilt after a crash or restart
+     */
+    public void checkpoint() {
+        FrontierCheckpoint checkpoint = new FrontierCheckpoint();
+        try {
+            tierLock.lock();
+            try {
+                frontQueues.forEach(checkpoint::addFrontItem);
+                backQueues.snapshot().forEach(checkpoint::addBackItems);
+                frontierStore.captureSpillCursors(checkpoint);
+            } finally {
+                tierLock.unlock();
+            }
+            frontierStore.writeCheckpoint(checkpoint);
+            frontierStore.pruneDeferred(checkpoint);
+            logger.debug("Checkpointed {} URLs from memory tier", checkpoint.size());
+        } catch (IOException e) {
+            logger.error("Error writing frontier checkpoint", e);
+        }
 
-        // Initialize back queues
-        for (int i = 0; i < NUMBER_OF_BACK_QUEUES; i++) {
-            backQueues.put("b" + i, new LinkedBlockingQueue<>(MAX_QUEUE_SIZE));
+        try {
+            seenUrlFilter.writeTo(seenFilterFile);
+        } catch (IOException e) {
+            logger.error("Error writing seen URL filter", e);
         }
+    }
 
-        logger.info("FrontierService initialized with {} back queues", NUMBER_OF_BACK_QUEUES);
+    @PreDestroy
+    public void shutdown() {
+        admissionExecutor.shutdown();
+        checkpoint();
     }
 
     public void addToFrontier(String url) {
+        addToFrontier(url, UrlOrigin.DISCOVERED);
+    }
+
+    public void addToFrontier(String url, UrlOrigin origin) {
+        addToFrontier(url, Discovery.of(origin));
+    }
+
+    private void addToFrontier(String url, Discovery discovery) {
         if (url == null || url.trim().isEmpty()) {
             logger.warn("Empty or null URL provided");
             return;
         }
 
         try {
-            processUrl(url);
+            processUrl(url, discovery);
         } catch (Exception e) {
             logger.error("Error processing URL: {}", url, e);
         }
     }
 
     public void addToFrontier(List<String> urls) {
+        addToFrontier(urls, UrlOrigin.DISCOVERED);
+    }
+
+    public void addToFrontier(List<String> urls, UrlOrigin origin) {
         if (urls == null || urls.isEmpty()) {
             logger.warn("Empty or null URL list provided");
             return;
         }
 
         // Process URLs in parallel for better performance
+        Discovery discovery = Discovery.of(origin);
         urls.parallelStream().forEach(url -> {
             try {
                 if (url == null || url.trim().isEmpty()) {
                     logger.warn("Empty or null URL provided");
                 } else {
-                    processUrl(url);
+                    processUrl(url, discovery);
                 }
             } catch (Exception e) {
                 logger.error("Error processing URL: {}", url, e);
@@ -109,23 +289,30 @@ public class FrontierService {
         });
     }
 
-    private void processUrl(String url) {
-        try {
-            if (urlsInQueue.containsKey(url)) {
-                logger.debug("URL already in queue, skipping: {}", url);
-                return;
-            }
+    /**
+     * Dedup on the canonical form of the URL, so its variants are fetched once
+     */
+    private void processUrl(String rawUrl, Discovery discovery) {
+        String url = urlCanonicalizer.canonicalize(rawUrl);
+        if (url == null) {
+            frontierMetrics.incrementRejectedUrls();
+            logger.debug("Not a crawlable URL: {}", rawUrl);
+            return;
+        }
+        long fingerprint = SeenUrlFilter.fingerprint(url);
+        if (!discovery.origin().bypassesSeenFilter() && seenUrlFilter.wasSeen(fingerprint)) {
+            logger.debug("URL already seen, skipping: {}", url);
+            return;
+        }
+        if (!seenUrlFilter.markQueued(fingerprint)) {
+            logger.debug("URL already in queue, skipping: {}", url);
+            return;
+        }
 
+        boolean handedOff = false;
+        try {
             String host = new URL(url).getHost();
-
-            // Check robots.txt
-
-            Double crawlDelay_double = robotstxtServer.getCrawlDelay(url);
-            int crawlDelay = crawlDelay_double != null ? crawlDelay_double.intValue() : 2;
-
-            Domain domain = domainsDataCache.computeIfAbsent(host, h ->
-                    domainRepository.findByDomain(h).orElse(null)
-            );
+            DomainState domain = domainStateStore.get(host);
 
             if (domain == null) {
                 frontierMetrics.incrementRejectedUrls();
@@ -133,334 +320,657 @@ public class FrontierService {
                 return;
             }
 
-            if (!robotstxtServer.allows(url)) {
-                frontierMetrics.incrementRejectedUrls(host);
-                logger.info("URL blocked by robots.txt: {}", url);
-                return;
+            // Resolve robots.txt without blocking: URLs of a host whose robots.txt is
+            // being fetched are parked until it is cached, then admitted with the directives fetched
+            CompletableFuture<HostDirectives> robots = robotstxtServer.resolve(url);
+            handedOff = true;
+            if (robots == null) {
+                admitUrl(url, fingerprint, host, domain, null, null, discovery);
+            } else if (robots.isDone()) {
+                robots.whenComplete((directives, error) ->
+                        admitUrl(url, fingerprint, host, domain, directives, error, discovery));
+            } else {
+                parkedUrls.incrementAndGet();
+                robots.whenCompleteAsync((directives, error) -> {
+                    try {
+                        admitUrl(url, fingerprint, host, domain, directives, error, discovery);
+                    } finally {
+                        parkedUrls.decrementAndGet();
+                    }
+                }, admissionExecutor);
             }
+        } catch (MalformedURLException e) {
+            frontierMetrics.incrementRejectedUrls();
+            logger.error("Error processing URL: {}", url, e);
+        } finally {
+            if (!handedOff) {
+                seenUrlFilter.unmarkQueued(fingerprint);
+            }
+        }
+    }
 
-            int priority = domain.getPriority();
-            Instant lastCrawl = domain.getLastCrawled();
+    /**
+     * Add a URL marked queued to the front queues once the robots.txt of its host is resolved.
+     * A URL whose robots.txt could not be resolved is dropped, it may be found again later.
+     *
+     * @param directives robots.txt of the host, null if robots.txt is not obeyed
+     * @param error why robots.txt could not be resolved, null if it was
+     */
+    private void admitUrl(String url, long fingerprint, String host, DomainState domain,
+                          HostDirectives directives, Throwable error, Discovery discovery) {
+        if (error != null) {
+            seenUrlFilter.unmarkQueued(fingerprint);
+            frontierMetrics.incrementRejectedUrls(host);
+            logger.warn("Robots.txt of {} not resolved, dropping {}: {}", host, url, error.toString());
+            return;
+        }
+        // Remember the crawl delay, it is enforced when the URL reaches the back queue
+        rememberCrawlDelay(host, crawlDelayMillis(directives != null ? directives.getCrawlDelay() : null));
+        admitMarked(url, fingerprint, host, domain, directives, discovery);
+    }
 
-            // Add to appropriate front queue based on crawl delay
-            if (addToFrontQueue(host, url, priority, lastCrawl, crawlDelay)) {
+    /**
+     * Add a URL marked queued to the front queues unless robots.txt disallows it, it is unmarked
+     * if it was not queued
+     *
+     * @return true if the URL was queued
+     */
+    private boolean admitMarked(String url, long fingerprint, String host, DomainState domain,
+                                HostDirectives directives, Discovery discovery) {
+        boolean queued = false;
+        try {
+            if (directives != null && !directives.allows(new URL(url).getPath())) {
+                frontierMetrics.incrementRejectedUrls(host);
+                logger.info("URL blocked by robots.txt: {}", url);
+            } else if (admitToFrontQueue(host, url, levelOf(url, domain, discovery), domain)) {
+                queued = true;
+                seenUrlFilter.markSeen(fingerprint);
                 frontierMetrics.incrementScheduledUrlsTotal();
-                urlsInQueue.put(url, true);
-                logger.info("Added URL to frontier: {} with crawl delay: {}", url, crawlDelay);
             } else {
                 frontierMetrics.incrementRejectedUrls(host);
             }
-        } catch (InterruptedException | IOException e) {
+        } catch (MalformedURLException e) {
             frontierMetrics.incrementRejectedUrls();
-            logger.error("Error processing URL: {}", url, e);
+            logger.debug("Malformed URL: {}", url);
+        } finally {
+            if (!queued) {
+                seenUrlFilter.unmarkQueued(fingerprint);
+            }
         }
-
+        return queued;
     }
 
-    private String extractDomain(String url) throws MalformedURLException {
-        URL urlObj = new URL(url);
-        return urlObj.getHost().toLowerCase();
+    /**
+     * Add a batch of URLs, returns once every URL is in the frontier or rejected.
+     *
+     * URLs are grouped by host: each host costs one domain lookup and one robots.txt resolution,
+     * the robots.txt of all hosts are resolved concurrently. URLs of a host whose robots.txt takes
+     * longer than {@link #ROBOTS_RESOLVE_TIMEOUT_SECONDS} are waited for again.
+     *
+     * @return number of URLs added to the frontier
+     */
+    public int addBatchToFrontier(Collection<String> urls, UrlOrigin origin) throws InterruptedException {
+        return addBatchToFrontier(urls, Discovery.of(origin));
     }
 
-    public void addRetryUrl(String url) {
-        retryUrlsSet.add(url);
+    /**
+     * Add a batch of URLs found together, ranked with the signals of their discovery
+     *
+     * @return number of URLs added to the frontier
+     */
+    public int addBatchToFrontier(Collection<String> urls, Discovery discovery) throws InterruptedException {
+        int added = 0;
+        Collection<String> remaining = urls;
+        while (!remaining.isEmpty()) {
+            BatchResult result = admitBatch(remaining, discovery, TimeUnit.SECONDS.toMillis(ROBOTS_RESOLVE_TIMEOUT_SECONDS));
+            added += result.added();
+            remaining = result.pending();
+        }
+        return added;
     }
 
-    public String getNextUrlfromRetrySet() {
-        if (retryUrlsSet.isEmpty()) return null;
-        String url = retryUrlsSet.first();
-        retryUrlsSet.remove(url);
-        return url;
-    }
+    /**
+     * Add a batch of URLs found together, waiting at most timeoutMillis for the robots.txt of their
+     * hosts. URLs of a host whose robots.txt is still being fetched then are left to the caller,
+     * nothing of them is kept, so a consumer can have them delivered again.
+     */
+    public BatchResult admitBatch(Collection<String> urls, Discovery discovery, long timeoutMillis)
+            throws InterruptedException {
+        UrlOrigin origin = discovery.origin();
+        Map<String, List<String>> byHost = new LinkedHashMap<>();
+        // URLs as given, by canonical URL
+        Map<String, String> given = new HashMap<>();
+        for (String url : urls) {
+            if (url == null || url.isBlank()) {
+                continue;
+            }
+            String canonical = urlCanonicalizer.canonicalize(url);
+            if (canonical == null) {
+                frontierMetrics.incrementRejectedUrls();
+                continue;
+            }
+            if (!origin.bypassesSeenFilter() && seenUrlFilter.wasSeen(SeenUrlFilter.fingerprint(canonical))) {
+                logger.debug("URL already seen, skipping: {}", canonical);
+                continue;
+            }
+            try {
+                byHost.computeIfAbsent(extractDomain(canonical), host -> new ArrayList<>()).add(canonical);
+                given.putIfAbsent(canonical, url);
+            } catch (MalformedURLException e) {
+                frontierMetrics.incrementRejectedUrls();
+                logger.debug("Malformed URL: {}", canonical);
+            }
+        }
 
-    public static class UrlWithTimestamp implements Comparable<UrlWithTimestamp> {
-        private final String url;
-        private final Instant lastCrawled;
+        Map<String, DomainState> domains = new LinkedHashMap<>();
+        Map<String, CompletableFuture<HostDirectives>> robots = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : byHost.entrySet()) {
+            String host = entry.getKey();
+            DomainState domain = domainStateStore.get(host);
+            if (domain == null) {
+                entry.getValue().forEach(url -> frontierMetrics.incrementRejectedUrls());
+                logger.warn("Drop {} URLs in domain {}", entry.getValue().size(), host);
+                continue;
+            }
+            try {
+                robots.put(host, robotstxtServer.resolve(entry.getValue().get(0)));
+                domains.put(host, domain);
+            } catch (MalformedURLException e) {
+                entry.getValue().forEach(url -> frontierMetrics.incrementRejectedUrls());
+            }
+        }
 
-        public UrlWithTimestamp(String url, Instant lastCrawled) {
-            this.url = url;
-            this.lastCrawled = lastCrawled;
+        int added = 0;
+        List<String> pending = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Map.Entry<String, DomainState> entry : domains.entrySet()) {
+            String host = entry.getKey();
+            List<String> hostUrls = byHost.get(host);
+            HostDirectives directives = null;
+            CompletableFuture<HostDirectives> resolution = robots.get(host);
+            if (resolution != null) {
+                try {
+                    directives = resolution.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    logger.debug("Robots.txt of {} not resolved in time, {} URLs pending", host, hostUrls.size());
+                    hostUrls.forEach(url -> pending.add(given.get(url)));
+                    continue;
+                } catch (ExecutionException e) {
+                    hostUrls.forEach(url -> frontierMetrics.incrementRejectedUrls(host));
+                    logger.warn("Robots.txt of {} not resolved, dropping {} URLs: {}",
+                            host, hostUrls.size(), e.getCause().toString());
+                    continue;
+                }
+            }
+            added += addUrlsOfHost(host, entry.getValue(), directives, hostUrls, discovery);
         }
+        return new BatchResult(added, pending);
+    }
+
+    /**
+     * URLs added by a batch, and the URLs given for it that wait for the robots.txt of their host
+     */
+    public record BatchResult(int added, List<String> pending) {
+    }
 
-        @Override
-        public int compareTo(UrlWithTimestamp other) {
-            if (this.lastCrawled == null && other.lastCrawled == null) {
-                return 0;
+    /**
+     * Add URLs of one host whose domain and robots.txt were resolved once for all of them
+     *
+     * @param directives robots.txt of the host, null if robots.txt is not obeyed
+     * @return number of URLs added to the frontier
+     */
+    private int addUrlsOfHost(String host, DomainState domain, HostDirectives directives, List<String> urls,
+                              Discovery discovery) {
+        UrlOrigin origin = discovery.origin();
+        long crawlDelay = crawlDelayMillis(directives != null ? directives.getCrawlDelay() : null);
+        rememberCrawlDelay(host, crawlDelay);
+
+        int added = 0;
+        for (String url : urls) {
+            long fingerprint = SeenUrlFilter.fingerprint(url);
+            if (!origin.bypassesSeenFilter() && seenUrlFilter.wasSeen(fingerprint)) {
+                logger.debug("URL already seen, skipping: {}", url);
+                continue;
             }
-            if (this.lastCrawled == null) {
-                return -1;
+            if (!seenUrlFilter.markQueued(fingerprint)) {
+                logger.debug("URL already in queue, skipping: {}", url);
+                continue;
             }
-            if (other.lastCrawled == null) {
-                return 1;
+            if (admitMarked(url, fingerprint, host, domain, directives, discovery)) {
+                added++;
             }
-            return this.lastCrawled.compareTo(other.lastCrawled);
         }
+        return added;
+    }
 
-
-        public String getUrl() { return url; }
-        public Instant getLastCrawled() { return lastCrawled; }
+    /**
+     * Front queue level of a URL: the score range is split evenly over the levels
+     */
+    private int levelOf(String url, DomainState domain, Discovery discovery) {
+        return levelOf(urlScorer.score(url, domain, discovery), levels);
     }
 
-    private boolean addToFrontQueue(String domain, String url, int priority, Instant lastCrawled, int crawlDelay) {
-        frontQueueLock.writeLock().lock();
-        try {
-            int baseQueueKey = priority;
-            // Add domain hash to distribute URLs across different queues
-            int domainHash = Math.abs(domain.hashCode() % 3); // Spread across 3 sub-queues
-            int queueKey = baseQueueKey * 10 + domainHash; // e.g., priority 5 -> queues 50, 51, 52
+    static int levelOf(double score, int levels) {
+        return 1 + Math.max(0, Math.min(levels - 1, (int) (score * levels)));
+    }
 
-            UrlWithTimestamp urlItem = new UrlWithTimestamp(url, lastCrawled);
+    private int clampLevel(int level) {
+        return Math.max(1, Math.min(levels, level));
+    }
 
-            // Try primary queue first
-            if (tryAddToQueue(queueKey, urlItem)) {
-                return true;
+    /**
+     * Round-robin schedule visiting every level as many times as its weight, highest level first
+     *
+     * @param levelWeights weight of every level, lowest level first
+     */
+    static List<Integer> weightedScheduleOf(List<Integer> levelWeights) {
+        if (levelWeights.isEmpty()) {
+            throw new IllegalArgumentException("At least one front queue level is needed");
+        }
+        List<Integer> schedule = new ArrayList<>();
+        for (int level = levelWeights.size(); level >= 1; level--) {
+            for (int i = 0; i < Math.max(1, levelWeights.get(level - 1)); i++) {
+                schedule.add(level);
             }
+        }
+        return schedule;
+    }
 
-            // If failed, try other sub-queues with same base priority
-            for (int i = 0; i < 3; i++) {
-                if (i != domainHash) {
-                    int alternativeKey = baseQueueKey * 10 + i;
-                    if (tryAddToQueue(alternativeKey, urlItem)) {
-                        logger.debug("Added URL to alternative queue {}: {}", alternativeKey, url);
-                        return true;
-                    }
-                }
-            }
+    private static long crawlDelayMillis(Double crawlDelaySeconds) {
+        return crawlDelaySeconds != null
+                ? Math.min((long) (crawlDelaySeconds * 1000), MAX_CRAWL_DELAY_MILLIS)
+                : DEFAULT_CRAWL_DELAY_MILLIS;
+    }
 
-            // If still failed, try lower priority queues
-            for (int fallbackBase = baseQueueKey - 1; fallbackBase >= baseQueueKey - 2; fallbackBase--) {
-                for (int i = 0; i < 3; i++) {
-                    int fallbackKey = fallbackBase * 10 + i;
-                    if (tryAddToQueue(fallbackKey, urlItem)) {
-                        logger.info("Added URL to fallback queue {}: {}", fallbackKey, url);
-                        return true;
-                    }
-                }
-            }
+    private String extractDomain(String url) throws MalformedURLException {
+        URL urlObj = new URL(url);
+        return urlObj.getHost().toLowerCase();
+    }
+
+    /**
+     * Add a new URL to the front queues within the crawl budget of its domain, a URL over budget is
+     * deferred to disk until its domain earned tokens again
+     */
+    private boolean admitToFrontQueue(String host, String url, int priority, DomainState domain) {
+        if (!crawlBudgets.tryAdmit(domain)) {
+            frontierMetrics.incrementDeferredUrls(domain.getDomain(), "admission");
+            return defer(domain.getDomain(), priority, new UrlWithTimestamp(url, domain.getLastCrawled()));
+        }
+        return addToFrontQueue(host, url, priority, domain.getLastCrawled());
+    }
+
+    private boolean addToFrontQueue(String domain, String url, int priority, Instant lastCrawled) {
+        UrlWithTimestamp item = new UrlWithTimestamp(url, lastCrawled);
+        if (frontQueues.offer(domain, priority, item)) {
+            dispatchSignal.signal();
+            return true;
+        }
+        return spill(priority, item);
+    }
 
-            logger.warn("All queues full, dropping URL: {}", url);
+    /**
+     * Move an URL that does not fit in memory to the disk tier
+     */
+    private boolean spill(int priority, UrlWithTimestamp item) {
+        try {
+            frontierStore.spill(priority, item);
+            logger.debug("Memory queues full, spilled URL to disk: {}", item.getUrl());
+            return true;
+        } catch (IOException e) {
+            logger.warn("All queues full and spill failed, dropping URL: {}", item.getUrl(), e);
             return false;
-        } finally {
-            frontQueueLock.writeLock().unlock();
         }
     }
 
-    private boolean tryAddToQueue(int queueKey, UrlWithTimestamp urlItem) {
-        BlockingQueue<UrlWithTimestamp> queue = frontQueues.computeIfAbsent(
-                queueKey,
-                k -> new PriorityBlockingQueue<>(MAX_QUEUE_SIZE)
-        );
-        return queue.offer(urlItem);
+    /**
+     * Move a URL of a domain over its crawl budget to the disk tier, apart from the URLs spilled
+     * for lack of memory
+     */
+    private boolean defer(String domain, int priority, UrlWithTimestamp item) {
+        try {
+            frontierStore.defer(domain, priority, item);
+            logger.debug("Domain over its crawl budget, deferred URL to disk: {}", item.getUrl());
+            return true;
+        } catch (IOException e) {
+            logger.warn("Deferring URL to disk failed, dropping URL: {}", item.getUrl(), e);
+            return false;
+        }
     }
 
     /**
-     * Get next URL from front queue (prioritized by crawl delay) weight round robin
+     * Page spilled URLs back into the front queues of every priority level
+     * whose memory tier drained below the refill watermark. Deferred URLs come back
+     * once their domain is within budget again, and pay for their admission then.
      */
-    public String getNextUrlFromFrontQueue() {
-        frontQueueLock.writeLock().lock();
+    public int refillFromDisk() {
+        tierLock.lock();
         try {
-            int trials = weightedSchedule.size();
-            int startIndex = currentScheduleIndex.get();
-            while (trials-- > 0) {
-                int priorityLevel = weightedSchedule.get(currentScheduleIndex.get());
-                currentScheduleIndex.updateAndGet(i -> (i + 1) % weightedSchedule.size());
-
-                // Lặp qua 3 sub-queues cùng priority
-                int startSubQueue = (int) (System.nanoTime() % 3);
-                for (int j = 0; j < 3; j++) {
-                    int i = (startSubQueue + j) % 3;
-                    int queueKey = priorityLevel * 10 + i;
-                    BlockingQueue<UrlWithTimestamp> queue = frontQueues.get(queueKey);
-
-                    if (queue != null && !queue.isEmpty()) {
-                        UrlWithTimestamp item = queue.poll();
-                        if (item != null) {
-                            logger.debug("Retrieved URL from queue {} (priority {}): {}",
-                                    queueKey, priorityLevel, item.getUrl());
-                            return item.getUrl();
+            return refillFromDiskLocked() + refillDeferredLocked();
+        } finally {
+            tierLock.unlock();
+        }
+    }
+
+    private int refillFromDiskLocked() {
+        int refilled = 0;
+        for (int priority : frontierStore.spilledPriorities()) {
+            // URLs spilled with another level count go back to the closest current level, negative
+            // levels are URLs deferred by the budget before deferred URLs were kept per domain
+            int level = clampLevel(Math.abs(priority));
+            int room = REFILL_WATERMARK - frontQueues.sizeOfPriority(level);
+            if (room <= 0) {
+                continue;
+            }
+            try {
+                for (UrlWithTimestamp item : frontierStore.pollSpilled(priority, room)) {
+                    if (frontQueues.offer(item.getHost(), level, item)) {
+                        refilled++;
+                    } else if (!spill(level, item)) {
+                        seenUrlFilter.unmarkQueued(SeenUrlFilter.fingerprint(item.getUrl()));
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Error reading spilled URLs of priority {}", priority, e);
+            }
+        }
+        if (refilled > 0) {
+            logger.debug("Paged {} spilled URLs back into front queues", refilled);
+        }
+        return refilled;
+    }
+
+    /**
+     * Page deferred URLs back in for the domains that earned URL tokens again, as many as they can
+     * pay for. The deferred URLs of a domain still over budget are not read at all.
+     */
+    private int refillDeferredLocked() {
+        int refilled = 0;
+        for (String domainName : frontierStore.deferredDomains()) {
+            DomainState domain = domainStateStore.get(domainName);
+            long tokens = domain != null ? crawlBudgets.admittableUrls(domain) : DEFERRED_REFILL_BATCH;
+            if (tokens <= 0) {
+                continue;
+            }
+            int budget = (int) Math.min(tokens, DEFERRED_REFILL_BATCH);
+            for (int priority : frontierStore.deferredPriorities(domainName)) {
+                int level = clampLevel(priority);
+                int count = Math.min(budget, REFILL_WATERMARK - frontQueues.sizeOfPriority(level));
+                if (count <= 0) {
+                    continue;
+                }
+                try {
+                    for (UrlWithTimestamp item : frontierStore.pollDeferred(domainName, priority, count)) {
+                        budget--;
+                        if (domain == null) {
+                            // The domain is not crawled anymore
+                            seenUrlFilter.unmarkQueued(SeenUrlFilter.fingerprint(item.getUrl()));
+                        } else if (!crawlBudgets.tryAdmit(domain)) {
+                            // Tokens taken by new URLs of the domain meanwhile
+                            if (!defer(domainName, priority, item)) {
+                                seenUrlFilter.unmarkQueued(SeenUrlFilter.fingerprint(item.getUrl()));
+                            }
+                        } else if (frontQueues.offer(item.getHost(), level, item)) {
+                            refilled++;
+                        } else if (!spill(level, item)) {
+                            seenUrlFilter.unmarkQueued(SeenUrlFilter.fingerprint(item.getUrl()));
                         }
                     }
+                } catch (IOException e) {
+                    logger.error("Error reading deferred URLs of domain {}", domainName, e);
                 }
             }
+        }
+        if (refilled > 0) {
+            logger.debug("Paged {} deferred URLs back into front queues", refilled);
+        }
+        return refilled;
+    }
 
+    /**
+     * Get next URL from front queue (prioritized by crawl delay) weight round robin
+     */
+    public String getNextUrlFromFrontQueue() {
+        UrlWithTimestamp item = frontQueues.poll();
+        if (item == null) {
             logger.debug("No URLs available in any front queue");
             return null;
+        }
+        return item.getUrl();
+    }
+
+    /**
+     * Refill the back queues of the hosts running low from the front queues, polling up to max
+     * URLs in priority order. A URL whose host already has a full back queue stays in the front
+     * queues at its level. URLs stay encoded, nothing is materialized on the way.
+     *
+     * @return number of URLs moved
+     */
+    public int moveToBackQueues(int max) {
+        // The URLs held by a pass are in neither tier, a checkpoint waits for the pass
+        tierLock.lock();
+        try {
+            return frontQueues.drain(max, this::moveToBackQueue);
         } finally {
-            frontQueueLock.writeLock().unlock();
+            tierLock.unlock();
+        }
+    }
+
+    private boolean moveToBackQueue(UrlWithTimestamp item) {
+        String host = item.getHost();
+        long crawlDelay = hostCrawlDelays.getOrDefault(host, DEFAULT_CRAWL_DELAY_MILLIS);
+
+        if (!backQueues.offer(host, item.getEncodedUrl(), crawlDelay)) {
+            return false;
         }
+        registerBackQueueGauge(host);
+        return true;
     }
 
     /**
-     * Move URL from front queue to back queue for politeness
+     * Move URL from front queue to the back queue of its host for politeness
+     *
+     * @return false if the back queue of the host is full, the URL is not queued anymore
      */
-    public void moveToBackQueue(String url) {
+    public boolean moveToBackQueue(String url) {
         try {
-            String domain = extractDomain(url);
-            String backQueueId = getBackQueueForDomain(domain);
+            String host = extractDomain(url);
+            long crawlDelay = hostCrawlDelays.getOrDefault(host, DEFAULT_CRAWL_DELAY_MILLIS);
 
-            backQueueLock.writeLock().lock();
-            try {
-                BlockingQueue<String> backQueue = backQueues.get(backQueueId);
-                if (backQueue != null) {
-                    if (!backQueue.offer(url)) {
-                        logger.warn("Back queue {} full, dropping URL: {}", backQueueId, url);
-                    }
-                } else {
-                    logger.error("Back queue not found: {}", backQueueId);
-                }
-            } finally {
-                backQueueLock.writeLock().unlock();
+            if (backQueues.offer(host, url, crawlDelay)) {
+                registerBackQueueGauge(host);
+                dispatchSignal.signal();
+                return true;
             }
-
         } catch (MalformedURLException e) {
             logger.error("Invalid URL format: {}", url, e);
         }
+        seenUrlFilter.unmarkQueued(SeenUrlFilter.fingerprint(url));
+        return false;
     }
 
-    private String getBackQueueForDomain(String domain) {
-        return domainToBackQueueMapping.computeIfAbsent(domain, k -> {
-            // Assign domain to back queue using hash for even distribution
-            int queueIndex = Math.abs(domain.hashCode() % NUMBER_OF_BACK_QUEUES);
-            return "b" + (queueIndex);
-        });
+    /**
+     * Block the dispatcher until URLs are enqueued, or the timeout elapsed. URLs enqueued since
+     * the previous call return at once.
+     *
+     * @return true if URLs were enqueued
+     */
+    public boolean awaitWork(long timeoutMillis) throws InterruptedException {
+        return dispatchSignal.await(timeoutMillis);
+    }
+
+    /**
+     * Earliest time a host of the back queues may be fetched, -1 when they are empty
+     */
+    public long nextReadyAt() {
+        return backQueues.nextReadyAt();
+    }
+
+    /**
+     * Number of URLs waiting in the back queues of their hosts
+     */
+    public int backQueueSize() {
+        return backQueues.size();
     }
 
     /**
-     * Get next URL from back queue (round-robin selection)
+     * Whether URLs wait on disk to be paged back in
+     */
+    public boolean hasSpilledUrls() {
+        return frontierStore.spilledSize() > 0 || frontierStore.deferredSize() > 0;
+    }
+
+    /**
+     * Get next URL from the back queue of the host whose crawl delay expired first.
+     * Returns null when no host is ready yet.
      */
     public String getNextUrlFromBackQueue() {
-        backQueueLock.writeLock().lock();
+        String url = backQueues.poll(System.currentTimeMillis());
+        if (url != null) {
+            seenUrlFilter.unmarkQueued(SeenUrlFilter.fingerprint(url));
+        }
+        return url;
+    }
+
+    /**
+     * Level of a URL taken from the back queues, its level is not kept there so it is rescored
+     */
+    private int rescoredLevel(String url, String host) {
+        DomainState domain = domainStateStore.get(host);
+        return domain != null ? levelOf(url, domain, Discovery.of(UrlOrigin.DISCOVERED)) : 1;
+    }
+
+    /**
+     * Defer a URL taken from the back queues to disk when its domain fetched more bytes than its budget
+     *
+     * @return true if the URL must not be dispatched
+     */
+    public boolean deferOverBudget(String url) {
         try {
-            List<String> queueIds = new ArrayList<>(backQueues.keySet());
-            Collections.sort(queueIds);
-
-            int total = queueIds.size();
-            for (int i = 0; i < total; i++) {
-                int index = (currentBackQueueIndex.get() + i) % total;
-                String queueId = queueIds.get(index);
-
-                BlockingQueue<String> queue = backQueues.get(queueId);
-                if (queue != null && !queue.isEmpty()) {
-                    currentBackQueueIndex.set((index + 1) % total);
-                    String url = queue.poll();
-                    if (url != null) {
-                        urlsInQueue.remove(url);
+            String host = extractDomain(url);
+            DomainState domain = domainStateStore.get(host);
+            if (domain == null || crawlBudgets.allowsDispatch(domain)) {
+                return false;
+            }
+            frontierMetrics.incrementDeferredUrls(domain.getDomain(), "dispatch");
+            // Paid at admission, the URL pays again when admitted again
+            crawlBudgets.refundUrl(domain);
+            long fingerprint = SeenUrlFilter.fingerprint(url);
+            // Already queued again meanwhile, that copy is enough
+            if (seenUrlFilter.markQueued(fingerprint)) {
+                tierLock.lock();
+                try {
+                    if (!defer(domain.getDomain(), rescoredLevel(url, host),
+                            new UrlWithTimestamp(url, domain.getLastCrawled()))) {
+                        seenUrlFilter.unmarkQueued(fingerprint);
                     }
-                    return url;
+                } finally {
+                    tierLock.unlock();
                 }
             }
+            return true;
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
 
-            return null;
-        } finally {
-            backQueueLock.writeLock().unlock();
+    private void rememberCrawlDelay(String host, long crawlDelay) {
+        hostCrawlDelays.put(host.toLowerCase(), crawlDelay);
+    }
+
+    /**
+     * Register the back queue gauge of a host the first time it gets a back queue, or again once purged
+     */
+    private void registerBackQueueGauge(String host) {
+        if (gaugedHosts.add(host)) {
+            frontierMetrics.registerGauge("frontier_back_queue_urls", "Number of URLs in the back queue of a host",
+                    "host", host, backQueues, queues -> queues.hostSize(host));
+        }
+    }
+
+    /**
+     * Forget politeness state of hosts that have nothing queued anymore, and their back queue gauge
+     */
+    public void purgeIdleHosts() {
+        int purged = backQueues.purgeIdleHosts(System.currentTimeMillis(), host -> {
+            if (gaugedHosts.remove(host)) {
+                frontierMetrics.removeGauge("frontier_back_queue_urls", "host", host);
+            }
+        });
+        if (purged > 0) {
+            logger.debug("Purged {} idle hosts from back queues", purged);
         }
     }
 
     /**
-     * Get frontier statistics
+     * Get frontier statistics, read from the queue counters without taking any queue lock
      */
     public Map<String, Object> getFrontierStats() {
         Map<String, Object> stats = new HashMap<>();
 
         // Front queue stats
-        frontQueueLock.readLock().lock();
-        try {
-            Map<String, Integer> frontQueueSizes = new HashMap<>();
-            int totalFrontUrls = 0;
+        Map<String, Integer> frontQueueSizes = new HashMap<>();
+        int totalFrontUrls = 0;
 
-            for (Map.Entry<Integer, BlockingQueue<UrlWithTimestamp>> entry : frontQueues.entrySet()) {
-                int size = entry.getValue().size();
-                frontQueueSizes.put("f" + entry.getKey(), size);
-                totalFrontUrls += size;
-            }
-
-            stats.put("frontQueues", frontQueueSizes);
-            stats.put("totalFrontUrls", totalFrontUrls);
-        } finally {
-            frontQueueLock.readLock().unlock();
+        for (Map.Entry<Integer, Integer> entry : frontQueues.sizes().entrySet()) {
+            frontQueueSizes.put("f" + entry.getKey(), entry.getValue());
+            totalFrontUrls += entry.getValue();
         }
 
+        stats.put("frontQueues", frontQueueSizes);
+        stats.put("totalFrontUrls", totalFrontUrls);
+
         // Back queue stats
-        backQueueLock.readLock().lock();
-        try {
-            Map<String, Integer> backQueueSizes = new HashMap<>();
-            int totalBackUrls = 0;
+        stats.put("backQueues", backQueues.sizes());
+        stats.put("totalBackUrls", backQueues.size());
+        stats.put("activeHosts", backQueues.activeHosts());
+        stats.put("oldestReadyAgeMs", backQueues.oldestReadyAgeMillis(System.currentTimeMillis()));
 
-            for (Map.Entry<String, BlockingQueue<String>> entry : backQueues.entrySet()) {
-                int size = entry.getValue().size();
-                backQueueSizes.put(entry.getKey(), size);
-                totalBackUrls += size;
-            }
+        // Disk tier stats
+        stats.put("spilledQueues", frontierStore.spilledSizes());
+        stats.put("totalSpilledUrls", frontierStore.spilledSize());
+        stats.put("totalDeferredUrls", frontierStore.deferredSize());
 
-            stats.put("backQueues", backQueueSizes);
-            stats.put("totalBackUrls", totalBackUrls);
-        } finally {
-            backQueueLock.readLock().unlock();
-        }
+        stats.put("parkedUrls", parkedUrls.get());
 
-        // Domain mapping stats
-        mappingLock.readLock().lock();
-        try {
-            stats.put("totalDomainMappings", domainToBackQueueMapping.size());
-        } finally {
-            mappingLock.readLock().unlock();
-        }
+        // Dedup stats
+        stats.put("queuedUrls", seenUrlFilter.queuedCount());
+        stats.put("seenUrls", seenUrlFilter.seenCount());
+        stats.put("seenFilterFillRatio", seenUrlFilter.fillRatio());
+        stats.put("seenFilterFpp", seenUrlFilter.expectedFpp());
+        stats.put("seenFilterBytes", seenUrlFilter.sizeInBytes());
 
         return stats;
     }
 
+    /**
+     * Number of URLs queued in memory, front and back queues
+     */
+    public int size() {
+        return frontQueues.size() + backQueues.size();
+    }
+
     /**
      * Check if frontier is empty
      */
     public boolean isEmpty() {
-        frontQueueLock.readLock().lock();
-        try {
-            boolean frontEmpty = frontQueues.values().stream()
-                    .allMatch(Queue::isEmpty);
-
-            if (frontEmpty) {
-                backQueueLock.readLock().lock();
-                try {
-                    return backQueues.values().stream()
-                            .allMatch(Queue::isEmpty);
-                } finally {
-                    backQueueLock.readLock().unlock();
-                }
-            }
-
-            return false;
-        } finally {
-            frontQueueLock.readLock().unlock();
-        }
+        return frontQueues.isEmpty() && backQueues.isEmpty() && !hasSpilledUrls();
     }
 
     /**
      * Clear all queues
      */
     public void clear() {
-        frontQueueLock.writeLock().lock();
-        try {
-            frontQueues.values().forEach(BlockingQueue::clear);
-        } finally {
-            frontQueueLock.writeLock().unlock();
-        }
+        frontQueues.clear();
+        backQueues.clear();
+        // URLs ever seen stay in the filter, only the queued ones are forgotten
+        seenUrlFilter.clearQueued();
 
-        backQueueLock.writeLock().lock();
         try {
-            backQueues.values().forEach(BlockingQueue::clear);
-        } finally {
-            backQueueLock.writeLock().unlock();
+            frontierStore.clearSpilled();
+        } catch (IOException e) {
+            logger.error("Error clearing spilled URLs", e);
         }
 
-        mappingLock.writeLock().lock();
-        try {
-            domainToBackQueueMapping.clear();
-        } finally {
-            mappingLock.writeLock().unlock();
-        }
-
-        urlsInQueue.clear();
-
         logger.info("All frontier queues cleared");
     }
 }
\ No newline at end of file
@@ -1,10 +1,11 @@
 package com.vdt.crawler.frontier_service.service;
 
 import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
 import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.net.MalformedURLException;
@@ -17,13 +18,18 @@ public class SchedulerService {
 
     private final DomainRepository domainRepository;
     private final FrontierService frontierService;
+    private final ShardRouter shardRouter;
 
-    public SchedulerService(DomainRepository domainRepository, FrontierService frontierService) {
+    public SchedulerService(DomainRepository domainRepository, FrontierService frontierService,
+                            ShardRouter shardRouter) {
         this.domainRepository = domainRepository;
         this.frontierService = frontierService;
+        this.shardRouter = shardRouter;
     }
 
-    @Scheduled(initialDelay = 90000, fixedRate = 1200000) // 20 minutes = 1200000 milliseconds
+    /**
+     * Visit the seed URLs of every active domain now, periodic visits are planned by the RevisitScheduler
+     */
     public void scheduleCrawling() throws MalformedURLException {
         logger.info(">>> Starting scheduled Crawling task ...");
         List<Domain> activeDomains = domainRepository.findByActiveTrue();
@@ -36,14 +42,15 @@ public class SchedulerService {
         });
 
         logger.info(">>> Found total {} active domains and {} urls from seedUrls", activeDomains.size(), seedUrls.size());
-        frontierService.addToFrontier(seedUrls);
+        // Only the node the trigger was posted to runs this, seeds of other nodes are forwarded to them
+        frontierService.addToFrontier(shardRouter.route(seedUrls, UrlOrigin.SEED), UrlOrigin.SEED);
     }
 
     private void scheduleDomainCrawl(Domain domain) {
         logger.info(">>> Starting scheduled Crawling task for domain {} ...", domain.getDomain());
         if (domain.getSeedUrls() != null) {
             logger.info(">>> Found total {} urls from seedUrls", domain.getSeedUrls().size());
-            frontierService.addToFrontier(domain.getSeedUrls());
+            frontierService.addToFrontier(shardRouter.route(domain.getSeedUrls(), UrlOrigin.SEED), UrlOrigin.SEED);
         }
     }
 
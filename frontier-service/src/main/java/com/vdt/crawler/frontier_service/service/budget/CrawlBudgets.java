@@ -0,0 +1,128 @@
+package com.vdt.crawler.frontier_service.service.budget;
+
+import com.vdt.crawler.frontier_service.config.BudgetConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.service.state.DomainState;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hourly crawl budget of every domain, so a domain with a huge link graph cannot take the whole
+ * frontier and fetch capacity is shared fairly.
+ *
+ * Two token buckets per domain: URLs admitted to the frontier, charged at admission, and bytes
+ * fetched, charged when the fetchers report them. A domain out of either budget has its new URLs
+ * deferred to disk, a domain in byte debt also has its queued URLs deferred at dispatch, their URL
+ * tokens given back so every URL pays once. The limits come from the domain document, else from
+ * the configured defaults.
+ */
+@Service
+public class CrawlBudgets {
+    private final BudgetConfig config;
+    private final FrontierMetrics frontierMetrics;
+
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    public CrawlBudgets(BudgetConfig config, FrontierMetrics frontierMetrics) {
+        this.config = config;
+        this.frontierMetrics = frontierMetrics;
+    }
+
+    /**
+     * Take a URL token of the domain, if it has one and is not in byte debt
+     *
+     * @return false if the URL must wait for the budget of its domain
+     */
+    public boolean tryAdmit(DomainState domain) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        Budget budget = budgetOf(domain, now);
+        return budget.bytes.hasTokens(now) && budget.urls.tryAcquire(1, now);
+    }
+
+    /**
+     * Number of URLs of the domain that could be admitted now without taking their tokens,
+     * 0 while it is out of URL tokens or in byte debt
+     */
+    public long admittableUrls(DomainState domain) {
+        if (!config.isEnabled()) {
+            return Long.MAX_VALUE;
+        }
+        long now = System.currentTimeMillis();
+        Budget budget = budgetOf(domain, now);
+        if (!budget.bytes.hasTokens(now)) {
+            return 0;
+        }
+        return budget.urls.isUnlimited() ? Long.MAX_VALUE : (long) Math.max(0, budget.urls.available(now));
+    }
+
+    /**
+     * Give back the URL token of a queued URL that leaves the frontier unfetched, it pays again
+     * once admitted again
+     */
+    public void refundUrl(DomainState domain) {
+        if (config.isEnabled()) {
+            long now = System.currentTimeMillis();
+            budgetOf(domain, now).urls.charge(-1, now);
+        }
+    }
+
+    /**
+     * Whether a queued URL of the domain may be sent to the fetchers
+     */
+    public boolean allowsDispatch(DomainState domain) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        return budgetOf(domain, now).bytes.hasTokens(now);
+    }
+
+    /**
+     * Charge bytes fetched from the domain, past its budget if needed
+     */
+    public void recordBytes(DomainState domain, long bytes) {
+        if (config.isEnabled() && bytes > 0) {
+            long now = System.currentTimeMillis();
+            budgetOf(domain, now).bytes.charge(bytes, now);
+        }
+    }
+
+    private Budget budgetOf(DomainState domain, long now) {
+        String key = domain.getDomain().toLowerCase(Locale.ROOT);
+        long urlsPerHour = limit(domain.getUrlsPerHour(), config.getDefaultUrlsPerHour());
+        long bytesPerHour = limit(domain.getBytesPerHour(), config.getDefaultBytesPerHour());
+        Budget budget = budgets.get(key);
+        if (budget == null) {
+            budget = budgets.computeIfAbsent(key, k -> register(k, new Budget(
+                    new TokenBucket(urlsPerHour, config.getBurstMs(), now),
+                    new TokenBucket(bytesPerHour, config.getBurstMs(), now))));
+        }
+        // Limits of the domain may have been changed since
+        budget.urls.setRate(urlsPerHour, now);
+        budget.bytes.setRate(bytesPerHour, now);
+        return budget;
+    }
+
+    private static long limit(long own, long defaultLimit) {
+        return own > 0 ? own : defaultLimit;
+    }
+
+    private Budget register(String domain, Budget budget) {
+        frontierMetrics.registerGauge("frontier_budget_urls_usage",
+                "Share of the URL budget burst of a domain used, above 1 in debt", "domain", domain,
+                budget.urls, bucket -> bucket.usage(System.currentTimeMillis()));
+        frontierMetrics.registerGauge("frontier_budget_bytes_usage",
+                "Share of the byte budget burst of a domain used, above 1 in debt", "domain", domain,
+                budget.bytes, bucket -> bucket.usage(System.currentTimeMillis()));
+        return budget;
+    }
+
+    private record Budget(TokenBucket urls, TokenBucket bytes) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.vdt.crawler.frontier_service.service.budget;
+
+/**
+ * Token bucket refilled continuously at a rate per hour, holding at most a burst worth of tokens.
+ *
+ * Usage only known after the fact, like the bytes of a fetched page, is charged unconditionally:
+ * the balance may go negative and nothing is granted until the debt is paid back. A rate of 0 or
+ * less is unlimited.
+ */
+public class TokenBucket {
+    static final long HOUR_MS = 3600 * 1000;
+
+    private final long burstMs;
+    private long perHour;
+    private double capacity;
+    private double tokens;
+    private long updatedAt;
+
+    /**
+     * @param burstMs the bucket holds the tokens earned in this time, starting full
+     */
+    public TokenBucket(long perHour, long burstMs, long now) {
+        this.burstMs = burstMs;
+        this.perHour = perHour;
+        this.capacity = capacityOf(perHour, burstMs);
+        this.tokens = capacity;
+        this.updatedAt = now;
+    }
+
+    private static double capacityOf(long perHour, long burstMs) {
+        return Math.max(1, (double) perHour * burstMs / HOUR_MS);
+    }
+
+    public synchronized void setRate(long perHour, long now) {
+        if (perHour == this.perHour) {
+            return;
+        }
+        refill(now);
+        this.perHour = perHour;
+        this.capacity = capacityOf(perHour, burstMs);
+        tokens = Math.min(tokens, capacity);
+    }
+
+    public synchronized boolean isUnlimited() {
+        return perHour <= 0;
+    }
+
+    /**
+     * Take count tokens if the bucket holds them
+     */
+    public synchronized boolean tryAcquire(long count, long now) {
+        if (perHour <= 0) {
+            return true;
+        }
+        refill(now);
+        if (tokens < count) {
+            return false;
+        }
+        tokens -= count;
+        return true;
+    }
+
+    /**
+     * Take count tokens even past the balance, a negative count gives tokens back
+     */
+    public synchronized void charge(long count, long now) {
+        if (perHour <= 0) {
+            return;
+        }
+        refill(now);
+        tokens = Math.min(capacity, tokens - count);
+    }
+
+    /**
+     * Whether the bucket is not in debt
+     */
+    public synchronized boolean hasTokens(long now) {
+        if (perHour <= 0) {
+            return true;
+        }
+        refill(now);
+        return tokens > 0;
+    }
+
+    /**
+     * Tokens in the bucket, negative when in debt, NaN when unlimited
+     */
+    public synchronized double available(long now) {
+        if (perHour <= 0) {
+            return Double.NaN;
+        }
+        refill(now);
+        return tokens;
+    }
+
+    /**
+     * Share of the burst used, above 1 when in debt, NaN when unlimited
+     */
+    public synchronized double usage(long now) {
+        if (perHour <= 0) {
+            return Double.NaN;
+        }
+        refill(now);
+        return 1 - tokens / capacity;
+    }
+
+    private void refill(long now) {
+        if (now > updatedAt) {
+            tokens = Math.min(capacity, tokens + (double) (now - updatedAt) * perHour / HOUR_MS);
+            updatedAt = now;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.vdt.crawler.frontier_service.service.cache;
+
+import com.vdt.crawler.frontier_service.config.DomainCacheConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory view of the domains collection for the frontier hot path.
+ *
+ * All domains are preloaded once the application is ready and kept fresh by a periodic delta
+ * refresh on {@code updated_at}, plus write-through from the domain API. While every domain fits
+ * in the cache it is authoritative: an unknown host is rejected without asking Mongo. Otherwise
+ * misses fall back to Mongo and unknown hosts are remembered for a while (negative caching).
+ */
+@Component
+public class DomainCache {
+    private static final Logger logger = LoggerFactory.getLogger(DomainCache.class);
+
+    // Delta queries overlap the previous one, so writes racing with a refresh are not missed
+    private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(5);
+
+    private final DomainRepository domainRepository;
+    private final DomainCacheConfig config;
+
+    private final Map<String, Domain> domains = new ConcurrentHashMap<>();
+    // Unknown host -> expiry time, least recently used first
+    private final LinkedHashMap<String, Long> negative;
+
+    // True when every domain of the collection is cached
+    private volatile boolean complete;
+    private volatile Instant lastRefresh;
+    private volatile long lastFullRefresh;
+    private final AtomicLong mongoLookups = new AtomicLong();
+
+    public DomainCache(DomainRepository domainRepository, DomainCacheConfig config, FrontierMetrics frontierMetrics) {
+        this.domainRepository = domainRepository;
+        this.config = config;
+        this.negative = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > config.getMaxNegativeSize();
+            }
+        };
+
+        frontierMetrics.registerGauge("frontier_domain_cache_size",
+                "Number of domains in the domain cache", domains, Map::size);
+        frontierMetrics.registerGauge("frontier_domain_cache_negative_size",
+                "Number of unknown hosts remembered by the domain cache", this, DomainCache::negativeSize);
+        frontierMetrics.registerGauge("frontier_domain_cache_mongo_lookups",
+                "Domain lookups that missed the cache and went to Mongo", mongoLookups, AtomicLong::get);
+    }
+
+    private static String key(String host) {
+        return host.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Domain of host, or null if the host is not a crawled domain
+     */
+    public Domain get(String host) {
+        String key = key(host);
+        Domain domain = domains.get(key);
+        if (domain != null || complete) {
+            return domain;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (negative) {
+            Long expiresAt = negative.get(key);
+            if (expiresAt != null) {
+                if (expiresAt > now) {
+                    return null;
+                }
+                negative.remove(key);
+            }
+        }
+
+        mongoLookups.incrementAndGet();
+        domain = domainRepository.findByDomain(key).orElse(null);
+        if (domain != null) {
+            cache(domain);
+        } else {
+            synchronized (negative) {
+                negative.put(key, now + config.getNegativeTtlMs());
+            }
+        }
+        return domain;
+    }
+
+    /**
+     * Write-through after a domain was saved
+     */
+    public void put(Domain domain) {
+        cache(domain);
+        synchronized (negative) {
+            negative.remove(key(domain.getDomain()));
+        }
+    }
+
+    /**
+     * Forget a domain after it was deleted
+     */
+    public void evict(String host) {
+        domains.remove(key(host));
+    }
+
+    private void cache(Domain domain) {
+        if (domain.getDomain() == null) {
+            return;
+        }
+        String key = key(domain.getDomain());
+        if (!domains.containsKey(key)) {
+            // Over capacity, make room and stop trusting misses
+            trimTo(config.getMaxSize() - 1);
+        }
+        domains.put(key, domain);
+    }
+
+    private void trimTo(int maxSize) {
+        Iterator<String> it = domains.keySet().iterator();
+        while (domains.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            complete = false;
+        }
+    }
+
+    /**
+     * Load the whole collection, once at startup and then every full refresh interval
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void preload() {
+        Instant started = Instant.now();
+        try {
+            List<Domain> all = domainRepository.findAll();
+
+            Set<String> loaded = new HashSet<>();
+            for (Domain domain : all) {
+                if (domain.getDomain() != null) {
+                    loaded.add(key(domain.getDomain()));
+                }
+            }
+            domains.keySet().retainAll(loaded);
+            trimTo(config.getMaxSize());
+            complete = loaded.size() <= config.getMaxSize();
+            all.forEach(this::cache);
+            synchronized (negative) {
+                negative.clear();
+            }
+
+            lastRefresh = started;
+            lastFullRefresh = started.toEpochMilli();
+            logger.info("Domain cache loaded {} domains (complete: {})", domains.size(), complete);
+        } catch (Exception e) {
+            complete = false;
+            logger.error("Error preloading domain cache, falling back to lookups", e);
+        }
+    }
+
+    /**
+     * Pick up domains changed in Mongo since the last refresh
+     */
+    @Scheduled(initialDelayString = "${frontier.domain-cache.refresh-interval-ms:60000}",
+            fixedDelayString = "${frontier.domain-cache.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        Instant since = lastRefresh;
+        if (since == null || System.currentTimeMillis() - lastFullRefresh >= config.getFullRefreshIntervalMs()) {
+            preload();
+            return;
+        }
+
+        Instant started = Instant.now();
+        try {
+            List<Domain> changed = domainRepository.findByUpdatedAtAfter(since.minus(REFRESH_OVERLAP));
+            changed.forEach(this::put);
+            lastRefresh = started;
+            if (!changed.isEmpty()) {
+                logger.info("Domain cache refreshed {} changed domains", changed.size());
+            }
+        } catch (Exception e) {
+            logger.warn("Error refreshing domain cache", e);
+        }
+    }
+
+    public int size() {
+        return domains.size();
+    }
+
+    public int negativeSize() {
+        synchronized (negative) {
+            return negative.size();
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getMongoLookups() {
+        return mongoLookups.get();
+    }
+}
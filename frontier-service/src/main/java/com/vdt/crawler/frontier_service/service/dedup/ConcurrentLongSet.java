@@ -0,0 +1,186 @@
+package com.vdt.crawler.frontier_service.service.dedup;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact set of primitive longs: open addressing with linear probing, split into lock stripes.
+ * Costs about 8-16 bytes per element instead of a boxed Long plus a map node.
+ */
+public class ConcurrentLongSet {
+    private static final int STRIPES = 64;
+    private static final long EMPTY = 0L;
+    // 0 marks an empty slot, so the value 0 is stored under this replacement
+    private static final long ZERO_REPLACEMENT = 0x9e3779b97f4a7c15L;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int INITIAL_TABLE_SIZE = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    // Bytes of all stripe tables, kept up to date on resize so it can be read without locking
+    private final AtomicLong tableBytes = new AtomicLong(STRIPES * INITIAL_TABLE_SIZE * 8L);
+
+    public ConcurrentLongSet() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private static final class Stripe {
+        long[] table = new long[INITIAL_TABLE_SIZE];
+        int size;
+
+        private int slot(long value, int mask) {
+            return (int) (mix(value) & mask);
+        }
+
+        boolean add(long value) {
+            if (size + 1 > table.length * LOAD_FACTOR) {
+                resize(table.length * 2);
+            }
+            int mask = table.length - 1;
+            int i = slot(value, mask);
+            while (table[i] != EMPTY) {
+                if (table[i] == value) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+            size++;
+            return true;
+        }
+
+        boolean contains(long value) {
+            int mask = table.length - 1;
+            int i = slot(value, mask);
+            while (table[i] != EMPTY) {
+                if (table[i] == value) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        boolean remove(long value) {
+            int mask = table.length - 1;
+            int i = slot(value, mask);
+            while (table[i] != EMPTY) {
+                if (table[i] == value) {
+                    shiftBack(i, mask);
+                    size--;
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        /**
+         * Backward-shift deletion: move later entries of the probe chain into the hole
+         */
+        private void shiftBack(int hole, int mask) {
+            int i = hole;
+            while (true) {
+                i = (i + 1) & mask;
+                long value = table[i];
+                if (value == EMPTY) {
+                    break;
+                }
+                int home = slot(value, mask);
+                // Move the entry if its home slot is not within (hole, i]
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    table[hole] = value;
+                    hole = i;
+                }
+            }
+            table[hole] = EMPTY;
+        }
+
+        private void resize(int capacity) {
+            long[] old = table;
+            table = new long[capacity];
+            int mask = capacity - 1;
+            for (long value : old) {
+                if (value != EMPTY) {
+                    int i = slot(value, mask);
+                    while (table[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = value;
+                }
+            }
+        }
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long encode(long value) {
+        return value == EMPTY ? ZERO_REPLACEMENT : value;
+    }
+
+    private Stripe stripe(long value) {
+        return stripes[(int) ((value >>> 58) & (STRIPES - 1))];
+    }
+
+    public boolean add(long value) {
+        value = encode(value);
+        Stripe stripe = stripe(value);
+        synchronized (stripe) {
+            int capacity = stripe.table.length;
+            if (stripe.add(value)) {
+                size.incrementAndGet();
+                if (stripe.table.length != capacity) {
+                    tableBytes.addAndGet((stripe.table.length - capacity) * 8L);
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public boolean contains(long value) {
+        value = encode(value);
+        Stripe stripe = stripe(value);
+        synchronized (stripe) {
+            return stripe.contains(value);
+        }
+    }
+
+    public boolean remove(long value) {
+        value = encode(value);
+        Stripe stripe = stripe(value);
+        synchronized (stripe) {
+            if (stripe.remove(value)) {
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long sizeInBytes() {
+        return tableBytes.get();
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size.addAndGet(-stripe.size);
+                tableBytes.addAndGet((INITIAL_TABLE_SIZE - stripe.table.length) * 8L);
+                stripe.table = new long[INITIAL_TABLE_SIZE];
+                stripe.size = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.vdt.crawler.frontier_service.service.dedup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter (Almeida et al.) over 64-bit fingerprints.
+ *
+ * A new, twice as large slice with a tighter error rate is added whenever the last slice reaches
+ * its capacity, so the compound false positive rate stays below the configured target no matter
+ * how many fingerprints are inserted. Bits live in {@link AtomicLongArray}s: lookups and inserts
+ * are lock-free, only growing takes a lock.
+ */
+public class ScalableBloomFilter {
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.85;
+
+    private final long initialCapacity;
+    private final double targetFpp;
+    private volatile Slice[] slices;
+
+    public ScalableBloomFilter(long initialCapacity, double targetFpp) {
+        this.initialCapacity = initialCapacity;
+        this.targetFpp = targetFpp;
+        this.slices = new Slice[]{new Slice(initialCapacity, targetFpp * (1 - TIGHTENING))};
+    }
+
+    static final class Slice {
+        final long capacity;
+        final long numBits;
+        final int numHashes;
+        final AtomicLongArray bits;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong bitCount = new AtomicLong();
+
+        Slice(long capacity, double fpp) {
+            this.capacity = capacity;
+            long m = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.numBits = Math.max(64, (m + 63) / 64 * 64);
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray((int) (numBits / 64));
+        }
+
+        Slice(long capacity, long numBits, int numHashes) {
+            this.capacity = capacity;
+            this.numBits = numBits;
+            this.numHashes = numHashes;
+            this.bits = new AtomicLongArray((int) (numBits / 64));
+        }
+
+        private long index(long fingerprint, int i) {
+            long combined = fingerprint + i * mix(fingerprint);
+            return (combined & Long.MAX_VALUE) % numBits;
+        }
+
+        boolean mightContain(long fingerprint) {
+            for (int i = 0; i < numHashes; i++) {
+                long index = index(fingerprint, i);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean put(long fingerprint) {
+            boolean changed = false;
+            for (int i = 0; i < numHashes; i++) {
+                long index = index(fingerprint, i);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+                if ((current & mask) == 0) {
+                    bitCount.incrementAndGet();
+                    changed = true;
+                }
+            }
+            if (changed) {
+                count.incrementAndGet();
+            }
+            return changed;
+        }
+
+        double fillRatio() {
+            return (double) bitCount.get() / numBits;
+        }
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h | 1;
+    }
+
+    public boolean mightContain(long fingerprint) {
+        for (Slice slice : slices) {
+            if (slice.mightContain(fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Insert the fingerprint.
+     *
+     * @return true if the fingerprint was not (probably) present before
+     */
+    public boolean put(long fingerprint) {
+        if (mightContain(fingerprint)) {
+            return false;
+        }
+        Slice[] current = slices;
+        Slice last = current[current.length - 1];
+        if (last.count.get() >= last.capacity) {
+            last = grow(current);
+        }
+        return last.put(fingerprint);
+    }
+
+    private synchronized Slice grow(Slice[] seen) {
+        Slice[] current = slices;
+        if (current != seen) {
+            return current[current.length - 1];
+        }
+        Slice last = current[current.length - 1];
+        double fpp = targetFpp * (1 - TIGHTENING) * Math.pow(TIGHTENING, current.length);
+        Slice[] grown = new Slice[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = new Slice(last.capacity * GROWTH, fpp);
+        slices = grown;
+        return grown[current.length];
+    }
+
+    /**
+     * Approximate number of distinct fingerprints inserted
+     */
+    public long count() {
+        long total = 0;
+        for (Slice slice : slices) {
+            total += slice.count.get();
+        }
+        return total;
+    }
+
+    /**
+     * Ratio of set bits over all bits of all slices
+     */
+    public double fillRatio() {
+        long set = 0;
+        long total = 0;
+        for (Slice slice : slices) {
+            set += slice.bitCount.get();
+            total += slice.numBits;
+        }
+        return total == 0 ? 0 : (double) set / total;
+    }
+
+    /**
+     * Current false positive probability estimated from the fill ratio of every slice
+     */
+    public double expectedFpp() {
+        double none = 1.0;
+        for (Slice slice : slices) {
+            none *= 1 - Math.pow(slice.fillRatio(), slice.numHashes);
+        }
+        return 1 - none;
+    }
+
+    public long sizeInBytes() {
+        long total = 0;
+        for (Slice slice : slices) {
+            total += slice.numBits / 8;
+        }
+        return total;
+    }
+
+    public int sliceCount() {
+        return slices.length;
+    }
+
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        Slice[] current = slices;
+        out.writeLong(initialCapacity);
+        out.writeDouble(targetFpp);
+        out.writeInt(current.length);
+        for (Slice slice : current) {
+            out.writeLong(slice.capacity);
+            out.writeLong(slice.numBits);
+            out.writeInt(slice.numHashes);
+            out.writeLong(slice.count.get());
+            out.writeLong(slice.bitCount.get());
+            for (int i = 0; i < slice.bits.length(); i++) {
+                out.writeLong(slice.bits.get(i));
+            }
+        }
+    }
+
+    public static ScalableBloomFilter readFrom(DataInputStream in) throws IOException {
+        ScalableBloomFilter filter = new ScalableBloomFilter(in.readLong(), in.readDouble());
+        int count = in.readInt();
+        Slice[] slices = new Slice[count];
+        for (int s = 0; s < count; s++) {
+            Slice slice = new Slice(in.readLong(), in.readLong(), in.readInt());
+            slice.count.set(in.readLong());
+            slice.bitCount.set(in.readLong());
+            for (int i = 0; i < slice.bits.length(); i++) {
+                slice.bits.set(i, in.readLong());
+            }
+            slices[s] = slice;
+        }
+        filter.slices = slices;
+        return filter;
+    }
+}
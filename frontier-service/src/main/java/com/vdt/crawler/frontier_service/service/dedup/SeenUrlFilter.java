@@ -0,0 +1,153 @@
+package com.vdt.crawler.frontier_service.service.dedup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Two-layer URL dedup of the frontier, working on 64-bit URL fingerprints:
+ * <ul>
+ *     <li>"ever seen": a {@link ScalableBloomFilter}, about 1-2 bytes per URL</li>
+ *     <li>"currently queued": an exact {@link ConcurrentLongSet}, about 8-16 bytes per queued URL</li>
+ * </ul>
+ */
+public class SeenUrlFilter {
+    private static final Logger logger = LoggerFactory.getLogger(SeenUrlFilter.class);
+
+    private static final int FILE_MAGIC = 0x5345454e; // "SEEN"
+    private static final int FILE_VERSION = 1;
+
+    private volatile ScalableBloomFilter seen;
+    private final ConcurrentLongSet queued = new ConcurrentLongSet();
+
+    public SeenUrlFilter(long expectedUrls, double targetFpp) {
+        this.seen = new ScalableBloomFilter(expectedUrls, targetFpp);
+    }
+
+    /**
+     * 64-bit fingerprint of an URL (MurmurHash3 style mixing of the UTF-8 bytes)
+     */
+    public static long fingerprint(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        long h = 0xcbf29ce484222325L ^ bytes.length;
+        int i = 0;
+        for (; i + 8 <= bytes.length; i += 8) {
+            long k = (bytes[i] & 0xffL)
+                    | (bytes[i + 1] & 0xffL) << 8
+                    | (bytes[i + 2] & 0xffL) << 16
+                    | (bytes[i + 3] & 0xffL) << 24
+                    | (bytes[i + 4] & 0xffL) << 32
+                    | (bytes[i + 5] & 0xffL) << 40
+                    | (bytes[i + 6] & 0xffL) << 48
+                    | (bytes[i + 7] & 0xffL) << 56;
+            k *= 0x87c37b91114253d5L;
+            k = Long.rotateLeft(k, 31);
+            k *= 0x4cf5ad432745937fL;
+            h ^= k;
+            h = Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+        }
+        long tail = 0;
+        for (int shift = 0; i < bytes.length; i++, shift += 8) {
+            tail |= (bytes[i] & 0xffL) << shift;
+        }
+        h ^= tail * 0x87c37b91114253d5L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Mark the fingerprint as queued.
+     *
+     * @return false if it is queued already
+     */
+    public boolean markQueued(long fingerprint) {
+        return queued.add(fingerprint);
+    }
+
+    public void unmarkQueued(long fingerprint) {
+        queued.remove(fingerprint);
+    }
+
+    public boolean isQueued(long fingerprint) {
+        return queued.contains(fingerprint);
+    }
+
+    public boolean wasSeen(long fingerprint) {
+        return seen.mightContain(fingerprint);
+    }
+
+    public void markSeen(long fingerprint) {
+        seen.put(fingerprint);
+    }
+
+    public int queuedCount() {
+        return queued.size();
+    }
+
+    public long seenCount() {
+        return seen.count();
+    }
+
+    public double fillRatio() {
+        return seen.fillRatio();
+    }
+
+    public double expectedFpp() {
+        return seen.expectedFpp();
+    }
+
+    public long sizeInBytes() {
+        return seen.sizeInBytes() + queued.sizeInBytes();
+    }
+
+    public void clearQueued() {
+        queued.clear();
+    }
+
+    /**
+     * Atomically replace file with the "ever seen" layer. The "currently queued" layer is not
+     * persisted, it is rebuilt from the frontier checkpoint on recovery.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            seen.writeTo(out);
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restore the "ever seen" layer from file, if it exists
+     *
+     * @return true if the filter was restored
+     */
+    public boolean readFrom(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                logger.warn("Ignoring seen URL filter {} with unknown format", file);
+                return false;
+            }
+            seen = ScalableBloomFilter.readFrom(in);
+        }
+        logger.info("Restored seen URL filter: {} URLs, fill ratio {}, expected fpp {}",
+                seenCount(), String.format("%.4f", fillRatio()), String.format("%.6f", expectedFpp()));
+        return true;
+    }
+}
@@ -0,0 +1,89 @@
+package com.vdt.crawler.frontier_service.service.dispatch;
+
+/**
+ * AIMD credit window for dispatching URLs to the fetchers.
+ *
+ * The window is the number of URLs allowed to wait for a fetcher (sent but not consumed yet).
+ * Every tick the observed in-flight count is subtracted from the window to get the credits of
+ * that tick. The window grows additively while the fetchers drain everything we send, and
+ * shrinks multiplicatively once the backlog exceeds the window and keeps growing.
+ */
+public class CreditWindow {
+    private static final double RATE_SMOOTHING = 0.3;
+
+    private final int minCredits;
+    private final int maxCredits;
+    private final int additiveIncrease;
+    private final double multiplicativeDecrease;
+
+    private volatile int window;
+    private volatile long inFlight;
+    private volatile double dispatchRate;
+
+    private long lastInFlight = -1;
+    private boolean creditLimited;
+    private long lastDispatchAt = -1;
+
+    public CreditWindow(int initialCredits, int minCredits, int maxCredits,
+                        int additiveIncrease, double multiplicativeDecrease) {
+        this.minCredits = minCredits;
+        this.maxCredits = maxCredits;
+        this.additiveIncrease = additiveIncrease;
+        this.multiplicativeDecrease = multiplicativeDecrease;
+        this.window = Math.max(minCredits, Math.min(maxCredits, initialCredits));
+    }
+
+    /**
+     * Adapt the window to the observed number of URLs in flight and return the credits of this tick.
+     *
+     * @param observedInFlight URLs sent but not consumed by the fetchers, or a negative value when unknown
+     */
+    public synchronized int acquire(long observedInFlight) {
+        if (observedInFlight < 0) {
+            // Lag unknown, keep the window and only release the minimum
+            return minCredits;
+        }
+        inFlight = observedInFlight;
+
+        if (lastInFlight >= 0 && observedInFlight > window && observedInFlight > lastInFlight) {
+            // Fetchers are falling behind
+            window = Math.max(minCredits, (int) (window * multiplicativeDecrease));
+        } else if (creditLimited && observedInFlight <= window / 2) {
+            // We used every credit and the fetchers drained it, ask for more
+            window = Math.min(maxCredits, window + additiveIncrease);
+        }
+        lastInFlight = observedInFlight;
+
+        return (int) Math.max(0, window - observedInFlight);
+    }
+
+    /**
+     * Record the outcome of a tick
+     *
+     * @param granted credits returned by {@link #acquire(long)}
+     * @param sent    URLs actually dispatched
+     */
+    public synchronized void dispatched(int granted, int sent, long now) {
+        creditLimited = granted > 0 && sent >= granted;
+        if (lastDispatchAt >= 0 && now > lastDispatchAt) {
+            double rate = sent * 1000.0 / (now - lastDispatchAt);
+            dispatchRate = RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * dispatchRate;
+        }
+        lastDispatchAt = now;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Smoothed dispatch rate in URLs per second
+     */
+    public double getDispatchRate() {
+        return dispatchRate;
+    }
+}
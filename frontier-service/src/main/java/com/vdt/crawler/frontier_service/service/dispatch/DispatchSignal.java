@@ -0,0 +1,51 @@
+package com.vdt.crawler.frontier_service.service.dispatch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wakes the dispatcher when URLs are enqueued.
+ *
+ * A signal raised while the dispatcher is busy is kept, so its next wait returns at once and
+ * nothing enqueued meanwhile waits for a timeout. Signalling again before the dispatcher woke up
+ * costs a volatile read.
+ */
+public class DispatchSignal {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition signalled = lock.newCondition();
+    private volatile boolean pending;
+
+    public void signal() {
+        if (pending) {
+            return;
+        }
+        lock.lock();
+        try {
+            pending = true;
+            signalled.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for a signal, the pending one is cleared before returning
+     *
+     * @return true if signalled, false if the timeout elapsed first
+     */
+    public boolean await(long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (!pending && nanos > 0) {
+                nanos = signalled.awaitNanos(nanos);
+            }
+            boolean wasPending = pending;
+            pending = false;
+            return wasPending;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.vdt.crawler.frontier_service.service.dispatch;
+
+import com.vdt.crawler.frontier_service.config.DispatchConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reads the lag of the fetchers' consumer group on the fetching topic,
+ * i.e. the number of dispatched URLs no fetcher has consumed yet.
+ *
+ * The admin calls block up to their timeout, so the lag is read on a thread of its own once per
+ * dispatch period and the dispatcher only reads the latest value.
+ */
+@Component
+public class FetcherLagMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(FetcherLagMonitor.class);
+
+    private final AdminClient adminClient;
+    private final DispatchConfig config;
+
+    private final ScheduledExecutorService refresher;
+
+    private volatile List<TopicPartition> partitions;
+    private volatile long lag = -1;
+    private volatile long readAt;
+
+    public FetcherLagMonitor(AdminClient adminClient, DispatchConfig config) {
+        this.adminClient = adminClient;
+        this.config = config;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fetcher-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher.scheduleWithFixedDelay(this::refresh, 0, config.getIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Latest lag read, without blocking
+     *
+     * @return the lag, or -1 if it could not be read or the last read is older than a few periods
+     */
+    public long currentLag() {
+        long current = lag;
+        if (current < 0 || System.currentTimeMillis() - readAt > 3 * config.getIntervalMs() + config.getLagTimeoutMs()) {
+            return -1;
+        }
+        return current;
+    }
+
+    private void refresh() {
+        long current;
+        try {
+            current = readLag();
+        } catch (RuntimeException e) {
+            // An exception would cancel the refresh task
+            logger.warn("Error reading lag of consumer group {}", config.getConsumerGroup(), e);
+            current = -1;
+        }
+        readAt = System.currentTimeMillis();
+        lag = current;
+    }
+
+    /**
+     * Total lag of the consumer group over all partitions of the topic
+     *
+     * @return the lag, or -1 if it could not be read
+     */
+    private long readLag() {
+        try {
+            List<TopicPartition> topicPartitions = partitions();
+
+            Map<TopicPartition, OffsetAndMetadata> committed = adminClient
+                    .listConsumerGroupOffsets(config.getConsumerGroup())
+                    .partitionsToOffsetAndMetadata()
+                    .get(config.getLagTimeoutMs(), TimeUnit.MILLISECONDS);
+
+            Map<TopicPartition, OffsetSpec> latestSpec = new HashMap<>();
+            Map<TopicPartition, OffsetSpec> earliestSpec = new HashMap<>();
+            for (TopicPartition partition : topicPartitions) {
+                latestSpec.put(partition, OffsetSpec.latest());
+                if (committed.get(partition) == null) {
+                    // Nothing committed yet, the whole partition is pending
+                    earliestSpec.put(partition, OffsetSpec.earliest());
+                }
+            }
+
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> latest = adminClient
+                    .listOffsets(latestSpec).all()
+                    .get(config.getLagTimeoutMs(), TimeUnit.MILLISECONDS);
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> earliest = earliestSpec.isEmpty()
+                    ? Map.of()
+                    : adminClient.listOffsets(earliestSpec).all().get(config.getLagTimeoutMs(), TimeUnit.MILLISECONDS);
+
+            long lag = 0;
+            for (TopicPartition partition : topicPartitions) {
+                long end = latest.get(partition).offset();
+                OffsetAndMetadata offset = committed.get(partition);
+                long start = offset != null ? offset.offset() : earliest.get(partition).offset();
+                lag += Math.max(0, end - start);
+            }
+            return lag;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Could not read lag of consumer group {}: {}", config.getConsumerGroup(), e.getMessage());
+            partitions = null;
+            return -1;
+        }
+    }
+
+    private List<TopicPartition> partitions() throws InterruptedException, ExecutionException, TimeoutException {
+        List<TopicPartition> current = partitions;
+        if (current == null) {
+            TopicDescription description = adminClient.describeTopics(List.of(config.getTopic()))
+                    .allTopicNames()
+                    .get(config.getLagTimeoutMs(), TimeUnit.MILLISECONDS)
+                    .get(config.getTopic());
+            current = description.partitions().stream()
+                    .map(info -> new TopicPartition(config.getTopic(), info.partition()))
+                    .toList();
+            partitions = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,157 @@
+package com.vdt.crawler.frontier_service.service.feed;
+
+import com.vdt.crawler.frontier_service.service.sitemap.SitemapParser;
+import com.vdt.crawler.frontier_service.utils.LimitedInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming parser of RSS 2.0, RSS 1.0 (RDF) and Atom feeds.
+ *
+ * Only the link and the date of the entries are read, and handed to the listener as they are
+ * read. DTDs and external entities are not processed.
+ */
+public final class FeedParser {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    public interface Listener {
+        /**
+         * @param published publication date, else the update date, null if the entry has none
+         */
+        void entry(String link, Instant published) throws IOException;
+    }
+
+    private FeedParser() {
+    }
+
+    /**
+     * @param maxBytes largest feed read, the parse fails past it
+     */
+    public static void parse(InputStream in, long maxBytes, Listener listener) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(new LimitedInputStream(in, maxBytes));
+            read(reader, listener);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed feed: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // the stream is closed by the caller
+                }
+            }
+        }
+    }
+
+    private static void read(XMLStreamReader reader, Listener listener) throws XMLStreamException, IOException {
+        // Entry being read, <item> or <entry>, and its depth: only its own children are read,
+        // e.g. not the <link> of an Atom <source>
+        boolean inEntry = false;
+        int entryDepth = 0;
+        int depth = 0;
+        String link = null;
+        // RSS guid marked as a permalink, used when the item has no link
+        String permalink = null;
+        boolean guidIsPermalink = false;
+        Instant published = null;
+        Instant updated = null;
+        StringBuilder text = new StringBuilder();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String name = reader.getLocalName();
+                if (!inEntry && (name.equals("item") || name.equals("entry"))) {
+                    inEntry = true;
+                    entryDepth = depth;
+                    // RSS 1.0 names the item by its URL, rdf:about
+                    link = reader.getAttributeValue(null, "about");
+                    permalink = null;
+                    guidIsPermalink = false;
+                    published = null;
+                    updated = null;
+                } else if (inEntry && depth == entryDepth + 1) {
+                    if (name.equals("link") && reader.getAttributeValue(null, "href") != null) {
+                        // Atom link, the page of the entry is the alternate one
+                        String rel = reader.getAttributeValue(null, "rel");
+                        if ((rel == null || rel.equals("alternate")) && link == null) {
+                            link = reader.getAttributeValue(null, "href").trim();
+                        }
+                    } else if (name.equals("guid")) {
+                        // An RSS guid is a permalink unless marked otherwise
+                        guidIsPermalink = !"false".equalsIgnoreCase(reader.getAttributeValue(null, "isPermaLink"));
+                    }
+                }
+                text.setLength(0);
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                if (inEntry) {
+                    text.append(reader.getText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (inEntry) {
+                    String name = reader.getLocalName();
+                    if (depth == entryDepth + 1) {
+                        String value = text.toString().trim();
+                        if (name.equals("link") && link == null && !value.isEmpty()) {
+                            link = value;
+                        } else if (name.equals("guid") && guidIsPermalink && !value.isEmpty()) {
+                            permalink = value;
+                        } else if (name.equals("pubDate") || name.equals("published") || name.equals("date")) {
+                            published = parseDate(value);
+                        } else if (name.equals("updated")) {
+                            updated = parseDate(value);
+                        }
+                    } else if (depth == entryDepth) {
+                        String entryLink = link != null ? link : permalink;
+                        if (entryLink != null && !entryLink.isEmpty()) {
+                            listener.entry(entryLink, published != null ? published : updated);
+                        }
+                        inEntry = false;
+                    }
+                }
+                text.setLength(0);
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * RFC 822 date of RSS 2.0, or W3C datetime of Atom and Dublin Core
+     *
+     * @return null if value is not a date
+     */
+    static Instant parseDate(String value) {
+        String date = value.trim();
+        if (date.isEmpty()) {
+            return null;
+        }
+        if (Character.isDigit(date.charAt(0)) && date.length() >= 10 && date.charAt(4) == '-') {
+            return SitemapParser.parseDate(date);
+        }
+        try {
+            return ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.vdt.crawler.frontier_service.service.feed;
+
+import com.vdt.crawler.frontier_service.config.FeedConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import com.vdt.crawler.frontier_service.service.FrontierService;
+import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtServer;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import com.vdt.crawler.frontier_service.service.poll.ConditionalFetcher;
+import com.vdt.crawler.frontier_service.service.poll.PollSchedule;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Polls the RSS/Atom feeds of the domains, the cheapest freshness signal news sites publish.
+ *
+ * The feeds of a domain are its configured feed URLs, or else the ones its home page announces
+ * with {@code <link rel="alternate">}. Every poll is a conditional request and only the entries
+ * not listed by the previous poll go to the frontier, at the highest priority. The poll interval
+ * of a feed follows its cadence, half the mean interval between its recent entries, and grows
+ * while the feed does not change.
+ */
+@Service
+public class FeedPoller {
+    private static final Logger logger = LoggerFactory.getLogger(FeedPoller.class);
+
+    // Most of a home page read looking for its feed links
+    private static final int MAX_HEAD_CHARS = 256 * 1024;
+    // Recent entries the cadence of a feed is computed from
+    private static final int CADENCE_ENTRIES = 20;
+
+    private static final Pattern HEAD_END = Pattern.compile("</head", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LINK_TAG = Pattern.compile("<link\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ATTRIBUTE = Pattern.compile(
+            "([\\w-]+)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+))");
+    private static final Set<String> FEED_TYPES = Set.of("application/rss+xml", "application/atom+xml",
+            "application/rdf+xml");
+
+    private final DomainRepository domainRepository;
+    private final RobotstxtServer robotstxtServer;
+    private final FrontierService frontierService;
+    private final ShardRouter shardRouter;
+    private final ConditionalFetcher fetcher;
+    private final FeedConfig config;
+
+    // Modified under this
+    private final PollSchedule<Feed> feeds;
+    private final ExecutorService fetchExecutor;
+
+    private final AtomicLong urlsAdded = new AtomicLong();
+
+    public FeedPoller(DomainRepository domainRepository, RobotstxtServer robotstxtServer,
+                      FrontierService frontierService, ShardRouter shardRouter, ConditionalFetcher fetcher,
+                      FeedConfig config, FrontierMetrics frontierMetrics) {
+        this.domainRepository = domainRepository;
+        this.robotstxtServer = robotstxtServer;
+        this.frontierService = frontierService;
+        this.shardRouter = shardRouter;
+        this.fetcher = fetcher;
+        this.config = config;
+        this.feeds = new PollSchedule<>(config.getTickMs(), config.getWheelSize(), config.getMaxFeedsPerDomain(),
+                config.getMinPollIntervalMs(), System.currentTimeMillis());
+        this.fetchExecutor = Executors.newFixedThreadPool(config.getFetchThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "feed-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        frontierMetrics.registerGauge("frontier_feeds",
+                "Number of RSS/Atom feeds polled by this node", feeds, PollSchedule::size);
+        frontierMetrics.registerGauge("frontier_feed_urls_added",
+                "URLs found in feeds and added to the frontier", urlsAdded, AtomicLong::get);
+    }
+
+    /**
+     * Register the feeds of the active domains owned by this node, looking for the feeds of the
+     * domains that have none yet
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${frontier.feed.discover-interval-ms:3600000}")
+    public void discover() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<String> domains = new HashSet<>();
+        // Configured feed URL to its domain
+        Map<String, String> configured = new LinkedHashMap<>();
+        Set<String> configuredDomains = new HashSet<>();
+        List<Domain> toSearch = new ArrayList<>();
+        for (Domain domain : domainRepository.findByActiveTrue()) {
+            String host = domain.getDomain().toLowerCase(Locale.ROOT);
+            // Every node runs this discovery, each one polls the feeds of its own domains
+            if (!shardRouter.owns(host)) {
+                continue;
+            }
+            domains.add(host);
+            if (domain.getFeedUrls() != null && !domain.getFeedUrls().isEmpty()) {
+                configuredDomains.add(host);
+                for (String url : domain.getFeedUrls()) {
+                    configured.put(url.trim(), host);
+                }
+            } else if (config.isAutoDiscover() && feedCount(host) == 0) {
+                toSearch.add(domain);
+            }
+        }
+
+        synchronized (this) {
+            List<Feed> gone = new ArrayList<>();
+            for (Feed feed : feeds.targets()) {
+                // Configured feeds replace the discovered ones
+                boolean replaced = feed.configured
+                        ? !configured.containsKey(feed.url())
+                        : configuredDomains.contains(feed.domain());
+                if (!domains.contains(feed.domain()) || replaced) {
+                    gone.add(feed);
+                }
+            }
+            gone.forEach(feeds::remove);
+        }
+        configured.forEach((url, host) -> register(url, host, true, now));
+
+        for (Domain domain : toSearch) {
+            String host = domain.getDomain().toLowerCase(Locale.ROOT);
+            String homePage = domain.getSeedUrls() != null && !domain.getSeedUrls().isEmpty()
+                    ? domain.getSeedUrls().get(0)
+                    : "https://" + host + "/";
+            fetchExecutor.execute(() -> discoverFeeds(host, homePage));
+        }
+        logger.info("Polling {} feeds of {} domains, looking for the feeds of {} domains",
+                feeds.size(), domains.size(), toSearch.size());
+    }
+
+    /**
+     * Fetch the feeds due for a poll
+     */
+    @Scheduled(fixedDelayString = "${frontier.feed.release-interval-ms:1000}")
+    public void pollDue() {
+        List<Feed> due;
+        synchronized (this) {
+            due = feeds.due(System.currentTimeMillis());
+        }
+        for (Feed feed : due) {
+            fetchExecutor.execute(() -> poll(feed));
+        }
+    }
+
+    private void discoverFeeds(String host, String homePage) {
+        List<String> found;
+        try {
+            if (!robotstxtServer.allows(homePage)) {
+                return;
+            }
+            StringBuilder head = new StringBuilder();
+            ConditionalFetcher.Response response = fetcher.get(homePage, ConditionalFetcher.Validators.NONE,
+                    body -> readHead(body, head));
+            if (!response.isOk()) {
+                logger.debug("Home page {} returned {}", homePage, response.statusCode());
+                return;
+            }
+            found = new ArrayList<>();
+            for (String url : feedLinksOf(head, homePage)) {
+                if (robotstxtServer.allows(url)) {
+                    found.add(url);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Error looking for the feeds of {}: {}", homePage, e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (String url : found) {
+            register(url, host, false, now);
+        }
+        if (!found.isEmpty()) {
+            logger.info("Found {} feeds on {}", found.size(), homePage);
+        }
+    }
+
+    private void poll(Feed feed) {
+        long now = System.currentTimeMillis();
+        Entries entries = new Entries(feed.links, now - config.getMaxArticleAgeMs());
+        ConditionalFetcher.Response response = null;
+        try {
+            response = fetcher.get(feed.url(), feed.validators,
+                    body -> FeedParser.parse(body, config.getMaxFeedBytes(), entries));
+            if (response.isOk() && !entries.fresh.isEmpty()) {
+                List<String> owned = shardRouter.route(entries.fresh, UrlOrigin.FEED);
+                urlsAdded.addAndGet(frontierService.addBatchToFrontier(owned, UrlOrigin.FEED));
+            }
+        } catch (IOException e) {
+            logger.warn("Error polling feed {}: {}", feed.url(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        synchronized (this) {
+            if (!feeds.isPolled(feed)) {
+                return;
+            }
+            boolean changed = false;
+            if (response != null && response.isOk()) {
+                feed.validators = response.validators();
+                feed.links = entries.links;
+                long cadence = cadenceOf(entries.dates);
+                if (cadence > 0) {
+                    feed.cadenceMs = cadence;
+                }
+                changed = !entries.fresh.isEmpty();
+                logger.debug("Feed {}: {} new entries of {}", feed.url(), entries.fresh.size(), entries.links.size());
+            } else if (response != null && !feed.configured
+                    && (response.statusCode() == 404 || response.statusCode() == 410)) {
+                feeds.remove(feed);
+                return;
+            }
+            feed.intervalMs = nextInterval(feed.intervalMs, feed.cadenceMs, changed,
+                    config.getMinPollIntervalMs(), config.getMaxPollIntervalMs());
+            feeds.schedule(feed, now + feed.intervalMs);
+        }
+    }
+
+    /**
+     * Half the cadence of a feed that changed, so a new entry waits half its interval on average.
+     * An unchanged feed is polled less and less often, up to its cadence.
+     *
+     * @param cadenceMs mean interval between the entries of the feed, 0 if unknown
+     */
+    static long nextInterval(long intervalMs, long cadenceMs, boolean changed, long minMs, long maxMs) {
+        long next;
+        if (changed) {
+            next = cadenceMs > 0 ? cadenceMs / 2 : intervalMs / 2;
+        } else {
+            next = intervalMs + intervalMs / 2;
+            if (cadenceMs > 0) {
+                next = Math.min(next, Math.max(cadenceMs, intervalMs));
+            }
+        }
+        return Math.max(minMs, Math.min(maxMs, next));
+    }
+
+    /**
+     * @param dates publication dates of the entries, epoch millis
+     * @return mean interval between the most recent entries, 0 if there are too few
+     */
+    static long cadenceOf(List<Long> dates) {
+        if (dates.size() < 2) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(dates);
+        sorted.sort(Comparator.reverseOrder());
+        int count = Math.min(sorted.size(), CADENCE_ENTRIES);
+        return (sorted.get(0) - sorted.get(count - 1)) / (count - 1);
+    }
+
+    /**
+     * Feeds announced by the {@code <link rel="alternate">} tags of a page
+     */
+    static List<String> feedLinksOf(CharSequence html, String pageUrl) {
+        Set<String> links = new LinkedHashSet<>();
+        Matcher tag = LINK_TAG.matcher(html);
+        while (tag.find()) {
+            String rel = null;
+            String type = null;
+            String href = null;
+            Matcher attribute = ATTRIBUTE.matcher(tag.group());
+            while (attribute.find()) {
+                String value = attribute.group(2) != null ? attribute.group(2)
+                        : attribute.group(3) != null ? attribute.group(3) : attribute.group(4);
+                String name = attribute.group(1).toLowerCase(Locale.ROOT);
+                if (name.equals("rel")) {
+                    rel = value.toLowerCase(Locale.ROOT);
+                } else if (name.equals("type")) {
+                    type = value.trim().toLowerCase(Locale.ROOT);
+                } else if (name.equals("href")) {
+                    href = value.trim().replace("&amp;", "&");
+                }
+            }
+            if (rel == null || type == null || href == null || href.isEmpty()
+                    || !Arrays.asList(rel.trim().split("\\s+")).contains("alternate") || !FEED_TYPES.contains(type)) {
+                continue;
+            }
+            try {
+                URI feed = URI.create(pageUrl).resolve(href);
+                if ("http".equals(feed.getScheme()) || "https".equals(feed.getScheme())) {
+                    links.add(feed.toString());
+                }
+            } catch (IllegalArgumentException e) {
+                logger.debug("Invalid feed link {} on {}", href, pageUrl);
+            }
+        }
+        return new ArrayList<>(links);
+    }
+
+    /**
+     * Read a page up to the end of its head. Bytes are read as ISO-8859-1, which keeps the ASCII
+     * markup intact whatever the charset of the page.
+     */
+    private static void readHead(InputStream body, StringBuilder head) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while (head.length() < MAX_HEAD_CHARS && (read = body.read(buffer)) > 0) {
+            // The end tag may straddle two reads
+            int from = Math.max(0, head.length() - 6);
+            head.append(new String(buffer, 0, read, StandardCharsets.ISO_8859_1));
+            Matcher end = HEAD_END.matcher(head).region(from, head.length());
+            if (end.find()) {
+                head.setLength(end.start());
+                return;
+            }
+        }
+    }
+
+    private synchronized int feedCount(String domain) {
+        return feeds.countOf(domain);
+    }
+
+    private synchronized void register(String url, String domain, boolean configured, long now) {
+        if (!url.startsWith("http://") && !url.startsWith("https://") || feeds.contains(url)) {
+            return;
+        }
+        // The first polls are spread over the shortest interval
+        if (!feeds.add(new Feed(url, domain, configured, config.getMinPollIntervalMs()), now)) {
+            logger.debug("Not polling feed {}, {} has {} already", url, domain, feeds.countOf(domain));
+        }
+    }
+
+    public int size() {
+        return feeds.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Entries of one poll, the ones the previous poll did not list are fresh
+     */
+    private static final class Entries implements FeedParser.Listener {
+        private final Set<String> previous;
+        // Entries published before this are not taken
+        private final long oldest;
+
+        final Set<String> links = new HashSet<>();
+        final List<Long> dates = new ArrayList<>();
+        final List<String> fresh = new ArrayList<>();
+
+        Entries(Set<String> previous, long oldest) {
+            this.previous = previous;
+            this.oldest = oldest;
+        }
+
+        @Override
+        public void entry(String link, Instant published) {
+            if (!links.add(link)) {
+                return;
+            }
+            if (published != null) {
+                dates.add(published.toEpochMilli());
+            }
+            if (!previous.contains(link) && (published == null || published.toEpochMilli() >= oldest)) {
+                fresh.add(link);
+            }
+        }
+    }
+
+    private static final class Feed extends PollSchedule.Target {
+        // Listed in the domain document, else discovered from its home page
+        final boolean configured;
+        // Fields below are guarded by the poller
+        ConditionalFetcher.Validators validators = ConditionalFetcher.Validators.NONE;
+        // Entries listed by the previous poll
+        Set<String> links = Set.of();
+        long cadenceMs;
+        long intervalMs;
+
+        Feed(String url, String domain, boolean configured, long intervalMs) {
+            super(url, domain);
+            this.configured = configured;
+            this.intervalMs = intervalMs;
+        }
+    }
+}
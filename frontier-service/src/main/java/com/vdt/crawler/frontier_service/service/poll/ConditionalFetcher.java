@@ -0,0 +1,124 @@
+package com.vdt.crawler.frontier_service.service.poll;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * HTTP GET sending the validators of the previous response (ETag, Last-Modified), so an unchanged
+ * resource costs a 304 without a body. The body of a 200 is streamed to the reader, never buffered.
+ */
+public class ConditionalFetcher implements Closeable {
+
+    public interface BodyReader {
+        void read(InputStream body) throws IOException;
+    }
+
+    /**
+     * Validators of a response, either may be null
+     */
+    public record Validators(String etag, String lastModified) {
+        public static final Validators NONE = new Validators(null, null);
+    }
+
+    /**
+     * @param validators validators of this response, those of the request on a 304
+     */
+    public record Response(int statusCode, Validators validators) {
+        public boolean isNotModified() {
+            return statusCode == HttpStatus.SC_NOT_MODIFIED;
+        }
+
+        public boolean isOk() {
+            return statusCode == HttpStatus.SC_OK;
+        }
+    }
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    public ConditionalFetcher(int timeoutMillis, int maxConnections, String userAgent, DnsResolver dnsResolver) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setExpectContinueEnabled(false)
+                .setRedirectsEnabled(true)
+                .setSocketTimeout(timeoutMillis)
+                .setConnectTimeout(timeoutMillis)
+                .setConnectionRequestTimeout(timeoutMillis)
+                .build();
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                .build();
+        connectionManager = new PoolingHttpClientConnectionManager(registry, dnsResolver);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(2);
+        httpClient = HttpClientBuilder.create()
+                .setDefaultRequestConfig(requestConfig)
+                .setConnectionManager(connectionManager)
+                .setUserAgent(userAgent)
+                .build();
+    }
+
+    /**
+     * @param reader reads the body of a 200 response, other bodies are discarded
+     */
+    public Response get(String url, Validators validators, BodyReader reader) throws IOException {
+        HttpGet request = new HttpGet(url);
+        if (validators.etag() != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, validators.etag());
+        }
+        if (validators.lastModified() != null) {
+            request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified());
+        }
+
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            if (statusCode != HttpStatus.SC_OK) {
+                EntityUtils.consumeQuietly(entity);
+                return new Response(statusCode, validators);
+            }
+            if (entity != null) {
+                InputStream body = entity.getContent();
+                try {
+                    reader.read(body);
+                } catch (IOException | RuntimeException e) {
+                    // Closing the body would read the rest of it, the connection is dropped instead
+                    request.abort();
+                    throw e;
+                }
+                body.close();
+            }
+            return new Response(statusCode, new Validators(valueOf(response.getLastHeader(HttpHeaders.ETAG)),
+                    valueOf(response.getLastHeader(HttpHeaders.LAST_MODIFIED))));
+        }
+    }
+
+    private static String valueOf(Header header) {
+        return header != null ? header.getValue() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+        connectionManager.shutdown();
+    }
+}
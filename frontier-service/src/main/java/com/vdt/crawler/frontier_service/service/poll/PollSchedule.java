@@ -0,0 +1,146 @@
+package com.vdt.crawler.frontier_service.service.poll;
+
+import com.vdt.crawler.frontier_service.service.queue.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Poll schedule of the URLs a poller fetches again and again, the sitemaps or the feeds of the
+ * domains. Every URL is due at its own time on a {@link TimingWheel}, and a domain has at most a
+ * given number of URLs polled.
+ *
+ * Not synchronized: the poller modifies it under its own lock, along with the state of its URLs.
+ * Lookups and the size may be read without the lock.
+ */
+public class PollSchedule<T extends PollSchedule.Target> {
+    private final int maxPerDomain;
+    // The first polls of new URLs are spread over this time
+    private final long spreadMs;
+
+    // Keyed by URL
+    private final Map<String, T> targets = new ConcurrentHashMap<>();
+    private final Map<String, Integer> perDomain = new HashMap<>();
+    private final TimingWheel<Poll> wheel;
+
+    public PollSchedule(long tickMs, int wheelSize, int maxPerDomain, long spreadMs, long now) {
+        this.maxPerDomain = maxPerDomain;
+        this.spreadMs = spreadMs;
+        this.wheel = new TimingWheel<>(tickMs, wheelSize, now);
+    }
+
+    /**
+     * Poll target, the first time at a random point within the spread
+     *
+     * @return false if its URL is polled already or its domain has the most URLs polled
+     */
+    public boolean add(T target, long now) {
+        if (targets.containsKey(target.url)) {
+            return false;
+        }
+        int count = perDomain.getOrDefault(target.domain, 0);
+        if (count >= maxPerDomain) {
+            return false;
+        }
+        targets.put(target.url, target);
+        perDomain.put(target.domain, count + 1);
+        schedule(target, now + ThreadLocalRandom.current().nextLong(Math.max(1, spreadMs)));
+        return true;
+    }
+
+    /**
+     * Stop polling target, its pending poll is skipped
+     *
+     * @return false if target was not polled
+     */
+    public boolean remove(T target) {
+        if (!targets.remove(target.url, target)) {
+            return false;
+        }
+        perDomain.computeIfPresent(target.domain, (domain, count) -> count > 1 ? count - 1 : null);
+        return true;
+    }
+
+    /**
+     * Plan the next poll of target, replacing the pending one
+     */
+    public void schedule(T target, long dueAt) {
+        target.dueAt = dueAt;
+        wheel.schedule(new Poll(target.url, dueAt), dueAt);
+    }
+
+    /**
+     * Targets due for a poll. They are not due again until rescheduled.
+     */
+    public List<T> due(long now) {
+        List<T> due = new ArrayList<>();
+        wheel.advance(now, poll -> {
+            T target = targets.get(poll.url());
+            // Polls of removed targets and replaced polls are skipped
+            if (target != null && target.dueAt == poll.dueAt()) {
+                target.dueAt = Long.MAX_VALUE;
+                due.add(target);
+            }
+        });
+        return due;
+    }
+
+    public T get(String url) {
+        return targets.get(url);
+    }
+
+    /**
+     * Whether target is still polled, a poll finishing after its target was removed or replaced
+     * must not schedule it again
+     */
+    public boolean isPolled(T target) {
+        return targets.get(target.url) == target;
+    }
+
+    public boolean contains(String url) {
+        return targets.containsKey(url);
+    }
+
+    public int countOf(String domain) {
+        return perDomain.getOrDefault(domain, 0);
+    }
+
+    public Collection<T> targets() {
+        return targets.values();
+    }
+
+    public int size() {
+        return targets.size();
+    }
+
+    /**
+     * A polled URL of a domain
+     */
+    public abstract static class Target {
+        final String url;
+        final String domain;
+        // Guarded by the poller
+        long dueAt;
+
+        protected Target(String url, String domain) {
+            this.url = url;
+            this.domain = domain;
+        }
+
+        public String url() {
+            return url;
+        }
+
+        public String domain() {
+            return domain;
+        }
+    }
+
+    private record Poll(String url, long dueAt) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact form of a queued URL: an interned origin id ("scheme://authority") plus the
+ * UTF-8 bytes of path, query and fragment.
+ *
+ * The few thousand origins of a crawl are stored once in a process wide table, so a queued URL
+ * costs its path bytes plus a fixed overhead instead of a full String repeating the host prefix.
+ * {@link #toUrl()} rebuilds the exact original string.
+ *
+ * The table only grows: an origin may be referenced by any queued URL, so it is never evicted.
+ * It holds at most {@link #MAX_ORIGINS} origins, URLs of the origins past it keep their origin
+ * inline in their bytes and cost as much as a String.
+ */
+public final class EncodedUrl {
+
+    // A few MB of origins, far more hosts than a crawl of the configured domains reaches
+    static final int MAX_ORIGINS = 1 << 16;
+
+    private static final Map<String, Integer> ORIGIN_IDS = new ConcurrentHashMap<>();
+    private static volatile Origin[] origins = new Origin[256];
+    private static int originCount;
+    // Empty origin: the bytes hold the whole URL
+    private static final int INLINE_ORIGIN = internOrigin("");
+
+    private record Origin(String prefix, String host) {
+    }
+
+    private final int originId;
+    private final byte[] path;
+
+    EncodedUrl(int originId, byte[] path) {
+        this.originId = originId;
+        this.path = path;
+    }
+
+    public static EncodedUrl of(String url) {
+        int pathStart = pathStart(url);
+        int originId = internOrigin(url.substring(0, pathStart));
+        if (originId < 0) {
+            return inline(url);
+        }
+        return new EncodedUrl(originId, url.substring(pathStart).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * URL stored whole, without an interned origin
+     */
+    static EncodedUrl inline(String url) {
+        return new EncodedUrl(INLINE_ORIGIN, url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Index of the path, query or fragment following "scheme://authority", 0 if url has no scheme
+     */
+    private static int pathStart(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0) {
+            return 0;
+        }
+        for (int i = schemeEnd + 3; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return url.length();
+    }
+
+    /**
+     * @return the id of prefix, or -1 if the origin table is full
+     */
+    static int internOrigin(String prefix) {
+        Integer id = ORIGIN_IDS.get(prefix);
+        if (id != null) {
+            return id;
+        }
+        synchronized (EncodedUrl.class) {
+            id = ORIGIN_IDS.get(prefix);
+            if (id != null) {
+                return id;
+            }
+            if (originCount == MAX_ORIGINS) {
+                return -1;
+            }
+            Origin[] current = origins;
+            if (originCount == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[originCount] = new Origin(prefix, hostOf(prefix));
+            // Publish the slot before the id, readers resolve ids through the volatile array
+            origins = current;
+            ORIGIN_IDS.put(prefix, originCount);
+            return originCount++;
+        }
+    }
+
+    private static String hostOf(String prefix) {
+        int schemeEnd = prefix.indexOf("://");
+        if (schemeEnd < 0) {
+            return "";
+        }
+        String authority = prefix.substring(schemeEnd + 3);
+        int at = authority.lastIndexOf('@');
+        if (at >= 0) {
+            authority = authority.substring(at + 1);
+        }
+        int end;
+        if (authority.startsWith("[")) {
+            end = authority.indexOf(']') + 1; // IPv6 literal
+        } else {
+            end = authority.indexOf(':');
+        }
+        if (end > 0) {
+            authority = authority.substring(0, end);
+        }
+        return authority.toLowerCase(Locale.ROOT);
+    }
+
+    private static Origin origin(int id) {
+        return origins[id];
+    }
+
+    public int getOriginId() {
+        return originId;
+    }
+
+    byte[] getPath() {
+        return path;
+    }
+
+    /**
+     * Lower-cased host of the URL, as returned by {@code new URL(url).getHost().toLowerCase()}
+     */
+    public String getHost() {
+        if (originId == INLINE_ORIGIN) {
+            String url = toUrl();
+            return hostOf(url.substring(0, pathStart(url)));
+        }
+        return origin(originId).host();
+    }
+
+    /**
+     * Materialize the full URL string
+     */
+    public String toUrl() {
+        return origin(originId).prefix() + new String(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Approximate heap footprint of this entry, origin table excluded
+     */
+    public int sizeInBytes() {
+        // object header + int + reference, byte[] header + data, 8-byte aligned
+        return 24 + align(16 + path.length);
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * Number of distinct origins interned so far
+     */
+    public static int originCount() {
+        synchronized (EncodedUrl.class) {
+            return originCount;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EncodedUrl other)) {
+            return false;
+        }
+        return originId == other.originId && Arrays.equals(path, other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * originId + Arrays.hashCode(path);
+    }
+
+    @Override
+    public String toString() {
+        return toUrl();
+    }
+}
@@ -0,0 +1,241 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Back queues of the frontier (Mercator back end).
+ *
+ * Every active host owns a FIFO queue. Hosts with pending URLs sit in a min-heap keyed by the
+ * earliest time they may be fetched again (last dispatch + crawl delay), so {@link #poll(long)}
+ * only hands out URLs of hosts that are ready and a busy host never blocks the others.
+ * URLs are queued as {@link EncodedUrl}s and only turned back into strings when dispatched.
+ * Depths, the number of active hosts and the head of the heap are mirrored in atomic/volatile
+ * fields, so stats and gauges never take the lock.
+ */
+public class HostBackQueues {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Modified under the lock, concurrent so stats can read it without
+    private final Map<String, HostQueue> hosts = new ConcurrentHashMap<>();
+    private final PriorityQueue<HostQueue> readyHeap =
+            new PriorityQueue<>((a, b) -> Long.compare(a.nextFetchAt, b.nextFetchAt));
+    private final AtomicInteger totalSize = new AtomicInteger();
+    private final AtomicInteger activeHosts = new AtomicInteger();
+    // Next fetch time of the heap head, -1 when the heap is empty
+    private volatile long headReadyAt = -1;
+    private final int capacityPerHost;
+
+    public HostBackQueues(int capacityPerHost) {
+        this.capacityPerHost = capacityPerHost;
+    }
+
+    private static final class HostQueue {
+        final String host;
+        final ArrayDeque<EncodedUrl> urls = new ArrayDeque<>();
+        // urls.size(), readable without the lock
+        volatile int depth;
+        long crawlDelayMillis;
+        long nextFetchAt;
+        boolean inHeap;
+
+        HostQueue(String host) {
+            this.host = host;
+        }
+    }
+
+    public boolean offer(String host, String url, long crawlDelayMillis) {
+        return offer(host, EncodedUrl.of(url), crawlDelayMillis);
+    }
+
+    /**
+     * Append url to the queue of host.
+     *
+     * @param crawlDelayMillis minimum delay between two dispatches for this host
+     * @return false if the host queue is full
+     */
+    public boolean offer(String host, EncodedUrl url, long crawlDelayMillis) {
+        lock.lock();
+        try {
+            HostQueue queue = hosts.computeIfAbsent(host, HostQueue::new);
+            if (queue.urls.size() >= capacityPerHost) {
+                return false;
+            }
+            queue.crawlDelayMillis = crawlDelayMillis;
+            queue.urls.add(url);
+            queue.depth++;
+            totalSize.incrementAndGet();
+            if (!queue.inHeap) {
+                queue.inHeap = true;
+                readyHeap.add(queue);
+                activeHosts.incrementAndGet();
+                updateHead();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the next URL of the host with the earliest next-fetch time, if that time has passed.
+     *
+     * @param now current time in epoch millis
+     * @return the materialized URL, or null when no host is ready yet
+     */
+    public String poll(long now) {
+        EncodedUrl url;
+        lock.lock();
+        try {
+            HostQueue queue = readyHeap.peek();
+            if (queue == null || queue.nextFetchAt > now) {
+                return null;
+            }
+            readyHeap.poll();
+
+            url = queue.urls.poll();
+            queue.depth--;
+            totalSize.decrementAndGet();
+            queue.nextFetchAt = now + queue.crawlDelayMillis;
+            if (queue.urls.isEmpty()) {
+                queue.inHeap = false;
+                activeHosts.decrementAndGet();
+            } else {
+                readyHeap.add(queue);
+            }
+            updateHead();
+        } finally {
+            lock.unlock();
+        }
+        return url.toUrl();
+    }
+
+    // Called with the lock held after the heap changed
+    private void updateHead() {
+        HostQueue head = readyHeap.peek();
+        headReadyAt = head == null ? -1 : head.nextFetchAt;
+    }
+
+    /**
+     * Earliest time at which a URL becomes available, or -1 when all host queues are empty
+     */
+    public long nextReadyAt() {
+        return headReadyAt;
+    }
+
+    /**
+     * How long the most overdue host has been ready without being served, 0 if none is
+     */
+    public long oldestReadyAgeMillis(long now) {
+        long readyAt = headReadyAt;
+        return readyAt < 0 ? 0 : Math.max(0, now - readyAt);
+    }
+
+    /**
+     * Forget hosts with an empty queue whose politeness delay is already over
+     */
+    public int purgeIdleHosts(long now) {
+        return purgeIdleHosts(now, host -> {
+        });
+    }
+
+    /**
+     * Forget hosts with an empty queue whose politeness delay is already over, onPurged is called
+     * with every host forgotten while the lock is held, so no URL of that host is queued meanwhile
+     */
+    public int purgeIdleHosts(long now, Consumer<String> onPurged) {
+        lock.lock();
+        try {
+            int purged = 0;
+            Iterator<Map.Entry<String, HostQueue>> it = hosts.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, HostQueue> entry = it.next();
+                HostQueue queue = entry.getValue();
+                if (queue.urls.isEmpty() && queue.nextFetchAt <= now) {
+                    it.remove();
+                    onPurged.accept(entry.getKey());
+                    purged++;
+                }
+            }
+            return purged;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return totalSize.get() == 0;
+    }
+
+    public int size() {
+        return totalSize.get();
+    }
+
+    public int activeHosts() {
+        return activeHosts.get();
+    }
+
+    /**
+     * Queue size of host, 0 if it has no pending URL
+     */
+    public int hostSize(String host) {
+        HostQueue queue = hosts.get(host);
+        return queue == null ? 0 : queue.depth;
+    }
+
+    /**
+     * Queue size of every host with pending URLs, read without the lock
+     */
+    public Map<String, Integer> sizes() {
+        Map<String, Integer> sizes = new HashMap<>();
+        for (HostQueue queue : hosts.values()) {
+            int depth = queue.depth;
+            if (depth > 0) {
+                sizes.put(queue.host, depth);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Copy of the pending URLs of every host, in FIFO order
+     */
+    public Map<String, List<String>> snapshot() {
+        lock.lock();
+        try {
+            Map<String, List<String>> snapshot = new HashMap<>();
+            for (HostQueue queue : readyHeap) {
+                List<String> urls = new ArrayList<>(queue.urls.size());
+                for (EncodedUrl url : queue.urls) {
+                    urls.add(url.toUrl());
+                }
+                snapshot.put(queue.host, urls);
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            hosts.clear();
+            readyHeap.clear();
+            totalSize.set(0);
+            activeHosts.set(0);
+            updateHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Front queues of the frontier (Mercator front end).
+ *
+ * Every priority level owns {@link #SUB_QUEUES} sub-queues, each one a stripe with its own lock,
+ * so producers on different hosts and the dequeuing scheduler rarely touch the same lock.
+ * Inside a sub-queue every host has its own FIFO and the hosts take turns, so a host with many
+ * URLs never hides the hosts queued after it.
+ * Sizes are kept in atomic counters: capacity checks, emptiness checks and stats never lock.
+ */
+public class StripedFrontQueues {
+    private static final Logger logger = LoggerFactory.getLogger(StripedFrontQueues.class);
+
+    public static final int SUB_QUEUES = 3;
+
+    private final Map<Integer, Stripe> stripes = new ConcurrentHashMap<>();
+    private final int capacityPerQueue;
+
+    // Weighted round-robin schedule: more weight = more frequent access
+    private final List<Integer> weightedSchedule;
+    private final AtomicInteger currentScheduleIndex = new AtomicInteger(0);
+    private final AtomicInteger currentSubQueueIndex = new AtomicInteger(0);
+
+    public StripedFrontQueues(List<Integer> weightedSchedule, int capacityPerQueue) {
+        this.weightedSchedule = List.copyOf(weightedSchedule);
+        this.capacityPerQueue = capacityPerQueue;
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        // URLs of every host in enqueue order
+        final Map<String, ArrayDeque<UrlWithTimestamp>> hosts = new HashMap<>();
+        // Hosts with URLs in turn order, without the hosts a drain pass set aside
+        final ArrayDeque<String> turns = new ArrayDeque<>();
+        final AtomicInteger size = new AtomicInteger();
+    }
+
+    public static int queueKey(int priority, int subQueue) {
+        return priority * 10 + subQueue; // e.g., priority 5 -> queues 50, 51, 52
+    }
+
+    /**
+     * Add item to the sub-queue picked by domain hash, falling back to the sibling sub-queues
+     * and then to the two lower priority levels. Items of a domain come out in the order they were added.
+     *
+     * @return false if every candidate queue is full
+     */
+    public boolean offer(String domain, int priority, UrlWithTimestamp item) {
+        // Add domain hash to distribute URLs across different queues
+        int domainHash = Math.abs(domain.hashCode() % SUB_QUEUES);
+
+        // Try primary queue first
+        if (tryAdd(queueKey(priority, domainHash), domain, item)) {
+            return true;
+        }
+
+        // If failed, try other sub-queues with same base priority
+        for (int i = 0; i < SUB_QUEUES; i++) {
+            if (i != domainHash && tryAdd(queueKey(priority, i), domain, item)) {
+                logger.debug("Added URL to alternative queue {}: {}", queueKey(priority, i), item);
+                return true;
+            }
+        }
+
+        // If still failed, try lower priority queues, level 1 is the lowest one polled
+        for (int fallback = priority - 1; fallback >= Math.max(1, priority - 2); fallback--) {
+            for (int i = 0; i < SUB_QUEUES; i++) {
+                if (tryAdd(queueKey(fallback, i), domain, item)) {
+                    logger.info("Added URL to fallback queue {}: {}", queueKey(fallback, i), item);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAdd(int queueKey, String domain, UrlWithTimestamp item) {
+        Stripe stripe = stripes.computeIfAbsent(queueKey, k -> new Stripe());
+
+        // Reserve a slot without locking, so a full stripe is skipped straight away
+        int current;
+        do {
+            current = stripe.size.get();
+            if (current >= capacityPerQueue) {
+                return false;
+            }
+        } while (!stripe.size.compareAndSet(current, current + 1));
+
+        stripe.lock.lock();
+        try {
+            ArrayDeque<UrlWithTimestamp> urls = stripe.hosts.get(domain);
+            if (urls == null) {
+                urls = new ArrayDeque<>();
+                stripe.hosts.put(domain, urls);
+                stripe.turns.addLast(domain);
+            }
+            urls.addLast(item);
+        } finally {
+            stripe.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Poll the next item, visiting priority levels in weighted round-robin order
+     * and the sub-queues of a level starting at a rotating offset.
+     */
+    public UrlWithTimestamp poll() {
+        return visitNext((queueKey, stripe) -> pollStripe(stripe));
+    }
+
+    /**
+     * Poll up to maxPolled items in the order of {@link #poll()} and hand each one to sink. When
+     * sink refuses the next item of a host, the host is set aside with its items in place and not
+     * polled again during the pass, the other hosts of its sub-queue keep their turns.
+     *
+     * @return number of items sink took
+     */
+    public int drain(int maxPolled, Predicate<UrlWithTimestamp> sink) {
+        int taken = 0;
+        Map<Integer, List<String>> setAside = new HashMap<>();
+        try {
+            for (int polled = 0; polled < maxPolled; polled++) {
+                Boolean took = visitNext((queueKey, stripe) -> drainStripe(queueKey, stripe, sink, setAside));
+                if (took == null) {
+                    break;
+                }
+                if (took) {
+                    taken++;
+                }
+            }
+        } finally {
+            setAside.forEach(this::restoreTurns);
+        }
+        return taken;
+    }
+
+    // Try the sub-queues in weighted round-robin order until attempt gets a result from one
+    private <R> R visitNext(BiFunction<Integer, Stripe, R> attempt) {
+        int scheduleSize = weightedSchedule.size();
+        for (int trials = 0; trials < scheduleSize; trials++) {
+            int priorityLevel = weightedSchedule.get(Math.floorMod(currentScheduleIndex.getAndIncrement(), scheduleSize));
+
+            int startSubQueue = Math.floorMod(currentSubQueueIndex.getAndIncrement(), SUB_QUEUES);
+            for (int j = 0; j < SUB_QUEUES; j++) {
+                int queueKey = queueKey(priorityLevel, (startSubQueue + j) % SUB_QUEUES);
+                Stripe stripe = stripes.get(queueKey);
+                if (stripe == null || stripe.size.get() == 0) {
+                    continue;
+                }
+                R result = attempt.apply(queueKey, stripe);
+                if (result != null) {
+                    logger.debug("Retrieved URL from queue {} (priority {})", queueKey, priorityLevel);
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    private UrlWithTimestamp pollStripe(Stripe stripe) {
+        stripe.lock.lock();
+        try {
+            String host = stripe.turns.pollFirst();
+            return host != null ? take(stripe, host) : null;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Offer the next item of the stripe to sink, under the stripe lock so the item never leaves its host
+     *
+     * @return whether sink took it, null if no host of the stripe has a turn
+     */
+    private Boolean drainStripe(int queueKey, Stripe stripe, Predicate<UrlWithTimestamp> sink,
+                                Map<Integer, List<String>> setAside) {
+        stripe.lock.lock();
+        try {
+            String host = stripe.turns.pollFirst();
+            if (host == null) {
+                return null;
+            }
+            if (!sink.test(stripe.hosts.get(host).peekFirst())) {
+                setAside.computeIfAbsent(queueKey, k -> new ArrayList<>()).add(host);
+                return false;
+            }
+            take(stripe, host);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Called with the lock held, host has just been taken out of the turns
+    private static UrlWithTimestamp take(Stripe stripe, String host) {
+        ArrayDeque<UrlWithTimestamp> urls = stripe.hosts.get(host);
+        UrlWithTimestamp item = urls.pollFirst();
+        stripe.size.decrementAndGet();
+        if (urls.isEmpty()) {
+            stripe.hosts.remove(host);
+        } else {
+            stripe.turns.addLast(host);
+        }
+        return item;
+    }
+
+    private void restoreTurns(int queueKey, List<String> hosts) {
+        Stripe stripe = stripes.get(queueKey);
+        stripe.lock.lock();
+        try {
+            for (String host : hosts) {
+                // Gone if the queues were cleared meanwhile
+                if (stripe.hosts.containsKey(host)) {
+                    stripe.turns.addLast(host);
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        for (Stripe stripe : stripes.values()) {
+            if (stripe.size.get() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes.values()) {
+            total += stripe.size.get();
+        }
+        return total;
+    }
+
+    /**
+     * Number of items queued in memory for one priority level
+     */
+    public int sizeOfPriority(int priority) {
+        int total = 0;
+        for (int i = 0; i < SUB_QUEUES; i++) {
+            Stripe stripe = stripes.get(queueKey(priority, i));
+            if (stripe != null) {
+                total += stripe.size.get();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Visit every queued item with its priority level, one stripe locked at a time
+     */
+    public void forEach(BiConsumer<Integer, UrlWithTimestamp> consumer) {
+        stripes.forEach((key, stripe) -> {
+            int priority = Math.floorDiv(key, 10);
+            stripe.lock.lock();
+            try {
+                for (ArrayDeque<UrlWithTimestamp> urls : stripe.hosts.values()) {
+                    for (UrlWithTimestamp item : urls) {
+                        consumer.accept(priority, item);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Size of every sub-queue keyed by queue key, read from the atomic counters
+     */
+    public Map<Integer, Integer> sizes() {
+        Map<Integer, Integer> sizes = new HashMap<>();
+        stripes.forEach((key, stripe) -> sizes.put(key, stripe.size.get()));
+        return sizes;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes.values()) {
+            stripe.lock.lock();
+            try {
+                for (ArrayDeque<UrlWithTimestamp> urls : stripe.hosts.values()) {
+                    stripe.size.addAndGet(-urls.size());
+                }
+                stripe.hosts.clear();
+                stripe.turns.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding items until their due time.
+ *
+ * Level 0 has wheelSize buckets of tickMs each, every next level has buckets as wide as the whole
+ * level below, levels are added as far-away items need them. Scheduling is O(1) and advancing
+ * costs one bucket per elapsed tick, items are moved down a level when their bucket comes near.
+ * Items are released in bulk once the tick holding their due time has passed, so never early
+ * and at most one tick late.
+ *
+ * Not thread safe, callers synchronize.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+
+    // Start of the current level 0 tick
+    private long currentTime;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startTime) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Invalid timing wheel tick " + tickMs + " or size " + wheelSize);
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startTime - Math.floorMod(startTime, tickMs);
+        levels.add(new Level<>(tickMs, wheelSize));
+    }
+
+    /**
+     * Hold item until dueAt, an item already due is released by the next advance past the current tick
+     */
+    public void schedule(T item, long dueAt) {
+        insert(new Entry<>(item, Math.max(dueAt, currentTime)));
+        size++;
+    }
+
+    private void insert(Entry<T> entry) {
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level<T> top = levels.get(i - 1);
+                levels.add(new Level<>(top.tickMs * wheelSize, wheelSize));
+            }
+            Level<T> level = levels.get(i);
+            long levelStart = currentTime - Math.floorMod(currentTime, level.tickMs);
+            if (entry.dueAt < levelStart + level.tickMs * wheelSize) {
+                level.bucket(entry.dueAt).add(entry);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Release every item due before now, tick by tick
+     */
+    public void advance(long now, Consumer<T> released) {
+        if (size == 0) {
+            // Nothing to cascade, jump straight to now
+            if (now >= currentTime + tickMs) {
+                currentTime = now - Math.floorMod(now, tickMs);
+            }
+            return;
+        }
+
+        while (currentTime + tickMs <= now) {
+            List<Entry<T>> expired = levels.get(0).take(currentTime);
+            for (Entry<T> entry : expired) {
+                released.accept(entry.item);
+            }
+            size -= expired.size();
+            currentTime += tickMs;
+
+            // Buckets of the upper levels starting now are spread over the levels below, top first
+            for (int i = levels.size() - 1; i > 0; i--) {
+                Level<T> level = levels.get(i);
+                if (Math.floorMod(currentTime, level.tickMs) == 0) {
+                    level.take(currentTime).forEach(this::insert);
+                }
+            }
+
+            if (size == 0) {
+                advance(now, released);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Due time of the next item, at tick precision, or -1 if empty
+     */
+    public long nextDueAt() {
+        if (size == 0) {
+            return -1;
+        }
+        long next = Long.MAX_VALUE;
+        for (Level<T> level : levels) {
+            for (List<Entry<T>> bucket : level.buckets) {
+                for (Entry<T> entry : bucket) {
+                    next = Math.min(next, entry.dueAt);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Visit every pending item and its due time, e.g. to persist them
+     */
+    public void forEach(BiConsumer<T, Long> visitor) {
+        for (Level<T> level : levels) {
+            for (List<Entry<T>> bucket : level.buckets) {
+                for (Entry<T> entry : bucket) {
+                    visitor.accept(entry.item, entry.dueAt);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        levels.subList(1, levels.size()).clear();
+        levels.set(0, new Level<>(tickMs, wheelSize));
+        size = 0;
+    }
+
+    private static final class Level<T> {
+        final long tickMs;
+        final List<Entry<T>>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMs, int wheelSize) {
+            this.tickMs = tickMs;
+            this.buckets = new List[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new ArrayList<>(0);
+            }
+        }
+
+        List<Entry<T>> bucket(long time) {
+            return buckets[(int) Math.floorMod(Math.floorDiv(time, tickMs), (long) buckets.length)];
+        }
+
+        List<Entry<T>> take(long time) {
+            int index = (int) Math.floorMod(Math.floorDiv(time, tickMs), (long) buckets.length);
+            List<Entry<T>> bucket = buckets[index];
+            if (bucket.isEmpty()) {
+                return List.of();
+            }
+            buckets[index] = new ArrayList<>(0);
+            return bucket;
+        }
+    }
+
+    private record Entry<T>(T item, long dueAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import java.time.Instant;
+
+/**
+ * Front queue item: a URL with the last crawl time of its domain, kept on disk and in checkpoints.
+ *
+ * The URL is kept in its {@link EncodedUrl} form (origin id + path bytes) and the timestamp as
+ * epoch millis, the full string is only rebuilt by {@link #getUrl()}.
+ */
+public class UrlWithTimestamp {
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final int originId;
+    private final byte[] path;
+    private final long lastCrawledMillis;
+
+    public UrlWithTimestamp(String url, Instant lastCrawled) {
+        this(EncodedUrl.of(url), lastCrawled);
+    }
+
+    public UrlWithTimestamp(EncodedUrl url, Instant lastCrawled) {
+        this.originId = url.getOriginId();
+        this.path = url.getPath();
+        this.lastCrawledMillis = lastCrawled != null ? lastCrawled.toEpochMilli() : NEVER;
+    }
+
+    public EncodedUrl getEncodedUrl() {
+        return new EncodedUrl(originId, path);
+    }
+
+    public String getHost() {
+        return getEncodedUrl().getHost();
+    }
+
+    public String getUrl() {
+        return getEncodedUrl().toUrl();
+    }
+
+    public Instant getLastCrawled() {
+        return lastCrawledMillis != NEVER ? Instant.ofEpochMilli(lastCrawledMillis) : null;
+    }
+
+    @Override
+    public String toString() {
+        return getUrl();
+    }
+}
@@ -0,0 +1,389 @@
+package com.vdt.crawler.frontier_service.service.retry;
+
+import com.vdt.crawler.frontier_service.config.RetryConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.RetryUrlMessage;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.FrontierService;
+import com.vdt.crawler.frontier_service.service.queue.TimingWheel;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import com.vdt.crawler.frontier_service.service.storage.FrontierStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds failed URLs until their retry is due, then adds them back to the frontier in bulk.
+ *
+ * Every URL gets its own due time: exponential backoff on its retry count, or the Retry-After of
+ * a 429/503 answer. Pending retries sit in a {@link TimingWheel}, due ones are released every
+ * second up to a batch size, and the whole set is checkpointed next to the frontier checkpoint.
+ * Retries scheduled since the last checkpoint are appended to a journal, synced before the retry
+ * messages are committed, and replayed on top of the checkpoint at startup.
+ * Retries of hosts owned by another node wait here all the same, and are forwarded to their owner
+ * only when due.
+ */
+@Service
+public class RetryScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(RetryScheduler.class);
+
+    private static final int FILE_MAGIC = 0x52545259; // "RTRY"
+    private static final int FILE_VERSION = 1;
+    private static final String RETRY_FILE = "retries.dat";
+    private static final String JOURNAL_FILE = "retries.log";
+
+    private final FrontierService frontierService;
+    private final RetryConfig config;
+    private final ShardRouter shardRouter;
+    private final Path retryFile;
+    private final Path journalFile;
+    // Journal of the retries scheduled before the checkpoint being written
+    private final Path previousJournalFile;
+
+    // Guarded by this
+    private final TimingWheel<PendingRetry> wheel;
+    // Latest retry of every pending URL, the wheel still holds the replaced ones
+    private final Map<String, PendingRetry> pending = new HashMap<>();
+    // Released by the wheel, waiting for room in a release batch
+    private final ArrayDeque<PendingRetry> ready = new ArrayDeque<>();
+    // pending.size() + ready.size(), readable without the lock
+    private final AtomicInteger backlog = new AtomicInteger();
+    // Opened by recover(), null until then
+    private FileOutputStream journalOut;
+    private DataOutputStream journal;
+
+    private final AtomicLong givenUp = new AtomicLong();
+
+    public RetryScheduler(FrontierService frontierService, RetryConfig config, ShardRouter shardRouter,
+                          FrontierStore frontierStore, FrontierMetrics frontierMetrics) {
+        this.frontierService = frontierService;
+        this.config = config;
+        this.shardRouter = shardRouter;
+        this.retryFile = frontierStore.getDir().resolve(RETRY_FILE);
+        this.journalFile = frontierStore.getDir().resolve(JOURNAL_FILE);
+        this.previousJournalFile = journalFile.resolveSibling(JOURNAL_FILE + ".old");
+        this.wheel = new TimingWheel<>(config.getTickMs(), config.getWheelSize(), System.currentTimeMillis());
+
+        frontierMetrics.registerGauge("frontier_retry_pending",
+                "Number of failed URLs waiting for their retry", this, RetryScheduler::size);
+        frontierMetrics.registerGauge("frontier_retry_given_up",
+                "Failed URLs not retried: too many failures or permanent error", givenUp, AtomicLong::get);
+    }
+
+    /**
+     * Schedule the retry of a failed fetch. The retry is journaled but only durable after {@link #sync()}.
+     *
+     * @return false if the URL is given up
+     */
+    public boolean schedule(RetryUrlMessage message) throws IOException {
+        if (message.getRetryCount() > config.getMaxRetries()) {
+            givenUp.incrementAndGet();
+            logger.warn("Retry limit exceeded for URL: {}", message.getUrl());
+            return false;
+        }
+        if (isPermanentFailure(message.getHttpStatus())) {
+            givenUp.incrementAndGet();
+            logger.debug("Not retrying URL with status {}: {}", message.getHttpStatus(), message.getUrl());
+            return false;
+        }
+
+        long dueAt = dueAt(message, System.currentTimeMillis());
+        PendingRetry retry = new PendingRetry(message.getUrl(), message.getRetryCount(), dueAt);
+        synchronized (this) {
+            if (pending.put(retry.url(), retry) == null) {
+                backlog.incrementAndGet();
+            }
+            wheel.schedule(retry, dueAt);
+            if (journal != null) {
+                writeRetry(journal, retry);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flush the journaled retries to the storage device
+     */
+    public synchronized void sync() throws IOException {
+        if (journal != null) {
+            journal.flush();
+            journalOut.getFD().sync();
+        }
+    }
+
+    /**
+     * Client errors other than timeouts and rate limits will fail again
+     */
+    static boolean isPermanentFailure(Integer status) {
+        return status != null && status >= 400 && status < 500
+                && status != 408 && status != 425 && status != 429;
+    }
+
+    /**
+     * When the retry of message is due: at the Retry-After of the server if it sent one with a
+     * 429 or 503, otherwise after an exponential backoff on the retry count
+     */
+    long dueAt(RetryUrlMessage message, long now) {
+        long attempt = message.getLastAttempt() != null ? message.getLastAttempt().toEpochMilli() : now;
+        Integer status = message.getHttpStatus();
+        if (message.getRetryAfter() != null && status != null && (status == 429 || status == 503)) {
+            return Math.min(message.getRetryAfter().toEpochMilli(), attempt + config.getMaxDelayMs());
+        }
+
+        int failures = Math.max(1, message.getRetryCount());
+        long backoff = config.getBaseDelayMs() << Math.min(failures - 1, 30);
+        if (backoff <= 0 || backoff > config.getMaxDelayMs()) {
+            backoff = config.getMaxDelayMs();
+        }
+        double spread = config.getJitter() > 0
+                ? ThreadLocalRandom.current().nextDouble(-config.getJitter(), config.getJitter())
+                : 0;
+        return attempt + (long) (backoff * (1 + spread));
+    }
+
+    /**
+     * Add the due retries to the frontier, those of hosts owned by other nodes are forwarded to them
+     */
+    @Scheduled(fixedDelayString = "${frontier.retry.release-interval-ms:1000}")
+    public void release() {
+        List<PendingRetry> batch = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(), retry -> {
+                // Replaced retries of the same URL are skipped
+                if (pending.remove(retry.url(), retry)) {
+                    ready.add(retry);
+                }
+            });
+            while (!ready.isEmpty() && batch.size() < config.getReleaseBatchSize()) {
+                batch.add(ready.poll());
+            }
+            backlog.addAndGet(-batch.size());
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<String> urls = batch.stream().map(PendingRetry::url).toList();
+        try {
+            int added = frontierService.addBatchToFrontier(shardRouter.route(urls, UrlOrigin.RETRY), UrlOrigin.RETRY);
+            logger.info("Released {} due retries, {} added to the frontier, {} still pending", urls.size(), added, size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            putBack(batch);
+        } catch (Exception e) {
+            logger.error("Error releasing {} retries, retrying in {} ms", urls.size(), config.getBaseDelayMs(), e);
+            putBack(batch);
+        }
+    }
+
+    /**
+     * Put the retries of a failed release back on the wheel, unless the URL failed again meanwhile
+     */
+    private synchronized void putBack(List<PendingRetry> batch) {
+        long dueAt = System.currentTimeMillis() + config.getBaseDelayMs();
+        for (PendingRetry released : batch) {
+            if (pending.containsKey(released.url())) {
+                continue;
+            }
+            PendingRetry retry = new PendingRetry(released.url(), released.retryCount(), dueAt);
+            pending.put(retry.url(), retry);
+            backlog.incrementAndGet();
+            wheel.schedule(retry, dueAt);
+        }
+    }
+
+    public int size() {
+        return backlog.get();
+    }
+
+    public synchronized void clear() {
+        wheel.clear();
+        pending.clear();
+        ready.clear();
+        backlog.set(0);
+        if (journal != null) {
+            try {
+                closeJournal();
+                openJournal(false);
+            } catch (IOException e) {
+                logger.error("Error truncating the retry journal", e);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void recover() {
+        restoreCheckpoint();
+        // The previous journal is left by a checkpoint that did not complete
+        replayJournal(previousJournalFile);
+        replayJournal(journalFile);
+        synchronized (this) {
+            try {
+                openJournal(true);
+            } catch (IOException e) {
+                logger.error("Error opening the retry journal, retries are only durable once checkpointed", e);
+            }
+        }
+    }
+
+    private void restoreCheckpoint() {
+        if (!Files.exists(retryFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(retryFile), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                logger.warn("Ignoring retry file {} with unknown format", retryFile);
+                return;
+            }
+            int count = in.readInt();
+            synchronized (this) {
+                for (int i = 0; i < count; i++) {
+                    restore(readRetry(in));
+                }
+            }
+            logger.info("Restored {} pending retries", count);
+        } catch (IOException e) {
+            logger.error("Error reading pending retries", e);
+        }
+    }
+
+    private void replayJournal(Path file) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                PendingRetry retry = readRetry(in);
+                synchronized (this) {
+                    restore(retry);
+                }
+                count++;
+            }
+        } catch (EOFException e) {
+            // End of the journal, or a record torn by a crash
+        } catch (IOException e) {
+            logger.error("Error reading retry journal {}", file, e);
+        }
+        logger.info("Replayed {} journaled retries from {}", count, file);
+    }
+
+    // Guarded by this
+    private void restore(PendingRetry retry) {
+        // Overdue retries are released on the next tick
+        if (pending.put(retry.url(), retry) == null) {
+            backlog.incrementAndGet();
+        }
+        wheel.schedule(retry, retry.dueAt());
+    }
+
+    /**
+     * Persist the pending retries, with the frontier checkpoint, and drop the journal they cover
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${frontier.storage.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        List<PendingRetry> retries;
+        synchronized (this) {
+            retries = new ArrayList<>(ready);
+            retries.addAll(pending.values());
+            rotateJournal();
+        }
+
+        Path tmp = retryFile.resolveSibling(retryFile.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeInt(retries.size());
+                for (PendingRetry retry : retries) {
+                    writeRetry(out, retry);
+                }
+                out.flush();
+                fos.getFD().sync();
+            }
+            Files.move(tmp, retryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(previousJournalFile);
+            logger.debug("Checkpointed {} pending retries", retries.size());
+        } catch (IOException e) {
+            // The previous journal is kept, and replayed at startup
+            logger.error("Error writing pending retries", e);
+        }
+    }
+
+    /**
+     * Start a new journal for the retries scheduled after the checkpoint being written. A previous
+     * journal left by a failed checkpoint is not replaced: the current one keeps growing until a
+     * checkpoint completes.
+     */
+    // Guarded by this
+    private void rotateJournal() {
+        if (journal == null || Files.exists(previousJournalFile)) {
+            return;
+        }
+        try {
+            closeJournal();
+            Files.move(journalFile, previousJournalFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Error rotating the retry journal", e);
+        }
+        try {
+            openJournal(true);
+        } catch (IOException e) {
+            logger.error("Error opening the retry journal, retries are only durable once checkpointed", e);
+        }
+    }
+
+    // Guarded by this
+    private void openJournal(boolean append) throws IOException {
+        journalOut = new FileOutputStream(journalFile.toFile(), append);
+        journal = new DataOutputStream(new BufferedOutputStream(journalOut, 1 << 16));
+    }
+
+    // Guarded by this
+    private void closeJournal() throws IOException {
+        DataOutputStream closing = journal;
+        journal = null;
+        journalOut = null;
+        closing.close();
+    }
+
+    private static void writeRetry(DataOutputStream out, PendingRetry retry) throws IOException {
+        out.writeUTF(retry.url());
+        out.writeInt(retry.retryCount());
+        out.writeLong(retry.dueAt());
+    }
+
+    private static PendingRetry readRetry(DataInputStream in) throws IOException {
+        return new PendingRetry(in.readUTF(), in.readInt(), in.readLong());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+        synchronized (this) {
+            if (journal != null) {
+                try {
+                    closeJournal();
+                } catch (IOException e) {
+                    logger.error("Error closing the retry journal", e);
+                }
+            }
+        }
+    }
+
+    record PendingRetry(String url, int retryCount, long dueAt) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.vdt.crawler.frontier_service.service.revisit;
+
+/**
+ * Visit history of one hub page, from which its change rate is estimated.
+ *
+ * Changes are assumed to follow a Poisson process. A visit only tells whether the page changed
+ * since the previous visit, not how often, so the rate is estimated from the share of visits that
+ * saw a change and the mean interval between visits (Cho and Garcia-Molina estimator).
+ * Counts are scaled down past historySize visits, so the estimate follows pages changing pace.
+ *
+ * Not thread safe, callers synchronize.
+ */
+public class HubStats {
+    private double visits;
+    private double changes;
+    private double observedMs;
+
+    // Time of the last visit, 0 before the first one
+    private long lastVisitAt;
+    // Whether the outcome of the last visit is known, and if it brought new links
+    private boolean observed;
+    private boolean changed;
+
+    public HubStats() {
+    }
+
+    HubStats(double visits, double changes, double observedMs, long lastVisitAt) {
+        this.visits = visits;
+        this.changes = changes;
+        this.observedMs = observedMs;
+        this.lastVisitAt = lastVisitAt;
+    }
+
+    /**
+     * Record the outcome of the last visit, may be called once per batch of links it produced
+     */
+    public void observe(boolean newLinks) {
+        if (lastVisitAt == 0) {
+            return;
+        }
+        observed = true;
+        changed |= newLinks;
+    }
+
+    /**
+     * Close the previous visit and start a new one at now.
+     * The first visit and visits whose outcome never came back, e.g. a failed fetch, are not counted.
+     */
+    public void visit(long now, int historySize) {
+        if (lastVisitAt > 0 && observed && now > lastVisitAt) {
+            visits++;
+            if (changed) {
+                changes++;
+            }
+            observedMs += now - lastVisitAt;
+            if (visits > historySize) {
+                double scale = historySize / visits;
+                visits *= scale;
+                changes *= scale;
+                observedMs *= scale;
+            }
+        }
+        lastVisitAt = now;
+        observed = false;
+        changed = false;
+    }
+
+    /**
+     * Estimated changes per millisecond, NaN until a visit was observed
+     */
+    public double changeRate() {
+        if (visits == 0 || observedMs <= 0) {
+            return Double.NaN;
+        }
+        if (changes == 0) {
+            return 0;
+        }
+        double unchanged = visits - changes;
+        return -Math.log((unchanged + 0.5) / (visits + 0.5)) / (observedMs / visits);
+    }
+
+    /**
+     * Interval after which the page has changed with the given probability, NaN if the rate is
+     * unknown and infinite if the page never changed
+     */
+    public double intervalFor(double changeProbability) {
+        double rate = changeRate();
+        if (Double.isNaN(rate)) {
+            return Double.NaN;
+        }
+        return rate <= 0 ? Double.POSITIVE_INFINITY : -Math.log(1 - changeProbability) / rate;
+    }
+
+    public double getVisits() {
+        return visits;
+    }
+
+    public double getChanges() {
+        return changes;
+    }
+
+    public double getObservedMs() {
+        return observedMs;
+    }
+
+    public long getLastVisitAt() {
+        return lastVisitAt;
+    }
+}
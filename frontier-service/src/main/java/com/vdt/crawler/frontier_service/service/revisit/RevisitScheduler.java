@@ -0,0 +1,402 @@
+package com.vdt.crawler.frontier_service.service.revisit;
+
+import com.vdt.crawler.frontier_service.config.RevisitConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import com.vdt.crawler.frontier_service.service.FrontierService;
+import com.vdt.crawler.frontier_service.service.queue.TimingWheel;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import com.vdt.crawler.frontier_service.service.storage.FrontierStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revisits hub pages (the seed URLs of the active domains) as often as they change.
+ *
+ * The parsers tag the links of a page with the page URL, so every visit of a hub is known to have
+ * brought new article links or not. From that a Poisson change rate is estimated per hub
+ * ({@link HubStats}) and the next visit is planned once the hub has probably changed again,
+ * within the min/max interval. When all hubs together would exceed the hourly fetch budget,
+ * every interval is stretched by the same factor.
+ *
+ * A domain may set its own crawl interval, its hubs are then never visited more often than that.
+ * The first visit of a hub falls on the phase of its domain within the interval, so the seeds of
+ * all domains are spread evenly over the period instead of being visited in one burst.
+ */
+@Service
+public class RevisitScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(RevisitScheduler.class);
+
+    // Header of the new URL messages holding the page the URL was found on
+    public static final String SOURCE_HEADER = "frontier-source";
+
+    private static final int FILE_MAGIC = 0x48554253; // "HUBS"
+    private static final int FILE_VERSION = 2;
+    private static final String HUB_FILE = "hubs.dat";
+    private static final double HOUR_MS = 3600 * 1000;
+
+    private final DomainRepository domainRepository;
+    private final FrontierService frontierService;
+    private final ShardRouter shardRouter;
+    private final RevisitConfig config;
+    private final Path hubFile;
+
+    // Keyed by hubKey, modified under this, read without it to filter observations
+    private final Map<String, Hub> hubs = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final TimingWheel<Visit> wheel;
+    // Factor applied to every interval to stay within the fetch budget
+    private volatile double stretch = 1;
+
+    public RevisitScheduler(DomainRepository domainRepository, FrontierService frontierService,
+                            ShardRouter shardRouter, RevisitConfig config, FrontierStore frontierStore,
+                            FrontierMetrics frontierMetrics) {
+        this.domainRepository = domainRepository;
+        this.frontierService = frontierService;
+        this.shardRouter = shardRouter;
+        this.config = config;
+        this.hubFile = frontierStore.getDir().resolve(HUB_FILE);
+        this.wheel = new TimingWheel<>(config.getTickMs(), config.getWheelSize(), System.currentTimeMillis());
+
+        frontierMetrics.registerGauge("frontier_revisit_hubs",
+                "Number of hub pages revisited by this node", hubs, Map::size);
+        frontierMetrics.registerGauge("frontier_revisit_budget_stretch",
+                "Factor applied to revisit intervals to stay within the fetch budget", this, s -> s.stretch);
+    }
+
+    /**
+     * Follow the seed URLs of the active domains owned by this node, new hubs are first visited at
+     * the phase of their domain
+     */
+    @Scheduled(initialDelay = 90000, fixedDelayString = "${frontier.revisit.sync-interval-ms:300000}")
+    public void syncHubs() {
+        Map<String, Domain> domainOfSeed = new LinkedHashMap<>();
+        for (Domain domain : domainRepository.findByActiveTrue()) {
+            if (domain.getSeedUrls() != null) {
+                domain.getSeedUrls().forEach(url -> domainOfSeed.putIfAbsent(url, domain));
+            }
+        }
+        // Every node runs this sync, each one keeps the hubs of its own hosts
+        List<String> owned = shardRouter.ownedOnly(domainOfSeed.keySet());
+
+        long now = System.currentTimeMillis();
+        int added = 0;
+        int removed;
+        synchronized (this) {
+            Set<String> keys = new HashSet<>();
+            for (String url : owned) {
+                String key = hubKey(url);
+                if (key == null || !keys.add(key)) {
+                    continue;
+                }
+                Domain domain = domainOfSeed.get(url);
+                long crawlIntervalMs = Math.max(0, domain.getCrawlIntervalMs());
+                long phaseMs = phaseOf(domain);
+                Hub hub = hubs.get(key);
+                if (hub == null) {
+                    hub = new Hub(key, url.trim(), new HubStats());
+                    hub.setCrawlSchedule(crawlIntervalMs, phaseMs);
+                    hubs.put(key, hub);
+                    schedule(hub, nextSlot(hub, now));
+                    added++;
+                } else if (hub.crawlIntervalMs != crawlIntervalMs || hub.phaseMs != phaseMs) {
+                    hub.setCrawlSchedule(crawlIntervalMs, phaseMs);
+                    // A shorter interval takes effect now, a longer one from the next visit
+                    long slot = nextSlot(hub, now);
+                    if (slot < hub.dueAt) {
+                        schedule(hub, slot);
+                    }
+                }
+            }
+            int before = hubs.size();
+            hubs.keySet().retainAll(keys);
+            removed = before - hubs.size();
+            updateStretch();
+        }
+        logger.info("Revisiting {} hub pages ({} new, {} removed), interval stretch {}",
+                hubs.size(), added, removed, String.format("%.2f", stretch));
+    }
+
+    /**
+     * Add the hubs due for a visit to the frontier and plan their next visit
+     */
+    @Scheduled(fixedDelayString = "${frontier.revisit.release-interval-ms:1000}")
+    public void release() {
+        List<String> urls = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            List<Hub> due = new ArrayList<>();
+            wheel.advance(now, visit -> {
+                Hub hub = hubs.get(visit.key());
+                // Visits of removed hubs and replaced visits are skipped
+                if (hub != null && hub.dueAt == visit.dueAt()) {
+                    due.add(hub);
+                }
+            });
+            for (Hub hub : due) {
+                hub.stats.visit(now, config.getHistorySize());
+                schedule(hub, now + intervalOf(hub, stretch));
+                urls.add(hub.url);
+            }
+        }
+        if (urls.isEmpty()) {
+            return;
+        }
+
+        try {
+            int added = frontierService.addBatchToFrontier(urls, UrlOrigin.SEED);
+            logger.debug("Revisiting {} hub pages, {} added to the frontier", urls.size(), added);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error revisiting {} hub pages", urls.size(), e);
+        }
+    }
+
+    /**
+     * Record that the last visit of source produced newUrls URLs never queued before
+     */
+    public void recordLinks(String source, int newUrls) {
+        Hub hub = hubOf(source);
+        if (hub == null) {
+            return;
+        }
+        synchronized (this) {
+            hub.stats.observe(newUrls > 0);
+        }
+    }
+
+    public boolean isHub(String url) {
+        return hubOf(url) != null;
+    }
+
+    /**
+     * Importance of a hub page as a source of links: the probability that it changes within an
+     * hour, 0.5 while its change rate is unknown, 0 if url is not a hub
+     */
+    public double importanceOf(String url) {
+        Hub hub = hubOf(url);
+        if (hub == null) {
+            return 0;
+        }
+        double rate;
+        synchronized (this) {
+            rate = hub.stats.changeRate();
+        }
+        return Double.isNaN(rate) ? 0.5 : 1 - Math.exp(-rate * HOUR_MS);
+    }
+
+    private Hub hubOf(String url) {
+        String key = hubKey(url);
+        return key == null ? null : hubs.get(key);
+    }
+
+    // Called with the lock held
+    private void schedule(Hub hub, long dueAt) {
+        hub.dueAt = dueAt;
+        wheel.schedule(new Visit(hub.key, dueAt), dueAt);
+    }
+
+    /**
+     * Interval until the next visit: the estimated time until the hub changed with the configured
+     * probability, times stretch, within the min/max bounds. The crawl interval of the domain
+     * replaces the initial interval and raises the lower bound.
+     */
+    private long intervalOf(Hub hub, double stretch) {
+        double interval = hub.stats.intervalFor(config.getChangeProbability());
+        if (Double.isNaN(interval)) {
+            interval = baseIntervalOf(hub);
+        }
+        interval *= stretch;
+        long min = Math.max(config.getMinIntervalMs(), hub.crawlIntervalMs);
+        long max = Math.max(config.getMaxIntervalMs(), min);
+        return (long) Math.max(min, Math.min(max, interval));
+    }
+
+    private long baseIntervalOf(Hub hub) {
+        return hub.crawlIntervalMs > 0 ? hub.crawlIntervalMs : config.getInitialIntervalMs();
+    }
+
+    private long nextSlot(Hub hub, long now) {
+        return nextSlot(now, hub.phaseMs, baseIntervalOf(hub));
+    }
+
+    /**
+     * First time from now on at phaseMs within a period of intervalMs, counted from the epoch
+     */
+    static long nextSlot(long now, long phaseMs, long intervalMs) {
+        return now + Math.floorMod(phaseMs - now, Math.max(1, intervalMs));
+    }
+
+    /**
+     * Phase set on the domain, or one derived from its name so domains are spread evenly
+     */
+    static long phaseOf(Domain domain) {
+        if (domain.getCrawlPhaseMs() != null) {
+            return Math.max(0, domain.getCrawlPhaseMs());
+        }
+        // Fibonacci hashing spreads similar names over the whole range
+        long hash = (domain.getDomain() != null ? domain.getDomain().hashCode() : 0) * 0x9E3779B97F4A7C15L;
+        return hash >>> 1;
+    }
+
+    // Called with the lock held
+    private void updateStretch() {
+        int budget = config.getFetchBudgetPerHour();
+        if (budget <= 0 || hubs.isEmpty()) {
+            stretch = 1;
+            return;
+        }
+        double fetchesPerHour = 0;
+        for (Hub hub : hubs.values()) {
+            fetchesPerHour += HOUR_MS / intervalOf(hub, 1);
+        }
+        // Hubs already at the max interval cannot be stretched, the budget may be exceeded then
+        stretch = Math.max(1, fetchesPerHour / budget);
+    }
+
+    /**
+     * Key matching a hub URL and the page URL reported by the parsers, which comes from the
+     * canonical link of the page: scheme, "www." and trailing slashes are ignored
+     */
+    static String hubKey(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            URL parsed = new URL(url.trim());
+            String host = parsed.getHost().toLowerCase();
+            if (host.isEmpty()) {
+                return null;
+            }
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+            String path = parsed.getPath();
+            while (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            return parsed.getQuery() == null ? host + path : host + path + "?" + parsed.getQuery();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    @PostConstruct
+    public void recover() {
+        if (!Files.exists(hubFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(hubFile), 1 << 16))) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != FILE_MAGIC || version < 1 || version > FILE_VERSION) {
+                logger.warn("Ignoring hub file {} with unknown format", hubFile);
+                return;
+            }
+            int count = in.readInt();
+            synchronized (this) {
+                for (int i = 0; i < count; i++) {
+                    String url = in.readUTF();
+                    HubStats stats = new HubStats(in.readDouble(), in.readDouble(), in.readDouble(), in.readLong());
+                    long dueAt = in.readLong();
+                    // Version 1 has no crawl schedule, the next sync of the domains sets it
+                    long crawlIntervalMs = version >= 2 ? in.readLong() : 0;
+                    long phaseMs = version >= 2 ? in.readLong() : 0;
+                    String key = hubKey(url);
+                    if (key != null) {
+                        Hub hub = new Hub(key, url, stats);
+                        hub.setCrawlSchedule(crawlIntervalMs, phaseMs);
+                        hubs.put(key, hub);
+                        schedule(hub, dueAt);
+                    }
+                }
+                updateStretch();
+            }
+            logger.info("Restored visit history of {} hub pages", count);
+        } catch (IOException e) {
+            logger.error("Error reading hub visit history", e);
+        }
+    }
+
+    /**
+     * Persist the visit history of the hubs, with the frontier checkpoint
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${frontier.storage.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        Path tmp = hubFile.resolveSibling(hubFile.getFileName() + ".tmp");
+        try {
+            int count;
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+                synchronized (this) {
+                    count = hubs.size();
+                    out.writeInt(FILE_MAGIC);
+                    out.writeInt(FILE_VERSION);
+                    out.writeInt(count);
+                    for (Hub hub : hubs.values()) {
+                        out.writeUTF(hub.url);
+                        out.writeDouble(hub.stats.getVisits());
+                        out.writeDouble(hub.stats.getChanges());
+                        out.writeDouble(hub.stats.getObservedMs());
+                        out.writeLong(hub.stats.getLastVisitAt());
+                        out.writeLong(hub.dueAt);
+                        out.writeLong(hub.crawlIntervalMs);
+                        out.writeLong(hub.phaseMs);
+                    }
+                }
+                out.flush();
+                fos.getFD().sync();
+            }
+            Files.move(tmp, hubFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Checkpointed visit history of {} hub pages", count);
+        } catch (IOException e) {
+            logger.error("Error writing hub visit history", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    private static final class Hub {
+        final String key;
+        final String url;
+        final HubStats stats;
+        long dueAt;
+        // Crawl interval of the domain, 0 for the default one
+        long crawlIntervalMs;
+        // Offset of the visits within the interval, any non-negative value
+        long phaseMs;
+
+        Hub(String key, String url, HubStats stats) {
+            this.key = key;
+            this.url = url;
+            this.stats = stats;
+        }
+
+        void setCrawlSchedule(long crawlIntervalMs, long phaseMs) {
+            this.crawlIntervalMs = crawlIntervalMs;
+            this.phaseMs = phaseMs;
+        }
+    }
+
+    private record Visit(String key, long dueAt) {
+    }
+}
@@ -17,6 +17,9 @@
 
 package com.vdt.crawler.frontier_service.service.robotstxt;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
@@ -27,7 +30,7 @@ import java.util.concurrent.TimeUnit;
 public class HostDirectives {
     // If we fetched the directives for this host more than
     // 24 hours, we have to re-fetch it.
-    private static final long EXPIRATION_DELAY = TimeUnit.MILLISECONDS.convert(1, TimeUnit.DAYS);
+    static final long EXPIRATION_DELAY = TimeUnit.MILLISECONDS.convert(1, TimeUnit.DAYS);
 
     public static final int ALLOWED = 1;
     public static final int DISALLOWED = 2;
@@ -36,13 +39,24 @@ public class HostDirectives {
     /** A list of rule sets, sorted on match with the configured user agent */
     private Set<UserAgentDirectives> rules;
 
+    /** Rule sets checkAccess has to consult, in order; computed on first use */
+    private volatile ApplicableGroups applicable;
+
     private final long timeFetched;
     private long timeLastAccessed;
     private RobotstxtConfig config;
     private String userAgent;
+    private String robotsTxtUrl;
 
     public HostDirectives(RobotstxtConfig configuration) {
-        timeFetched = System.currentTimeMillis();
+        this(configuration, System.currentTimeMillis());
+    }
+
+    /**
+     * Directives fetched earlier, e.g. loaded from the robots.txt store
+     */
+    public HostDirectives(RobotstxtConfig configuration, long timeFetched) {
+        this.timeFetched = timeFetched;
         config = configuration;
         userAgent = config.getUserAgentName().toLowerCase();
         rules = new TreeSet<UserAgentDirectives>(
@@ -53,6 +67,28 @@ public class HostDirectives {
         return ((System.currentTimeMillis() - timeFetched) > EXPIRATION_DELAY);
     }
 
+    /**
+     * Check if the directives expire in less than millis
+     */
+    public boolean expiresWithin(long millis) {
+        return ((System.currentTimeMillis() - timeFetched) > EXPIRATION_DELAY - millis);
+    }
+
+    public long getTimeFetched() {
+        return timeFetched;
+    }
+
+    /**
+     * URL these directives were fetched from
+     */
+    public String getRobotsTxtUrl() {
+        return robotsTxtUrl;
+    }
+
+    void setRobotsTxtUrl(String robotsTxtUrl) {
+        this.robotsTxtUrl = robotsTxtUrl;
+    }
+
     /**
      * Check if the host directives allows visiting path.
      *
@@ -77,6 +113,7 @@ public class HostDirectives {
             new UserAgentDirectives.UserAgentComparator(this.userAgent));
         replace.addAll(rules);
         rules = replace;
+        applicable = null;
     }
 
     /**
@@ -98,28 +135,18 @@ public class HostDirectives {
     public int checkAccess(String path) {
         timeLastAccessed = System.currentTimeMillis();
         int result = UNDEFINED;
-        String myUA = config.getUserAgentName();
         boolean ignoreUADisc = config.getIgnoreUADiscrimination();
 
-        // When checking rules, the list of rules is already ordered based on the
-        // match of the user-agent of the clause with the user-agent of the crawler.
-        // The most specific match should come first.
-        //
         // Only the most specific match is obeyed, unless ignoreUADiscrimination is
         // enabled. In that case, any matching non-wildcard clause that explicitly
         // disallows the path is obeyed. If no such rule exists and any UA in the list
         // is allowed access, that rule is obeyed.
-        for (UserAgentDirectives ua : rules) {
-            int score = ua.match(myUA);
-
-            // If ignoreUADisc is disabled and the current UA doesn't match,
-            // the rest will not match so we are done here.
-            if (score == 0 && !ignoreUADisc) {
-                break;
-            }
+        ApplicableGroups groups = applicable();
+        for (int i = 0; i < groups.directives.length; i++) {
+            UserAgentDirectives ua = groups.directives[i];
 
             // Match the rule to the path
-            result = ua.checkAccess(path, userAgent);
+            result = groups.matchUserAgent[i] ? ua.checkAccess(path) : UNDEFINED;
 
             // If the result is ALLOWED or UNDEFINED, or if
             // this is a wildcard rule and ignoreUADisc is disabled,
@@ -136,6 +163,45 @@ public class HostDirectives {
         return result;
     }
 
+    /**
+     * The user agent matching only depends on the configuration, so it is done once:
+     * the list of rules is already ordered based on the match of the user-agent of the
+     * clause with the user-agent of the crawler, the most specific match first. If
+     * ignoreUADisc is disabled, the clauses after the first one that does not match
+     * the crawler can never be consulted.
+     */
+    private ApplicableGroups applicable() {
+        ApplicableGroups groups = applicable;
+        if (groups == null) {
+            String myUA = config.getUserAgentName();
+            boolean ignoreUADisc = config.getIgnoreUADiscrimination();
+            List<UserAgentDirectives> directives = new ArrayList<>();
+            for (UserAgentDirectives ua : rules) {
+                if (ua.match(myUA) == 0 && !ignoreUADisc) {
+                    break;
+                }
+                directives.add(ua);
+            }
+            boolean[] matchUserAgent = new boolean[directives.size()];
+            for (int i = 0; i < matchUserAgent.length; i++) {
+                matchUserAgent[i] = directives.get(i).match(userAgent) > 0;
+            }
+            groups = new ApplicableGroups(directives.toArray(new UserAgentDirectives[0]), matchUserAgent);
+            applicable = groups;
+        }
+        return groups;
+    }
+
+    private static final class ApplicableGroups {
+        final UserAgentDirectives[] directives;
+        final boolean[] matchUserAgent;
+
+        ApplicableGroups(UserAgentDirectives[] directives, boolean[] matchUserAgent) {
+            this.directives = directives;
+            this.matchUserAgent = matchUserAgent;
+        }
+    }
+
     public Double getCrawlDelay() {
         Double delay = null;
         for (UserAgentDirectives ua : rules) {
@@ -144,6 +210,19 @@ public class HostDirectives {
         return delay;
     }
 
+    /**
+     * Sitemaps listed in robots.txt, whatever group they appear in
+     */
+    public List<String> getSitemaps() {
+        Set<String> sitemaps = new LinkedHashSet<>();
+        for (UserAgentDirectives ua : rules) {
+            if (ua.getSitemap() != null) {
+                sitemaps.addAll(ua.getSitemap());
+            }
+        }
+        return new ArrayList<>(sitemaps);
+    }
+
     /**
      * Store set of directives
      *
@@ -151,6 +230,9 @@ public class HostDirectives {
      */
     public void addDirectives(UserAgentDirectives directives) {
         rules.add(directives);
+        applicable = null;
+        // Compile the rules now rather than on the first check
+        directives.matcher();
     }
 
     public long getLastAccessTime() {
@@ -0,0 +1,299 @@
+package com.vdt.crawler.frontier_service.service.robotstxt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Immutable matcher compiled once from the allow/disallow rules of a user-agent group.
+ *
+ * Rules are stored in a prefix trie on their leading literal part and matched in a single walk
+ * over the path. Rules with wildcards hang off the node of their leading part, ordered by
+ * priority, and are only tried while they can beat the best match so far.
+ * The most specific rule (the longest pattern) wins and allow wins a tie, as in RFC 9309.
+ * Matching a path does not allocate.
+ *
+ * Patterns follow the robots.txt syntax: '*' matches any sequence of characters (possibly
+ * empty), a trailing '$' anchors the pattern at the end of the path, '\*' and '\$' are literals.
+ * Empty patterns match nothing.
+ */
+public final class RobotsMatcher {
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final WildcardRule[] NO_RULES = new WildcardRule[0];
+
+    private final Node root;
+
+    private RobotsMatcher(Node root) {
+        this.root = root;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Verdict of the best rule matching path
+     *
+     * @return HostDirectives.ALLOWED, DISALLOWED or UNDEFINED when no rule matches
+     */
+    public int check(String path) {
+        int length = path.length();
+
+        // Characters of the path, to skip wildcard rules needing one it does not contain
+        long lowChars = 0;
+        long highChars = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = path.charAt(i);
+            if (ch < 64) {
+                lowChars |= 1L << ch;
+            } else if (ch < 128) {
+                highChars |= 1L << (ch - 64);
+            }
+        }
+
+        // Walk the trie along the path: literal rules ending on the way match as prefixes,
+        // wildcard rules hang off the node of their leading literal part
+        int bestType = 0;
+        int bestPriority = 0;
+        Node node = root;
+        int depth = 0;
+        while (true) {
+            if (node.prefixType != 0 && beats(depth, node.prefixType, bestPriority, bestType)) {
+                bestType = node.prefixType;
+                bestPriority = depth;
+            }
+            if (depth == length && node.exactType != 0 && beats(length + 1, node.exactType, bestPriority, bestType)) {
+                // "/path$" outranks "/path"
+                bestType = node.exactType;
+                bestPriority = length + 1;
+            }
+
+            for (WildcardRule rule : node.wildcardRules) {
+                if (!beats(rule.priority, rule.type, bestPriority, bestType)) {
+                    // Rules are ordered, the following ones cannot win either
+                    break;
+                }
+                if ((rule.lowChars & ~lowChars) == 0 && (rule.highChars & ~highChars) == 0
+                        && rule.matches(path)) {
+                    bestType = rule.type;
+                    bestPriority = rule.priority;
+                }
+            }
+
+            if (depth == length) {
+                break;
+            }
+            node = node.child(path.charAt(depth));
+            if (node == null) {
+                break;
+            }
+            depth++;
+        }
+        return bestType != 0 ? bestType : HostDirectives.UNDEFINED;
+    }
+
+    private static boolean beats(int priority, int type, int bestPriority, int bestType) {
+        return priority > bestPriority
+                || (priority == bestPriority && type == HostDirectives.ALLOWED && bestType != HostDirectives.ALLOWED);
+    }
+
+    public boolean isEmpty() {
+        return root.labels.length == 0 && root.prefixType == 0 && root.exactType == 0
+                && root.wildcardRules.length == 0;
+    }
+
+    /**
+     * Collects rules, {@link #build()} compiles them and can be called again after more rules were added
+     */
+    public static final class Builder {
+        private final List<Integer> types = new ArrayList<>();
+        private final List<String> patterns = new ArrayList<>();
+
+        public Builder add(int type, String pattern) {
+            if (!pattern.isEmpty()) {
+                types.add(type);
+                patterns.add(pattern);
+            }
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return patterns.isEmpty();
+        }
+
+        public RobotsMatcher build() {
+            MutableNode root = new MutableNode();
+            for (int i = 0; i < patterns.size(); i++) {
+                String pattern = patterns.get(i);
+                int type = types.get(i);
+
+                List<String> segments = new ArrayList<>();
+                boolean anchored = split(pattern, segments);
+                MutableNode node = root.insert(segments.get(0));
+                if (segments.size() > 1) {
+                    node.wildcardRules.add(new WildcardRule(
+                            segments.toArray(new String[0]), anchored, pattern.length(), type));
+                } else if (anchored) {
+                    node.exactType = merge(node.exactType, type);
+                } else {
+                    node.prefixType = merge(node.prefixType, type);
+                }
+            }
+            return new RobotsMatcher(root.freeze());
+        }
+
+        /**
+         * Split a pattern into its literal parts around '*'
+         *
+         * @return true if the pattern is anchored at the end of the path
+         */
+        private static boolean split(String pattern, List<String> segments) {
+            StringBuilder literal = new StringBuilder();
+            boolean anchored = false;
+            for (int pos = 0; pos < pattern.length(); pos++) {
+                char ch = pattern.charAt(pos);
+                char next = pos < pattern.length() - 1 ? pattern.charAt(pos + 1) : 0;
+                if (ch == '\\' && (next == '*' || next == '$')) {
+                    literal.append(next);
+                    pos++;
+                } else if (ch == '*') {
+                    segments.add(literal.toString());
+                    literal.setLength(0);
+                } else if (ch == '$' && pos == pattern.length() - 1) {
+                    anchored = true;
+                } else {
+                    literal.append(ch);
+                }
+            }
+            segments.add(literal.toString());
+            return anchored;
+        }
+    }
+
+    private static int merge(int current, int type) {
+        // Allow wins between rules of the same pattern
+        return current == HostDirectives.ALLOWED ? current : type;
+    }
+
+    private static final class MutableNode {
+        private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+        private final List<WildcardRule> wildcardRules = new ArrayList<>();
+        private int prefixType;
+        private int exactType;
+
+        MutableNode insert(String literal) {
+            MutableNode node = this;
+            for (int i = 0; i < literal.length(); i++) {
+                node = node.children.computeIfAbsent(literal.charAt(i), c -> new MutableNode());
+            }
+            return node;
+        }
+
+        Node freeze() {
+            WildcardRule[] rules = NO_RULES;
+            if (!wildcardRules.isEmpty()) {
+                wildcardRules.sort(Comparator.comparingInt((WildcardRule rule) -> -rule.priority)
+                        .thenComparingInt(rule -> rule.type == HostDirectives.ALLOWED ? 0 : 1));
+                rules = wildcardRules.toArray(NO_RULES);
+            }
+            if (children.isEmpty()) {
+                return new Node(NO_LABELS, NO_CHILDREN, rules, prefixType, exactType);
+            }
+            char[] labels = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (var entry : children.entrySet()) {
+                labels[i] = entry.getKey();
+                nodes[i++] = entry.getValue().freeze();
+            }
+            return new Node(labels, nodes, rules, prefixType, exactType);
+        }
+    }
+
+    /**
+     * Trie node, children sorted by label
+     */
+    private static final class Node {
+        final char[] labels;
+        final Node[] children;
+        // Rules whose leading literal part ends here, by decreasing priority, allow first
+        final WildcardRule[] wildcardRules;
+        // Verdict of the rule ending here, 0 if none
+        final int prefixType;
+        // Verdict of the '$' anchored rule ending here, 0 if none
+        final int exactType;
+
+        Node(char[] labels, Node[] children, WildcardRule[] wildcardRules, int prefixType, int exactType) {
+            this.labels = labels;
+            this.children = children;
+            this.wildcardRules = wildcardRules;
+            this.prefixType = prefixType;
+            this.exactType = exactType;
+        }
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class WildcardRule {
+        // Literal parts between the '*' of the pattern, at least two
+        final String[] segments;
+        final boolean anchored;
+        final int priority;
+        final int type;
+        // ASCII characters the path must contain after the leading part
+        final long lowChars;
+        final long highChars;
+
+        WildcardRule(String[] segments, boolean anchored, int priority, int type) {
+            this.segments = segments;
+            this.anchored = anchored;
+            this.priority = priority;
+            this.type = type;
+
+            long low = 0;
+            long high = 0;
+            for (int i = 1; i < segments.length; i++) {
+                for (int j = 0; j < segments[i].length(); j++) {
+                    char ch = segments[i].charAt(j);
+                    if (ch < 64) {
+                        low |= 1L << ch;
+                    } else if (ch < 128) {
+                        high |= 1L << (ch - 64);
+                    }
+                }
+            }
+            this.lowChars = low;
+            this.highChars = high;
+        }
+
+        /**
+         * Match the path, its leading part is already known to match
+         */
+        boolean matches(String path) {
+            int pos = segments[0].length();
+
+            // Leftmost match of every middle part leaves the most room for the rest
+            int last = segments.length - 1;
+            for (int i = 1; i < last; i++) {
+                int found = path.indexOf(segments[i], pos);
+                if (found < 0) {
+                    return false;
+                }
+                pos = found + segments[i].length();
+            }
+
+            String tail = segments[last];
+            if (anchored) {
+                return path.length() - tail.length() >= pos && path.endsWith(tail);
+            }
+            return path.indexOf(tail, pos) >= 0;
+        }
+    }
+}
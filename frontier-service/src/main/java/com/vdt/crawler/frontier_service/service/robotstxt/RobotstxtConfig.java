@@ -19,6 +19,8 @@ package com.vdt.crawler.frontier_service.service.robotstxt;
 
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+
 @Component
 public class RobotstxtConfig {
 
@@ -49,6 +51,12 @@ public class RobotstxtConfig {
      */
     private int cacheSize = 500;
 
+    /**
+     * Cached robots.txt expiring within this delay are re-fetched in the background,
+     * before a URL of the host has to wait for them.
+     */
+    private long refreshAheadMs = TimeUnit.HOURS.toMillis(2);
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -73,6 +81,14 @@ public class RobotstxtConfig {
         this.cacheSize = cacheSize;
     }
 
+    public long getRefreshAheadMs() {
+        return refreshAheadMs;
+    }
+
+    public void setRefreshAheadMs(long refreshAheadMs) {
+        this.refreshAheadMs = refreshAheadMs;
+    }
+
     public void setIgnoreUADiscrimination(boolean ignore) {
         this.ignoreUADiscrimination = ignore;
     }
@@ -38,7 +38,11 @@ public class RobotstxtParser {
         Arrays.asList("allow", "disallow", "user-agent", "crawl-delay", "host", "sitemap"));
 
     public static HostDirectives parse(String content, RobotstxtConfig config) {
-        HostDirectives directives = new HostDirectives(config);
+        return parse(content, config, System.currentTimeMillis());
+    }
+
+    public static HostDirectives parse(String content, RobotstxtConfig config, long timeFetched) {
+        HostDirectives directives = new HostDirectives(config, timeFetched);
         StringTokenizer st = new StringTokenizer(content, "\n\r");
 
         Set<String> userAgents = new HashSet<String>();
@@ -0,0 +1,47 @@
+package com.vdt.crawler.frontier_service.service.robotstxt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms the robots.txt cache from the store at startup and re-fetches cached robots.txt before
+ * they expire, so neither happens on the URL processing path.
+ */
+@Component
+public class RobotstxtRefresher {
+    private static final Logger logger = LoggerFactory.getLogger(RobotstxtRefresher.class);
+
+    private final RobotstxtServer robotstxtServer;
+    private final RobotstxtConfig config;
+
+    public RobotstxtRefresher(RobotstxtServer robotstxtServer, RobotstxtConfig config) {
+        this.robotstxtServer = robotstxtServer;
+        this.config = config;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            int loaded = robotstxtServer.preload();
+            logger.info("Loaded {} stored robots.txt", loaded);
+        } catch (Exception e) {
+            logger.error("Error loading stored robots.txt, they will be fetched on demand", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${frontier.robotstxt.refresh-interval-ms:600000}",
+            fixedDelayString = "${frontier.robotstxt.refresh-interval-ms:600000}")
+    public void refresh() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        int started = robotstxtServer.refreshExpiring(config.getRefreshAheadMs());
+        if (started > 0) {
+            logger.info("Refreshing {} robots.txt before they expire", started);
+        }
+    }
+}
@@ -21,10 +21,24 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.vdt.crawler.frontier_service.exception.PageBiggerThanMaxSizeException;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.RobotstxtRecord;
+import com.vdt.crawler.frontier_service.repository.RobotstxtRepository;
 import org.apache.http.HttpStatus;
 import org.apache.http.NoHttpResponseException;
 import org.slf4j.Logger;
@@ -33,55 +47,157 @@ import org.slf4j.LoggerFactory;
 import com.vdt.crawler.frontier_service.utils.Util;
 
 /**
+ * Robots.txt directives of every host, cached in an LRU map.
+ *
+ * A miss starts one asynchronous fetch per host (single-flight) on a dedicated executor; callers
+ * either wait for it ({@link #allows(String)}, {@link #getCrawlDelay(String)}) or use
+ * {@link #resolve(String)} to continue once the directives are cached without blocking a thread.
+ * Expired directives keep being served while they are re-fetched in the background.
+ *
+ * With a {@link RobotstxtRepository}, every fetched robots.txt is stored and a cache miss first
+ * looks for it there, so a restarted frontier does not have to fetch them all again.
+ *
  * @author Yasser Ganjisaffar
  */
 public class RobotstxtServer {
 
     private static final Logger logger = LoggerFactory.getLogger(RobotstxtServer.class);
 
+    private static final int FETCH_THREADS = 8;
+
     protected RobotstxtConfig config;
 
-    protected final Map<String, HostDirectives> host2directivesCache = new HashMap<>();
+    // Access ordered, guarded by itself: eviction of the least recently used host is O(1)
+    protected final Map<String, HostDirectives> host2directivesCache;
+
+    // Fetches in progress, at most one per host
+    private final Map<String, CompletableFuture<HostDirectives>> pendingFetches = new ConcurrentHashMap<>();
 
     protected PageFetcher pageFetcher;
 
+    private final FrontierMetrics frontierMetrics;
+
+    private final ExecutorService fetchExecutor;
+
     private final int maxBytes;
 
-    public RobotstxtServer(RobotstxtConfig config, PageFetcher pageFetcher) {
-        this(config, pageFetcher, 16384);
+    // Fetched robots.txt survive restarts here, null to keep them in memory only
+    private final RobotstxtRepository robotstxtRepository;
+
+    public RobotstxtServer(RobotstxtConfig config, PageFetcher pageFetcher, FrontierMetrics frontierMetrics) {
+        this(config, pageFetcher, frontierMetrics, null);
+    }
+
+    public RobotstxtServer(RobotstxtConfig config, PageFetcher pageFetcher, FrontierMetrics frontierMetrics,
+                           RobotstxtRepository robotstxtRepository) {
+        this(config, pageFetcher, frontierMetrics, robotstxtRepository, 16384);
     }
 
-    public RobotstxtServer(RobotstxtConfig config, PageFetcher pageFetcher, int maxBytes) {
+    public RobotstxtServer(RobotstxtConfig config, PageFetcher pageFetcher, FrontierMetrics frontierMetrics,
+                           RobotstxtRepository robotstxtRepository, int maxBytes) {
         this.config = config;
         this.pageFetcher = pageFetcher;
+        this.frontierMetrics = frontierMetrics;
+        this.robotstxtRepository = robotstxtRepository;
         this.maxBytes = maxBytes;
+        this.host2directivesCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HostDirectives> eldest) {
+                return size() > config.getCacheSize();
+            }
+        };
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fetchExecutor = Executors.newFixedThreadPool(FETCH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "robotstxt-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private static String getHost(URL url) {
         return url.getHost().toLowerCase();
     }
 
-    public Double getCrawlDelay(String webURL) throws IOException, InterruptedException {
+    private static String getRobotsTxtUrl(URL url) {
+        String port = ((url.getPort() == url.getDefaultPort()) || (url.getPort() == -1)) ? "" :
+                      (":" + url.getPort());
+        return url.getProtocol() + "://" + getHost(url) + port + "/robots.txt";
+    }
+
+    /**
+     * Make sure the directives of the host of webURL are cached.
+     *
+     * @return a future completed once the directives are cached (already completed on a cache hit),
+     *         or null when robots.txt is not obeyed
+     */
+    public CompletableFuture<HostDirectives> resolve(String webURL) throws MalformedURLException {
         if (!config.isEnabled()) {
             return null;
         }
-        try {
-            URL url = new URL(webURL);
-            String host = getHost(url);
-            String path = url.getPath();
+        return resolve(new URL(webURL));
+    }
 
-            HostDirectives directives = host2directivesCache.get(host);
+    private CompletableFuture<HostDirectives> resolve(URL url) {
+        String host = getHost(url);
+        HostDirectives directives;
+        synchronized (host2directivesCache) {
+            directives = host2directivesCache.get(host);
+        }
 
-            if (directives != null && directives.needsRefetch()) {
-                synchronized (host2directivesCache) {
-                    host2directivesCache.remove(host);
-                    directives = null;
-                }
+        if (directives != null) {
+            frontierMetrics.incrementRobotsCacheHits();
+            if (directives.needsRefetch()) {
+                // Serve the stale directives while the fresh ones are fetched
+                fetchAsync(host, getRobotsTxtUrl(url), false);
             }
-            if (directives == null) {
-                directives = fetchDirectives(url);
+            return CompletableFuture.completedFuture(directives);
+        }
+
+        frontierMetrics.incrementRobotsCacheMisses();
+        return fetchAsync(host, getRobotsTxtUrl(url), true);
+    }
+
+    /**
+     * @param useStored whether directives still valid in the store may be used instead of fetching
+     */
+    private CompletableFuture<HostDirectives> fetchAsync(String host, String robotsTxtUrl, boolean useStored) {
+        CompletableFuture<HostDirectives> created = new CompletableFuture<>();
+        CompletableFuture<HostDirectives> pending = pendingFetches.putIfAbsent(host, created);
+        if (pending != null) {
+            return pending;
+        }
+
+        fetchExecutor.execute(() -> {
+            try {
+                HostDirectives directives = useStored ? loadStored(host) : null;
+                if (directives == null) {
+                    directives = fetchDirectives(host, robotsTxtUrl);
+                }
+                cache(host, directives);
+                created.complete(directives);
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            } finally {
+                pendingFetches.remove(host, created);
             }
-            return directives.getCrawlDelay();
+        });
+        return created;
+    }
+
+    private HostDirectives getDirectives(String webURL) throws IOException, InterruptedException {
+        try {
+            return resolve(new URL(webURL)).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Error resolving robots.txt for " + webURL, e.getCause());
+        }
+    }
+
+    public Double getCrawlDelay(String webURL) throws IOException, InterruptedException {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        try {
+            return getDirectives(webURL).getCrawlDelay();
         } catch (MalformedURLException e) {
             logger.error("Bad URL in Robots.txt: " + webURL, e);
         }
@@ -96,58 +212,154 @@ public class RobotstxtServer {
         }
         try {
             URL url = new URL(webURL);
-            String host = getHost(url);
-            String path = url.getPath();
+            return getDirectives(webURL).allows(url.getPath());
+        } catch (MalformedURLException e) {
+            logger.error("Bad URL in Robots.txt: " + webURL, e);
+        }
 
-            HostDirectives directives = host2directivesCache.get(host);
+        logger.warn("RobotstxtServer: default: allow - " + webURL);
+        return true;
+    }
 
-            if (directives != null && directives.needsRefetch()) {
-                synchronized (host2directivesCache) {
-                    host2directivesCache.remove(host);
-                    directives = null;
+    /**
+     * Number of hosts whose robots.txt is being fetched
+     */
+    public int pendingFetches() {
+        return pendingFetches.size();
+    }
+
+    public int cacheSize() {
+        synchronized (host2directivesCache) {
+            return host2directivesCache.size();
+        }
+    }
+
+    public void close() {
+        fetchExecutor.shutdownNow();
+    }
+
+    private void cache(String host, HostDirectives directives) {
+        synchronized (host2directivesCache) {
+            host2directivesCache.put(host, directives);
+        }
+    }
+
+    /**
+     * Load the robots.txt fetched before the last restart, the most recent ones first
+     *
+     * @return number of hosts loaded
+     */
+    public int preload() {
+        if (robotstxtRepository == null || !config.isEnabled()) {
+            return 0;
+        }
+        Instant since = Instant.now().minusMillis(HostDirectives.EXPIRATION_DELAY);
+        List<RobotstxtRecord> records = new ArrayList<>(robotstxtRepository.findByFetchedAtAfter(since));
+        records.sort(Comparator.comparing(RobotstxtRecord::getFetchedAt).reversed());
+
+        int loaded = 0;
+        for (RobotstxtRecord record : records) {
+            if (loaded >= config.getCacheSize()) {
+                break;
+            }
+            HostDirectives directives = toDirectives(record);
+            synchronized (host2directivesCache) {
+                // Never replace directives fetched since startup
+                if (host2directivesCache.putIfAbsent(record.getHost(), directives) == null) {
+                    loaded++;
                 }
             }
-            if (directives == null) {
-                directives = fetchDirectives(url);
+        }
+        return loaded;
+    }
+
+    /**
+     * Re-fetch in the background the cached robots.txt expiring within aheadMillis,
+     * so that URLs of these hosts never wait for them
+     *
+     * @return number of refreshes started
+     */
+    public int refreshExpiring(long aheadMillis) {
+        Map<String, String> expiring = new HashMap<>();
+        synchronized (host2directivesCache) {
+            // Iterating does not change the access order
+            for (Map.Entry<String, HostDirectives> entry : host2directivesCache.entrySet()) {
+                HostDirectives directives = entry.getValue();
+                if (directives.expiresWithin(aheadMillis) && directives.getRobotsTxtUrl() != null) {
+                    expiring.put(entry.getKey(), directives.getRobotsTxtUrl());
+                }
             }
-            return directives.allows(path);
-        } catch (MalformedURLException e) {
-            logger.error("Bad URL in Robots.txt: " + webURL, e);
         }
+        expiring.forEach((host, robotsTxtUrl) -> fetchAsync(host, robotsTxtUrl, false));
+        return expiring.size();
+    }
 
-        logger.warn("RobotstxtServer: default: allow - " + webURL);
-        return true;
+    private HostDirectives loadStored(String host) {
+        if (robotstxtRepository == null) {
+            return null;
+        }
+        try {
+            RobotstxtRecord record = robotstxtRepository.findById(host).orElse(null);
+            if (record == null || record.getFetchedAt() == null) {
+                return null;
+            }
+            HostDirectives directives = toDirectives(record);
+            return directives.needsRefetch() ? null : directives;
+        } catch (RuntimeException e) {
+            logger.warn("Error loading stored robots.txt of {}: {}", host, e.getMessage());
+            return null;
+        }
     }
 
-    private HostDirectives fetchDirectives(URL url) {
-        String host = getHost(url);
-        String port = ((url.getPort() == url.getDefaultPort()) || (url.getPort() == -1)) ? "" :
-                      (":" + url.getPort());
-        String proto = url.getProtocol();
-        String robotsTxtUrl = proto + "://" + host + port + "/robots.txt";
+    private HostDirectives toDirectives(RobotstxtRecord record) {
+        long timeFetched = record.getFetchedAt().toEpochMilli();
+        HostDirectives directives = record.getContent() != null
+                ? RobotstxtParser.parse(record.getContent(), config, timeFetched)
+                : new HostDirectives(config, timeFetched);
+        directives.setRobotsTxtUrl(record.getRobotsUrl());
+        return directives;
+    }
+
+    private void store(String host, String robotsTxtUrl, int statusCode, String content, long timeFetched) {
+        if (robotstxtRepository == null) {
+            return;
+        }
+        try {
+            robotstxtRepository.save(new RobotstxtRecord(host, robotsTxtUrl, statusCode, content,
+                    Instant.ofEpochMilli(timeFetched)));
+        } catch (RuntimeException e) {
+            logger.warn("Error storing robots.txt of {}: {}", host, e.getMessage());
+        }
+    }
+
+    private HostDirectives fetchDirectives(String host, String robotsTxtUrl) {
         HostDirectives directives = null;
         PageFetchResult fetchResult = null;
+        String content = null;
+        int statusCode = -1;
+        long timeFetched = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         try {
             fetchResult = pageFetcher.fetchPage(robotsTxtUrl);
+            statusCode = fetchResult.getStatusCode();
 
             if (fetchResult.getStatusCode() == HttpStatus.SC_OK) {
                 // Most recent answer on robots.txt max size is
                 // https://developers.google.com/search/reference/robots_txt
                 fetchResult.fetchContent(500 * 1024);
                 if (Util.hasPlainTextContent(fetchResult.getContentType())) {
-                    String content;
                     if (fetchResult.getContentCharset() == null) {
                         content = new String(fetchResult.getContentData());
                     } else {
                         content = new String(fetchResult.getContentData(), fetchResult.getContentCharset());
                     }
-                    directives = RobotstxtParser.parse(content, config);
+                    directives = RobotstxtParser.parse(content, config, timeFetched);
                 } else if (fetchResult.getContentType()
                                .contains(
                                    "html")) { // TODO This one should be upgraded to remove all
                     // html tags
-                    String content = new String(fetchResult.getContentData());
-                    directives = RobotstxtParser.parse(content, config);
+                    content = new String(fetchResult.getContentData());
+                    directives = RobotstxtParser.parse(content, config, timeFetched);
                 } else {
                     logger.warn(
                         "Can't read this robots.txt: {}  as it is not written in plain text, " +
@@ -172,26 +384,17 @@ public class RobotstxtServer {
             if (fetchResult != null) {
                 fetchResult.discardContentIfNotConsumed();
             }
+            frontierMetrics.recordRobotsFetch(System.nanoTime() - startTime);
         }
 
         if (directives == null) {
             // We still need to have this object to keep track of the time we fetched it
-            directives = new HostDirectives(config);
+            directives = new HostDirectives(config, timeFetched);
         }
-        synchronized (host2directivesCache) {
-            if (host2directivesCache.size() == config.getCacheSize()) {
-                String minHost = null;
-                long minAccessTime = Long.MAX_VALUE;
-                for (Map.Entry<String, HostDirectives> entry : host2directivesCache.entrySet()) {
-                    long entryAccessTime = entry.getValue().getLastAccessTime();
-                    if (entryAccessTime < minAccessTime) {
-                        minAccessTime = entryAccessTime;
-                        minHost = entry.getKey();
-                    }
-                }
-                host2directivesCache.remove(minHost);
-            }
-            host2directivesCache.put(host, directives);
+        directives.setRobotsTxtUrl(robotsTxtUrl);
+        if (statusCode != -1) {
+            // Network errors are not stored, the next start tries again
+            store(host, robotsTxtUrl, statusCode, content, timeFetched);
         }
         return directives;
     }
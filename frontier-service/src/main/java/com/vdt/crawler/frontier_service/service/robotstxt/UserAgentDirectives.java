@@ -2,11 +2,9 @@ package com.vdt.crawler.frontier_service.service.robotstxt;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,53 +21,9 @@ public class UserAgentDirectives {
     private List<String> sitemap = null;
     private String preferredHost = null;
     private Double crawlDelay = null;
-    private Set<PathRule> pathRules = new HashSet<>();
-
-    /**
-     * Comparator used to order the list of matching path rules in such a way
-     * that the most specific match (= longest) match comes first.
-     */
-    static class PathComparator implements Comparator<PathRule> {
-        /** The path to compare the path rules with */
-        String path;
-
-        /** Initialize with the path */
-        PathComparator(String path) {
-            this.path = path;
-        }
-
-        /**
-         * Compare two paths.
-         * If lhs matches and rhs does not, this will return -1
-         * If rhs matches and lhs does not, this will return 1
-         * If both match or both do not match,, this will return the result of
-         *    a numeric comparison of the length of both patterns, where
-         *    the longest (=most specific) one will come first.
-         */
-        @Override
-        public int compare(PathRule lhs, PathRule rhs) {
-            boolean p1Match = lhs.matches(path);
-            boolean p2Match = rhs.matches(path);
-
-            // Matching patterns come first
-            if (p1Match && !p2Match) {
-                return -1;
-            } else if (p2Match && !p1Match) {
-                return 1;
-            }
-
-            // Most specific pattern first
-            String p1 = lhs.pattern.toString();
-            String p2 = rhs.pattern.toString();
-
-            if (p1.length() != p2.length()) {
-                return Integer.compare(p2.length(), p1.length());
-            }
-
-            // Just order alphabetically if the patterns are of the same length
-            return p1.compareTo(p2);
-        }
-    }
+    private final RobotsMatcher.Builder pathRules = RobotsMatcher.builder();
+    // Compiled from pathRules on first use, reset when a rule is added
+    private volatile RobotsMatcher matcher;
 
     /**
      * Create a UserAgentDirectives clause
@@ -104,7 +58,9 @@ public class UserAgentDirectives {
     }
 
     public boolean isEmpty() {
-        return pathRules.isEmpty();
+        synchronized (pathRules) {
+            return pathRules.isEmpty();
+        }
     }
 
     public int checkAccess(String path, String userAgent) {
@@ -113,18 +69,31 @@ public class UserAgentDirectives {
             return HostDirectives.UNDEFINED;
         }
 
-        // Order the rules based on their match with the path
-        Set<PathRule> rules = new TreeSet<>(new PathComparator(path));
-        rules.addAll(pathRules);
+        return checkAccess(path);
+    }
 
-        // Return the verdict of the best matching rule
-        for (PathRule rule : rules) {
-            if (rule.matches(path)) {
-                return rule.type;
+    /**
+     * Verdict of the most specific rule matching path, regardless of the user agent
+     *
+     * @param path The path to check
+     * @return One of ALLOWED, DISALLOWED or UNDEFINED
+     */
+    int checkAccess(String path) {
+        return matcher().check(path);
+    }
+
+    RobotsMatcher matcher() {
+        RobotsMatcher compiled = matcher;
+        if (compiled == null) {
+            synchronized (pathRules) {
+                compiled = matcher;
+                if (compiled == null) {
+                    compiled = pathRules.build();
+                    matcher = compiled;
+                }
             }
         }
-
-        return HostDirectives.UNDEFINED;
+        return compiled;
     }
 
     public static class UserAgentComparator implements Comparator<UserAgentDirectives> {
@@ -195,14 +164,21 @@ public class UserAgentDirectives {
         } else if (rule.equals("host")) {
             this.preferredHost = value;
         } else if (rule.equals("allow")) {
-            this.pathRules.add(new PathRule(HostDirectives.ALLOWED, value));
+            addPathRule(HostDirectives.ALLOWED, value);
         } else if (rule.equals("disallow")) {
-            this.pathRules.add(new PathRule(HostDirectives.DISALLOWED, value));
+            addPathRule(HostDirectives.DISALLOWED, value);
         } else {
             logger.error("Invalid key in robots.txt passed to UserAgentRules: {}", rule);
         }
     }
 
+    private void addPathRule(int type, String pattern) {
+        synchronized (pathRules) {
+            pathRules.add(type, pattern);
+            matcher = null;
+        }
+    }
+
     /**
      * Return the configured crawl delay in seconds
      *
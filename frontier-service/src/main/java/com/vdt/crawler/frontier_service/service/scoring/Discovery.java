@@ -0,0 +1,33 @@
+package com.vdt.crawler.frontier_service.service.scoring;
+
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+
+/**
+ * How a batch of URLs was found, the signals a {@link UrlScorer} ranks them with
+ *
+ * @param linkDepth        links followed from a seed: 0 for a seed, 1 for a link of a hub page
+ * @param discoveredAt     epoch millis the URLs were found at
+ * @param sourceImportance importance of the hub page the URLs were found on, in [0, 1], 0 if none
+ */
+public record Discovery(UrlOrigin origin, int linkDepth, long discoveredAt, double sourceImportance) {
+    /**
+     * Depth of the URLs found off the hub pages, the crawl does not track deeper levels
+     */
+    public static final int UNKNOWN_DEPTH = 2;
+
+    /**
+     * URLs found now with no more than their origin known
+     */
+    public static Discovery of(UrlOrigin origin) {
+        int depth;
+        if (origin == UrlOrigin.SEED) {
+            depth = 0;
+        } else if (origin == UrlOrigin.SITEMAP || origin == UrlOrigin.FEED) {
+            // Listed by the site itself
+            depth = 1;
+        } else {
+            depth = UNKNOWN_DEPTH;
+        }
+        return new Discovery(origin, depth, System.currentTimeMillis(), 0);
+    }
+}
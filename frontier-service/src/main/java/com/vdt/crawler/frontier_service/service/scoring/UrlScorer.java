@@ -0,0 +1,15 @@
+package com.vdt.crawler.frontier_service.service.scoring;
+
+import com.vdt.crawler.frontier_service.service.state.DomainState;
+
+/**
+ * Ranks the URLs entering the frontier, the score picks their front queue level.
+ * Called once per URL on the ingest path, implementations must be thread safe and cheap.
+ */
+public interface UrlScorer {
+    /**
+     * @param url canonical URL
+     * @return score in [0, 1], the higher the sooner the URL is fetched
+     */
+    double score(String url, DomainState domain, Discovery discovery);
+}
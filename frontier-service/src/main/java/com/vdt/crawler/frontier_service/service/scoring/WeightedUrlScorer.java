@@ -0,0 +1,97 @@
+package com.vdt.crawler.frontier_service.service.scoring;
+
+import com.vdt.crawler.frontier_service.config.ScoringConfig;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.state.DomainState;
+
+import java.util.regex.Pattern;
+
+/**
+ * Weighted sum of five signals, each in [0, 1]:
+ * <ul>
+ *     <li>domain: priority of the domain, 1 to max-domain-priority</li>
+ *     <li>article: whether the URL looks like an article, by the URL patterns of the parser's UrlFilter</li>
+ *     <li>depth: 1 / (1 + link depth), seeds first, then the links of hub pages</li>
+ *     <li>recency: halves every recency-half-life since the URL was found</li>
+ *     <li>hub: importance of the hub page the URL was found on, 1 for a seed as it is a hub</li>
+ * </ul>
+ * Articles listed by the sitemaps and feeds of their site score 1, they are known fresh articles.
+ */
+public class WeightedUrlScorer implements UrlScorer {
+    private static final double LN_2 = Math.log(2);
+
+    // The patterns of the parser, matched on path and query only so host names do not match them
+    private static final Pattern FILE_EXTENSION = Pattern.compile(
+            "\\.(jpg|jpeg|png|gif|pdf|doc|docx|xls|xlsx|zip|rar|mp3|mp4|avi)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern EXCLUDED = Pattern.compile(
+            "login|register|logout|signin|signup|admin|dashboard|api|rss|feed|search|tag|archive|"
+                    + "\\d{4}/\\d{2}/\\d{2}|sitemap\\.xml|robots\\.txt|contact|about|privacy|terms|policy|404|error|"
+                    + "ajax|json|xml|pdf|print|share|comment|reply|download|upload|edit|delete|create|update|"
+                    + "wp-admin|wp-content|wp-includes|node_modules|\\.git|favicon",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ARTICLE = Pattern.compile(
+            // Long id or long slug
+            "(\\d{10,}|\\d{4}-\\d{2}-\\d{2}|[a-z0-9-]{50,})(\\.(html?|tpo|php|aspx|epi))?$"
+                    // Ending with a long timestamp
+                    + "|-\\d{12,}[^/]*$|-\\d{8}[^/]*$"
+                    + "|-[a-z]?\\d{3,}(\\.(html?|tpo|php|aspx|epi))?$",
+            Pattern.CASE_INSENSITIVE);
+
+    private final double domainWeight;
+    private final double articleWeight;
+    private final double depthWeight;
+    private final double recencyWeight;
+    private final double hubWeight;
+    private final double totalWeight;
+    private final long recencyHalfLifeMs;
+    private final int maxDomainPriority;
+
+    public WeightedUrlScorer(ScoringConfig config) {
+        this.domainWeight = config.getDomainWeight();
+        this.articleWeight = config.getArticleWeight();
+        this.depthWeight = config.getDepthWeight();
+        this.recencyWeight = config.getRecencyWeight();
+        this.hubWeight = config.getHubWeight();
+        this.totalWeight = domainWeight + articleWeight + depthWeight + recencyWeight + hubWeight;
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("The scoring weights must not all be zero");
+        }
+        this.recencyHalfLifeMs = Math.max(1, config.getRecencyHalfLifeMs());
+        this.maxDomainPriority = Math.max(2, config.getMaxDomainPriority());
+    }
+
+    @Override
+    public double score(String url, DomainState domain, Discovery discovery) {
+        UrlOrigin origin = discovery.origin();
+        if (origin == UrlOrigin.SITEMAP || origin == UrlOrigin.FEED) {
+            return 1;
+        }
+        double domainScore = clamp((domain.getPriority() - 1) / (double) (maxDomainPriority - 1));
+        double articleScore = isLikelyArticle(url) ? 1 : 0;
+        double depthScore = 1.0 / (1 + Math.max(0, discovery.linkDepth()));
+        long age = Math.max(0, System.currentTimeMillis() - discovery.discoveredAt());
+        double recencyScore = Math.exp(-LN_2 * age / recencyHalfLifeMs);
+        double hubScore = origin == UrlOrigin.SEED ? 1 : clamp(discovery.sourceImportance());
+
+        return (domainWeight * domainScore + articleWeight * articleScore + depthWeight * depthScore
+                + recencyWeight * recencyScore + hubWeight * hubScore) / totalWeight;
+    }
+
+    /**
+     * Same verdict as the parser's UrlFilter.isLikelyArticleByUrl, on the path and query of the URL
+     */
+    static boolean isLikelyArticle(String url) {
+        int schemeEnd = url.indexOf("://");
+        int pathStart = url.indexOf('/', schemeEnd < 0 ? 0 : schemeEnd + 3);
+        if (pathStart < 0) {
+            return false;
+        }
+        String path = url.substring(pathStart);
+        return !EXCLUDED.matcher(path).find() && !FILE_EXTENSION.matcher(path).find()
+                && ARTICLE.matcher(path).find();
+    }
+
+    private static double clamp(double value) {
+        return Double.isNaN(value) ? 0 : Math.max(0, Math.min(1, value));
+    }
+}
@@ -0,0 +1,74 @@
+package com.vdt.crawler.frontier_service.service.seed;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of one streaming seed import, updated while it runs
+ */
+public class SeedImportProgress {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+
+    final AtomicLong lines = new AtomicLong();
+    final AtomicLong accepted = new AtomicLong();
+    final AtomicLong rejected = new AtomicLong();
+    // Sent to the frontier nodes owning their host
+    final AtomicLong forwarded = new AtomicLong();
+    final AtomicLong invalid = new AtomicLong();
+    final AtomicLong hosts = new AtomicLong();
+
+    SeedImportProgress(String id) {
+        this.id = id;
+    }
+
+    void finish(Status status, String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", id);
+        map.put("status", status.name().toLowerCase());
+        map.put("lines", lines.get());
+        map.put("accepted", accepted.get());
+        map.put("rejected", rejected.get());
+        map.put("forwarded", forwarded.get());
+        map.put("invalid", invalid.get());
+        map.put("hosts", hosts.get());
+        map.put("startedAt", startedAt.toString());
+        if (finishedAt != null) {
+            map.put("finishedAt", finishedAt.toString());
+        }
+        if (error != null) {
+            map.put("error", error);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,160 @@
+package com.vdt.crawler.frontier_service.service.seed;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.FrontierService;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Streams large seed files into the frontier.
+ *
+ * The body is read line by line, either NDJSON (a JSON string or an object with a "url" field per
+ * line) or plain text (one URL per line). URLs are added in bounded batches, so each host of a
+ * batch costs one domain lookup and one robots.txt resolution
+ * (see {@link FrontierService#addBatchToFrontier}). In a sharded frontier the URLs of hosts owned
+ * by other nodes are forwarded to them.
+ */
+@Service
+public class SeedImporter {
+    private static final Logger logger = LoggerFactory.getLogger(SeedImporter.class);
+
+    private static final int BATCH_SIZE = 10000;
+    private static final long PROGRESS_LOG_INTERVAL = 100000;
+    private static final int MAX_KEPT_IMPORTS = 20;
+
+    private final FrontierService frontierService;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+
+    // Recent imports, oldest first
+    private final Map<String, SeedImportProgress> imports = new LinkedHashMap<>();
+
+    public SeedImporter(FrontierService frontierService, ObjectMapper objectMapper, ShardRouter shardRouter) {
+        this.frontierService = frontierService;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Import every URL of body, returns once the body is consumed
+     */
+    public SeedImportProgress importSeeds(InputStream body) {
+        SeedImportProgress progress = register();
+        Set<String> hosts = new HashSet<>();
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long lines = progress.lines.incrementAndGet();
+                if (lines % PROGRESS_LOG_INTERVAL == 0) {
+                    logger.info("Seed import {}: {} lines, {} accepted, {} rejected",
+                            progress.getId(), lines, progress.accepted.get(), progress.rejected.get());
+                }
+
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String url = parseUrl(line);
+                String host = url != null ? hostOf(url) : null;
+                if (host == null) {
+                    progress.invalid.incrementAndGet();
+                    continue;
+                }
+
+                if (hosts.add(host)) {
+                    progress.hosts.incrementAndGet();
+                }
+                batch.add(url);
+                if (batch.size() >= BATCH_SIZE) {
+                    flush(batch, progress);
+                    batch.clear();
+                }
+            }
+            flush(batch, progress);
+
+            progress.finish(SeedImportProgress.Status.COMPLETED, null);
+            logger.info("Seed import {} completed: {}", progress.getId(), progress.toMap());
+        } catch (IOException e) {
+            progress.finish(SeedImportProgress.Status.FAILED, e.getMessage());
+            logger.error("Seed import {} failed reading the body", progress.getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.finish(SeedImportProgress.Status.FAILED, "interrupted");
+        } catch (RuntimeException e) {
+            progress.finish(SeedImportProgress.Status.FAILED, e.getMessage());
+            logger.error("Seed import {} failed", progress.getId(), e);
+        }
+        return progress;
+    }
+
+    /**
+     * Recent imports, the running ones included
+     */
+    public List<SeedImportProgress> getImports() {
+        synchronized (imports) {
+            return new ArrayList<>(imports.values());
+        }
+    }
+
+    private SeedImportProgress register() {
+        SeedImportProgress progress = new SeedImportProgress(UUID.randomUUID().toString());
+        synchronized (imports) {
+            Iterator<SeedImportProgress> it = imports.values().iterator();
+            while (imports.size() >= MAX_KEPT_IMPORTS && it.hasNext()) {
+                if (it.next().getStatus() != SeedImportProgress.Status.RUNNING) {
+                    it.remove();
+                }
+            }
+            imports.put(progress.getId(), progress);
+        }
+        return progress;
+    }
+
+    private String parseUrl(String line) {
+        char first = line.charAt(0);
+        if (first != '"' && first != '{') {
+            return line;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node.isObject()) {
+                node = node.get("url");
+            }
+            return node != null && node.isTextual() && !node.asText().isBlank() ? node.asText().trim() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = new URL(url).getHost();
+            return host == null || host.isEmpty() ? null : host.toLowerCase();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private void flush(List<String> batch, SeedImportProgress progress) throws InterruptedException {
+        List<String> owned = shardRouter.route(batch, UrlOrigin.SEED);
+        int added = frontierService.addBatchToFrontier(owned, UrlOrigin.SEED);
+        progress.accepted.addAndGet(added);
+        progress.rejected.addAndGet(owned.size() - added);
+        progress.forwarded.addAndGet(batch.size() - owned.size());
+    }
+}
@@ -0,0 +1,38 @@
+package com.vdt.crawler.frontier_service.service.shard;
+
+import com.vdt.crawler.frontier_service.service.dedup.SeenUrlFilter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring assigning keys (hosts) to nodes.
+ *
+ * Every node is placed on the ring at several points (virtual nodes), a key belongs to the first
+ * node point at or after its hash. Adding or removing a node only moves the keys of that node,
+ * about 1/N of them.
+ */
+public class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("Hash ring needs at least one node");
+        }
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(SeenUrlFilter.fingerprint(nodeId + "#" + i), nodeId);
+            }
+        }
+    }
+
+    /**
+     * Node owning key
+     */
+    public String owner(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(SeenUrlFilter.fingerprint(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+}
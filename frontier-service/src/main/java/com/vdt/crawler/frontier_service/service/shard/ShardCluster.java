@@ -0,0 +1,171 @@
+package com.vdt.crawler.frontier_service.service.shard;
+
+import com.vdt.crawler.frontier_service.config.ShardingConfig;
+import com.vdt.crawler.frontier_service.model.DomainFetchReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.util.*;
+
+/**
+ * Runs the frontier API operations on the other nodes of a sharded frontier and merges the answers
+ */
+@Component
+public class ShardCluster {
+    private static final Logger logger = LoggerFactory.getLogger(ShardCluster.class);
+
+    private static final String API_PATH = "/api/frontier";
+    // Fields of a node answer that are not stats
+    private static final Set<String> NOT_MERGED = Set.of("timestamp", "status");
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final ShardingConfig config;
+    private final RestClient restClient;
+
+    public ShardCluster(ShardingConfig config) {
+        this.config = config;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(config.getRequestTimeoutMs());
+        requestFactory.setReadTimeout(config.getRequestTimeoutMs());
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    /**
+     * Nodes other than this one
+     */
+    private List<ShardingConfig.Node> peers() {
+        if (!config.isEnabled()) {
+            return List.of();
+        }
+        return config.getNodes().stream()
+                .filter(node -> !node.getId().equals(config.getNodeId()))
+                .toList();
+    }
+
+    /**
+     * Stats of every node, merged: counters are summed, ratios keep the worst node
+     */
+    public Map<String, Object> stats(Map<String, Object> localStats) {
+        Map<String, Object> nodes = new LinkedHashMap<>();
+        nodes.put(config.getNodeId(), localStats);
+        List<String> unreachable = new ArrayList<>();
+
+        Map<String, Object> merged = new HashMap<>(localStats);
+        for (ShardingConfig.Node peer : peers()) {
+            Map<String, Object> stats = call(peer, "GET", "/stats", unreachable);
+            if (stats != null) {
+                nodes.put(peer.getId(), stats);
+                merge(merged, stats);
+            }
+        }
+
+        merged.put("nodes", nodes);
+        merged.put("unreachableNodes", unreachable);
+        return merged;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void merge(Map<String, Object> into, Map<String, Object> from) {
+        for (Map.Entry<String, Object> entry : from.entrySet()) {
+            if (NOT_MERGED.contains(entry.getKey())) {
+                continue;
+            }
+            Object current = into.get(entry.getKey());
+            Object value = entry.getValue();
+            if (current instanceof Map && value instanceof Map) {
+                Map<String, Object> copy = new HashMap<>((Map<String, Object>) current);
+                merge(copy, (Map<String, Object>) value);
+                into.put(entry.getKey(), copy);
+            } else if (current == null && (value instanceof Number || value instanceof Map)) {
+                into.put(entry.getKey(), value);
+            } else if (current instanceof Number a && value instanceof Number b) {
+                if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+                    into.put(entry.getKey(), Math.max(a.doubleValue(), b.doubleValue()));
+                } else {
+                    into.put(entry.getKey(), a.longValue() + b.longValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * True if the frontier of every reachable node is empty
+     *
+     * @param unreachable collects the nodes that did not answer
+     */
+    public boolean isEmpty(boolean localEmpty, List<String> unreachable) {
+        boolean empty = localEmpty;
+        for (ShardingConfig.Node peer : peers()) {
+            Map<String, Object> response = call(peer, "GET", "/empty", unreachable);
+            if (response != null && !Boolean.TRUE.equals(response.get("empty"))) {
+                empty = false;
+            }
+        }
+        return empty;
+    }
+
+    /**
+     * Clear the queues of every other node
+     *
+     * @param unreachable collects the nodes that did not answer
+     */
+    public void clear(List<String> unreachable) {
+        for (ShardingConfig.Node peer : peers()) {
+            call(peer, "DELETE", "/clear", unreachable);
+        }
+    }
+
+    /**
+     * Send the fetch report of a host to the node owning it. Without a known owner every other node
+     * is tried, the nodes not owning the host answer 421.
+     *
+     * @param ownerId owner of the host, null if unknown
+     * @return false if no node took the report
+     */
+    public boolean forwardFetches(String host, String ownerId, DomainFetchReport report) {
+        List<ShardingConfig.Node> candidates = ownerId == null ? peers() : peers().stream()
+                .filter(node -> node.getId().equals(ownerId))
+                .toList();
+        for (ShardingConfig.Node peer : candidates) {
+            try {
+                // Marked as forwarded, so a peer not owning the host answers 421 instead of forwarding it again
+                restClient.post()
+                        .uri(peer.getUrl() + "/api/domains/{host}/fetches?forwarded=true", host)
+                        .body(report)
+                        .retrieve()
+                        .toBodilessEntity();
+                return true;
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode().value() != HttpStatus.MISDIRECTED_REQUEST.value()) {
+                    logger.warn("Frontier node {} refused the fetch report of {}: {}", peer.getId(), host, e.getMessage());
+                }
+            } catch (Exception e) {
+                logger.warn("Frontier node {} did not take the fetch report of {}: {}", peer.getId(), host, e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private Map<String, Object> call(ShardingConfig.Node peer, String method, String path, List<String> unreachable) {
+        try {
+            // Peers answer for themselves only (local scope)
+            String uri = peer.getUrl() + API_PATH + path;
+            return ("DELETE".equals(method) ? restClient.delete().uri(uri) : restClient.get().uri(uri))
+                    .retrieve()
+                    .body(RESPONSE_TYPE);
+        } catch (Exception e) {
+            logger.warn("Frontier node {} did not answer {} {}: {}", peer.getId(), method, path, e.getMessage());
+            unreachable.add(peer.getId());
+            return null;
+        }
+    }
+}
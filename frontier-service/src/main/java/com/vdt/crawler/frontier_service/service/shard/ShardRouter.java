@@ -0,0 +1,250 @@
+package com.vdt.crawler.frontier_service.service.shard;
+
+import com.vdt.crawler.frontier_service.config.ShardingConfig;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which frontier node owns a host, so that the queues, politeness and dedup state of a
+ * host live on one node only.
+ *
+ * In HASH mode hosts are assigned by a consistent hash ring over the configured nodes. Each node
+ * reads the URL topics with its own consumer group and keeps the URLs of its hosts.
+ * In PARTITION mode a node owns the hosts of the new_url_tasks partitions Kafka assigned to it,
+ * producers key the messages by host so every URL of a host lands in the same partition.
+ *
+ * URLs entering a node for a host it does not own (API seeds, unkeyed messages) are forwarded to
+ * new_url_tasks keyed by host, with their origin in a header.
+ */
+@Component
+public class ShardRouter implements ConsumerRebalanceListener {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    public static final String NEW_URL_TOPIC = "new_url_tasks";
+    public static final String ORIGIN_HEADER = "frontier-origin";
+
+    private static final String NEW_URL_GROUP = "new_url_group";
+    private static final String RETRY_URL_GROUP = "retry_url_group";
+
+    private final ShardingConfig config;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ConsistentHashRing ring;
+
+    // PARTITION mode: partitions of new_url_tasks assigned to the consumers of this node
+    private final Set<Integer> assignedPartitions = ConcurrentHashMap.newKeySet();
+    private volatile int partitionCount;
+
+    public ShardRouter(ShardingConfig config, KafkaTemplate<String, String> kafkaTemplate) {
+        this.config = config;
+        this.kafkaTemplate = kafkaTemplate;
+
+        if (config.isEnabled() && config.getMode() == ShardingConfig.Mode.HASH) {
+            List<String> nodeIds = config.getNodes().stream().map(ShardingConfig.Node::getId).toList();
+            if (!nodeIds.contains(config.getNodeId())) {
+                throw new IllegalStateException("Node " + config.getNodeId() + " is not in frontier.sharding.nodes");
+            }
+            this.ring = new ConsistentHashRing(nodeIds, config.getVirtualNodes());
+        } else {
+            this.ring = null;
+        }
+        if (config.isEnabled()) {
+            logger.info("Sharded frontier, node {} of {} ({} mode)",
+                    config.getNodeId(), config.getNodes().size(), config.getMode());
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public String getNodeId() {
+        return config.getNodeId();
+    }
+
+    /**
+     * Consumer group of new_url_tasks, per node when every node reads the whole topic
+     */
+    public String getNewUrlGroupId() {
+        return groupId(NEW_URL_GROUP);
+    }
+
+    public String getRetryUrlGroupId() {
+        return groupId(RETRY_URL_GROUP);
+    }
+
+    private String groupId(String group) {
+        return isHashMode() ? group + "-" + config.getNodeId() : group;
+    }
+
+    /**
+     * True if every node reads the whole URL topics, so a message of a host this node does not own
+     * is handled by its owner and must be dropped here. Otherwise the nodes share the messages of a
+     * consumer group and a message read here is read by no other node.
+     */
+    public boolean isReadByEveryNode() {
+        return isHashMode();
+    }
+
+    private boolean isHashMode() {
+        return config.isEnabled() && config.getMode() == ShardingConfig.Mode.HASH;
+    }
+
+    /**
+     * True if this node keeps the state of host
+     */
+    public boolean owns(String host) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        if (ring != null) {
+            return ring.owner(host).equals(config.getNodeId());
+        }
+        int partitions = partitionCount();
+        return partitions == 0 || assignedPartitions.contains(partitionOf(host, partitions));
+    }
+
+    /**
+     * Id of the node owning host in HASH mode, null in PARTITION mode where the owner is only known
+     * to the consumers of its partition
+     */
+    public String ownerOf(String host) {
+        return ring != null ? ring.owner(host) : null;
+    }
+
+    /**
+     * Partition of new_url_tasks a message keyed by host goes to, as computed by the default producer partitioner
+     */
+    static int partitionOf(String host, int partitions) {
+        return Utils.toPositive(Utils.murmur2(host.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    private int partitionCount() {
+        int count = partitionCount;
+        if (count == 0) {
+            try {
+                count = kafkaTemplate.partitionsFor(NEW_URL_TOPIC).size();
+                partitionCount = count;
+            } catch (Exception e) {
+                logger.warn("Could not read partitions of {}: {}", NEW_URL_TOPIC, e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * URLs of the hosts owned by this node, the others are dropped.
+     * For inputs every node receives in full, e.g. the hubs synced by every node.
+     */
+    public List<String> ownedOnly(Collection<String> urls) {
+        List<String> owned = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            String host = hostOf(url);
+            if (host == null || owns(host)) {
+                owned.add(url);
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * URLs of the hosts owned by this node, the others are forwarded to their owner.
+     * For inputs only this node receives, e.g. seeds posted to its API.
+     */
+    public List<String> route(Collection<String> urls, UrlOrigin origin) {
+        if (!config.isEnabled()) {
+            return urls instanceof List<String> list ? list : new ArrayList<>(urls);
+        }
+        List<String> owned = new ArrayList<>(urls.size());
+        int forwarded = 0;
+        for (String url : urls) {
+            String host = hostOf(url);
+            if (host == null || owns(host)) {
+                // Malformed URLs are rejected locally
+                owned.add(url);
+            } else {
+                forward(host, url, origin);
+                forwarded++;
+            }
+        }
+        if (forwarded > 0) {
+            logger.debug("Forwarded {} URLs of hosts owned by other nodes", forwarded);
+        }
+        return owned;
+    }
+
+    /**
+     * URLs read from Kafka owned by this node.
+     * Other nodes read the same messages in HASH mode, in PARTITION mode the message was not
+     * keyed by host and is forwarded to the partition of its host.
+     */
+    public List<String> accept(Collection<String> urls, UrlOrigin origin) {
+        return isHashMode() ? ownedOnly(urls) : route(urls, origin);
+    }
+
+    private void forward(String host, String url, UrlOrigin origin) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(NEW_URL_TOPIC, host, url);
+        record.headers().add(ORIGIN_HEADER, origin.name().getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send(record);
+    }
+
+    /**
+     * Origin carried by a forwarded message, DISCOVERED for the messages of the parsers
+     */
+    public static UrlOrigin originOf(Header header) {
+        if (header == null || header.value() == null) {
+            return UrlOrigin.DISCOVERED;
+        }
+        try {
+            return UrlOrigin.valueOf(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            return UrlOrigin.DISCOVERED;
+        }
+    }
+
+    public static String hostOf(String url) {
+        try {
+            String host = new URL(url.trim()).getHost();
+            return host.isEmpty() ? null : host.toLowerCase();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            if (partition.topic().equals(NEW_URL_TOPIC)) {
+                assignedPartitions.add(partition.partition());
+            }
+        }
+        logger.info("Partitions of {} owned by this node: {}", NEW_URL_TOPIC, new TreeSet<>(assignedPartitions));
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            if (partition.topic().equals(NEW_URL_TOPIC)) {
+                assignedPartitions.remove(partition.partition());
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        onPartitionsRevoked(partitions);
+    }
+}
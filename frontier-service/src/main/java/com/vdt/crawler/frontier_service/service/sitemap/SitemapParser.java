@@ -0,0 +1,158 @@
+package com.vdt.crawler.frontier_service.service.sitemap;
+
+import com.vdt.crawler.frontier_service.utils.LimitedInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming parser of sitemaps (urlset), sitemap indexes (sitemapindex) and Google News sitemaps.
+ *
+ * Entries are handed to the listener as they are read, the document is never built in memory.
+ * Gzipped sitemaps are recognized by their magic bytes, whatever their name or content type.
+ * DTDs and external entities are not processed.
+ */
+public final class SitemapParser {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    public interface Listener {
+        /**
+         * A child sitemap of a sitemap index
+         *
+         * @param lastModified null if not given
+         */
+        void sitemap(String loc, Instant lastModified) throws IOException;
+
+        /**
+         * A page of a sitemap
+         *
+         * @param lastModified null if not given
+         * @param published    news:publication_date, null if not given
+         */
+        void url(String loc, Instant lastModified, Instant published) throws IOException;
+    }
+
+    private SitemapParser() {
+    }
+
+    /**
+     * @param maxBytes largest uncompressed size read, the parse fails past it
+     */
+    public static void parse(InputStream in, long maxBytes, Listener listener) throws IOException {
+        InputStream body = new LimitedInputStream(decompressed(in), maxBytes);
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(body);
+            read(reader, listener);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed sitemap: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // the stream is closed by the caller
+                }
+            }
+        }
+    }
+
+    private static void read(XMLStreamReader reader, Listener listener) throws XMLStreamException, IOException {
+        // Entry being read, <url> or <sitemap>, and its depth: extensions nest their own <loc>, e.g. <image:loc>
+        String entry = null;
+        int entryDepth = 0;
+        int depth = 0;
+        String loc = null;
+        Instant lastModified = null;
+        Instant published = null;
+        StringBuilder text = new StringBuilder();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String name = reader.getLocalName();
+                if (entry == null && (name.equals("url") || name.equals("sitemap"))) {
+                    entry = name;
+                    entryDepth = depth;
+                    loc = null;
+                    lastModified = null;
+                    published = null;
+                }
+                text.setLength(0);
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                if (entry != null) {
+                    text.append(reader.getText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (entry != null) {
+                    String name = reader.getLocalName();
+                    if (depth == entryDepth + 1 && name.equals("loc")) {
+                        loc = text.toString().trim();
+                    } else if (depth == entryDepth + 1 && name.equals("lastmod")) {
+                        lastModified = parseDate(text.toString());
+                    } else if (name.equals("publication_date")) {
+                        published = parseDate(text.toString());
+                    } else if (depth == entryDepth) {
+                        if (loc != null && !loc.isEmpty()) {
+                            if (entry.equals("url")) {
+                                listener.url(loc, lastModified, published);
+                            } else {
+                                listener.sitemap(loc, lastModified);
+                            }
+                        }
+                        entry = null;
+                    }
+                }
+                text.setLength(0);
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * W3C datetime as used by sitemaps: a date, or a date and time with or without seconds and offset
+     *
+     * @return null if value is not a date
+     */
+    public static Instant parseDate(String value) {
+        String date = value.trim();
+        try {
+            if (date.length() == 10) {
+                return LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            if (date.endsWith("Z") || date.lastIndexOf('+') > 10 || date.lastIndexOf('-') > 10) {
+                return OffsetDateTime.parse(date).toInstant();
+            }
+            return LocalDateTime.parse(date).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static InputStream decompressed(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(buffered, 1 << 16);
+        }
+        return buffered;
+    }
+}
@@ -0,0 +1,325 @@
+package com.vdt.crawler.frontier_service.service.sitemap;
+
+import com.vdt.crawler.frontier_service.config.SitemapConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import com.vdt.crawler.frontier_service.service.FrontierService;
+import com.vdt.crawler.frontier_service.service.poll.ConditionalFetcher;
+import com.vdt.crawler.frontier_service.service.poll.PollSchedule;
+import com.vdt.crawler.frontier_service.service.robotstxt.HostDirectives;
+import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtServer;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds fresh articles in the sitemaps of the domains, without any HTML parse.
+ *
+ * The sitemaps listed in the robots.txt of the active domains owned by this node are polled on a
+ * {@link PollSchedule}, the children of sitemap indexes are followed. Every poll is a conditional
+ * request, and only articles published (news:publication_date) or modified (lastmod) after the
+ * newest one of the previous poll are taken, so an unchanged sitemap costs a 304 and a changed one
+ * only its new entries. The interval of a sitemap is halved while it lists new articles and
+ * doubled while it does not.
+ *
+ * Dated articles go to the frontier at the highest priority; undated entries, which cannot be told
+ * fresh, go in as discovered URLs.
+ */
+@Service
+public class SitemapPoller {
+    private static final Logger logger = LoggerFactory.getLogger(SitemapPoller.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final DomainRepository domainRepository;
+    private final RobotstxtServer robotstxtServer;
+    private final FrontierService frontierService;
+    private final ShardRouter shardRouter;
+    private final ConditionalFetcher fetcher;
+    private final SitemapConfig config;
+
+    // Modified under this
+    private final PollSchedule<Sitemap> sitemaps;
+    private final ExecutorService fetchExecutor;
+
+    private final AtomicLong urlsAdded = new AtomicLong();
+
+    public SitemapPoller(DomainRepository domainRepository, RobotstxtServer robotstxtServer,
+                         FrontierService frontierService, ShardRouter shardRouter, ConditionalFetcher fetcher,
+                         SitemapConfig config, FrontierMetrics frontierMetrics) {
+        this.domainRepository = domainRepository;
+        this.robotstxtServer = robotstxtServer;
+        this.frontierService = frontierService;
+        this.shardRouter = shardRouter;
+        this.fetcher = fetcher;
+        this.config = config;
+        this.sitemaps = new PollSchedule<>(config.getTickMs(), config.getWheelSize(),
+                config.getMaxSitemapsPerDomain(), config.getMinPollIntervalMs(), System.currentTimeMillis());
+        this.fetchExecutor = Executors.newFixedThreadPool(config.getFetchThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "sitemap-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        frontierMetrics.registerGauge("frontier_sitemaps",
+                "Number of sitemaps polled by this node", sitemaps, PollSchedule::size);
+        frontierMetrics.registerGauge("frontier_sitemap_urls_added",
+                "URLs found in sitemaps and added to the frontier", urlsAdded, AtomicLong::get);
+    }
+
+    /**
+     * Follow the sitemaps listed in the robots.txt of the active domains owned by this node
+     */
+    @Scheduled(initialDelay = 120000, fixedDelayString = "${frontier.sitemap.discover-interval-ms:3600000}")
+    public void discover() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Set<String> domains = new HashSet<>();
+        for (Domain domain : domainRepository.findByActiveTrue()) {
+            String host = domain.getDomain().toLowerCase(Locale.ROOT);
+            String root = "https://" + host + "/";
+            // Every node runs this discovery, each one polls the sitemaps of its own domains
+            if (!shardRouter.owns(host)) {
+                continue;
+            }
+            domains.add(host);
+            try {
+                CompletableFuture<HostDirectives> directives = robotstxtServer.resolve(root);
+                if (directives != null) {
+                    directives.thenAccept(resolved -> {
+                        long now = System.currentTimeMillis();
+                        for (String url : resolved.getSitemaps()) {
+                            register(url.trim(), host, null, now);
+                        }
+                    });
+                }
+            } catch (MalformedURLException e) {
+                logger.warn("Invalid domain name: {}", domain.getDomain());
+            }
+        }
+
+        synchronized (this) {
+            List<Sitemap> gone = new ArrayList<>();
+            for (Sitemap sitemap : sitemaps.targets()) {
+                if (!domains.contains(sitemap.domain())) {
+                    gone.add(sitemap);
+                }
+            }
+            gone.forEach(this::remove);
+        }
+        logger.info("Polling {} sitemaps of {} domains", sitemaps.size(), domains.size());
+    }
+
+    /**
+     * Fetch the sitemaps due for a poll
+     */
+    @Scheduled(fixedDelayString = "${frontier.sitemap.release-interval-ms:1000}")
+    public void pollDue() {
+        List<Sitemap> due;
+        synchronized (this) {
+            due = sitemaps.due(System.currentTimeMillis());
+        }
+        for (Sitemap sitemap : due) {
+            fetchExecutor.execute(() -> poll(sitemap));
+        }
+    }
+
+    private void poll(Sitemap sitemap) {
+        long now = System.currentTimeMillis();
+        Entries entries = new Entries(Math.max(sitemap.watermark, now - config.getMaxArticleAgeMs()),
+                now - config.getMaxArticleAgeMs());
+        ConditionalFetcher.Response response = null;
+        try {
+            response = fetcher.get(sitemap.url(), sitemap.validators,
+                    body -> SitemapParser.parse(body, config.getMaxSitemapBytes(), entries));
+            if (response.isOk()) {
+                entries.flush();
+            }
+        } catch (IOException e) {
+            logger.warn("Error polling sitemap {}: {}", sitemap.url(), e.getMessage());
+        }
+
+        synchronized (this) {
+            if (!sitemaps.isPolled(sitemap)) {
+                return;
+            }
+            long interval = Math.min(config.getMaxPollIntervalMs(), sitemap.intervalMs * 2);
+            if (response != null && response.isOk()) {
+                sitemap.validators = response.validators();
+                sitemap.watermark = Math.max(sitemap.watermark, entries.newest);
+                syncChildren(sitemap, entries.children, now);
+                if (entries.fresh > 0) {
+                    interval = Math.max(config.getMinPollIntervalMs(), sitemap.intervalMs / 2);
+                }
+                logger.debug("Sitemap {}: {} new articles, {} undated entries, {} child sitemaps",
+                        sitemap.url(), entries.fresh, entries.undated, entries.children.size());
+            } else if (response != null && sitemap.parent != null
+                    && (response.statusCode() == 404 || response.statusCode() == 410)) {
+                remove(sitemap);
+                return;
+            }
+            sitemap.intervalMs = interval;
+            sitemaps.schedule(sitemap, now + interval);
+        }
+    }
+
+    /**
+     * Follow the children listed by a sitemap index and forget the ones it no longer lists
+     */
+    // Called with the lock held
+    private void syncChildren(Sitemap parent, Set<String> listed, long now) {
+        List<Sitemap> gone = new ArrayList<>();
+        for (String url : parent.children) {
+            Sitemap child = sitemaps.get(url);
+            if (child != null && !listed.contains(url)) {
+                gone.add(child);
+            }
+        }
+        gone.forEach(this::remove);
+        for (String url : listed) {
+            register(url, parent.domain(), parent, now);
+        }
+    }
+
+    private synchronized void register(String url, String domain, Sitemap parent, long now) {
+        if (!url.startsWith("http://") && !url.startsWith("https://") || sitemaps.contains(url)) {
+            return;
+        }
+        // The first polls are spread over the shortest interval
+        if (!sitemaps.add(new Sitemap(url, domain, parent, config.getMinPollIntervalMs()), now)) {
+            logger.debug("Not following sitemap {}, {} has {} already", url, domain, sitemaps.countOf(domain));
+            return;
+        }
+        if (parent != null) {
+            parent.children.add(url);
+        }
+    }
+
+    // Called with the lock held
+    private void remove(Sitemap sitemap) {
+        if (sitemaps.remove(sitemap)) {
+            if (sitemap.parent != null) {
+                sitemap.parent.children.remove(sitemap.url());
+            }
+            for (String child : new ArrayList<>(sitemap.children)) {
+                Sitemap removed = sitemaps.get(child);
+                if (removed != null) {
+                    remove(removed);
+                }
+            }
+        }
+    }
+
+    private void addToFrontier(List<String> urls, UrlOrigin origin) throws IOException {
+        if (urls.isEmpty()) {
+            return;
+        }
+        try {
+            // A sitemap may list pages of other hosts, those are forwarded to their owner
+            List<String> owned = shardRouter.route(urls, origin);
+            urlsAdded.addAndGet(frontierService.addBatchToFrontier(owned, origin));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while adding sitemap URLs");
+        } finally {
+            urls.clear();
+        }
+    }
+
+    public int size() {
+        return sitemaps.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Entries of one poll, added to the frontier in batches as the sitemap is read
+     */
+    private final class Entries implements SitemapParser.Listener {
+        // Articles dated up to this are not new
+        private final long since;
+        // Child sitemaps last modified before this are not followed
+        private final long oldest;
+
+        private final List<String> dated = new ArrayList<>();
+        private final List<String> undatedUrls = new ArrayList<>();
+        final Set<String> children = new LinkedHashSet<>();
+        long newest = Long.MIN_VALUE;
+        int fresh;
+        int undated;
+
+        Entries(long since, long oldest) {
+            this.since = since;
+            this.oldest = oldest;
+        }
+
+        @Override
+        public void sitemap(String loc, Instant lastModified) {
+            if (lastModified == null || lastModified.toEpochMilli() >= oldest) {
+                children.add(loc);
+            }
+        }
+
+        @Override
+        public void url(String loc, Instant lastModified, Instant published) throws IOException {
+            Instant date = published != null ? published : lastModified;
+            if (date == null) {
+                undated++;
+                undatedUrls.add(loc);
+                if (undatedUrls.size() >= BATCH_SIZE) {
+                    addToFrontier(undatedUrls, UrlOrigin.DISCOVERED);
+                }
+                return;
+            }
+            long millis = date.toEpochMilli();
+            if (millis <= since) {
+                return;
+            }
+            newest = Math.max(newest, millis);
+            fresh++;
+            dated.add(loc);
+            if (dated.size() >= BATCH_SIZE) {
+                addToFrontier(dated, UrlOrigin.SITEMAP);
+            }
+        }
+
+        void flush() throws IOException {
+            addToFrontier(dated, UrlOrigin.SITEMAP);
+            addToFrontier(undatedUrls, UrlOrigin.DISCOVERED);
+        }
+    }
+
+    private static final class Sitemap extends PollSchedule.Target {
+        // Sitemap index listing this one, null if listed in robots.txt
+        final Sitemap parent;
+        final Set<String> children = new HashSet<>();
+        // Fields below are guarded by the poller
+        ConditionalFetcher.Validators validators = ConditionalFetcher.Validators.NONE;
+        // Date of the newest article seen, epoch millis
+        long watermark = Long.MIN_VALUE;
+        long intervalMs;
+
+        Sitemap(String url, String domain, Sitemap parent, long intervalMs) {
+            super(url, domain);
+            this.parent = parent;
+            this.intervalMs = intervalMs;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.vdt.crawler.frontier_service.service.state;
+
+import com.vdt.crawler.frontier_service.model.Domain;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live crawl state of one domain, updated lock-free.
+ *
+ * Totals are what the frontier schedules with, the pending deltas are what was not written to
+ * Mongo yet and are drained by every write-behind flush.
+ */
+public class DomainState {
+    private final String domain;
+
+    private volatile int priority;
+    // Epoch millis, 0 if never crawled
+    private final AtomicLong lastCrawled = new AtomicLong();
+    private final AtomicLong crawlCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    private final AtomicLong pendingCrawls = new AtomicLong();
+    private final AtomicLong pendingErrors = new AtomicLong();
+    private final AtomicBoolean lastCrawledChanged = new AtomicBoolean();
+    private final AtomicBoolean priorityChanged = new AtomicBoolean();
+
+    // Document the state was last synced with
+    private volatile Domain source;
+
+    DomainState(Domain domain) {
+        this.domain = domain.getDomain();
+        this.priority = domain.getPriority();
+        this.crawlCount.set(domain.getCrawlCount());
+        this.errorCount.set(domain.getErrorCount());
+        if (domain.getLastCrawled() != null) {
+            lastCrawled.set(domain.getLastCrawled().toEpochMilli());
+        }
+        this.source = domain;
+    }
+
+    /**
+     * Take over a newer document of the domain, e.g. after the domain cache refreshed it.
+     * Changes made here and not flushed yet win over the document.
+     */
+    void sync(Domain domain) {
+        source = domain;
+        if (!priorityChanged.get()) {
+            priority = domain.getPriority();
+        }
+        if (domain.getLastCrawled() != null) {
+            lastCrawled.accumulateAndGet(domain.getLastCrawled().toEpochMilli(), Math::max);
+        }
+        crawlCount.accumulateAndGet(domain.getCrawlCount() + pendingCrawls.get(), Math::max);
+        errorCount.accumulateAndGet(domain.getErrorCount() + pendingErrors.get(), Math::max);
+    }
+
+    Domain getSource() {
+        return source;
+    }
+
+    void recordCrawls(long count, Instant at) {
+        if (count > 0) {
+            crawlCount.addAndGet(count);
+            pendingCrawls.addAndGet(count);
+        }
+        if (at != null && lastCrawled.accumulateAndGet(at.toEpochMilli(), Math::max) == at.toEpochMilli()) {
+            lastCrawledChanged.set(true);
+        }
+    }
+
+    void recordErrors(long count) {
+        errorCount.addAndGet(count);
+        pendingErrors.addAndGet(count);
+    }
+
+    void setPriority(int priority) {
+        this.priority = priority;
+        priorityChanged.set(true);
+    }
+
+    /**
+     * Changes not written yet, reset as they are taken
+     */
+    Changes drainChanges() {
+        return new Changes(pendingCrawls.getAndSet(0), pendingErrors.getAndSet(0),
+                lastCrawledChanged.getAndSet(false) ? getLastCrawled() : null,
+                priorityChanged.getAndSet(false) ? priority : null);
+    }
+
+    /**
+     * Put back changes whose write failed, to be written by the next flush
+     */
+    void restoreChanges(Changes changes) {
+        pendingCrawls.addAndGet(changes.crawls());
+        pendingErrors.addAndGet(changes.errors());
+        if (changes.lastCrawled() != null) {
+            lastCrawledChanged.set(true);
+        }
+        if (changes.priority() != null) {
+            priorityChanged.set(true);
+        }
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public Instant getLastCrawled() {
+        long millis = lastCrawled.get();
+        return millis == 0 ? null : Instant.ofEpochMilli(millis);
+    }
+
+    /**
+     * Hourly URL budget set on the domain document, 0 for the default one
+     */
+    public long getUrlsPerHour() {
+        return source.getUrlsPerHour();
+    }
+
+    /**
+     * Hourly byte budget set on the domain document, 0 for the default one
+     */
+    public long getBytesPerHour() {
+        return source.getBytesPerHour();
+    }
+
+    public long getCrawlCount() {
+        return crawlCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * Copy the live state into a document read from Mongo, which may lag behind
+     */
+    public void applyTo(Domain document) {
+        document.setPriority(priority);
+        document.setLastCrawled(getLastCrawled());
+        document.setCrawlCount(getCrawlCount());
+        document.setErrorCount(getErrorCount());
+    }
+
+    record Changes(long crawls, long errors, Instant lastCrawled, Integer priority) {
+        boolean isEmpty() {
+            return crawls == 0 && errors == 0 && lastCrawled == null && priority == null;
+        }
+    }
+}
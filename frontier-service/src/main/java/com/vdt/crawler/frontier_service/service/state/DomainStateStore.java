@@ -0,0 +1,206 @@
+package com.vdt.crawler.frontier_service.service.state;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.service.cache.DomainCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authoritative crawl state of the domains: last crawl time, crawl and error counts, priority.
+ *
+ * Updates apply in memory right away, so the frontier schedules on fresh data. Changed domains are
+ * written to Mongo by a periodic flush, one unordered bulk write for all of them. Which domains
+ * exist is still decided by the {@link DomainCache}, a state is dropped with its domain.
+ */
+@Service
+public class DomainStateStore {
+    private static final Logger logger = LoggerFactory.getLogger(DomainStateStore.class);
+
+    private final DomainCache domainCache;
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, DomainState> states = new ConcurrentHashMap<>();
+    // Domains with changes not written to Mongo yet
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public DomainStateStore(DomainCache domainCache, MongoTemplate mongoTemplate, FrontierMetrics frontierMetrics) {
+        this.domainCache = domainCache;
+        this.mongoTemplate = mongoTemplate;
+
+        frontierMetrics.registerGauge("frontier_domain_state_dirty",
+                "Number of domains with crawl state not written to Mongo yet", dirty, Set::size);
+    }
+
+    private static String key(String host) {
+        return host.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Crawl state of host, or null if the host is not a crawled domain
+     */
+    public DomainState get(String host) {
+        String key = key(host);
+        Domain domain = domainCache.get(key);
+        if (domain == null) {
+            states.remove(key);
+            return null;
+        }
+        DomainState state = states.computeIfAbsent(key, k -> new DomainState(domain));
+        if (state.getSource() != domain) {
+            state.sync(domain);
+        }
+        return state;
+    }
+
+    /**
+     * Record count pages of host fetched, the last one at the given time
+     *
+     * @return false if host is not a crawled domain
+     */
+    public boolean recordCrawls(String host, long count, Instant at) {
+        DomainState state = get(host);
+        if (state == null) {
+            return false;
+        }
+        state.recordCrawls(count, at);
+        dirty.add(key(state.getDomain()));
+        return true;
+    }
+
+    /**
+     * Record a failed fetch of a page of host
+     */
+    public void recordError(String host) {
+        DomainState state = host != null ? get(host) : null;
+        if (state != null) {
+            state.recordErrors(1);
+            dirty.add(key(state.getDomain()));
+        }
+    }
+
+    public boolean setPriority(String host, int priority) {
+        DomainState state = get(host);
+        if (state == null) {
+            return false;
+        }
+        state.setPriority(priority);
+        dirty.add(key(state.getDomain()));
+        return true;
+    }
+
+    /**
+     * Drop the state of a deleted domain, with its changes not written yet
+     */
+    public void remove(String host) {
+        String key = key(host);
+        states.remove(key);
+        dirty.remove(key);
+    }
+
+    /**
+     * Set configuration fields of a domain document. Only the fields in update are written, so the
+     * crawl state written by the flush is never overwritten with an older copy.
+     *
+     * @return the updated document, or null if the domain does not exist
+     */
+    public Domain updateConfig(String domain, Update update) {
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("domain").is(domain)), update,
+                FindAndModifyOptions.options().returnNew(true), Domain.class);
+    }
+
+    /**
+     * Overlay the live state on a document read from Mongo
+     */
+    public Domain withLiveState(Domain document) {
+        DomainState state = states.get(key(document.getDomain()));
+        if (state != null) {
+            state.applyTo(document);
+        }
+        return document;
+    }
+
+    /**
+     * Write the changed domains to Mongo in one bulk write
+     */
+    @Scheduled(fixedDelayString = "${frontier.domain-state.flush-interval-ms:10000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        Map<DomainState, DomainState.Changes> batch = new LinkedHashMap<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String domain = it.next();
+            it.remove();
+            DomainState state = states.get(domain);
+            if (state != null) {
+                DomainState.Changes changes = state.drainChanges();
+                if (!changes.isEmpty()) {
+                    batch.put(state, changes);
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Domain.class);
+        batch.forEach((state, changes) -> {
+            Update update = new Update();
+            if (changes.crawls() > 0) {
+                update.inc("crawl_count", changes.crawls());
+            }
+            if (changes.errors() > 0) {
+                update.inc("error_count", changes.errors());
+            }
+            if (changes.lastCrawled() != null) {
+                update.max("last_crawled", changes.lastCrawled());
+            }
+            if (changes.priority() != null) {
+                update.set("priority", changes.priority());
+            }
+            bulk.updateOne(Query.query(Criteria.where("domain").is(state.getDomain())), update);
+        });
+
+        List<Map.Entry<DomainState, DomainState.Changes>> entries = new ArrayList<>(batch.entrySet());
+        try {
+            bulk.execute();
+            logger.debug("Wrote crawl state of {} domains", batch.size());
+        } catch (BulkOperationException e) {
+            // Only the failed updates are kept for the next flush, the others were applied
+            for (BulkWriteError error : e.getErrors()) {
+                restore(entries.get(error.getIndex()));
+            }
+            logger.error("Error writing crawl state of {} of {} domains", e.getErrors().size(), batch.size(), e);
+        } catch (RuntimeException e) {
+            entries.forEach(this::restore);
+            logger.error("Error writing crawl state of {} domains", batch.size(), e);
+        }
+    }
+
+    private void restore(Map.Entry<DomainState, DomainState.Changes> entry) {
+        entry.getKey().restoreChanges(entry.getValue());
+        dirty.add(key(entry.getKey().getDomain()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
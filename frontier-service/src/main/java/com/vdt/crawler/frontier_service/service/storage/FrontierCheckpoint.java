@@ -0,0 +1,51 @@
+package com.vdt.crawler.frontier_service.service.storage;
+
+import com.vdt.crawler.frontier_service.service.queue.UrlWithTimestamp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of the in-memory tier of the frontier
+ */
+public class FrontierCheckpoint {
+    private final Map<Integer, List<UrlWithTimestamp>> frontItems = new HashMap<>();
+    private final Map<String, List<String>> backItems = new HashMap<>();
+    private final Map<Integer, SpillQueue.Cursor> spillCursors = new HashMap<>();
+    // Keyed by the name of the deferred queue
+    private final Map<String, SpillQueue.Cursor> deferredCursors = new HashMap<>();
+
+    public void addFrontItem(int priority, UrlWithTimestamp item) {
+        frontItems.computeIfAbsent(priority, k -> new ArrayList<>()).add(item);
+    }
+
+    public void addBackItems(String host, List<String> urls) {
+        backItems.computeIfAbsent(host, k -> new ArrayList<>()).addAll(urls);
+    }
+
+    void putSpillCursor(int priority, SpillQueue.Cursor cursor) {
+        spillCursors.put(priority, cursor);
+    }
+
+    void putDeferredCursor(String queue, SpillQueue.Cursor cursor) {
+        deferredCursors.put(queue, cursor);
+    }
+
+    public Map<Integer, List<UrlWithTimestamp>> getFrontItems() { return frontItems; }
+    public Map<String, List<String>> getBackItems() { return backItems; }
+    public Map<Integer, SpillQueue.Cursor> getSpillCursors() { return spillCursors; }
+    public Map<String, SpillQueue.Cursor> getDeferredCursors() { return deferredCursors; }
+
+    public int size() {
+        int size = 0;
+        for (List<UrlWithTimestamp> items : frontItems.values()) {
+            size += items.size();
+        }
+        for (List<String> urls : backItems.values()) {
+            size += urls.size();
+        }
+        return size;
+    }
+}
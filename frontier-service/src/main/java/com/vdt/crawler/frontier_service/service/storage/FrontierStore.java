@@ -0,0 +1,435 @@
+package com.vdt.crawler.frontier_service.service.storage;
+
+import com.vdt.crawler.frontier_service.service.queue.UrlWithTimestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local disk tier of the frontier: one {@link SpillQueue} per priority level for URLs that
+ * do not fit in memory, one per domain and level for URLs deferred by the crawl budget of their
+ * domain, plus the checkpoint file used to rebuild the memory tier after a restart.
+ */
+public class FrontierStore implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FrontierStore.class);
+
+    private static final int CHECKPOINT_MAGIC = 0x46524e54; // "FRNT"
+    // Version 1 wrote strings with writeUTF, which fails past 64KB, version 3 added the deferred queues
+    private static final int CHECKPOINT_VERSION = 3;
+    private static final String CHECKPOINT_FILE = "checkpoint.dat";
+    private static final Pattern SPILL_SEGMENT = Pattern.compile("spill-p(-?\\d+)-\\d+\\.seg");
+    private static final Pattern DEFERRED_SEGMENT = Pattern.compile("defer-(.+)-p(\\d+)-\\d+\\.seg");
+
+    private final Path dir;
+    private final Path spillDir;
+    private final long segmentBytes;
+    private final Map<Integer, SpillQueue> spillQueues = new ConcurrentHashMap<>();
+    // Created and removed in compute calls, so no URL is appended to a queue being removed
+    private final Map<DeferredKey, SpillQueue> deferredQueues = new ConcurrentHashMap<>();
+
+    public FrontierStore(Path dir, long segmentBytes) throws IOException {
+        this.dir = dir;
+        this.spillDir = dir.resolve("spill");
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(spillDir);
+
+        // Reopen spill queues left by a previous run
+        try (Stream<Path> files = Files.list(spillDir)) {
+            Set<Integer> priorities = new TreeSet<>();
+            files.forEach(p -> {
+                Matcher m = SPILL_SEGMENT.matcher(p.getFileName().toString());
+                if (m.matches()) {
+                    priorities.add(Integer.parseInt(m.group(1)));
+                }
+            });
+            for (int priority : priorities) {
+                spillQueue(priority);
+            }
+        }
+        try (Stream<Path> files = Files.list(spillDir)) {
+            Set<DeferredKey> keys = new HashSet<>();
+            files.forEach(p -> {
+                Matcher m = DEFERRED_SEGMENT.matcher(p.getFileName().toString());
+                if (m.matches()) {
+                    keys.add(new DeferredKey(URLDecoder.decode(m.group(1), StandardCharsets.UTF_8),
+                            Integer.parseInt(m.group(2))));
+                }
+            });
+            for (DeferredKey key : keys) {
+                deferredQueues.put(key, openDeferred(key));
+            }
+        }
+        logger.info("Frontier store opened at {} with {} spilled URLs", dir.toAbsolutePath(), spilledSize());
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    private SpillQueue spillQueue(int priority) {
+        return spillQueues.computeIfAbsent(priority, p -> {
+            try {
+                return new SpillQueue(spillDir, "spill-p" + p, segmentBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private SpillQueue openDeferred(DeferredKey key) throws IOException {
+        return new SpillQueue(spillDir, key.name(), segmentBytes);
+    }
+
+    public void spill(int priority, UrlWithTimestamp item) throws IOException {
+        spillQueue(priority).append(item);
+    }
+
+    public List<UrlWithTimestamp> pollSpilled(int priority, int max) throws IOException {
+        SpillQueue queue = spillQueues.get(priority);
+        if (queue == null || queue.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return queue.poll(max);
+    }
+
+    /**
+     * Priority levels that currently have spilled URLs
+     */
+    public Set<Integer> spilledPriorities() {
+        Set<Integer> priorities = new TreeSet<>(Comparator.reverseOrder());
+        spillQueues.forEach((priority, queue) -> {
+            if (!queue.isEmpty()) {
+                priorities.add(priority);
+            }
+        });
+        return priorities;
+    }
+
+    /**
+     * Number of URLs spilled for lack of memory, the deferred ones not included
+     */
+    public long spilledSize() {
+        long total = 0;
+        for (SpillQueue queue : spillQueues.values()) {
+            total += queue.size();
+        }
+        return total;
+    }
+
+    public long spilledSizeOf(int priority) {
+        SpillQueue queue = spillQueues.get(priority);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public Map<Integer, Long> spilledSizes() {
+        Map<Integer, Long> sizes = new HashMap<>();
+        spillQueues.forEach((priority, queue) -> sizes.put(priority, queue.size()));
+        return sizes;
+    }
+
+    /**
+     * Put aside a URL of a domain over its crawl budget, at its priority level
+     */
+    public void defer(String domain, int priority, UrlWithTimestamp item) throws IOException {
+        try {
+            deferredQueues.compute(new DeferredKey(domain, priority), (key, queue) -> {
+                try {
+                    SpillQueue target = queue != null ? queue : openDeferred(key);
+                    target.append(item);
+                    return target;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Domains that currently have deferred URLs
+     */
+    public Set<String> deferredDomains() {
+        Set<String> domains = new HashSet<>();
+        deferredQueues.forEach((key, queue) -> {
+            if (!queue.isEmpty()) {
+                domains.add(key.domain());
+            }
+        });
+        return domains;
+    }
+
+    /**
+     * Priority levels with deferred URLs of domain, highest first
+     */
+    public Set<Integer> deferredPriorities(String domain) {
+        Set<Integer> priorities = new TreeSet<>(Comparator.reverseOrder());
+        deferredQueues.forEach((key, queue) -> {
+            if (key.domain().equals(domain) && !queue.isEmpty()) {
+                priorities.add(key.priority());
+            }
+        });
+        return priorities;
+    }
+
+    public List<UrlWithTimestamp> pollDeferred(String domain, int priority, int max) throws IOException {
+        SpillQueue queue = deferredQueues.get(new DeferredKey(domain, priority));
+        if (queue == null || queue.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return queue.poll(max);
+    }
+
+    public long deferredSize() {
+        long total = 0;
+        for (SpillQueue queue : deferredQueues.values()) {
+            total += queue.size();
+        }
+        return total;
+    }
+
+    /**
+     * Number of deferred URLs of a priority level, all domains together
+     */
+    public long deferredSizeOf(int priority) {
+        long total = 0;
+        for (Map.Entry<DeferredKey, SpillQueue> entry : deferredQueues.entrySet()) {
+            if (entry.getKey().priority() == priority) {
+                total += entry.getValue().size();
+            }
+        }
+        return total;
+    }
+
+    public void clearSpilled() throws IOException {
+        for (SpillQueue queue : spillQueues.values()) {
+            queue.clear();
+        }
+        for (SpillQueue queue : deferredQueues.values()) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * Add the current spill read cursors to a memory tier snapshot. Take them together with the
+     * snapshot while no URL moves between the tiers, so every URL is either in the snapshot or after
+     * a cursor. Spilled records are synced so the checkpoint never refers to records lost in a crash.
+     */
+    public void captureSpillCursors(FrontierCheckpoint checkpoint) throws IOException {
+        for (Map.Entry<Integer, SpillQueue> entry : spillQueues.entrySet()) {
+            entry.getValue().sync();
+            checkpoint.putSpillCursor(entry.getKey(), entry.getValue().cursor());
+        }
+        for (Map.Entry<DeferredKey, SpillQueue> entry : deferredQueues.entrySet()) {
+            entry.getValue().sync();
+            checkpoint.putDeferredCursor(entry.getKey().name(), entry.getValue().cursor());
+        }
+    }
+
+    /**
+     * Close and delete the deferred queues drained up to the cursors of a written checkpoint, so
+     * the domains that were over budget once do not keep their files open
+     */
+    public void pruneDeferred(FrontierCheckpoint written) {
+        for (DeferredKey key : deferredQueues.keySet()) {
+            SpillQueue.Cursor durable = written.getDeferredCursors().get(key.name());
+            if (durable == null) {
+                continue;
+            }
+            deferredQueues.computeIfPresent(key, (k, queue) -> {
+                SpillQueue.Cursor cursor = queue.cursor();
+                // Records read since the checkpoint would be lost in a crash before the next one
+                if (!queue.isEmpty() || cursor.getSegment() != durable.getSegment()
+                        || cursor.getOffset() != durable.getOffset()) {
+                    return queue;
+                }
+                try {
+                    queue.delete();
+                } catch (IOException e) {
+                    logger.warn("Error deleting drained deferred queue {}", k.name(), e);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Atomically replace the checkpoint with the given snapshot and spill cursors, then delete the
+     * spill segments consumed before those cursors
+     */
+    public void writeCheckpoint(FrontierCheckpoint checkpoint) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+
+            out.writeInt(checkpoint.getFrontItems().size());
+            for (Map.Entry<Integer, List<UrlWithTimestamp>> entry : checkpoint.getFrontItems().entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (UrlWithTimestamp item : entry.getValue()) {
+                    writeString(out, item.getUrl());
+                    out.writeLong(item.getLastCrawled() != null ? item.getLastCrawled().toEpochMilli() : Long.MIN_VALUE);
+                }
+            }
+
+            out.writeInt(checkpoint.getBackItems().size());
+            for (Map.Entry<String, List<String>> entry : checkpoint.getBackItems().entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String url : entry.getValue()) {
+                    writeString(out, url);
+                }
+            }
+
+            out.writeInt(checkpoint.getSpillCursors().size());
+            for (Map.Entry<Integer, SpillQueue.Cursor> entry : checkpoint.getSpillCursors().entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeLong(entry.getValue().getSegment());
+                out.writeLong(entry.getValue().getOffset());
+            }
+
+            out.writeInt(checkpoint.getDeferredCursors().size());
+            for (Map.Entry<String, SpillQueue.Cursor> entry : checkpoint.getDeferredCursors().entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(entry.getValue().getSegment());
+                out.writeLong(entry.getValue().getOffset());
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (Map.Entry<Integer, SpillQueue.Cursor> entry : checkpoint.getSpillCursors().entrySet()) {
+            SpillQueue queue = spillQueues.get(entry.getKey());
+            if (queue != null) {
+                queue.release(entry.getValue());
+            }
+        }
+        for (Map.Entry<DeferredKey, SpillQueue> entry : deferredQueues.entrySet()) {
+            SpillQueue.Cursor cursor = checkpoint.getDeferredCursors().get(entry.getKey().name());
+            if (cursor != null) {
+                entry.getValue().release(cursor);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, int version) throws IOException {
+        if (version == 1) {
+            return in.readUTF();
+        }
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length in checkpoint: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read the last checkpoint and rewind the spill queues to its cursors.
+     *
+     * @return the checkpoint, or null when there is none
+     */
+    public FrontierCheckpoint readCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        FrontierCheckpoint checkpoint = new FrontierCheckpoint();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt() == CHECKPOINT_MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > CHECKPOINT_VERSION) {
+                logger.warn("Ignoring checkpoint {} with unknown format", file);
+                return null;
+            }
+
+            int priorities = in.readInt();
+            for (int i = 0; i < priorities; i++) {
+                int priority = in.readInt();
+                int count = in.readInt();
+                for (int j = 0; j < count; j++) {
+                    String url = readString(in, version);
+                    long lastCrawled = in.readLong();
+                    checkpoint.addFrontItem(priority, new UrlWithTimestamp(url,
+                            lastCrawled == Long.MIN_VALUE ? null : Instant.ofEpochMilli(lastCrawled)));
+                }
+            }
+
+            int hosts = in.readInt();
+            for (int i = 0; i < hosts; i++) {
+                String host = readString(in, version);
+                int count = in.readInt();
+                List<String> urls = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    urls.add(readString(in, version));
+                }
+                checkpoint.addBackItems(host, urls);
+            }
+
+            int cursors = in.readInt();
+            for (int i = 0; i < cursors; i++) {
+                int priority = in.readInt();
+                SpillQueue.Cursor cursor = new SpillQueue.Cursor(in.readLong(), in.readLong());
+                checkpoint.putSpillCursor(priority, cursor);
+                spillQueue(priority).restoreCursor(cursor);
+            }
+
+            if (version >= 3) {
+                Map<String, SpillQueue> byName = new HashMap<>();
+                deferredQueues.forEach((key, queue) -> byName.put(key.name(), queue));
+                int deferred = in.readInt();
+                for (int i = 0; i < deferred; i++) {
+                    String name = readString(in, version);
+                    SpillQueue.Cursor cursor = new SpillQueue.Cursor(in.readLong(), in.readLong());
+                    checkpoint.putDeferredCursor(name, cursor);
+                    // A queue without segments left was drained and deleted
+                    SpillQueue queue = byName.get(name);
+                    if (queue != null) {
+                        queue.restoreCursor(cursor);
+                    }
+                }
+            }
+        }
+        return checkpoint;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (SpillQueue queue : spillQueues.values()) {
+            queue.close();
+        }
+        for (SpillQueue queue : deferredQueues.values()) {
+            queue.close();
+        }
+    }
+
+    private record DeferredKey(String domain, int priority) {
+        // Segment file prefix, the domain is encoded so any name is a valid file name
+        String name() {
+            return "defer-" + URLEncoder.encode(domain, StandardCharsets.UTF_8) + "-p" + priority;
+        }
+    }
+}
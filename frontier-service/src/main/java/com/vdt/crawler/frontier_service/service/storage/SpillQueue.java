@@ -0,0 +1,355 @@
+package com.vdt.crawler.frontier_service.service.storage;
+
+import com.vdt.crawler.frontier_service.service.queue.UrlWithTimestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Disk-backed FIFO of URLs made of append-only segment files.
+ *
+ * Record layout: [int url length][long lastCrawled millis or Long.MIN_VALUE][url UTF-8 bytes].
+ * Writers append to the last segment and roll to a new one past segmentBytes. Readers map the
+ * current read segment read-only.
+ * The read cursor is only durable through {@link #cursor()} / {@link #restoreCursor(Cursor)},
+ * so after a crash records read since the last checkpoint are served again (at-least-once). A fully
+ * consumed segment is therefore kept until a durable cursor passed it, see {@link #release(Cursor)}.
+ */
+public class SpillQueue implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SpillQueue.class);
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final String SUFFIX = ".seg";
+
+    private final Path dir;
+    private final String prefix;
+    private final long segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong size = new AtomicLong();
+
+    private FileChannel writer;
+    private long writeSeq;
+    private long writePos;
+
+    private long readSeq;
+    private long readPos;
+
+    /**
+     * Position of the next record to read
+     */
+    public static final class Cursor {
+        private final long segment;
+        private final long offset;
+
+        public Cursor(long segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        public long getSegment() { return segment; }
+        public long getOffset() { return offset; }
+    }
+
+    public SpillQueue(Path dir, String prefix, long segmentBytes) throws IOException {
+        this.dir = dir;
+        this.prefix = prefix;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+
+        TreeSet<Long> segments = listSegments();
+        readSeq = segments.isEmpty() ? 0 : segments.first();
+        readPos = 0;
+        writeSeq = segments.isEmpty() ? 0 : segments.last();
+        openWriter();
+        recount();
+    }
+
+    private TreeSet<Long> listSegments() throws IOException {
+        TreeSet<Long> segments = new TreeSet<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix + "-") && name.endsWith(SUFFIX))
+                    .forEach(name -> {
+                        String seq = name.substring(prefix.length() + 1, name.length() - SUFFIX.length());
+                        try {
+                            segments.add(Long.parseLong(seq));
+                        } catch (NumberFormatException e) {
+                            logger.warn("Ignoring unexpected file in spill directory: {}", name);
+                        }
+                    });
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long seq) {
+        return dir.resolve(String.format("%s-%012d%s", prefix, seq, SUFFIX));
+    }
+
+    private void openWriter() throws IOException {
+        writer = FileChannel.open(segmentPath(writeSeq),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        writePos = validLength(writer);
+        // Drop a record that was only partially written before a crash
+        writer.truncate(writePos);
+        writer.position(writePos);
+    }
+
+    /**
+     * Length of the prefix of the segment made of complete records
+     */
+    private static long validLength(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == 0) {
+            return 0;
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        long pos = 0;
+        while (fileSize - pos >= HEADER_BYTES) {
+            int length = buffer.getInt((int) pos);
+            if (length < 0 || pos + HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            pos += HEADER_BYTES + length;
+        }
+        return pos;
+    }
+
+    /**
+     * Recompute the number of pending records from the read cursor to the end of the queue
+     */
+    private void recount() throws IOException {
+        long count = 0;
+        for (long seq : listSegments()) {
+            if (seq < readSeq) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(seq), StandardOpenOption.READ)) {
+                long end = seq == writeSeq ? writePos : validLength(channel);
+                long start = seq == readSeq ? readPos : 0;
+                if (end <= start) {
+                    continue;
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                int pos = 0;
+                while (pos < buffer.limit()) {
+                    pos += HEADER_BYTES + buffer.getInt(pos);
+                    count++;
+                }
+            }
+        }
+        size.set(count);
+    }
+
+    public void append(UrlWithTimestamp item) throws IOException {
+        byte[] url = item.getUrl().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + url.length);
+        record.putInt(url.length);
+        record.putLong(item.getLastCrawled() != null ? item.getLastCrawled().toEpochMilli() : NO_TIMESTAMP);
+        record.put(url);
+        record.flip();
+
+        lock.lock();
+        try {
+            if (writePos > 0 && writePos + record.remaining() > segmentBytes) {
+                writer.close();
+                writeSeq++;
+                openWriter();
+            }
+            while (record.hasRemaining()) {
+                writePos += writer.write(record);
+            }
+            size.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read and remove up to max records in FIFO order
+     */
+    public List<UrlWithTimestamp> poll(int max) throws IOException {
+        List<UrlWithTimestamp> items = new ArrayList<>();
+        lock.lock();
+        try {
+            while (items.size() < max && (readSeq < writeSeq || readPos < writePos)) {
+                if (readSeq < writeSeq) {
+                    Path segment = segmentPath(readSeq);
+                    long segmentSize = Files.exists(segment) ? Files.size(segment) : 0;
+                    if (readPos >= segmentSize) {
+                        // Fully consumed, older segments are never appended to again. The segment is
+                        // deleted once a checkpoint moved past it.
+                        readSeq++;
+                        readPos = 0;
+                        continue;
+                    }
+                    long next = readSegment(segment, segmentSize, max, items);
+                    // A truncated tail record cannot be read, skip to the end of the segment
+                    readPos = next == readPos ? segmentSize : next;
+                } else {
+                    long next = readSegment(segmentPath(readSeq), writePos, max, items);
+                    if (next == readPos) {
+                        break;
+                    }
+                    readPos = next;
+                }
+            }
+            size.addAndGet(-items.size());
+            return items;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long readSegment(Path segment, long end, int max, List<UrlWithTimestamp> items) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, readPos, end - readPos);
+            while (items.size() < max && buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt(buffer.position());
+                if (length < 0 || buffer.remaining() < HEADER_BYTES + length) {
+                    break;
+                }
+                buffer.getInt();
+                long lastCrawled = buffer.getLong();
+                byte[] url = new byte[length];
+                buffer.get(url);
+                items.add(new UrlWithTimestamp(new String(url, StandardCharsets.UTF_8),
+                        lastCrawled == NO_TIMESTAMP ? null : Instant.ofEpochMilli(lastCrawled)));
+            }
+            return readPos + buffer.position();
+        }
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    public Cursor cursor() {
+        lock.lock();
+        try {
+            return new Cursor(readSeq, readPos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move the read cursor back to a checkpointed position. Segments deleted since then
+     * are skipped, their records were already consumed.
+     */
+    public void restoreCursor(Cursor cursor) throws IOException {
+        lock.lock();
+        try {
+            TreeSet<Long> segments = listSegments();
+            Long first = segments.ceiling(cursor.getSegment());
+            if (first == null || first > writeSeq) {
+                readSeq = writeSeq;
+                readPos = writePos;
+            } else if (first == cursor.getSegment()) {
+                readSeq = first;
+                readPos = Math.min(cursor.getOffset(), first == writeSeq ? writePos : Files.size(segmentPath(first)));
+            } else {
+                readSeq = first;
+                readPos = 0;
+            }
+            // Segments before the cursor are fully consumed
+            for (long seq : segments.headSet(readSeq)) {
+                Files.deleteIfExists(segmentPath(seq));
+            }
+            recount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delete the segments before a cursor that is now durable, no restart will read them again
+     */
+    public void release(Cursor cursor) throws IOException {
+        lock.lock();
+        try {
+            long before = Math.min(cursor.getSegment(), readSeq);
+            for (long seq : listSegments().headSet(before)) {
+                Files.deleteIfExists(segmentPath(seq));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flush appended records to the storage device
+     */
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            writer.force(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() throws IOException {
+        lock.lock();
+        try {
+            writer.close();
+            for (long seq : listSegments()) {
+                Files.deleteIfExists(segmentPath(seq));
+            }
+            writeSeq++;
+            readSeq = writeSeq;
+            readPos = 0;
+            openWriter();
+            size.set(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the queue and delete all its segments, the queue is not used anymore
+     */
+    public void delete() throws IOException {
+        lock.lock();
+        try {
+            writer.close();
+            for (long seq : listSegments()) {
+                Files.deleteIfExists(segmentPath(seq));
+            }
+            size.set(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            writer.force(false);
+            writer.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
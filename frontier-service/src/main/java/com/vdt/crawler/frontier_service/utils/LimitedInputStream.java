@@ -0,0 +1,51 @@
+package com.vdt.crawler.frontier_service.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails once more than maxBytes were read, against oversized and zip bomb documents
+ */
+public class LimitedInputStream extends FilterInputStream {
+    private long remaining;
+
+    public LimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.remaining = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            consumed(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            consumed(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            consumed(skipped);
+        }
+        return skipped;
+    }
+
+    private void consumed(long bytes) throws IOException {
+        remaining -= bytes;
+        if (remaining < 0) {
+            throw new IOException("Document larger than the size limit");
+        }
+    }
+}
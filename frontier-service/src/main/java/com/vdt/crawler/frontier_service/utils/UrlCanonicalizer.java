@@ -0,0 +1,321 @@
+package com.vdt.crawler.frontier_service.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Canonical form of the URLs entering the frontier, so variants of one page are deduplicated
+ * and fetched once.
+ *
+ * Scheme and host are lower-cased, the default port, the fragment and empty query parameters are
+ * dropped, dot segments and repeated slashes of the path are resolved, percent-escapes of
+ * unreserved characters are decoded and the others upper-cased, and query parameters are sorted.
+ * Tracking parameters are stripped: the global rules apply to every host, the domain rules to the
+ * domain and its subdomains. A rule ending in "*" matches every parameter with that prefix, names
+ * are matched ignoring case.
+ *
+ * Single pass over the string without regular expressions or java.net parsing, canonicalizing a
+ * canonical URL returns it unchanged.
+ */
+public class UrlCanonicalizer {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final ParamRules globalRules;
+    // Keyed by lower-cased domain
+    private final Map<String, ParamRules> domainRules = new HashMap<>();
+    private final boolean removeTrailingSlash;
+
+    public UrlCanonicalizer(Collection<String> stripParams, Map<String, List<String>> domainStripParams,
+                            boolean removeTrailingSlash) {
+        this.globalRules = new ParamRules(stripParams);
+        if (domainStripParams != null) {
+            domainStripParams.forEach((domain, params) ->
+                    domainRules.put(domain.toLowerCase(Locale.ROOT), new ParamRules(params)));
+        }
+        this.removeTrailingSlash = removeTrailingSlash;
+    }
+
+    /**
+     * @return canonical form of url, null if it is not an absolute http(s) URL
+     */
+    public String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        url = url.trim();
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd <= 0) {
+            return null;
+        }
+        String scheme = url.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+        int defaultPort;
+        if (scheme.equals("http")) {
+            defaultPort = 80;
+        } else if (scheme.equals("https")) {
+            defaultPort = 443;
+        } else {
+            return null;
+        }
+
+        int authorityStart = schemeEnd + 3;
+        int end = url.indexOf('#');
+        if (end < 0) {
+            end = url.length();
+        }
+        int authorityEnd = authorityStart;
+        while (authorityEnd < end && "/?".indexOf(url.charAt(authorityEnd)) < 0) {
+            authorityEnd++;
+        }
+        int queryStart = url.indexOf('?', authorityEnd);
+        if (queryStart < 0 || queryStart > end) {
+            queryStart = end;
+        }
+
+        StringBuilder sb = new StringBuilder(url.length());
+        sb.append(scheme).append("://");
+        String host = appendAuthority(sb, url, authorityStart, authorityEnd, defaultPort);
+        if (host == null) {
+            return null;
+        }
+        appendPath(sb, url, authorityEnd, queryStart);
+        if (queryStart < end) {
+            appendQuery(sb, url, queryStart + 1, end, host);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return lower-cased host, null if there is none
+     */
+    private static String appendAuthority(StringBuilder sb, String url, int start, int end, int defaultPort) {
+        int hostStart = url.lastIndexOf('@', end - 1) + 1;
+        if (hostStart <= start) {
+            hostStart = start;
+        }
+        // The port follows the last ':' after an IPv6 literal
+        int portStart = url.lastIndexOf(':', end - 1);
+        if (portStart < hostStart || url.lastIndexOf(']', end - 1) > portStart) {
+            portStart = end;
+        }
+        int hostEnd = portStart;
+        while (hostEnd > hostStart && url.charAt(hostEnd - 1) == '.') {
+            hostEnd--;
+        }
+        if (hostEnd == hostStart) {
+            return null;
+        }
+        String host = url.substring(hostStart, hostEnd).toLowerCase(Locale.ROOT);
+
+        sb.append(url, start, hostStart).append(host);
+        if (portStart + 1 < end) {
+            String port = url.substring(portStart + 1, end);
+            for (int i = 0; i < port.length(); i++) {
+                if (port.charAt(i) < '0' || port.charAt(i) > '9') {
+                    return null;
+                }
+            }
+            if (port.length() > 5 || Integer.parseInt(port) != defaultPort) {
+                sb.append(':').append(port);
+            }
+        }
+        return host;
+    }
+
+    private void appendPath(StringBuilder sb, String url, int start, int end) {
+        int pathStart = sb.length();
+        // Start of the segments kept so far, ".." removes the last one
+        int[] segmentStarts = new int[8];
+        int depth = 0;
+        // A path ending in "/", "/." or "/.." names a directory
+        boolean directory = end > start && url.charAt(end - 1) == '/';
+        int i = start;
+        while (i < end) {
+            int segmentEnd = i;
+            while (segmentEnd < end && url.charAt(segmentEnd) != '/') {
+                segmentEnd++;
+            }
+            if (segmentEnd == i) {
+                // Empty segment of "//"
+            } else if (isDotSegment(url, i, segmentEnd, 1)) {
+                directory |= segmentEnd == end;
+            } else if (isDotSegment(url, i, segmentEnd, 2)) {
+                directory |= segmentEnd == end;
+                if (depth > 0) {
+                    sb.setLength(segmentStarts[--depth]);
+                }
+            } else {
+                if (depth == segmentStarts.length) {
+                    segmentStarts = Arrays.copyOf(segmentStarts, depth * 2);
+                }
+                segmentStarts[depth++] = sb.length();
+                sb.append('/');
+                appendEncoded(sb, url, i, segmentEnd);
+            }
+            i = segmentEnd + 1;
+        }
+        if (sb.length() == pathStart || directory && !removeTrailingSlash) {
+            sb.append('/');
+        }
+    }
+
+    private static boolean isDotSegment(String url, int start, int end, int dots) {
+        if (end - start != dots) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (url.charAt(i) != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendQuery(StringBuilder sb, String url, int start, int end, String host) {
+        ParamRules rules = domainRulesOf(host);
+        List<String> params = new ArrayList<>();
+        StringBuilder param = new StringBuilder();
+        int i = start;
+        while (i < end) {
+            int paramEnd = url.indexOf('&', i);
+            if (paramEnd < 0 || paramEnd > end) {
+                paramEnd = end;
+            }
+            if (paramEnd > i) {
+                int nameEnd = url.indexOf('=', i);
+                if (nameEnd < 0 || nameEnd > paramEnd) {
+                    nameEnd = paramEnd;
+                }
+                String name = url.substring(i, nameEnd);
+                if (!name.isEmpty() && !globalRules.matches(name) && (rules == null || !rules.matches(name))) {
+                    param.setLength(0);
+                    appendEncoded(param, url, i, nameEnd);
+                    if (nameEnd + 1 < paramEnd) {
+                        param.append('=');
+                        appendEncoded(param, url, nameEnd + 1, paramEnd);
+                    }
+                    params.add(param.toString());
+                }
+            }
+            i = paramEnd + 1;
+        }
+        if (params.isEmpty()) {
+            return;
+        }
+        Collections.sort(params);
+        sb.append('?');
+        for (int p = 0; p < params.size(); p++) {
+            if (p > 0) {
+                sb.append('&');
+            }
+            sb.append(params.get(p));
+        }
+    }
+
+    /**
+     * Rules of the host or of the closest parent domain having some
+     */
+    private ParamRules domainRulesOf(String host) {
+        if (domainRules.isEmpty()) {
+            return null;
+        }
+        String domain = host;
+        while (true) {
+            ParamRules rules = domainRules.get(domain);
+            if (rules != null) {
+                return rules;
+            }
+            int dot = domain.indexOf('.');
+            if (dot < 0) {
+                return null;
+            }
+            domain = domain.substring(dot + 1);
+        }
+    }
+
+    /**
+     * Percent-escapes of unreserved characters but "." are decoded and the others upper-cased,
+     * spaces and characters outside ASCII are escaped
+     */
+    private static void appendEncoded(StringBuilder sb, String url, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == '%' && i + 2 < end && hexValue(url.charAt(i + 1)) >= 0 && hexValue(url.charAt(i + 2)) >= 0) {
+                char decoded = (char) (hexValue(url.charAt(i + 1)) * 16 + hexValue(url.charAt(i + 2)));
+                // "%2E" is kept, decoding it could make a dot segment
+                if (isUnreserved(decoded) && decoded != '.') {
+                    sb.append(decoded);
+                } else {
+                    sb.append('%').append(Character.toUpperCase(url.charAt(i + 1)))
+                            .append(Character.toUpperCase(url.charAt(i + 2)));
+                }
+                i += 2;
+            } else if (c == ' ') {
+                sb.append("%20");
+            } else if (c < 0x80) {
+                sb.append(c);
+            } else {
+                int codePoint = url.codePointAt(i);
+                if (Character.isSupplementaryCodePoint(codePoint)) {
+                    i++;
+                }
+                for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                    sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+                }
+            }
+        }
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    /**
+     * Parameter names to strip, exact or by prefix
+     */
+    private static final class ParamRules {
+        private final Set<String> names = new HashSet<>();
+        private final List<String> prefixes = new ArrayList<>();
+
+        ParamRules(Collection<String> rules) {
+            if (rules == null) {
+                return;
+            }
+            for (String rule : rules) {
+                String lower = rule.trim().toLowerCase(Locale.ROOT);
+                if (lower.endsWith("*")) {
+                    prefixes.add(lower.substring(0, lower.length() - 1));
+                } else if (!lower.isEmpty()) {
+                    names.add(lower);
+                }
+            }
+        }
+
+        boolean matches(String name) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (names.contains(lower)) {
+                return true;
+            }
+            for (String prefix : prefixes) {
+                if (lower.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package com.vdt.crawler.frontier_service.service;
 
+import com.vdt.crawler.frontier_service.config.ScoringConfig;
 import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
-import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.budget.CrawlBudgets;
+import com.vdt.crawler.frontier_service.service.robotstxt.HostDirectives;
 import com.vdt.crawler.frontier_service.service.robotstxt.RobotstxtServer;
+import com.vdt.crawler.frontier_service.service.scoring.Discovery;
+import com.vdt.crawler.frontier_service.service.scoring.UrlScorer;
+import com.vdt.crawler.frontier_service.service.state.DomainStateStore;
+import com.vdt.crawler.frontier_service.service.storage.FrontierStore;
+import com.vdt.crawler.frontier_service.utils.UrlCanonicalizer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -11,13 +19,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 public class FrontierServiceTest {
@@ -26,7 +36,19 @@ public class FrontierServiceTest {
     private RobotstxtServer robotstxtServer;
 
     @Autowired
-    private DomainRepository domainRepository;
+    private DomainStateStore domainStateStore;
+
+    @Autowired
+    private UrlCanonicalizer urlCanonicalizer;
+
+    @Autowired
+    private UrlScorer urlScorer;
+
+    @Autowired
+    private ScoringConfig scoringConfig;
+
+    @Autowired
+    private CrawlBudgets crawlBudgets;
 
     @Mock
     private FrontierMetrics frontierMetrics;
@@ -36,15 +58,23 @@ public class FrontierServiceTest {
 
     private FrontierService frontierService;
 
+    private FrontierStore frontierStore;
+
+    private HostDirectives allowAll;
+
     @BeforeEach
     public void setUp() throws IOException, InterruptedException {
         MockitoAnnotations.openMocks(this);
 
         // Mock robots.txt server
-        when(robotstxtServer.allows(anyString())).thenReturn(true);
-        when(robotstxtServer.getCrawlDelay(anyString())).thenReturn(1.0); // 1 second delay
-
-        frontierService = new FrontierService(robotstxtServer, domainRepository, frontierMetrics);
+        allowAll = mock(HostDirectives.class);
+        when(allowAll.allows(anyString())).thenReturn(true);
+        when(allowAll.getCrawlDelay()).thenReturn(1.0); // 1 second delay
+        when(robotstxtServer.resolve(anyString())).thenReturn(CompletableFuture.completedFuture(allowAll));
+
+        frontierStore = new FrontierStore(Files.createTempDirectory("frontier"), 1024 * 1024);
+        frontierService = new FrontierService(robotstxtServer, domainStateStore, urlCanonicalizer, urlScorer,
+                scoringConfig, crawlBudgets, frontierMetrics, frontierStore);
     }
 
     @Test
@@ -127,8 +157,9 @@ public class FrontierServiceTest {
         String allowedUrl = "https://vnexpress.net/kinh-doanh";
 
         // Mock robots.txt responses
-        when(robotstxtServer.allows(blockedUrl)).thenReturn(false);
-        when(robotstxtServer.allows(allowedUrl)).thenReturn(true);
+        HostDirectives blocking = mock(HostDirectives.class);
+        when(blocking.allows(anyString())).thenReturn(false);
+        when(robotstxtServer.resolve(blockedUrl)).thenReturn(CompletableFuture.completedFuture(blocking));
 
         frontierService.addToFrontier(Arrays.asList(blockedUrl, allowedUrl));
 
@@ -141,6 +172,30 @@ public class FrontierServiceTest {
         assertNull(nextUrl);
     }
 
+    @Test
+    public void testParkedUrlUsesResolvedDirectives() throws Exception {
+        String url = "https://vnexpress.net/kinh-doanh";
+        CompletableFuture<HostDirectives> fetching = new CompletableFuture<>();
+        when(robotstxtServer.resolve(url)).thenReturn(fetching);
+
+        frontierService.addToFrontier(url);
+        assertEquals(1, frontierService.getFrontierStats().get("parkedUrls"));
+
+        // A failed robots.txt fetch drops the URL without resolving robots.txt again
+        fetching.completeExceptionally(new IllegalStateException("robots.txt fetch failed"));
+        for (int i = 0; i < 100 && (Integer) frontierService.getFrontierStats().get("parkedUrls") > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(frontierService.isEmpty());
+        verify(robotstxtServer, never()).allows(anyString());
+        verify(robotstxtServer, never()).getCrawlDelay(anyString());
+
+        // and lets it be found again
+        when(robotstxtServer.resolve(url)).thenReturn(CompletableFuture.completedFuture(allowAll));
+        frontierService.addToFrontier(url);
+        assertEquals(url, frontierService.getNextUrlFromFrontQueue());
+    }
+
     @Test
     public void testEmptyQueue() {
         assertTrue(frontierService.isEmpty());
@@ -205,4 +260,55 @@ public class FrontierServiceTest {
         // Queue should still be empty
         assertTrue(frontierService.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddBatch() throws InterruptedException {
+        List<String> batch = Arrays.asList(
+                "https://vnexpress.net/thoi-su",
+                "https://vnexpress.net/thoi-su",
+                "https://dantri.com.vn/xa-hoi.htm",
+                "https://slow.com/page1",
+                "not-a-url"
+        );
+
+        // duplicates, unknown domains and invalid URLs are rejected
+        assertEquals(2, frontierService.addBatchToFrontier(batch, UrlOrigin.DISCOVERED));
+        assertEquals(0, frontierService.addBatchToFrontier(batch, UrlOrigin.DISCOVERED));
+        assertEquals(2, (Integer) frontierService.getFrontierStats().get("totalFrontUrls"));
+    }
+
+    @Test
+    public void testBatchLeavesUrlsOfUnresolvedRobotsToCaller() throws Exception {
+        String slow = "https://vnexpress.net/kinh-doanh";
+        String fast = "https://dantri.com.vn/xa-hoi.htm";
+        CompletableFuture<HostDirectives> fetching = new CompletableFuture<>();
+        when(robotstxtServer.resolve(slow)).thenReturn(fetching);
+
+        FrontierService.BatchResult result = frontierService.admitBatch(List.of(slow, fast),
+                Discovery.of(UrlOrigin.DISCOVERED), 50);
+        assertEquals(1, result.added());
+        assertEquals(List.of(slow), result.pending());
+        assertEquals(0, frontierService.getFrontierStats().get("parkedUrls"));
+
+        // Delivered again once robots.txt is cached
+        fetching.complete(allowAll);
+        result = frontierService.admitBatch(List.of(slow, fast), Discovery.of(UrlOrigin.DISCOVERED), 50);
+        assertEquals(1, result.added());
+        assertTrue(result.pending().isEmpty());
+    }
+
+    @Test
+    public void testScoreLevels() {
+        assertEquals(1, FrontierService.levelOf(0, 5));
+        assertEquals(1, FrontierService.levelOf(0.19, 5));
+        assertEquals(2, FrontierService.levelOf(0.2, 5));
+        assertEquals(5, FrontierService.levelOf(0.99, 5));
+        assertEquals(5, FrontierService.levelOf(1, 5));
+    }
+
+    @Test
+    public void testWeightedSchedule() {
+        assertEquals(List.of(3, 3, 3, 3, 3, 2, 2, 2, 1), FrontierService.weightedScheduleOf(List.of(1, 3, 5)));
+        assertThrows(IllegalArgumentException.class, () -> FrontierService.weightedScheduleOf(List.of()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.vdt.crawler.frontier_service.service.budget;
+
+import com.vdt.crawler.frontier_service.config.BudgetConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.service.state.DomainState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CrawlBudgetsTest {
+
+    private static DomainState domain(String name, long urlsPerHour, long bytesPerHour) {
+        DomainState domain = mock(DomainState.class);
+        when(domain.getDomain()).thenReturn(name);
+        when(domain.getUrlsPerHour()).thenReturn(urlsPerHour);
+        when(domain.getBytesPerHour()).thenReturn(bytesPerHour);
+        return domain;
+    }
+
+    private static BudgetConfig config() {
+        BudgetConfig config = new BudgetConfig();
+        config.setEnabled(true);
+        config.setDefaultUrlsPerHour(60);
+        config.setDefaultBytesPerHour(6000);
+        // One minute of budget at once
+        config.setBurstMs(60 * 1000);
+        return config;
+    }
+
+    @Test
+    public void testUrlBudgetPerDomain() {
+        CrawlBudgets budgets = new CrawlBudgets(config(), mock(FrontierMetrics.class));
+        DomainState busy = domain("vnexpress.net", 0, 0);
+        DomainState quiet = domain("dantri.com.vn", 0, 0);
+
+        assertTrue(budgets.tryAdmit(busy));
+        assertFalse(budgets.tryAdmit(busy));
+        // The budget of one domain does not touch the others
+        assertTrue(budgets.tryAdmit(quiet));
+    }
+
+    @Test
+    public void testDomainOwnLimits() {
+        CrawlBudgets budgets = new CrawlBudgets(config(), mock(FrontierMetrics.class));
+        DomainState domain = domain("vnexpress.net", 600, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budgets.tryAdmit(domain));
+        }
+        assertFalse(budgets.tryAdmit(domain));
+    }
+
+    @Test
+    public void testByteDebtDefersAdmissionAndDispatch() {
+        CrawlBudgets budgets = new CrawlBudgets(config(), mock(FrontierMetrics.class));
+        DomainState domain = domain("vnexpress.net", 600, 0);
+
+        assertTrue(budgets.allowsDispatch(domain));
+        budgets.recordBytes(domain, 50);
+        assertTrue(budgets.allowsDispatch(domain));
+        budgets.recordBytes(domain, 1000);
+        assertFalse(budgets.allowsDispatch(domain));
+        assertFalse(budgets.tryAdmit(domain));
+    }
+
+    @Test
+    public void testAdmittableUrlsAndRefund() {
+        CrawlBudgets budgets = new CrawlBudgets(config(), mock(FrontierMetrics.class));
+        DomainState domain = domain("vnexpress.net", 600, 0);
+
+        assertEquals(10, budgets.admittableUrls(domain));
+        assertTrue(budgets.tryAdmit(domain));
+        assertEquals(9, budgets.admittableUrls(domain));
+        // A URL deferred at dispatch gives its token back
+        budgets.refundUrl(domain);
+        assertEquals(10, budgets.admittableUrls(domain));
+
+        budgets.recordBytes(domain, 10000);
+        assertEquals(0, budgets.admittableUrls(domain));
+    }
+
+    @Test
+    public void testDisabled() {
+        BudgetConfig config = config();
+        config.setEnabled(false);
+        CrawlBudgets budgets = new CrawlBudgets(config, mock(FrontierMetrics.class));
+        DomainState domain = domain("vnexpress.net", 0, 0);
+
+        budgets.recordBytes(domain, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budgets.tryAdmit(domain));
+        }
+        assertTrue(budgets.allowsDispatch(domain));
+    }
+}
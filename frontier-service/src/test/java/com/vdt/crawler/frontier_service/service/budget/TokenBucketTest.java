@@ -0,0 +1,66 @@
+package com.vdt.crawler.frontier_service.service.budget;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    private static final long MINUTE_MS = 60 * 1000;
+
+    @Test
+    public void testBurstThenRefill() {
+        // 600 per hour with a 10 minute burst: 100 at once, then one every 6 seconds
+        TokenBucket bucket = new TokenBucket(600, 10 * MINUTE_MS, 0);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.tryAcquire(1, 0));
+        }
+        assertFalse(bucket.tryAcquire(1, 0));
+        assertFalse(bucket.tryAcquire(1, 5_000));
+        assertTrue(bucket.tryAcquire(1, 6_000));
+        assertFalse(bucket.tryAcquire(1, 6_000));
+
+        // Refill stops at the burst
+        assertEquals(100, bucket.available(TokenBucket.HOUR_MS), 1e-9);
+        assertEquals(0, bucket.usage(TokenBucket.HOUR_MS), 1e-9);
+    }
+
+    @Test
+    public void testChargeGoesIntoDebt() {
+        TokenBucket bucket = new TokenBucket(3600, MINUTE_MS, 0);
+        assertEquals(60, bucket.available(0), 1e-9);
+
+        bucket.charge(120, 0);
+        assertFalse(bucket.hasTokens(0));
+        assertFalse(bucket.tryAcquire(1, 0));
+        assertEquals(2, bucket.usage(0), 1e-9);
+
+        // One token per second pays the debt back
+        assertFalse(bucket.hasTokens(60_000));
+        assertTrue(bucket.hasTokens(61_000));
+    }
+
+    @Test
+    public void testUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, MINUTE_MS, 0);
+        assertTrue(bucket.isUnlimited());
+        bucket.charge(Long.MAX_VALUE, 0);
+        assertTrue(bucket.hasTokens(0));
+        assertTrue(bucket.tryAcquire(1_000_000, 0));
+        assertTrue(Double.isNaN(bucket.usage(0)));
+    }
+
+    @Test
+    public void testRateChangeKeepsBalanceWithinBurst() {
+        TokenBucket bucket = new TokenBucket(6000, 10 * MINUTE_MS, 0);
+        assertEquals(1000, bucket.available(0), 1e-9);
+
+        bucket.setRate(600, 0);
+        assertEquals(100, bucket.available(0), 1e-9);
+        assertTrue(bucket.tryAcquire(100, 0));
+        assertFalse(bucket.tryAcquire(1, 0));
+
+        bucket.setRate(0, 0);
+        assertTrue(bucket.tryAcquire(1, 0));
+    }
+}
@@ -0,0 +1,101 @@
+package com.vdt.crawler.frontier_service.service.cache;
+
+import com.vdt.crawler.frontier_service.config.DomainCacheConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.Domain;
+import com.vdt.crawler.frontier_service.repository.DomainRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DomainCacheTest {
+
+    @Mock
+    private DomainRepository domainRepository;
+
+    @Mock
+    private FrontierMetrics frontierMetrics;
+
+    private DomainCacheConfig config;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        config = new DomainCacheConfig();
+    }
+
+    private static Domain domain(String name, int priority) {
+        Domain domain = new Domain();
+        domain.setDomain(name);
+        domain.setPriority(priority);
+        return domain;
+    }
+
+    @Test
+    public void testPreloadedCacheAnswersWithoutMongo() {
+        when(domainRepository.findAll()).thenReturn(List.of(domain("vnexpress.net", 3), domain("dantri.com.vn", 2)));
+        DomainCache cache = new DomainCache(domainRepository, config, frontierMetrics);
+        cache.preload();
+
+        assertTrue(cache.isComplete());
+        assertEquals(3, cache.get("VnExpress.net").getPriority());
+        assertNull(cache.get("unknown.com"));
+        verify(domainRepository, never()).findByDomain(anyString());
+    }
+
+    @Test
+    public void testNegativeLookupCachedUntilTtl() {
+        config.setNegativeTtlMs(60000);
+        when(domainRepository.findByDomain("unknown.com")).thenReturn(Optional.empty());
+        DomainCache cache = new DomainCache(domainRepository, config, frontierMetrics);
+
+        // not preloaded yet, misses go to Mongo once per host
+        assertNull(cache.get("unknown.com"));
+        assertNull(cache.get("unknown.com"));
+        verify(domainRepository, times(1)).findByDomain("unknown.com");
+        assertEquals(1, cache.negativeSize());
+
+        // a write through the API replaces the negative entry
+        cache.put(domain("unknown.com", 1));
+        assertNotNull(cache.get("unknown.com"));
+        assertEquals(0, cache.negativeSize());
+    }
+
+    @Test
+    public void testRefreshAndEviction() {
+        when(domainRepository.findAll()).thenReturn(List.of(domain("vnexpress.net", 1)));
+        DomainCache cache = new DomainCache(domainRepository, config, frontierMetrics);
+        cache.preload();
+
+        when(domainRepository.findByUpdatedAtAfter(any(Instant.class))).thenReturn(List.of(domain("vnexpress.net", 3)));
+        cache.refresh();
+        assertEquals(3, cache.get("vnexpress.net").getPriority());
+
+        cache.evict("vnexpress.net");
+        assertNull(cache.get("vnexpress.net"));
+    }
+
+    @Test
+    public void testBoundedSizeFallsBackToLookups() {
+        config.setMaxSize(1);
+        when(domainRepository.findAll()).thenReturn(List.of(domain("vnexpress.net", 1), domain("dantri.com.vn", 1)));
+        when(domainRepository.findByDomain(anyString())).thenReturn(Optional.empty());
+        DomainCache cache = new DomainCache(domainRepository, config, frontierMetrics);
+        cache.preload();
+
+        assertEquals(1, cache.size());
+        assertFalse(cache.isComplete());
+        assertNull(cache.get("unknown.com"));
+        verify(domainRepository).findByDomain("unknown.com");
+    }
+}
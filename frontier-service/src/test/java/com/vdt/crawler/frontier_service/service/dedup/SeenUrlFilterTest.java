@@ -0,0 +1,75 @@
+package com.vdt.crawler.frontier_service.service.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeenUrlFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testQueuedSetAddRemove() {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        for (long i = 0; i < 10000; i++) {
+            assertTrue(set.add(i * 31));
+        }
+        assertFalse(set.add(0));
+        assertEquals(10000, set.size());
+
+        for (long i = 0; i < 10000; i += 2) {
+            assertTrue(set.remove(i * 31));
+        }
+        assertEquals(5000, set.size());
+        for (long i = 0; i < 10000; i++) {
+            assertEquals(i % 2 == 1, set.contains(i * 31));
+        }
+    }
+
+    @Test
+    public void testBloomFilterGrowsWithinTargetFpp() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10000, 0.01);
+        for (int i = 0; i < 100000; i++) {
+            filter.put(SeenUrlFilter.fingerprint("https://vnexpress.net/page-" + i));
+        }
+        assertTrue(filter.sliceCount() > 1);
+
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(filter.mightContain(SeenUrlFilter.fingerprint("https://vnexpress.net/page-" + i)));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain(SeenUrlFilter.fingerprint("https://dantri.com.vn/page-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1000, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFpp() < 0.01);
+    }
+
+    @Test
+    public void testPersistAndRestore() throws Exception {
+        SeenUrlFilter filter = new SeenUrlFilter(1000, 0.01);
+        for (int i = 0; i < 5000; i++) {
+            filter.markSeen(SeenUrlFilter.fingerprint("https://thanhnien.vn/" + i));
+        }
+        filter.markQueued(SeenUrlFilter.fingerprint("https://thanhnien.vn/0"));
+
+        Path file = tempDir.resolve("seen-filter.dat");
+        filter.writeTo(file);
+
+        SeenUrlFilter restored = new SeenUrlFilter(1000, 0.01);
+        assertTrue(restored.readFrom(file));
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(restored.wasSeen(SeenUrlFilter.fingerprint("https://thanhnien.vn/" + i)));
+        }
+        assertEquals(filter.seenCount(), restored.seenCount());
+        assertEquals(0, restored.queuedCount());
+        assertFalse(restored.readFrom(tempDir.resolve("missing.dat")));
+    }
+}
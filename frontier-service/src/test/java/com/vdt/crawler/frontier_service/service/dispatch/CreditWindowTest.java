@@ -0,0 +1,49 @@
+package com.vdt.crawler.frontier_service.service.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreditWindowTest {
+
+    @Test
+    public void testWindowGrowsWhileFetchersKeepUp() {
+        CreditWindow window = new CreditWindow(50, 10, 1000, 20, 0.5);
+        long now = 0;
+        for (int tick = 0; tick < 10; tick++) {
+            int credits = window.acquire(0);
+            window.dispatched(credits, credits, now += 1000);
+        }
+        assertEquals(50 + 9 * 20, window.getWindow());
+        assertTrue(window.getDispatchRate() > 0);
+    }
+
+    @Test
+    public void testWindowDoesNotGrowWhenIdle() {
+        CreditWindow window = new CreditWindow(50, 10, 1000, 20, 0.5);
+        for (int tick = 0; tick < 10; tick++) {
+            int credits = window.acquire(0);
+            window.dispatched(credits, 0, tick * 1000L);
+        }
+        assertEquals(50, window.getWindow());
+    }
+
+    @Test
+    public void testWindowShrinksWhenFetchersFallBehind() {
+        CreditWindow window = new CreditWindow(100, 10, 1000, 20, 0.5);
+        assertEquals(40, window.acquire(60));
+        window.dispatched(40, 40, 1000);
+
+        // backlog above the window and still growing
+        assertEquals(0, window.acquire(150));
+        assertEquals(50, window.getWindow());
+        assertEquals(0, window.acquire(160));
+        assertEquals(25, window.getWindow());
+        assertEquals(0, window.acquire(170));
+        assertEquals(12, window.getWindow());
+
+        // unknown lag keeps the window and grants the minimum
+        assertEquals(10, window.acquire(-1));
+        assertEquals(12, window.getWindow());
+    }
+}
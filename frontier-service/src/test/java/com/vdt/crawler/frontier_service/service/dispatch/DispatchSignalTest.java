@@ -0,0 +1,52 @@
+package com.vdt.crawler.frontier_service.service.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DispatchSignalTest {
+
+    @Test
+    public void testSignalBeforeWaitIsKept() throws InterruptedException {
+        DispatchSignal signal = new DispatchSignal();
+        signal.signal();
+        signal.signal();
+
+        assertTrue(signal.await(0));
+        // Both signals were consumed by the first wait
+        assertFalse(signal.await(10));
+    }
+
+    @Test
+    public void testWaitTimesOut() throws InterruptedException {
+        DispatchSignal signal = new DispatchSignal();
+        long start = System.nanoTime();
+        assertFalse(signal.await(50));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testSignalWakesWaiter() throws InterruptedException {
+        DispatchSignal signal = new DispatchSignal();
+        AtomicBoolean woken = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                woken.set(signal.await(10_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        waiter.start();
+
+        Thread.sleep(20);
+        signal.signal();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertTrue(woken.get());
+    }
+}
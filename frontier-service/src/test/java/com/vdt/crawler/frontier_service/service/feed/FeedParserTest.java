@@ -0,0 +1,126 @@
+package com.vdt.crawler.frontier_service.service.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeedParserTest {
+
+    private static final String RSS = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rss version="2.0" xmlns:atom="http://www.w3.org/2005/Atom">
+              <channel>
+                <title>VnExpress</title>
+                <link>https://vnexpress.net</link>
+                <atom:link href="https://vnexpress.net/rss/tin-moi-nhat.rss" rel="self"/>
+                <item>
+                  <title>A</title>
+                  <link><![CDATA[ https://vnexpress.net/a.html ]]></link>
+                  <pubDate>Sat, 17 Oct 2026 08:30:00 +0700</pubDate>
+                </item>
+                <item>
+                  <guid isPermaLink="true">https://vnexpress.net/b.html</guid>
+                </item>
+                <item>
+                  <guid isPermaLink="false">tag:vnexpress.net,2026:c</guid>
+                </item>
+              </channel>
+            </rss>
+            """;
+
+    private static final String ATOM = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <feed xmlns="http://www.w3.org/2005/Atom">
+              <link href="https://tuoitre.vn/" rel="alternate"/>
+              <entry>
+                <link href="https://tuoitre.vn/a.htm" rel="enclosure"/>
+                <link href="https://tuoitre.vn/a.html"/>
+                <source><link href="https://other.vn/"/></source>
+                <updated>2026-10-17T02:00:00Z</updated>
+                <published>2026-10-17T01:00:00Z</published>
+              </entry>
+              <entry>
+                <link href="https://tuoitre.vn/b.html" rel="alternate"/>
+                <updated>2026-10-16T23:00:00Z</updated>
+              </entry>
+            </feed>
+            """;
+
+    private static final String RDF = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                     xmlns="http://purl.org/rss/1.0/" xmlns:dc="http://purl.org/dc/elements/1.1/">
+              <item rdf:about="https://dantri.com.vn/a.htm">
+                <link>https://dantri.com.vn/a.htm</link>
+                <dc:date>2026-10-17T08:30:00+07:00</dc:date>
+              </item>
+            </rdf:RDF>
+            """;
+
+    @Test
+    public void testRss() throws IOException {
+        Entries entries = parse(RSS);
+
+        assertEquals(List.of("https://vnexpress.net/a.html", "https://vnexpress.net/b.html"), entries.links);
+        assertEquals(Instant.parse("2026-10-17T01:30:00Z"), entries.dates.get(0));
+        assertNull(entries.dates.get(1));
+    }
+
+    @Test
+    public void testAtom() throws IOException {
+        Entries entries = parse(ATOM);
+
+        assertEquals(List.of("https://tuoitre.vn/a.html", "https://tuoitre.vn/b.html"), entries.links);
+        assertEquals(Instant.parse("2026-10-17T01:00:00Z"), entries.dates.get(0));
+        assertEquals(Instant.parse("2026-10-16T23:00:00Z"), entries.dates.get(1));
+    }
+
+    @Test
+    public void testRdf() throws IOException {
+        Entries entries = parse(RDF);
+
+        assertEquals(List.of("https://dantri.com.vn/a.htm"), entries.links);
+        assertEquals(Instant.parse("2026-10-17T01:30:00Z"), entries.dates.get(0));
+    }
+
+    @Test
+    public void testSizeLimit() {
+        byte[] feed = RSS.getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () ->
+                FeedParser.parse(new ByteArrayInputStream(feed), feed.length / 2, (link, published) -> { }));
+    }
+
+    @Test
+    public void testParseDate() {
+        assertEquals(Instant.parse("2026-10-17T08:30:00Z"), FeedParser.parseDate("Sat, 17 Oct 2026 08:30:00 GMT"));
+        assertEquals(Instant.parse("2026-10-17T01:30:00Z"), FeedParser.parseDate("17 Oct 2026 08:30:00 +0700"));
+        assertEquals(Instant.parse("2026-10-17T00:00:00Z"), FeedParser.parseDate("2026-10-17"));
+        assertNull(FeedParser.parseDate("hôm nay"));
+        assertNull(FeedParser.parseDate(""));
+    }
+
+    private static Entries parse(String feed) throws IOException {
+        Entries entries = new Entries();
+        FeedParser.parse(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)), 1 << 20, entries);
+        return entries;
+    }
+
+    private static final class Entries implements FeedParser.Listener {
+        final List<String> links = new ArrayList<>();
+        final List<Instant> dates = new ArrayList<>();
+
+        @Override
+        public void entry(String link, Instant published) {
+            links.add(link);
+            dates.add(published);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.vdt.crawler.frontier_service.service.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeedPollerTest {
+
+    private static final long MIN = 15_000;
+    private static final long MAX = 1_800_000;
+
+    @Test
+    public void testFeedLinksOfHomePage() {
+        String head = """
+                <head>
+                  <link rel="stylesheet" href="/style.css">
+                  <LINK REL="alternate" TYPE="application/rss+xml" HREF="/rss/tin-moi-nhat.rss">
+                  <link rel='alternate' type='application/atom+xml' href='https://feeds.vnexpress.net/atom?a=1&amp;b=2'/>
+                  <link rel="alternate" hreflang="en" href="https://e.vnexpress.net/">
+                  <link rel="alternate" type="application/rss+xml" href="/rss/tin-moi-nhat.rss">
+                </head>
+                """;
+
+        assertEquals(List.of("https://vnexpress.net/rss/tin-moi-nhat.rss", "https://feeds.vnexpress.net/atom?a=1&b=2"),
+                FeedPoller.feedLinksOf(head, "https://vnexpress.net/"));
+    }
+
+    @Test
+    public void testCadence() {
+        assertEquals(0, FeedPoller.cadenceOf(List.of(1_000L)));
+        assertEquals(600_000, FeedPoller.cadenceOf(List.of(1_200_000L, 0L, 600_000L)));
+    }
+
+    @Test
+    public void testIntervalFollowsCadence() {
+        // A feed publishing every 10 minutes is polled every 5 minutes while it changes
+        assertEquals(300_000, FeedPoller.nextInterval(MIN, 600_000, true, MIN, MAX));
+        // then less often while it does not, up to its cadence
+        assertEquals(450_000, FeedPoller.nextInterval(300_000, 600_000, false, MIN, MAX));
+        assertEquals(600_000, FeedPoller.nextInterval(450_000, 600_000, false, MIN, MAX));
+        assertEquals(600_000, FeedPoller.nextInterval(600_000, 600_000, false, MIN, MAX));
+    }
+
+    @Test
+    public void testIntervalBounds() {
+        assertEquals(MIN, FeedPoller.nextInterval(MIN, 1_000, true, MIN, MAX));
+        assertEquals(MAX, FeedPoller.nextInterval(MAX, 0, false, MIN, MAX));
+        // Without a cadence the interval halves on change
+        assertEquals(100_000, FeedPoller.nextInterval(200_000, 0, true, MIN, MAX));
+    }
+}
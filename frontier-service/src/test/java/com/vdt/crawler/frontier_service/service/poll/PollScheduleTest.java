@@ -0,0 +1,54 @@
+package com.vdt.crawler.frontier_service.service.poll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PollScheduleTest {
+
+    private static final class Polled extends PollSchedule.Target {
+        Polled(String url, String domain) {
+            super(url, domain);
+        }
+    }
+
+    @Test
+    public void testDomainCap() {
+        PollSchedule<Polled> schedule = new PollSchedule<>(100, 64, 2, 1, 0);
+
+        assertTrue(schedule.add(new Polled("https://a.vn/1.xml", "a.vn"), 0));
+        assertFalse(schedule.add(new Polled("https://a.vn/1.xml", "a.vn"), 0));
+        assertTrue(schedule.add(new Polled("https://a.vn/2.xml", "a.vn"), 0));
+        assertFalse(schedule.add(new Polled("https://a.vn/3.xml", "a.vn"), 0));
+        assertTrue(schedule.add(new Polled("https://b.vn/1.xml", "b.vn"), 0));
+        assertEquals(2, schedule.countOf("a.vn"));
+
+        assertTrue(schedule.remove(schedule.get("https://a.vn/1.xml")));
+        assertEquals(1, schedule.countOf("a.vn"));
+        assertTrue(schedule.add(new Polled("https://a.vn/3.xml", "a.vn"), 0));
+        assertEquals(3, schedule.size());
+    }
+
+    @Test
+    public void testDueOnceUntilRescheduled() {
+        PollSchedule<Polled> schedule = new PollSchedule<>(100, 64, 10, 1, 0);
+        Polled first = new Polled("https://a.vn/1.xml", "a.vn");
+        Polled second = new Polled("https://a.vn/2.xml", "a.vn");
+        schedule.add(first, 0);
+        schedule.add(second, 0);
+        schedule.schedule(second, 1000);
+
+        assertEquals(List.of(first), schedule.due(500));
+        assertEquals(List.of(), schedule.due(800));
+        // the replaced poll of second at 0 was skipped, the one at 1000 is kept
+        assertEquals(List.of(second), schedule.due(1200));
+
+        schedule.schedule(first, 1500);
+        schedule.remove(first);
+        assertEquals(List.of(), schedule.due(2000));
+        assertFalse(schedule.isPolled(first));
+        assertTrue(schedule.isPolled(second));
+    }
+}
@@ -0,0 +1,45 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncodedUrlTest {
+
+    @Test
+    public void testRoundTrip() {
+        String[] urls = {
+                "https://vnexpress.net/kinh-doanh",
+                "https://vnexpress.net",
+                "https://vnexpress.net?q=1",
+                "http://user@Dantri.com.vn:8080/tin-moi-nhat.htm#top",
+                "https://[2001:db8::1]:443/path",
+                "https://thanhnien.vn/chính-trị.htm",
+                "not-a-url"
+        };
+        for (String url : urls) {
+            assertEquals(url, EncodedUrl.of(url).toUrl());
+        }
+    }
+
+    @Test
+    public void testOriginSharedAndHostExtracted() {
+        EncodedUrl first = EncodedUrl.of("https://VnExpress.net/a");
+        EncodedUrl second = EncodedUrl.of("https://VnExpress.net/b");
+        assertEquals(first.getOriginId(), second.getOriginId());
+        assertEquals("vnexpress.net", first.getHost());
+        assertEquals("dantri.com.vn", EncodedUrl.of("http://user@dantri.com.vn:8080/x").getHost());
+        assertEquals("[2001:db8::1]", EncodedUrl.of("https://[2001:db8::1]:443/path").getHost());
+        assertEquals(EncodedUrl.of("https://vnexpress.net/a"), EncodedUrl.of("https://vnexpress.net/a"));
+    }
+
+    @Test
+    public void testInlineOriginPastTableCap() {
+        String url = "http://user@Dantri.com.vn:8080/tin-moi-nhat.htm#top";
+        EncodedUrl inline = EncodedUrl.inline(url);
+        assertEquals(url, inline.toUrl());
+        assertEquals("dantri.com.vn", inline.getHost());
+        assertEquals("", EncodedUrl.inline("not-a-url").getHost());
+        assertTrue(EncodedUrl.originCount() <= EncodedUrl.MAX_ORIGINS);
+    }
+}
@@ -0,0 +1,103 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HostBackQueuesTest {
+
+    @Test
+    public void testCrawlDelayEnforcedPerHost() {
+        HostBackQueues queues = new HostBackQueues(100);
+        queues.offer("a.vn", "https://a.vn/1", 1000);
+        queues.offer("a.vn", "https://a.vn/2", 1000);
+        queues.offer("b.vn", "https://b.vn/1", 5000);
+
+        long now = 10_000;
+        assertNotNull(queues.poll(now));
+        assertNotNull(queues.poll(now));
+        // both hosts were just served, nothing is ready until a.vn's delay is over
+        assertNull(queues.poll(now + 999));
+        assertEquals(now + 1000, queues.nextReadyAt());
+        assertEquals("https://a.vn/2", queues.poll(now + 1000));
+        assertTrue(queues.isEmpty());
+        assertEquals(-1, queues.nextReadyAt());
+    }
+
+    @Test
+    public void testBusyHostDoesNotBlockOthers() {
+        HostBackQueues queues = new HostBackQueues(100);
+        for (int i = 0; i < 50; i++) {
+            queues.offer("busy.vn", "https://busy.vn/" + i, 60_000);
+        }
+        queues.offer("quiet.vn", "https://quiet.vn/1", 60_000);
+
+        long now = 10_000;
+        String first = queues.poll(now);
+        String second = queues.poll(now);
+        assertNotEquals(first, second);
+        assertTrue(first.contains("quiet.vn") || second.contains("quiet.vn"));
+        assertNull(queues.poll(now));
+        assertEquals(1, queues.sizes().size());
+        assertEquals(49, queues.sizes().get("busy.vn"));
+    }
+
+    @Test
+    public void testPolitenessSurvivesEmptyQueueUntilPurged() {
+        HostBackQueues queues = new HostBackQueues(100);
+        queues.offer("a.vn", "https://a.vn/1", 1000);
+        assertNotNull(queues.poll(0));
+
+        queues.offer("a.vn", "https://a.vn/2", 1000);
+        assertNull(queues.poll(500));
+
+        assertEquals(0, queues.purgeIdleHosts(500));
+        assertNotNull(queues.poll(1000));
+        assertEquals(1, queues.purgeIdleHosts(2000));
+    }
+
+    @Test
+    public void testPurgeReportsForgottenHosts() {
+        HostBackQueues queues = new HostBackQueues(100);
+        queues.offer("a.vn", "https://a.vn/1", 1000);
+        queues.offer("b.vn", "https://b.vn/1", 1000);
+        assertNotNull(queues.poll(0));
+
+        List<String> purged = new ArrayList<>();
+        assertEquals(0, queues.purgeIdleHosts(500, purged::add));
+        assertEquals(1, queues.purgeIdleHosts(2000, purged::add));
+        assertEquals(1, purged.size());
+        assertEquals(1, queues.hostSize(purged.get(0).equals("a.vn") ? "b.vn" : "a.vn"));
+    }
+
+    @Test
+    public void testCountersFollowQueues() {
+        HostBackQueues queues = new HostBackQueues(100);
+        assertEquals(-1, queues.nextReadyAt());
+        assertEquals(0, queues.oldestReadyAgeMillis(5000));
+
+        queues.offer("a.vn", "https://a.vn/1", 1000);
+        queues.offer("a.vn", "https://a.vn/2", 1000);
+        queues.offer("b.vn", "https://b.vn/1", 1000);
+        assertEquals(2, queues.activeHosts());
+        assertEquals(2, queues.hostSize("a.vn"));
+        assertEquals(0, queues.nextReadyAt());
+        // both hosts ready since 0, nobody served them yet
+        assertEquals(5000, queues.oldestReadyAgeMillis(5000));
+
+        assertNotNull(queues.poll(5000));
+        assertNotNull(queues.poll(5000));
+        assertEquals(1, queues.activeHosts());
+        assertEquals(1, queues.size());
+        assertEquals(6000, queues.nextReadyAt());
+        assertEquals(0, queues.oldestReadyAgeMillis(5500));
+
+        queues.clear();
+        assertEquals(0, queues.activeHosts());
+        assertEquals(0, queues.hostSize("a.vn"));
+        assertEquals(-1, queues.nextReadyAt());
+    }
+}
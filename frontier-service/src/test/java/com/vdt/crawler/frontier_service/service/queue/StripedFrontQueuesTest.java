@@ -0,0 +1,172 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedFrontQueuesTest {
+
+    private static final List<Integer> SCHEDULE = List.of(3, 3, 3, 3, 3, 2, 2, 2, 1);
+
+    @Test
+    public void testWeightedRoundRobinServesHigherPriorityMoreOften() {
+        StripedFrontQueues queues = new StripedFrontQueues(SCHEDULE, 10000);
+        for (int i = 0; i < 100; i++) {
+            queues.offer("high.vn", 3, new UrlWithTimestamp("https://high.vn/" + i, null));
+            queues.offer("mid.vn", 2, new UrlWithTimestamp("https://mid.vn/" + i, null));
+            queues.offer("low.vn", 1, new UrlWithTimestamp("https://low.vn/" + i, null));
+        }
+
+        int high = 0, mid = 0, low = 0;
+        for (int i = 0; i < SCHEDULE.size(); i++) {
+            String url = queues.poll().getUrl();
+            if (url.contains("high")) high++;
+            else if (url.contains("mid")) mid++;
+            else low++;
+        }
+
+        assertEquals(5, high);
+        assertEquals(3, mid);
+        assertEquals(1, low);
+    }
+
+    @Test
+    public void testHostsTakeTurnsWithinSubQueue() {
+        StripedFrontQueues queues = new StripedFrontQueues(List.of(1), 10000);
+        String other = sameSubQueueAs("a.vn");
+        Instant now = Instant.now();
+        queues.offer("a.vn", 1, new UrlWithTimestamp("https://a.vn/1", now));
+        queues.offer("a.vn", 1, new UrlWithTimestamp("https://a.vn/2", null));
+        queues.offer("a.vn", 1, new UrlWithTimestamp("https://a.vn/3", now.minusSeconds(60)));
+        queues.offer(other, 1, new UrlWithTimestamp("https://" + other + "/1", null));
+
+        // FIFO per host, whatever the last crawl time
+        assertEquals("https://a.vn/1", queues.poll().getUrl());
+        assertEquals("https://" + other + "/1", queues.poll().getUrl());
+        assertEquals("https://a.vn/2", queues.poll().getUrl());
+        assertEquals("https://a.vn/3", queues.poll().getUrl());
+        assertNull(queues.poll());
+    }
+
+    @Test
+    public void testFallbackWhenSubQueuesFull() {
+        StripedFrontQueues queues = new StripedFrontQueues(SCHEDULE, 1);
+
+        // 3 sub-queues of priority 3, then 3 of priority 2 and 3 of priority 1
+        for (int i = 0; i < 9; i++) {
+            assertTrue(queues.offer("a.vn", 3, new UrlWithTimestamp("https://a.vn/" + i, null)));
+        }
+        assertFalse(queues.offer("a.vn", 3, new UrlWithTimestamp("https://a.vn/dropped", null)));
+        assertEquals(9, queues.size());
+    }
+
+    @Test
+    public void testDrainSetsAsideRefusedHosts() {
+        StripedFrontQueues queues = new StripedFrontQueues(List.of(1), 10000);
+        String idle = sameSubQueueAs("busy.vn");
+        for (int i = 0; i < 100; i++) {
+            queues.offer("busy.vn", 1, new UrlWithTimestamp("https://busy.vn/" + i, null));
+        }
+        for (int i = 0; i < 5; i++) {
+            queues.offer(idle, 1, new UrlWithTimestamp("https://" + idle + "/" + i, null));
+        }
+
+        List<String> offered = new ArrayList<>();
+        int drained = queues.drain(100, item -> {
+            offered.add(item.getUrl());
+            return !item.getHost().equals("busy.vn");
+        });
+
+        // The busy host is asked once, the host behind it in the same sub-queue is not starved
+        assertEquals(5, drained);
+        assertEquals(6, offered.size());
+        assertEquals(100, queues.size());
+        assertEquals("https://busy.vn/0", queues.poll().getUrl());
+    }
+
+    // A host hashed to the same sub-queue as host
+    private static String sameSubQueueAs(String host) {
+        int subQueue = Math.abs(host.hashCode() % StripedFrontQueues.SUB_QUEUES);
+        for (int i = 0; ; i++) {
+            String other = "host" + i + ".vn";
+            if (Math.abs(other.hashCode() % StripedFrontQueues.SUB_QUEUES) == subQueue) {
+                return other;
+            }
+        }
+    }
+
+    @Test
+    public void testNoFallbackBelowLowestLevel() {
+        StripedFrontQueues queues = new StripedFrontQueues(SCHEDULE, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queues.offer("a.vn", 1, new UrlWithTimestamp("https://a.vn/" + i, null)));
+        }
+        // Level 0 is never polled, a full level 1 rejects the URL instead
+        assertFalse(queues.offer("a.vn", 1, new UrlWithTimestamp("https://a.vn/dropped", null)));
+        assertEquals(3, queues.size());
+    }
+
+    /**
+     * Every thread enqueues and dequeues in turn, no item may be lost or dequeued twice.
+     * Throughput is measured by StripedFrontQueuesBenchmark in the benchmarks module.
+     */
+    @Test
+    public void testConcurrentOfferPollLosesNothing() throws Exception {
+        int threads = 4;
+        int opsPerThread = 20_000;
+
+        StripedFrontQueues queues = new StripedFrontQueues(SCHEDULE, Integer.MAX_VALUE);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong dequeued = new AtomicLong();
+        List<Future<Set<String>>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int threadId = t;
+            results.add(executor.submit(() -> {
+                Set<String> seen = new HashSet<>();
+                start.await();
+                for (int i = 0; i < opsPerThread; i++) {
+                    String host = "host" + (i % 64) + ".vn";
+                    queues.offer(host, 1 + (i % 3), new UrlWithTimestamp("https://" + host + "/" + threadId + "/" + i, null));
+                    UrlWithTimestamp item = queues.poll();
+                    if (item != null) {
+                        seen.add(item.getUrl());
+                        dequeued.incrementAndGet();
+                    }
+                }
+                return seen;
+            }));
+        }
+
+        start.countDown();
+        Set<String> all = new HashSet<>();
+        for (Future<Set<String>> result : results) {
+            all.addAll(result.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Drain what is left, every URL must come out exactly once
+        UrlWithTimestamp item;
+        while ((item = queues.poll()) != null) {
+            assertTrue(all.add(item.getUrl()), "an item was dequeued twice");
+            dequeued.incrementAndGet();
+        }
+        assertEquals(dequeued.get(), all.size(), "an item was dequeued twice");
+        assertEquals((long) threads * opsPerThread, all.size(), "an item was lost");
+        assertEquals(0, queues.size());
+    }
+}
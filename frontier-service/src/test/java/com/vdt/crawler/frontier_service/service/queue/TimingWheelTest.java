@@ -0,0 +1,97 @@
+package com.vdt.crawler.frontier_service.service.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testReleasedAfterDueTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 2500);
+        wheel.schedule("b", 2999);
+        wheel.schedule("c", 4000);
+
+        List<String> released = new ArrayList<>();
+        wheel.advance(2999, released::add);
+        assertTrue(released.isEmpty());
+
+        wheel.advance(3000, released::add);
+        assertEquals(List.of("a", "b"), released);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(5000, released::add);
+        assertEquals(List.of("a", "b", "c"), released);
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testOverdueItemReleasedOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 10000);
+        wheel.schedule("late", 0);
+
+        List<String> released = new ArrayList<>();
+        wheel.advance(10999, released::add);
+        assertTrue(released.isEmpty());
+        wheel.advance(11000, released::add);
+        assertEquals(List.of("late"), released);
+    }
+
+    @Test
+    public void testFarItemsCascadeThroughLevels() {
+        // level 0 covers 8s, level 1 64s, level 2 512s
+        TimingWheel<Long> wheel = new TimingWheel<>(1000, 8, 0);
+        Random random = new Random(42);
+        Map<Long, Long> dueTimes = new HashMap<>();
+        for (long i = 0; i < 2000; i++) {
+            long dueAt = random.nextInt(1_000_000);
+            dueTimes.put(i, dueAt);
+            wheel.schedule(i, dueAt);
+        }
+
+        int released = 0;
+        for (long now = 0; now <= 1_001_000; now += 700) {
+            final long time = now;
+            List<Long> batch = new ArrayList<>();
+            wheel.advance(time, batch::add);
+            for (long item : batch) {
+                long dueAt = dueTimes.get(item);
+                // never early, at most one tick (plus the step of this loop) late
+                assertTrue(dueAt < time, "released early: " + dueAt + " at " + time);
+                assertTrue(time - dueAt <= 1700, "released late: " + dueAt + " at " + time);
+            }
+            released += batch.size();
+        }
+        assertEquals(2000, released);
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testSnapshotAndJumpWhenEmpty() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 0);
+        assertEquals(-1, wheel.nextDueAt());
+        wheel.advance(1_000_000_000L, item -> fail());
+
+        wheel.schedule("x", 1_000_050_000L);
+        wheel.schedule("y", 1_000_002_000L);
+        Map<String, Long> pending = new HashMap<>();
+        wheel.forEach(pending::put);
+        assertEquals(Map.of("x", 1_000_050_000L, "y", 1_000_002_000L), pending);
+        assertEquals(1_000_002_000L, wheel.nextDueAt());
+
+        List<String> released = new ArrayList<>();
+        wheel.advance(1_000_060_000L, released::add);
+        assertEquals(List.of("y", "x"), released);
+
+        wheel.schedule("z", 1_000_070_000L);
+        wheel.clear();
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,146 @@
+package com.vdt.crawler.frontier_service.service.retry;
+
+import com.vdt.crawler.frontier_service.config.RetryConfig;
+import com.vdt.crawler.frontier_service.config.ShardingConfig;
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.RetryUrlMessage;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.FrontierService;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import com.vdt.crawler.frontier_service.service.storage.FrontierStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RetrySchedulerTest {
+
+    @Mock
+    private FrontierService frontierService;
+
+    @Mock
+    private FrontierMetrics frontierMetrics;
+
+    private RetryConfig config;
+    private FrontierStore frontierStore;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        config = new RetryConfig();
+        config.setJitter(0);
+        frontierStore = new FrontierStore(Files.createTempDirectory("frontier"), 1024 * 1024);
+    }
+
+    private RetryScheduler scheduler() {
+        return new RetryScheduler(frontierService, config, new ShardRouter(new ShardingConfig(), null),
+                frontierStore, frontierMetrics);
+    }
+
+    @Test
+    public void testExponentialBackoff() {
+        RetryScheduler scheduler = scheduler();
+        Instant attempt = Instant.ofEpochMilli(1_000_000);
+
+        assertEquals(1_000_000 + 60_000, scheduler.dueAt(new RetryUrlMessage("https://vnexpress.net/a", 1, attempt, 500, null), 0));
+        assertEquals(1_000_000 + 240_000, scheduler.dueAt(new RetryUrlMessage("https://vnexpress.net/a", 3, attempt, 500, null), 0));
+        // capped
+        assertEquals(1_000_000 + config.getMaxDelayMs(),
+                scheduler.dueAt(new RetryUrlMessage("https://vnexpress.net/a", 40, attempt, 500, null), 0));
+    }
+
+    @Test
+    public void testRetryAfterHonoredForRateLimits() {
+        RetryScheduler scheduler = scheduler();
+        Instant attempt = Instant.ofEpochMilli(1_000_000);
+        Instant retryAfter = attempt.plusSeconds(10);
+
+        assertEquals(retryAfter.toEpochMilli(),
+                scheduler.dueAt(new RetryUrlMessage("https://vnexpress.net/a", 2, attempt, 429, retryAfter), 0));
+        assertEquals(retryAfter.toEpochMilli(),
+                scheduler.dueAt(new RetryUrlMessage("https://vnexpress.net/a", 2, attempt, 503, retryAfter), 0));
+        // only 429 and 503 carry a meaningful Retry-After
+        assertEquals(1_000_000 + 120_000,
+                scheduler.dueAt(new RetryUrlMessage("https://vnexpress.net/a", 2, attempt, 500, retryAfter), 0));
+    }
+
+    @Test
+    public void testPermanentFailuresAndLimitGivenUp() throws IOException {
+        RetryScheduler scheduler = scheduler();
+
+        assertFalse(scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/gone", 1, Instant.now(), 404, null)));
+        assertFalse(scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/a", 6, Instant.now(), 500, null)));
+        assertTrue(scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/a", 1, Instant.now(), 429, null)));
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    public void testDueRetriesReleasedInBulk() throws Exception {
+        when(frontierService.addBatchToFrontier(anyCollection(), eq(UrlOrigin.RETRY))).thenReturn(2);
+        RetryScheduler scheduler = scheduler();
+        Instant longAgo = Instant.now().minusSeconds(3600);
+
+        scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/a", 1, longAgo, 500, null));
+        scheduler.schedule(new RetryUrlMessage("https://dantri.com.vn/b", 1, longAgo, 503, null));
+        scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/later", 1, Instant.now(), 500, null));
+
+        // overdue retries leave the wheel on its next tick
+        Thread.sleep(config.getTickMs() + 100);
+        scheduler.release();
+
+        verify(frontierService).addBatchToFrontier(
+                List.of("https://vnexpress.net/a", "https://dantri.com.vn/b"), UrlOrigin.RETRY);
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    public void testPendingRetriesSurviveRestart() throws IOException {
+        RetryScheduler scheduler = scheduler();
+        scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/a", 2, Instant.now(), 500, null));
+        scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/b", 1, Instant.now(), 503, null));
+        scheduler.checkpoint();
+
+        RetryScheduler restarted = scheduler();
+        restarted.recover();
+        assertEquals(2, restarted.size());
+    }
+
+    @Test
+    public void testJournaledRetriesSurviveCrash() throws IOException {
+        RetryScheduler scheduler = scheduler();
+        scheduler.recover();
+        scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/a", 2, Instant.now(), 500, null));
+        scheduler.checkpoint();
+        // scheduled after the last checkpoint
+        scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/b", 1, Instant.now(), 503, null));
+        scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/a", 3, Instant.now(), 500, null));
+        scheduler.sync();
+
+        RetryScheduler restarted = scheduler();
+        restarted.recover();
+        assertEquals(2, restarted.size());
+    }
+
+    @Test
+    public void testFailedReleasePutBackOnWheel() throws Exception {
+        when(frontierService.addBatchToFrontier(anyCollection(), eq(UrlOrigin.RETRY)))
+                .thenThrow(new IllegalStateException("frontier unavailable"));
+        RetryScheduler scheduler = scheduler();
+        scheduler.schedule(new RetryUrlMessage("https://vnexpress.net/a", 1, Instant.now().minusSeconds(3600), 500, null));
+
+        Thread.sleep(config.getTickMs() + 100);
+        scheduler.release();
+
+        verify(frontierService).addBatchToFrontier(List.of("https://vnexpress.net/a"), UrlOrigin.RETRY);
+        assertEquals(1, scheduler.size());
+    }
+}
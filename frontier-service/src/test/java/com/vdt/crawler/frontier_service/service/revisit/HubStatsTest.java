@@ -0,0 +1,77 @@
+package com.vdt.crawler.frontier_service.service.revisit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HubStatsTest {
+
+    private static final long MINUTE = 60_000;
+
+    private static HubStats visited(int visits, int changes, long interval) {
+        HubStats stats = new HubStats();
+        long now = interval;
+        stats.visit(now, 100);
+        for (int i = 0; i < visits; i++) {
+            stats.observe(i < changes);
+            now += interval;
+            stats.visit(now, 100);
+        }
+        return stats;
+    }
+
+    @Test
+    public void testUnknownUntilFirstObservedVisit() {
+        HubStats stats = new HubStats();
+        assertTrue(Double.isNaN(stats.changeRate()));
+
+        // the first visit has no previous one to compare with
+        stats.observe(true);
+        stats.visit(MINUTE, 20);
+        assertTrue(Double.isNaN(stats.changeRate()));
+
+        // a visit whose outcome never came back is not counted
+        stats.visit(2 * MINUTE, 20);
+        assertTrue(Double.isNaN(stats.changeRate()));
+    }
+
+    @Test
+    public void testFastChangingHubRevisitedSooner() {
+        HubStats busy = visited(10, 10, 20 * MINUTE);
+        HubStats quiet = visited(10, 2, 20 * MINUTE);
+
+        assertTrue(busy.changeRate() > quiet.changeRate());
+        assertTrue(busy.intervalFor(0.5) < 20 * MINUTE);
+        assertTrue(quiet.intervalFor(0.5) > 20 * MINUTE);
+    }
+
+    @Test
+    public void testStaticHubNeverDue() {
+        HubStats stats = visited(5, 0, 20 * MINUTE);
+        assertEquals(0.0, stats.changeRate());
+        assertEquals(Double.POSITIVE_INFINITY, stats.intervalFor(0.5));
+    }
+
+    @Test
+    public void testHistoryFadesOut() {
+        HubStats stats = new HubStats();
+        long now = MINUTE;
+        stats.visit(now, 10);
+        for (int i = 0; i < 50; i++) {
+            stats.observe(false);
+            now += MINUTE;
+            stats.visit(now, 10);
+        }
+        assertEquals(10, stats.getVisits(), 1e-9);
+
+        // the hub started changing on every visit, the old quiet visits weigh less and less
+        double before = stats.changeRate();
+        for (int i = 0; i < 10; i++) {
+            stats.observe(true);
+            now += MINUTE;
+            stats.visit(now, 10);
+        }
+        assertTrue(stats.changeRate() > before);
+        assertTrue(stats.getChanges() > 5);
+    }
+}
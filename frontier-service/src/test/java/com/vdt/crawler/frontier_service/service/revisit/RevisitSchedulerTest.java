@@ -0,0 +1,47 @@
+package com.vdt.crawler.frontier_service.service.revisit;
+
+import com.vdt.crawler.frontier_service.model.Domain;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RevisitSchedulerTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    public void testNextSlotFallsOnPhase() {
+        long interval = 20 * MINUTE;
+        long now = 1_000 * interval + 7 * MINUTE;
+
+        assertEquals(1_000 * interval + 12 * MINUTE, RevisitScheduler.nextSlot(now, 12 * MINUTE, interval));
+        // a phase already passed in this period is taken in the next one
+        assertEquals(1_001 * interval + 3 * MINUTE, RevisitScheduler.nextSlot(now, 3 * MINUTE, interval));
+        assertEquals(now, RevisitScheduler.nextSlot(now, 7 * MINUTE, interval));
+    }
+
+    @Test
+    public void testPhaseOfDomain() {
+        Domain fixed = Domain.builder().domain("vnexpress.net").crawlPhaseMs(5 * MINUTE).build();
+        assertEquals(5 * MINUTE, RevisitScheduler.phaseOf(fixed));
+
+        Domain derived = Domain.builder().domain("vnexpress.net").build();
+        assertEquals(RevisitScheduler.phaseOf(derived), RevisitScheduler.phaseOf(derived));
+        assertTrue(RevisitScheduler.phaseOf(derived) >= 0);
+    }
+
+    @Test
+    public void testDerivedPhasesAreSpread() {
+        long interval = 20 * MINUTE;
+        int[] slots = new int[20];
+        for (int i = 0; i < 2000; i++) {
+            Domain domain = Domain.builder().domain("news-" + i + ".example.vn").build();
+            long slot = RevisitScheduler.nextSlot(0, RevisitScheduler.phaseOf(domain), interval);
+            slots[(int) (slot / MINUTE)]++;
+        }
+        // 100 domains per minute on average, none of the minutes gets a burst
+        for (int count : slots) {
+            assertTrue(count > 50 && count < 150, "domains in one minute: " + count);
+        }
+    }
+}
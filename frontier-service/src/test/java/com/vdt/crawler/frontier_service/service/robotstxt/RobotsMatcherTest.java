@@ -0,0 +1,89 @@
+package com.vdt.crawler.frontier_service.service.robotstxt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotsMatcherTest {
+
+    private static final int ALLOWED = HostDirectives.ALLOWED;
+    private static final int DISALLOWED = HostDirectives.DISALLOWED;
+    private static final int UNDEFINED = HostDirectives.UNDEFINED;
+
+    @Test
+    public void testLongestMatchWins() {
+        RobotsMatcher matcher = RobotsMatcher.builder()
+                .add(DISALLOWED, "/")
+                .add(ALLOWED, "/tin-tuc")
+                .add(DISALLOWED, "/tin-tuc/private")
+                .build();
+
+        assertEquals(DISALLOWED, matcher.check("/admin"));
+        assertEquals(ALLOWED, matcher.check("/tin-tuc/the-gioi.html"));
+        assertEquals(DISALLOWED, matcher.check("/tin-tuc/private/1"));
+        assertEquals(UNDEFINED, matcher.check(""));
+    }
+
+    @Test
+    public void testAllowWinsTie() {
+        RobotsMatcher matcher = RobotsMatcher.builder()
+                .add(DISALLOWED, "/page")
+                .add(ALLOWED, "/page")
+                .add(DISALLOWED, "/*.php")
+                .add(ALLOWED, "/a*.php")
+                .build();
+
+        assertEquals(ALLOWED, matcher.check("/page/1"));
+        assertEquals(ALLOWED, matcher.check("/a.php"));
+        assertEquals(DISALLOWED, matcher.check("/b.php"));
+    }
+
+    @Test
+    public void testWildcardsAndAnchors() {
+        RobotsMatcher matcher = RobotsMatcher.builder()
+                .add(DISALLOWED, "/*?utm_")
+                .add(DISALLOWED, "/*.pdf$")
+                .add(DISALLOWED, "/search$")
+                .add(ALLOWED, "/*/amp/*/index.html")
+                .add(DISALLOWED, "/news/")
+                .add(DISALLOWED, "")
+                .build();
+
+        assertEquals(DISALLOWED, matcher.check("/a?utm_source=x"));
+        assertEquals(DISALLOWED, matcher.check("/docs/report.pdf"));
+        assertEquals(UNDEFINED, matcher.check("/docs/report.pdf?download=1"));
+        assertEquals(DISALLOWED, matcher.check("/search"));
+        assertEquals(UNDEFINED, matcher.check("/search/more"));
+        assertEquals(ALLOWED, matcher.check("/news/amp/2024/index.html"));
+        assertEquals(DISALLOWED, matcher.check("/news/2024/index.html"));
+        // '*' may match an empty sequence
+        assertEquals(DISALLOWED, matcher.check("/.pdf"));
+    }
+
+    @Test
+    public void testEscapedWildcardIsLiteral() {
+        RobotsMatcher matcher = RobotsMatcher.builder()
+                .add(DISALLOWED, "/a\\*b")
+                .build();
+
+        assertEquals(DISALLOWED, matcher.check("/a*b/c"));
+        assertEquals(UNDEFINED, matcher.check("/axb"));
+    }
+
+    @Test
+    public void testParsedHostDirectives() {
+        String content = "User-agent: *\n"
+                + "Disallow: /\n"
+                + "Allow: /tin-tuc\n"
+                + "\n"
+                + "User-agent: llm-news-crawler\n"
+                + "Disallow: /private\n"
+                + "Disallow: /*?print=\n";
+        HostDirectives directives = RobotstxtParser.parse(content, new RobotstxtConfig());
+
+        // the group of our own user agent is the only one obeyed
+        assertTrue(directives.allows("/admin"));
+        assertFalse(directives.allows("/private/1"));
+        assertFalse(directives.allows("/tin-tuc/a.html?print=1"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.vdt.crawler.frontier_service.service.robotstxt;
+
+import com.vdt.crawler.frontier_service.metric.FrontierMetrics;
+import com.vdt.crawler.frontier_service.model.RobotstxtRecord;
+import com.vdt.crawler.frontier_service.repository.RobotstxtRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class RobotstxtServerTest {
+
+    @Mock
+    private PageFetcher pageFetcher;
+
+    @Mock
+    private RobotstxtRepository robotstxtRepository;
+
+    @Mock
+    private FrontierMetrics frontierMetrics;
+
+    private RobotstxtServer server;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        server = new RobotstxtServer(new RobotstxtConfig(), pageFetcher, frontierMetrics, robotstxtRepository);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    private static RobotstxtRecord record(String host, String content, Duration age) {
+        return new RobotstxtRecord(host, "https://" + host + "/robots.txt", 200, content, Instant.now().minus(age));
+    }
+
+    @Test
+    public void testPreloadedDirectivesAreUsedWithoutFetching() throws Exception {
+        when(robotstxtRepository.findByFetchedAtAfter(any(Instant.class)))
+                .thenReturn(List.of(record("vnexpress.net", "User-agent: *\nDisallow: /private/\n", Duration.ofHours(1))));
+
+        assertEquals(1, server.preload());
+        assertFalse(server.allows("https://vnexpress.net/private/1"));
+        assertTrue(server.allows("https://vnexpress.net/thoi-su/1.html"));
+        verify(pageFetcher, never()).fetchPage(anyString());
+    }
+
+    @Test
+    public void testMissLoadsStoredDirectives() throws Exception {
+        when(robotstxtRepository.findById("dantri.com.vn"))
+                .thenReturn(Optional.of(record("dantri.com.vn", "User-agent: *\nDisallow: /\n", Duration.ofHours(3))));
+
+        assertFalse(server.allows("https://dantri.com.vn/xa-hoi.htm"));
+        assertEquals(1, server.cacheSize());
+        verify(pageFetcher, never()).fetchPage(anyString());
+    }
+
+    @Test
+    public void testExpiringDirectivesAreRefreshed() throws Exception {
+        when(robotstxtRepository.findByFetchedAtAfter(any(Instant.class)))
+                .thenReturn(List.of(record("tuoitre.vn", "", Duration.ofHours(23))));
+        when(pageFetcher.fetchPage(anyString())).thenThrow(new SocketTimeoutException());
+        server.preload();
+
+        assertEquals(0, server.refreshExpiring(Duration.ofMinutes(30).toMillis()));
+        assertEquals(1, server.refreshExpiring(Duration.ofHours(2).toMillis()));
+        verify(pageFetcher, timeout(5000)).fetchPage("https://tuoitre.vn/robots.txt");
+    }
+}
@@ -0,0 +1,87 @@
+package com.vdt.crawler.frontier_service.service.scoring;
+
+import com.vdt.crawler.frontier_service.config.ScoringConfig;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.state.DomainState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WeightedUrlScorerTest {
+
+    private static final String ARTICLE = "https://vnexpress.net/gia-vang-hom-nay-tang-manh-4801234.html";
+    private static final String CATEGORY = "https://vnexpress.net/kinh-doanh";
+
+    private final WeightedUrlScorer scorer = new WeightedUrlScorer(new ScoringConfig());
+
+    @Test
+    public void testLikelyArticle() {
+        assertTrue(WeightedUrlScorer.isLikelyArticle(ARTICLE));
+        assertTrue(WeightedUrlScorer.isLikelyArticle("https://tuoitre.vn/mot-bai-viet-20261017083000123.htm"));
+        assertFalse(WeightedUrlScorer.isLikelyArticle(CATEGORY));
+        assertFalse(WeightedUrlScorer.isLikelyArticle("https://vnexpress.net/rss/tin-moi-nhat-4801234.html"));
+        assertFalse(WeightedUrlScorer.isLikelyArticle("https://vnexpress.net/anh-4801234.jpg"));
+        // Only path and query are matched, not the host
+        assertTrue(WeightedUrlScorer.isLikelyArticle("https://capital.vn/tin-tuc-4801234.html"));
+    }
+
+    @Test
+    public void testFreshArticleOfHubRanksAboveCategoryLink() {
+        DomainState domain = domainOfPriority(2);
+        long now = System.currentTimeMillis();
+
+        double article = scorer.score(ARTICLE, domain, new Discovery(UrlOrigin.DISCOVERED, 1, now, 0.8));
+        double category = scorer.score(CATEGORY, domain, new Discovery(UrlOrigin.DISCOVERED, 1, now, 0.8));
+        double staleArticle = scorer.score(ARTICLE, domain,
+                new Discovery(UrlOrigin.DISCOVERED, Discovery.UNKNOWN_DEPTH, now - 3_600_000, 0));
+
+        assertTrue(article > staleArticle);
+        assertTrue(staleArticle > category);
+    }
+
+    @Test
+    public void testDomainPriority() {
+        Discovery discovery = Discovery.of(UrlOrigin.DISCOVERED);
+
+        assertTrue(scorer.score(ARTICLE, domainOfPriority(3), discovery)
+                > scorer.score(ARTICLE, domainOfPriority(1), discovery));
+        // Priorities past the maximum score as the maximum
+        assertEquals(scorer.score(ARTICLE, domainOfPriority(3), discovery),
+                scorer.score(ARTICLE, domainOfPriority(9), discovery), 1e-3);
+    }
+
+    @Test
+    public void testSitemapAndFeedArticlesScoreHighest() {
+        DomainState domain = domainOfPriority(1);
+
+        assertEquals(1, scorer.score(CATEGORY, domain, Discovery.of(UrlOrigin.SITEMAP)), 0.0);
+        assertEquals(1, scorer.score(CATEGORY, domain, Discovery.of(UrlOrigin.FEED)), 0.0);
+    }
+
+    @Test
+    public void testScoreRange() {
+        ScoringConfig config = new ScoringConfig();
+        config.setDomainWeight(0);
+        config.setArticleWeight(0);
+        config.setDepthWeight(0);
+        config.setHubWeight(0);
+        WeightedUrlScorer recencyOnly = new WeightedUrlScorer(config);
+        long now = System.currentTimeMillis();
+
+        assertEquals(1, recencyOnly.score(CATEGORY, domainOfPriority(1),
+                new Discovery(UrlOrigin.DISCOVERED, 0, now + 1000, 0)), 0.0);
+        assertEquals(0.5, recencyOnly.score(CATEGORY, domainOfPriority(1),
+                new Discovery(UrlOrigin.DISCOVERED, 0, now - config.getRecencyHalfLifeMs(), 0)), 0.01);
+
+        config.setRecencyWeight(0);
+        assertThrows(IllegalArgumentException.class, () -> new WeightedUrlScorer(config));
+    }
+
+    private static DomainState domainOfPriority(int priority) {
+        DomainState domain = mock(DomainState.class);
+        when(domain.getPriority()).thenReturn(priority);
+        return domain;
+    }
+}
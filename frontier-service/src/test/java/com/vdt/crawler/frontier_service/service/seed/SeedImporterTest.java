@@ -0,0 +1,64 @@
+package com.vdt.crawler.frontier_service.service.seed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vdt.crawler.frontier_service.config.ShardingConfig;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import com.vdt.crawler.frontier_service.service.FrontierService;
+import com.vdt.crawler.frontier_service.service.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SeedImporterTest {
+
+    @Mock
+    private FrontierService frontierService;
+
+    private SeedImporter seedImporter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        seedImporter = new SeedImporter(frontierService, new ObjectMapper(),
+                new ShardRouter(new ShardingConfig(), null));
+    }
+
+    @Test
+    public void testNdjsonAndPlainTextLines() throws Exception {
+        // every URL but the unknown host is accepted
+        when(frontierService.addBatchToFrontier(anyCollection(), eq(UrlOrigin.SEED)))
+                .thenAnswer(invocation -> invocation.<List<String>>getArgument(0).size() - 1);
+
+        String body = "https://vnexpress.net/thoi-su\n"
+                + "\"https://vnexpress.net/the-gioi\"\n"
+                + "{\"url\": \"https://vnexpress.net/kinh-doanh\"}\n"
+                + "\n"
+                + "# comment\n"
+                + "https://unknown.com/a\n"
+                + "not a url\n"
+                + "{\"broken\n";
+        SeedImportProgress progress = seedImporter.importSeeds(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(SeedImportProgress.Status.COMPLETED, progress.getStatus());
+        assertEquals(3, progress.getAccepted());
+        assertEquals(1, progress.getRejected());
+        assertEquals(8L, progress.toMap().get("lines"));
+        assertEquals(2L, progress.toMap().get("invalid"));
+        assertEquals(2L, progress.toMap().get("hosts"));
+
+        verify(frontierService).addBatchToFrontier(List.of("https://vnexpress.net/thoi-su",
+                "https://vnexpress.net/the-gioi", "https://vnexpress.net/kinh-doanh", "https://unknown.com/a"),
+                UrlOrigin.SEED);
+        assertEquals(1, seedImporter.getImports().size());
+    }
+}
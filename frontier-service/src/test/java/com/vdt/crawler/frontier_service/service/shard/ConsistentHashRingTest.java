@@ -0,0 +1,60 @@
+package com.vdt.crawler.frontier_service.service.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final int HOSTS = 30000;
+
+    private static String host(int i) {
+        return "site-" + i + ".vn";
+    }
+
+    @Test
+    public void testHostsSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < HOSTS; i++) {
+            counts.merge(ring.owner(host(i)), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            // within 20% of a third
+            assertTrue(Math.abs(count - HOSTS / 3) < HOSTS / 15, "unbalanced ring: " + counts);
+        }
+    }
+
+    @Test
+    public void testAddingNodeOnlyMovesItsHosts() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < HOSTS; i++) {
+            String owner = after.owner(host(i));
+            if (!owner.equals(before.owner(host(i)))) {
+                // hosts only move to the new node
+                assertEquals("d", owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > HOSTS / 6 && moved < HOSTS / 3, "moved " + moved);
+    }
+
+    @Test
+    public void testOwnerIsStable() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b"), 16);
+        ConsistentHashRing same = new ConsistentHashRing(List.of("b", "a"), 16);
+
+        assertEquals(ring.owner("vnexpress.net"), same.owner("vnexpress.net"));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 16));
+    }
+}
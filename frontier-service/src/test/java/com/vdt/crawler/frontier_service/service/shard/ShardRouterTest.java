@@ -0,0 +1,86 @@
+package com.vdt.crawler.frontier_service.service.shard;
+
+import com.vdt.crawler.frontier_service.config.ShardingConfig;
+import com.vdt.crawler.frontier_service.model.UrlOrigin;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardRouterTest {
+
+    private static ShardingConfig hashConfig(String nodeId) {
+        ShardingConfig config = new ShardingConfig();
+        config.setEnabled(true);
+        config.setMode(ShardingConfig.Mode.HASH);
+        config.setNodeId(nodeId);
+        List<ShardingConfig.Node> nodes = new ArrayList<>();
+        for (String id : List.of("frontier-0", "frontier-1", "frontier-2")) {
+            ShardingConfig.Node node = new ShardingConfig.Node();
+            node.setId(id);
+            node.setUrl("http://" + id + ":8091");
+            nodes.add(node);
+        }
+        config.setNodes(nodes);
+        return config;
+    }
+
+    @Test
+    public void testDisabledOwnsEverything() {
+        ShardRouter router = new ShardRouter(new ShardingConfig(), null);
+
+        assertTrue(router.owns("vnexpress.net"));
+        assertEquals("new_url_group", router.getNewUrlGroupId());
+        List<String> urls = List.of("https://vnexpress.net/a", "https://dantri.com.vn/b");
+        assertEquals(urls, router.route(urls, UrlOrigin.SEED));
+    }
+
+    @Test
+    public void testEveryHostHasExactlyOneOwner() {
+        List<ShardRouter> routers = List.of(
+                new ShardRouter(hashConfig("frontier-0"), null),
+                new ShardRouter(hashConfig("frontier-1"), null),
+                new ShardRouter(hashConfig("frontier-2"), null));
+
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            urls.add("https://site-" + i + ".vn/page/" + i);
+        }
+
+        int total = 0;
+        for (ShardRouter router : routers) {
+            List<String> owned = router.ownedOnly(urls);
+            assertFalse(owned.isEmpty());
+            total += owned.size();
+        }
+        assertEquals(urls.size(), total);
+        // the host decides, not the URL
+        ShardRouter router = routers.get(0);
+        assertEquals(router.ownedOnly(List.of("https://site-1.vn/a")).size(),
+                router.ownedOnly(List.of("https://SITE-1.vn/b?x=1")).size());
+    }
+
+    @Test
+    public void testHashModeGroupsPerNode() {
+        ShardRouter router = new ShardRouter(hashConfig("frontier-1"), null);
+
+        assertEquals("new_url_group-frontier-1", router.getNewUrlGroupId());
+        assertEquals("retry_url_group-frontier-1", router.getRetryUrlGroupId());
+        assertTrue(router.isReadByEveryNode());
+        assertFalse(new ShardRouter(new ShardingConfig(), null).isReadByEveryNode());
+        assertThrows(IllegalStateException.class, () -> new ShardRouter(hashConfig("frontier-9"), null));
+    }
+
+    @Test
+    public void testOriginHeader() {
+        assertEquals(UrlOrigin.DISCOVERED, ShardRouter.originOf(null));
+        assertEquals(UrlOrigin.SEED, ShardRouter.originOf(
+                new RecordHeader(ShardRouter.ORIGIN_HEADER, "SEED".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(UrlOrigin.DISCOVERED, ShardRouter.originOf(
+                new RecordHeader(ShardRouter.ORIGIN_HEADER, "bogus".getBytes(StandardCharsets.UTF_8))));
+    }
+}
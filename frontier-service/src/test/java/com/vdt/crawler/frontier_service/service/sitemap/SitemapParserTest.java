@@ -0,0 +1,146 @@
+package com.vdt.crawler.frontier_service.service.sitemap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SitemapParserTest {
+
+    private static final String NEWS_SITEMAP = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <urlset xmlns="http://www.sitemaps.org/schemas/sitemap/0.9"
+                    xmlns:news="http://www.google.com/schemas/sitemap-news/0.9"
+                    xmlns:image="http://www.google.com/schemas/sitemap-image/1.1">
+              <url>
+                <loc> https://vnexpress.net/the-gioi/a.html </loc>
+                <news:news>
+                  <news:publication_date>2026-10-17T08:30:00+07:00</news:publication_date>
+                  <news:title>A</news:title>
+                </news:news>
+                <image:image>
+                  <image:loc>https://cdn.vnexpress.net/a.jpg</image:loc>
+                </image:image>
+              </url>
+              <url>
+                <loc><![CDATA[https://vnexpress.net/kinh-doanh/b.html]]></loc>
+                <lastmod>2026-10-16</lastmod>
+              </url>
+              <url>
+                <lastmod>2026-10-16</lastmod>
+              </url>
+            </urlset>
+            """;
+
+    private static final String SITEMAP_INDEX = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <sitemapindex xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+              <sitemap>
+                <loc>https://vnexpress.net/sitemap-news.xml</loc>
+                <lastmod>2026-10-17T01:00:00Z</lastmod>
+              </sitemap>
+              <sitemap>
+                <loc>https://vnexpress.net/sitemap-2019.xml</loc>
+              </sitemap>
+            </sitemapindex>
+            """;
+
+    @Test
+    public void testNewsSitemap() throws IOException {
+        Entries entries = parse(stream(NEWS_SITEMAP.getBytes(StandardCharsets.UTF_8)), 1 << 20);
+
+        assertEquals(List.of("https://vnexpress.net/the-gioi/a.html", "https://vnexpress.net/kinh-doanh/b.html"),
+                entries.urls);
+        assertEquals(Instant.parse("2026-10-17T01:30:00Z"), entries.published.get(0));
+        assertNull(entries.lastModified.get(0));
+        assertNull(entries.published.get(1));
+        assertEquals(Instant.parse("2026-10-16T00:00:00Z"), entries.lastModified.get(1));
+        assertTrue(entries.sitemaps.isEmpty());
+    }
+
+    @Test
+    public void testSitemapIndex() throws IOException {
+        Entries entries = parse(stream(SITEMAP_INDEX.getBytes(StandardCharsets.UTF_8)), 1 << 20);
+
+        assertEquals(List.of("https://vnexpress.net/sitemap-news.xml", "https://vnexpress.net/sitemap-2019.xml"),
+                entries.sitemaps);
+        assertEquals(Instant.parse("2026-10-17T01:00:00Z"), entries.lastModified.get(0));
+        assertNull(entries.lastModified.get(1));
+        assertTrue(entries.urls.isEmpty());
+    }
+
+    @Test
+    public void testGzippedSitemap() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(NEWS_SITEMAP.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Entries entries = parse(stream(out.toByteArray()), 1 << 20);
+
+        assertEquals(2, entries.urls.size());
+    }
+
+    @Test
+    public void testSizeLimit() {
+        byte[] sitemap = NEWS_SITEMAP.getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> parse(stream(sitemap), sitemap.length / 2));
+    }
+
+    @Test
+    public void testMalformedSitemap() {
+        byte[] sitemap = "<urlset><url><loc>https://vnexpress.net/</url>".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> parse(stream(sitemap), 1 << 20));
+    }
+
+    @Test
+    public void testParseDate() {
+        assertEquals(Instant.parse("2026-10-17T00:00:00Z"), SitemapParser.parseDate("2026-10-17"));
+        assertEquals(Instant.parse("2026-10-17T08:30:00Z"), SitemapParser.parseDate("2026-10-17T08:30Z"));
+        assertEquals(Instant.parse("2026-10-17T01:30:15Z"), SitemapParser.parseDate(" 2026-10-17T08:30:15+07:00 "));
+        assertEquals(Instant.parse("2026-10-17T13:30:00Z"), SitemapParser.parseDate("2026-10-17T08:30:00-05:00"));
+        assertEquals(Instant.parse("2026-10-17T08:30:00Z"), SitemapParser.parseDate("2026-10-17T08:30:00"));
+        assertNull(SitemapParser.parseDate("yesterday"));
+    }
+
+    private static InputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static Entries parse(InputStream in, long maxBytes) throws IOException {
+        Entries entries = new Entries();
+        SitemapParser.parse(in, maxBytes, entries);
+        return entries;
+    }
+
+    private static final class Entries implements SitemapParser.Listener {
+        final List<String> urls = new ArrayList<>();
+        final List<String> sitemaps = new ArrayList<>();
+        final List<Instant> lastModified = new ArrayList<>();
+        final List<Instant> published = new ArrayList<>();
+
+        @Override
+        public void sitemap(String loc, Instant lastModified) {
+            sitemaps.add(loc);
+            this.lastModified.add(lastModified);
+        }
+
+        @Override
+        public void url(String loc, Instant lastModified, Instant published) {
+            urls.add(loc);
+            this.lastModified.add(lastModified);
+            this.published.add(published);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.vdt.crawler.frontier_service.service.state;
+
+import com.vdt.crawler.frontier_service.model.Domain;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainStateTest {
+
+    private static final Instant T0 = Instant.parse("2025-06-01T00:00:00Z");
+
+    private static Domain domain(long crawlCount, Instant lastCrawled) {
+        return Domain.builder()
+                .domain("vnexpress.net")
+                .priority(2)
+                .crawlCount(crawlCount)
+                .lastCrawled(lastCrawled)
+                .build();
+    }
+
+    @Test
+    public void testChangesAreDrainedOnce() {
+        DomainState state = new DomainState(domain(10, T0));
+        state.recordCrawls(5, T0.plusSeconds(60));
+        state.recordErrors(2);
+
+        assertEquals(15L, state.getCrawlCount());
+        assertEquals(T0.plusSeconds(60), state.getLastCrawled());
+
+        DomainState.Changes changes = state.drainChanges();
+        assertEquals(5L, changes.crawls());
+        assertEquals(2L, changes.errors());
+        assertEquals(T0.plusSeconds(60), changes.lastCrawled());
+        assertNull(changes.priority());
+
+        assertTrue(state.drainChanges().isEmpty());
+    }
+
+    @Test
+    public void testLastCrawledNeverMovesBack() {
+        DomainState state = new DomainState(domain(0, T0));
+        state.recordCrawls(0, T0.minusSeconds(60));
+
+        assertEquals(T0, state.getLastCrawled());
+        assertTrue(state.drainChanges().isEmpty());
+    }
+
+    @Test
+    public void testFailedWriteIsRestored() {
+        DomainState state = new DomainState(domain(0, null));
+        state.recordCrawls(3, T0);
+        state.setPriority(3);
+
+        DomainState.Changes changes = state.drainChanges();
+        state.recordCrawls(1, null);
+        state.restoreChanges(changes);
+
+        DomainState.Changes retried = state.drainChanges();
+        assertEquals(4L, retried.crawls());
+        assertEquals(T0, retried.lastCrawled());
+        assertEquals(Integer.valueOf(3), retried.priority());
+    }
+
+    @Test
+    public void testSyncKeepsPendingChanges() {
+        DomainState state = new DomainState(domain(10, T0));
+        state.recordCrawls(5, null);
+        state.setPriority(3);
+
+        // a refreshed document that does not have the pending changes yet
+        state.sync(domain(12, T0.plusSeconds(30)));
+
+        assertEquals(17L, state.getCrawlCount());
+        assertEquals(T0.plusSeconds(30), state.getLastCrawled());
+        assertEquals(3, state.getPriority());
+    }
+}
@@ -0,0 +1,133 @@
+package com.vdt.crawler.frontier_service.service.storage;
+
+import com.vdt.crawler.frontier_service.service.queue.UrlWithTimestamp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrontierStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testSpillIsFifoAcrossSegments() throws Exception {
+        // Tiny segments so that the queue rolls over many files
+        try (SpillQueue queue = new SpillQueue(dir, "test", 256)) {
+            for (int i = 0; i < 100; i++) {
+                queue.append(new UrlWithTimestamp("https://vnexpress.net/article-" + i, null));
+            }
+            assertEquals(100, queue.size());
+
+            List<UrlWithTimestamp> first = queue.poll(30);
+            assertEquals(30, first.size());
+            assertEquals("https://vnexpress.net/article-0", first.get(0).getUrl());
+
+            List<UrlWithTimestamp> rest = queue.poll(1000);
+            assertEquals(70, rest.size());
+            assertEquals("https://vnexpress.net/article-99", rest.get(69).getUrl());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void testCheckpointRecovery() throws Exception {
+        Instant lastCrawled = Instant.ofEpochMilli(1_700_000_000_000L);
+
+        try (FrontierStore store = new FrontierStore(dir, 1024)) {
+            for (int i = 0; i < 50; i++) {
+                store.spill(2, new UrlWithTimestamp("https://dantri.com.vn/spilled-" + i, lastCrawled));
+            }
+            assertEquals(10, store.pollSpilled(2, 10).size());
+
+            FrontierCheckpoint checkpoint = new FrontierCheckpoint();
+            checkpoint.addFrontItem(3, new UrlWithTimestamp("https://vnexpress.net/front", null));
+            checkpoint.addBackItems("thanhnien.vn", List.of("https://thanhnien.vn/back-1", "https://thanhnien.vn/back-2"));
+            store.captureSpillCursors(checkpoint);
+            store.writeCheckpoint(checkpoint);
+
+            // consumed after the checkpoint, past the end of a segment, must be served again after a crash
+            assertEquals(25, store.pollSpilled(2, 25).size());
+        }
+
+        try (FrontierStore store = new FrontierStore(dir, 1024)) {
+            FrontierCheckpoint recovered = store.readCheckpoint();
+            assertNotNull(recovered);
+            assertEquals(3, recovered.size());
+            assertEquals("https://vnexpress.net/front", recovered.getFrontItems().get(3).get(0).getUrl());
+            assertEquals(2, recovered.getBackItems().get("thanhnien.vn").size());
+
+            assertEquals(40, store.spilledSize());
+            List<UrlWithTimestamp> spilled = store.pollSpilled(2, 100);
+            assertEquals("https://dantri.com.vn/spilled-10", spilled.get(0).getUrl());
+            assertEquals(lastCrawled, spilled.get(0).getLastCrawled());
+        }
+    }
+
+    @Test
+    public void testDeferredQueuesPerDomain() throws Exception {
+        try (FrontierStore store = new FrontierStore(dir, 1024)) {
+            for (int i = 0; i < 5; i++) {
+                store.defer("vnexpress.net", 3, new UrlWithTimestamp("https://vnexpress.net/deferred-" + i, null));
+            }
+            for (int i = 0; i < 3; i++) {
+                store.defer("dantri.com.vn", 1, new UrlWithTimestamp("https://dantri.com.vn/deferred-" + i, null));
+            }
+            assertEquals(Set.of("vnexpress.net", "dantri.com.vn"), store.deferredDomains());
+            assertEquals(Set.of(3), store.deferredPriorities("vnexpress.net"));
+            assertEquals(8, store.deferredSize());
+            assertEquals(0, store.spilledSize());
+            assertEquals(2, store.pollDeferred("vnexpress.net", 3, 2).size());
+
+            FrontierCheckpoint checkpoint = new FrontierCheckpoint();
+            store.captureSpillCursors(checkpoint);
+            store.writeCheckpoint(checkpoint);
+        }
+
+        try (FrontierStore store = new FrontierStore(dir, 1024)) {
+            store.readCheckpoint();
+            assertEquals(6, store.deferredSize());
+            assertEquals("https://vnexpress.net/deferred-2",
+                    store.pollDeferred("vnexpress.net", 3, 1).get(0).getUrl());
+            assertEquals(3, store.pollDeferred("dantri.com.vn", 1, 10).size());
+
+            // Drained queues are deleted once a checkpoint passed their end
+            FrontierCheckpoint checkpoint = new FrontierCheckpoint();
+            store.captureSpillCursors(checkpoint);
+            store.writeCheckpoint(checkpoint);
+            store.pruneDeferred(checkpoint);
+            assertEquals(Set.of("vnexpress.net"), store.deferredDomains());
+        }
+
+        try (FrontierStore store = new FrontierStore(dir, 1024)) {
+            store.readCheckpoint();
+            assertEquals(2, store.deferredSize());
+            assertEquals(Set.of("vnexpress.net"), store.deferredDomains());
+        }
+    }
+
+    @Test
+    public void testCheckpointUrlsPastWriteUtfLimit() throws Exception {
+        String longUrl = "https://vnexpress.net/" + "a".repeat(70_000);
+
+        try (FrontierStore store = new FrontierStore(dir, 1024)) {
+            FrontierCheckpoint checkpoint = new FrontierCheckpoint();
+            checkpoint.addFrontItem(1, new UrlWithTimestamp(longUrl, null));
+            checkpoint.addBackItems("vnexpress.net", List.of(longUrl));
+            store.captureSpillCursors(checkpoint);
+            store.writeCheckpoint(checkpoint);
+        }
+
+        try (FrontierStore store = new FrontierStore(dir, 1024)) {
+            FrontierCheckpoint recovered = store.readCheckpoint();
+            assertEquals(longUrl, recovered.getFrontItems().get(1).get(0).getUrl());
+            assertEquals(longUrl, recovered.getBackItems().get("vnexpress.net").get(0));
+        }
+    }
+}
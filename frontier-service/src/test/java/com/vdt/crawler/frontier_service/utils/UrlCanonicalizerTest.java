@@ -0,0 +1,86 @@
+package com.vdt.crawler.frontier_service.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UrlCanonicalizerTest {
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer(
+            List.of("utm_*", "fbclid", "gclid"),
+            Map.of("vnexpress.net", List.of("ref", "vn_source*")),
+            true);
+
+    @Test
+    public void testVariantsOfOnePage() {
+        String canonical = "https://vnexpress.net/kinh-doanh/bai-viet-123.html?id=5&page=2";
+        List<String> variants = List.of(
+                "https://vnexpress.net/kinh-doanh/bai-viet-123.html?id=5&page=2",
+                "HTTPS://VnExpress.NET:443/kinh-doanh/bai-viet-123.html?page=2&id=5",
+                "https://vnexpress.net/kinh-doanh//./bai-viet-123.html?page=2&id=5#comments",
+                "https://vnexpress.net/the-thao/../kinh-doanh/bai-viet-123.html?id=5&page=2&utm_source=fb&fbclid=x1",
+                " https://vnexpress.net./kinh-doanh/bai-viet-123.html?id=5&&page=2&ref=home&vn_source_campaign=top ");
+        for (String variant : variants) {
+            assertEquals(canonical, canonicalizer.canonicalize(variant), variant);
+        }
+    }
+
+    @Test
+    public void testPath() {
+        assertEquals("http://dantri.com.vn/", canonicalizer.canonicalize("http://dantri.com.vn"));
+        assertEquals("http://dantri.com.vn/", canonicalizer.canonicalize("http://dantri.com.vn:80/?utm_medium=x"));
+        assertEquals("http://dantri.com.vn/the-thao", canonicalizer.canonicalize("http://dantri.com.vn/the-thao/"));
+        assertEquals("http://dantri.com.vn/", canonicalizer.canonicalize("http://dantri.com.vn/the-thao/.."));
+        assertEquals("http://dantri.com.vn/a/b", canonicalizer.canonicalize("http://dantri.com.vn/../a/./b/c/../"));
+        assertEquals("http://dantri.com.vn:8080/x", canonicalizer.canonicalize("http://dantri.com.vn:8080/x"));
+
+        UrlCanonicalizer keepSlash = new UrlCanonicalizer(List.of(), Map.of(), false);
+        assertEquals("http://dantri.com.vn/the-thao/", keepSlash.canonicalize("http://dantri.com.vn/the-thao/"));
+        assertEquals("http://dantri.com.vn/the-thao/", keepSlash.canonicalize("http://dantri.com.vn/the-thao/x/.."));
+    }
+
+    @Test
+    public void testEncoding() {
+        assertEquals("https://thanhnien.vn/~tin%20moi/%C4%91%E1%BB%9Di-s%E1%BB%91ng?q=a%2Fb",
+                canonicalizer.canonicalize("https://thanhnien.vn/%7etin moi/đời-sống?q=a%2fb"));
+        // "%2E" is not decoded, it would turn into a dot segment
+        assertEquals("https://thanhnien.vn/%2E%2E/x", canonicalizer.canonicalize("https://thanhnien.vn/%2e%2e/x"));
+    }
+
+    @Test
+    public void testDomainRulesApplyToSubdomainsOnly() {
+        assertEquals("https://m.vnexpress.net/x", canonicalizer.canonicalize("https://m.vnexpress.net/x?ref=home"));
+        assertEquals("https://thanhnien.vn/x?ref=home", canonicalizer.canonicalize("https://thanhnien.vn/x?ref=home"));
+        assertEquals("https://thanhnien.vn/x?a=1", canonicalizer.canonicalize("https://thanhnien.vn/x?UTM_Source=1&a=1"));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertNull(canonicalizer.canonicalize(null));
+        assertNull(canonicalizer.canonicalize("/relative/path"));
+        assertNull(canonicalizer.canonicalize("mailto:someone@example.com"));
+        assertNull(canonicalizer.canonicalize("ftp://example.com/file"));
+        assertNull(canonicalizer.canonicalize("https:///no-host"));
+        assertNull(canonicalizer.canonicalize("https://example.com:80a/"));
+    }
+
+    @Test
+    public void testIdempotent() {
+        List<String> urls = List.of(
+                "HTTP://User@Example.com:8080/a//b/./c/../d/?z=1&a=%7e&b=%2f#x",
+                "https://[2001:db8::1]:443/x?",
+                "https://thanhnien.vn/%7etin moi/đời-sống?q=a+b",
+                "https://example.com/%zz%2/a%");
+        for (String url : urls) {
+            String canonical = canonicalizer.canonicalize(url);
+            assertNotNull(canonical, url);
+            assertEquals(canonical, canonicalizer.canonicalize(canonical), url);
+        }
+        assertEquals("https://[2001:db8::1]/x", canonicalizer.canonicalize("https://[2001:db8::1]:443/x?"));
+        assertEquals("http://User@example.com:8080/a/b/d?a=~&b=%2F&z=1",
+                canonicalizer.canonicalize("HTTP://User@Example.com:8080/a//b/./c/../d/?z=1&a=%7e&b=%2f#x"));
+    }
+}
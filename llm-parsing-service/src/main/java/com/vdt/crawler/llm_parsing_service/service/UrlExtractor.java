@@ -1,6 +1,7 @@
 package com.vdt.crawler.llm_parsing_service.service;
 
 import com.vdt.crawler.llm_parsing_service.metric.LLMParsingMetrics;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -24,6 +26,8 @@ import static com.vdt.crawler.llm_parsing_service.util.UrlResolver.resolveUrl;
 @Service
 public class UrlExtractor implements Parsing{
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    // Page the URLs were found on, used by the frontier to plan revisits of hub pages
+    private static final String SOURCE_HEADER = "frontier-source";
     private final KafkaTemplate<String, String> newUrlParsingKafkaTemplate;
     private final UrlFilter urlFilter;
     private final SitemapExtractor sitemapExtractor;
@@ -40,18 +44,28 @@ public class UrlExtractor implements Parsing{
 
     @Override
     public void parse(String rawHtml) {
-        List<String> result = getParsingResult(rawHtml);
-        doAfterParse(result);
+        Document doc = Jsoup.parse(rawHtml);
+        List<String> result = getParsingResult(doc);
+        doAfterParse(result, extractBaseUrl(doc));
     }
 
     public void doAfterParse(List<String> result) {
+        doAfterParse(result, null);
+    }
+
+    public void doAfterParse(List<String> result, String sourceUrl) {
         if (result != null && !result.isEmpty()) {
             logger.info("Found {} URLs after filtering", result.size());
             int count = 0;
             for (String url : result) {
                 if (urlFilter.allow(url)) {
                     count++;
-                    newUrlParsingKafkaTemplate.send("new_url_tasks", url);
+                    // Keyed by host: all URLs of a host go to the same partition, so to the same frontier shard
+                    ProducerRecord<String, String> record = new ProducerRecord<>("new_url_tasks", hostKey(url), url);
+                    if (sourceUrl != null) {
+                        record.headers().add(SOURCE_HEADER, sourceUrl.getBytes(StandardCharsets.UTF_8));
+                    }
+                    newUrlParsingKafkaTemplate.send(record);
                     logger.debug("Sent new URL to Frontier: {}", url);
                 } else {
                     logger.debug("URL filtered out by UrlFilter: {}", url);
@@ -63,10 +77,16 @@ public class UrlExtractor implements Parsing{
         }
     }
 
-    private List<String> getParsingResult(String rawHtml) {
+    private static String hostKey(String url) {
         try {
-            Document doc = Jsoup.parse(rawHtml);
+            return new URL(url).getHost().toLowerCase();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
 
+    private List<String> getParsingResult(Document doc) {
+        try {
             List<String> sitemapUrls = sitemapExtractor.getParsingResult(doc);
             Set<String> sitemapUrlSet = new HashSet<>(sitemapUrls);
 